@@ -28,12 +28,36 @@ public interface DefaultServerAttributes {
 	
 	public static final String SERVER_TIMEOUT_STARTUP = "server.timeout.startup";
 	public static final String SERVER_TIMEOUT_SHUTDOWN = "server.timeout.shutdown";
+	
+	/*
+	 * The number of threads copying files while publishing. 
+	 * 0 or less uses one thread per processor, up to 8.
+	 */
+	public static final String PUBLISH_COPY_THREADS = "server.publish.copy.threads";
+	public static final int PUBLISH_COPY_THREADS_DEFAULT = 0;
+	/*
+	 * The number of deployables published at the same time. 
+	 * 1 or less publishes them one after another.
+	 */
+	public static final String PUBLISH_DEPLOYABLE_THREADS = "server.publish.deployable.threads";
+	public static final int PUBLISH_DEPLOYABLE_THREADS_DEFAULT = 1;
 
 	
 	/*
 	 * Deployment options 
 	 */
 	public static final String DEPLOYMENT_OPTION_OUTPUT_NAME = "deployment.output.name";
+	/*
+	 * Comma-separated globs, relative to an exploded deployment, 
+	 * of the folders to watch for changes, or never to watch.
+	 */
+	public static final String DEPLOYMENT_OPTION_WATCH_INCLUDES = "deployment.watch.includes";
+	public static final String DEPLOYMENT_OPTION_WATCH_EXCLUDES = "deployment.watch.excludes";
+	/*
+	 * Publish the files of an exploded deployment as hard links 
+	 * to the source files instead of copies, when on the same filesystem.
+	 */
+	public static final String DEPLOYMENT_OPTION_LINK_FILES = "deployment.link.files";
 	
 
 }
@@ -20,6 +20,7 @@ import org.jboss.tools.rsp.api.dao.CommandLineDetails;
 import org.jboss.tools.rsp.api.dao.CreateServerResponse;
 import org.jboss.tools.rsp.api.dao.DiscoveryPath;
 import org.jboss.tools.rsp.api.dao.DownloadSingleRuntimeRequest;
+import org.jboss.tools.rsp.api.dao.EventSubscription;
 import org.jboss.tools.rsp.api.dao.GetServerJsonResponse;
 import org.jboss.tools.rsp.api.dao.JobHandle;
 import org.jboss.tools.rsp.api.dao.JobProgress;
@@ -39,6 +40,8 @@ import org.jboss.tools.rsp.api.dao.ServerHandle;
 import org.jboss.tools.rsp.api.dao.ServerLaunchMode;
 import org.jboss.tools.rsp.api.dao.ServerStartingAttributes;
 import org.jboss.tools.rsp.api.dao.ServerState;
+import org.jboss.tools.rsp.api.dao.ServerStateRevisions;
+import org.jboss.tools.rsp.api.dao.ServerStatesDelta;
 import org.jboss.tools.rsp.api.dao.ServerType;
 import org.jboss.tools.rsp.api.dao.StartServerResponse;
 import org.jboss.tools.rsp.api.dao.Status;
@@ -446,4 +449,38 @@ public interface RSPServer {
 	@JsonRequest
 	public CompletableFuture<Status> cancelJob(JobHandle job);
 
+	/*
+	 * Events
+	 */
+
+	/**
+	 * The `server/subscribeEvents` request is sent by the client to declare 
+	 * which notifications it wants to receive, replacing its previous subscription.
+	 * A client receives all notifications until it subscribes. 
+	 * Omitting `serverProcessOutputAppended` from the event types 
+	 * opts out of process output entirely.
+	 * @param subscription The event types and server ids to receive notifications of, 
+	 *                     or null to receive all of them
+	 * @return
+	 */
+	@JsonRequest
+	public CompletableFuture<Status> subscribeEvents(EventSubscription subscription);
+
+	/**
+	 * The `server/resyncServerStates` request is sent by a reconnecting client 
+	 * with the revisions of the server states it last received. 
+	 * The response holds only the states of the servers that changed since, 
+	 * and the ids of the servers the client knows that were removed.
+	 * The states of all servers are sent if the revisions are of another epoch,
+	 * as they are once the server management server was restarted.
+	 * 
+	 * A newly connected client is otherwise sent the state of every server.
+	 * Sending this request first, before `server/registerClientCapabilities`,
+	 * replaces that.
+	 * @param revisions The last received revision of each server state, and their epoch
+	 * @return
+	 */
+	@JsonRequest
+	public CompletableFuture<ServerStatesDelta> resyncServerStates(ServerStateRevisions revisions);
+
 }
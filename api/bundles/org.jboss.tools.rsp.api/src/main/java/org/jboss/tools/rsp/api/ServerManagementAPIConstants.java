@@ -41,6 +41,22 @@ public interface ServerManagementAPIConstants extends DefaultServerAttributes {
 	
 	public static final String WORKFLOW_TERMINAL_CMD = "workflow.terminal.cmd";
 	
+	/*
+	 * Event types a client may subscribe to, named after the client notifications
+	 */
+	public static final String EVENT_DISCOVERY_PATH_ADDED = "discoveryPathAdded";
+	public static final String EVENT_DISCOVERY_PATH_REMOVED = "discoveryPathRemoved";
+	public static final String EVENT_SERVER_ADDED = "serverAdded";
+	public static final String EVENT_SERVER_REMOVED = "serverRemoved";
+	public static final String EVENT_SERVER_ATTRIBUTES_CHANGED = "serverAttributesChanged";
+	public static final String EVENT_SERVER_STATE_CHANGED = "serverStateChanged";
+	public static final String EVENT_SERVER_PROCESS_CREATED = "serverProcessCreated";
+	public static final String EVENT_SERVER_PROCESS_TERMINATED = "serverProcessTerminated";
+	public static final String EVENT_SERVER_PROCESS_OUTPUT_APPENDED = "serverProcessOutputAppended";
+	public static final String EVENT_JOB_ADDED = "jobAdded";
+	public static final String EVENT_JOB_REMOVED = "jobRemoved";
+	public static final String EVENT_JOB_CHANGED = "jobChanged";
+	
 	
 	
 	/**
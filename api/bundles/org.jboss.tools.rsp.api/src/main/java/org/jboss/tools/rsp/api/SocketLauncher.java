@@ -17,37 +17,120 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.eclipse.lsp4j.jsonrpc.Launcher;
 import org.eclipse.lsp4j.jsonrpc.RemoteEndpoint;
 
 public class SocketLauncher<T> implements Launcher<T> {
 
+	/*
+	 * Writes the header and content of each message the launcher sends
+	 * through at once, holding the lock from the first write of a message
+	 * until it is flushed, so messages written directly cannot end up in
+	 * the middle of it
+	 */
+	private static class MessageOutputStream extends OutputStream {
+		private final OutputStream out;
+		private final ReentrantLock lock = new ReentrantLock();
+
+		MessageOutputStream(OutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			beginMessage();
+			try {
+				out.write(b);
+			} catch(IOException | RuntimeException e) {
+				// the message is not flushed once it failed
+				endMessage();
+				throw e;
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			beginMessage();
+			try {
+				out.write(b, off, len);
+			} catch(IOException | RuntimeException e) {
+				endMessage();
+				throw e;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			try {
+				out.flush();
+			} finally {
+				endMessage();
+			}
+		}
+
+		void writeMessage(byte[] b) throws IOException {
+			lock.lock();
+			try {
+				out.write(b);
+				out.flush();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private void beginMessage() {
+			if( !lock.isHeldByCurrentThread()) {
+				lock.lock();
+			}
+		}
+
+		private void endMessage() {
+			if( lock.isHeldByCurrentThread()) {
+				lock.unlock();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+
 	private final Launcher<T> launcher;
 	private Future<Void> startListeningResult;
 	private Socket socket;
+	private final MessageOutputStream output;
+	private final boolean tracing;
 
 	public SocketLauncher(Object localService, Class<T> remoteInterface, Socket socket) throws IOException {
+		this.output = new MessageOutputStream(socket.getOutputStream());
 		this.launcher = Launcher.createLauncher(localService, remoteInterface, socket.getInputStream(),
-				socket.getOutputStream());
+				output);
 		this.socket = socket;
+		this.tracing = false;
 	}
 
 	public SocketLauncher(Object localService, Class<T> remoteInterface, Socket socket, PrintWriter tracing)
 			throws IOException {
+		this.output = new MessageOutputStream(socket.getOutputStream());
 		Launcher<T> launcherTmp = createLauncher(createBuilder(remoteInterface), localService,remoteInterface,
-				socket.getInputStream(),socket.getOutputStream(), tracing);
+				socket.getInputStream(), output, tracing);
 		this.launcher = launcherTmp;
 		this.socket = socket;
+		this.tracing = tracing != null;
 	}
 
 	public SocketLauncher(Object localService, Class<T> remoteInterface, 
 			Socket socket, Builder<T> b, PrintWriter tracing)
 			throws IOException {
+		this.output = new MessageOutputStream(socket.getOutputStream());
 		Launcher<T> launcherTmp = createLauncher(b, localService,remoteInterface,
-				socket.getInputStream(),socket.getOutputStream(), tracing);
+				socket.getInputStream(), output, tracing);
 		this.launcher = launcherTmp;
 		this.socket = socket;
+		this.tracing = tracing != null;
 	}
 
 	protected Builder<T> createBuilder(Class<T> remoteInterface) {
@@ -99,4 +182,24 @@ public class SocketLauncher<T> implements Launcher<T> {
 	public Future<Void> getStartListeningResult() {
 		return startListeningResult;
 	}
+
+	/**
+	 * Returns whether the messages sent are traced.
+	 * Messages written with {@link #writeMessage(byte[])} are not.
+	 */
+	public boolean isTracing() {
+		return tracing;
+	}
+
+	/**
+	 * Writes the given message, already serialized with its headers,
+	 * to the remote end. This allows sending a message serialized once
+	 * to many remote ends.
+	 * 
+	 * @param message the headers and content of a json-rpc message
+	 * @throws IOException if the message cannot be written
+	 */
+	public void writeMessage(byte[] message) throws IOException {
+		output.writeMessage(message);
+	}
 }
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ * 
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.api.dao;
+
+import java.util.List;
+
+/**
+ * The notifications a client wants to receive.
+ * 
+ * Event types are the names of the client notifications, 
+ * such as `serverStateChanged`. Null event types stand for all of them.
+ * Server ids restrict the notifications about servers to the given servers, 
+ * null server ids stand for all servers.
+ */
+public class EventSubscription {
+	private List<String> eventTypes;
+	private List<String> serverIds;
+
+	public EventSubscription() {
+
+	}
+
+	public EventSubscription(List<String> eventTypes, List<String> serverIds) {
+		this.eventTypes = eventTypes;
+		this.serverIds = serverIds;
+	}
+
+	public List<String> getEventTypes() {
+		return eventTypes;
+	}
+
+	public void setEventTypes(List<String> eventTypes) {
+		this.eventTypes = eventTypes;
+	}
+
+	public List<String> getServerIds() {
+		return serverIds;
+	}
+
+	public void setServerIds(List<String> serverIds) {
+		this.serverIds = serverIds;
+	}
+}
@@ -17,6 +17,8 @@ public class ServerState {
 	private int publishState;
 	private String runMode;
 	private List<DeployableState> deployableStates;
+	private long revision;
+	private String epoch;
 
 	public ServerState() {
 	}
@@ -60,4 +62,29 @@ public class ServerState {
 	public void setRunMode(String runMode) {
 		this.runMode = runMode;
 	}
+
+	/**
+	 * The revision of this state, which increases each time 
+	 * the state of any server changes. Revisions are only 
+	 * comparable within the same {@link #getEpoch() epoch}.
+	 */
+	public long getRevision() {
+		return revision;
+	}
+
+	public void setRevision(long revision) {
+		this.revision = revision;
+	}
+
+	/**
+	 * The epoch of the revision, which differs each time 
+	 * the server management server is started
+	 */
+	public String getEpoch() {
+		return epoch;
+	}
+
+	public void setEpoch(String epoch) {
+		this.epoch = epoch;
+	}
 }
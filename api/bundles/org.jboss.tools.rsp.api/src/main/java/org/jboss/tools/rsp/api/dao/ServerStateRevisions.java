@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ * 
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.api.dao;
+
+import java.util.Map;
+
+/**
+ * The revisions of the server states a client last received, by server id, 
+ * and their epoch.
+ */
+public class ServerStateRevisions {
+	private Map<String, Long> revisions;
+	private String epoch;
+
+	public ServerStateRevisions() {
+
+	}
+
+	public ServerStateRevisions(Map<String, Long> revisions, String epoch) {
+		this.revisions = revisions;
+		this.epoch = epoch;
+	}
+
+	public Map<String, Long> getRevisions() {
+		return revisions;
+	}
+
+	public void setRevisions(Map<String, Long> revisions) {
+		this.revisions = revisions;
+	}
+
+	public String getEpoch() {
+		return epoch;
+	}
+
+	public void setEpoch(String epoch) {
+		this.epoch = epoch;
+	}
+}
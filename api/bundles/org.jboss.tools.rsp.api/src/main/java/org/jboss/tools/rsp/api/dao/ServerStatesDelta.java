@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ * 
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.api.dao;
+
+import java.util.List;
+
+/**
+ * The states of the servers that changed since the revisions a client 
+ * last received, and the ids of the servers it knows that were removed.
+ */
+public class ServerStatesDelta {
+	private List<ServerState> changed;
+	private List<String> removed;
+
+	public ServerStatesDelta() {
+
+	}
+
+	public ServerStatesDelta(List<ServerState> changed, List<String> removed) {
+		this.changed = changed;
+		this.removed = removed;
+	}
+
+	public List<ServerState> getChanged() {
+		return changed;
+	}
+
+	public void setChanged(List<ServerState> changed) {
+		this.changed = changed;
+	}
+
+	public List<String> getRemoved() {
+		return removed;
+	}
+
+	public void setRemoved(List<String> removed) {
+		this.removed = removed;
+	}
+}
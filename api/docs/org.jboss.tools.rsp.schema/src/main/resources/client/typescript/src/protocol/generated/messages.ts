@@ -368,6 +368,36 @@ export namespace Messages {
         export namespace CancelJobRequest {
             export const type = new RequestType<Protocol.JobHandle, Protocol.Status, void, void>('server/cancelJob');
         }
+        /**
+         * The `server/subscribeEvents` request is sent by the client to declare 
+         * which notifications it wants to receive, replacing its previous subscription.
+         * A client receives all notifications until it subscribes. 
+         * Omitting `serverProcessOutputAppended` from the event types 
+         * opts out of process output entirely.
+         * @param subscription The event types and server ids to receive notifications of, 
+         *                     or null to receive all of them
+         * @return
+         */
+        export namespace SubscribeEventsRequest {
+            export const type = new RequestType<Protocol.EventSubscription, Protocol.Status, void, void>('server/subscribeEvents');
+        }
+        /**
+         * The `server/resyncServerStates` request is sent by a reconnecting client 
+         * with the revisions of the server states it last received. 
+         * The response holds only the states of the servers that changed since, 
+         * and the ids of the servers the client knows that were removed.
+         * The states of all servers are sent if the revisions are of another epoch,
+         * as they are once the server management server was restarted.
+         * 
+         * A newly connected client is otherwise sent the state of every server.
+         * Sending this request first, before `server/registerClientCapabilities`,
+         * replaces that.
+         * @param revisions The last received revision of each server state, and their epoch
+         * @return
+         */
+        export namespace ResyncServerStatesRequest {
+            export const type = new RequestType<Protocol.ServerStateRevisions, Protocol.ServerStatesDelta, void, void>('server/resyncServerStates');
+        }
     }
     /**
      * Client methods
@@ -159,6 +159,14 @@ export class Outgoing {
         return Common.sendSimpleRequest(this.connection, Messages.Server.CancelJobRequest.type,
             param, timeout, ErrorMessages.CANCELJOB_TIMEOUT);
     }
+    subscribeEvents(param: Protocol.EventSubscription, timeout: number = Common.DEFAULT_TIMEOUT): Promise<Protocol.Status> {
+        return Common.sendSimpleRequest(this.connection, Messages.Server.SubscribeEventsRequest.type,
+            param, timeout, ErrorMessages.SUBSCRIBEEVENTS_TIMEOUT);
+    }
+    resyncServerStates(param: Protocol.ServerStateRevisions, timeout: number = Common.DEFAULT_TIMEOUT): Promise<Protocol.ServerStatesDelta> {
+        return Common.sendSimpleRequest(this.connection, Messages.Server.ResyncServerStatesRequest.type,
+            param, timeout, ErrorMessages.RESYNCSERVERSTATES_TIMEOUT);
+    }
 }
 /**
  * Error messages
@@ -200,4 +208,6 @@ export namespace ErrorMessages {
     export const EXECUTESERVERACTION_TIMEOUT = 'Failed to execute server action in time';
     export const GETJOBS_TIMEOUT = 'Failed to get jobs in time';
     export const CANCELJOB_TIMEOUT = 'Failed to cancel job in time';
+    export const SUBSCRIBEEVENTS_TIMEOUT = 'Failed to subscribe events in time';
+    export const RESYNCSERVERSTATES_TIMEOUT = 'Failed to resync server states in time';
 }
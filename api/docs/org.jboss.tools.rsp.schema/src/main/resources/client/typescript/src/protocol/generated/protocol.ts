@@ -68,6 +68,11 @@ export namespace Protocol {
         data: { [index: string]: any };
     }
     
+    export interface EventSubscription {
+        eventTypes: string[];
+        serverIds: string[];
+    }
+    
     export interface GetServerJsonResponse {
         status: Status;
         serverJson: string;
@@ -202,6 +207,18 @@ export namespace Protocol {
         publishState: number;
         runMode: string;
         deployableStates: DeployableState[];
+        revision: number;
+        epoch: string;
+    }
+    
+    export interface ServerStateRevisions {
+        revisions: { [index: string]: number };
+        epoch: string;
+    }
+    
+    export interface ServerStatesDelta {
+        changed: ServerState[];
+        removed: string[];
     }
     
     export interface ServerType {
@@ -0,0 +1,4 @@
+export interface EventSubscription {
+    eventTypes: string[];
+    serverIds: string[];
+}
\ No newline at end of file
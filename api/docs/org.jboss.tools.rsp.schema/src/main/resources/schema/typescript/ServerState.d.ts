@@ -4,6 +4,8 @@ export interface ServerState {
     publishState: number;
     runMode: string;
     deployableStates: DeployableState[];
+    revision: number;
+    epoch: string;
 }
 
 export interface ServerHandle {
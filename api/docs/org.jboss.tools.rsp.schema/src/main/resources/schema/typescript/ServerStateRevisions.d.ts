@@ -0,0 +1,4 @@
+export interface ServerStateRevisions {
+    revisions: { [index: string]: number };
+    epoch: string;
+}
\ No newline at end of file
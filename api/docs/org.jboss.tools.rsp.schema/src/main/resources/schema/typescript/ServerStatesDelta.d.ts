@@ -0,0 +1,38 @@
+export interface ServerStatesDelta {
+    changed: ServerState[];
+    removed: string[];
+}
+
+export interface ServerState {
+    server: ServerHandle;
+    state: number;
+    publishState: number;
+    runMode: string;
+    deployableStates: DeployableState[];
+    revision: number;
+    epoch: string;
+}
+
+export interface ServerHandle {
+    id: string;
+    type: ServerType;
+}
+
+export interface DeployableState {
+    server: ServerHandle;
+    reference: DeployableReference;
+    state: number;
+    publishState: number;
+}
+
+export interface ServerType {
+    id: string;
+    visibleName: string;
+    description: string;
+}
+
+export interface DeployableReference {
+    label: string;
+    path: string;
+    options?: { [index: string]: any };
+}
\ No newline at end of file
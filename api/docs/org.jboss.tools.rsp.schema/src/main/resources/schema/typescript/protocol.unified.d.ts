@@ -64,6 +64,11 @@ export interface DownloadSingleRuntimeRequest {
     data: { [index: string]: any };
 }
 
+export interface EventSubscription {
+    eventTypes: string[];
+    serverIds: string[];
+}
+
 export interface GetServerJsonResponse {
     status: Status;
     serverJson: string;
@@ -198,6 +203,18 @@ export interface ServerState {
     publishState: number;
     runMode: string;
     deployableStates: DeployableState[];
+    revision: number;
+    epoch: string;
+}
+
+export interface ServerStateRevisions {
+    revisions: { [index: string]: number };
+    epoch: string;
+}
+
+export interface ServerStatesDelta {
+    changed: ServerState[];
+    removed: string[];
 }
 
 export interface ServerType {
@@ -149,6 +149,18 @@ public class WildFlyServerModelTest extends RSPCase {
 					"Set the inactivity limit before the autopublisher runs.", 
 					IJBossServerAttributes.AUTOPUBLISH_INACTIVITY_LIMIT_DEFAULT)
         		);
+        expected.put(IJBossServerAttributes.PUBLISH_COPY_THREADS,
+        		new Attribute(
+					ServerManagementAPIConstants.ATTR_TYPE_INT, 
+					"Set the number of threads copying files while publishing. 0 uses one thread per processor, up to 8.", 
+					IJBossServerAttributes.PUBLISH_COPY_THREADS_DEFAULT)
+        		);
+        expected.put(IJBossServerAttributes.PUBLISH_DEPLOYABLE_THREADS,
+        		new Attribute(
+					ServerManagementAPIConstants.ATTR_TYPE_INT, 
+					"Set the number of deployables published at the same time. 1 publishes them one after another.", 
+					IJBossServerAttributes.PUBLISH_DEPLOYABLE_THREADS_DEFAULT)
+        		);
         expected.put(IJBossServerAttributes.JBOSS_SERVER_HOST, 
         		new Attribute(
 					ServerManagementAPIConstants.ATTR_TYPE_STRING, 
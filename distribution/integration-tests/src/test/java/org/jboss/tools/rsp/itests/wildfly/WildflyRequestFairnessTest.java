@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.itests.wildfly;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.tools.rsp.api.RSPServer;
+import org.jboss.tools.rsp.api.dao.DiscoveryPath;
+import org.jboss.tools.rsp.api.dao.LaunchParameters;
+import org.jboss.tools.rsp.api.dao.ServerAttributes;
+import org.jboss.tools.rsp.api.dao.ServerHandle;
+import org.jboss.tools.rsp.api.dao.StartServerResponse;
+import org.jboss.tools.rsp.itests.RSPCase;
+import org.jboss.tools.rsp.itests.util.DummyClient;
+import org.jboss.tools.rsp.itests.util.DummyClientLauncher;
+import org.jboss.tools.rsp.server.RSPFlags;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A client flooding the server with requests
+ * must not delay the requests of another client.
+ */
+public class WildflyRequestFairnessTest extends RSPCase {
+
+	private static final String SERVER_ID = "wildfly-fairness";
+	private static final int FLOOD_SIZE = 2000;
+
+	private final DummyClient client = launcher.getClient();
+	private DummyClientLauncher otherLauncher;
+
+	@Before
+	public void before() throws Exception {
+		createServer(WILDFLY_ROOT, SERVER_ID);
+		otherLauncher = new DummyClientLauncher("localhost", 27511);
+		otherLauncher.launch();
+	}
+
+	@After
+	public void after() throws Exception {
+		if (otherLauncher != null) {
+			otherLauncher.closeConnection();
+		}
+		stopServer(client, SERVER_ID);
+		deleteServer(SERVER_ID);
+	}
+
+	@Test
+	public void testStartNotDelayedByOtherClientFlood() throws Exception {
+		ServerHandle handle = new ServerHandle(SERVER_ID, wildflyType);
+		// discovering a server takes long enough for the flood to stay queued
+		DiscoveryPath path = new DiscoveryPath(WILDFLY_ROOT);
+		// the order in which the requests of both clients are answered
+		AtomicInteger answered = new AtomicInteger();
+		CompletableFuture<?>[] flood = new CompletableFuture<?>[FLOOD_SIZE];
+		for (int i = 0; i < FLOOD_SIZE; i++) {
+			flood[i] = serverProxy.findServerBeans(path)
+					.whenComplete((beans, t) -> answered.incrementAndGet());
+		}
+
+		RSPServer otherProxy = otherLauncher.getServerProxy();
+		int answeredBeforeProbe = answered.get();
+		CompletableFuture<Integer> probe = otherProxy.getServerState(handle)
+				.thenApply(state -> answered.incrementAndGet());
+
+		Map<String, Object> attr = new HashMap<>();
+		attr.put("server.home.dir", WILDFLY_ROOT);
+		LaunchParameters params = new LaunchParameters(new ServerAttributes(wildflyType.getId(), SERVER_ID, attr), MODE_RUN);
+		StartServerResponse response = otherProxy.startServerAsync(params).get(SERVER_OPERATION_TIMEOUT, TimeUnit.MILLISECONDS);
+		assertEquals(0, response.getStatus().getSeverity());
+
+		// The request of the other client takes the thread a client cannot use, 
+		// so at most the flood requests already running finish before it.
+		int floodAnsweredMeanwhile = probe.get(SERVER_OPERATION_TIMEOUT, TimeUnit.MILLISECONDS) 
+				- answeredBeforeProbe - 1;
+		int bound = 2 * RSPFlags.getRequestThreads();
+		assertTrue("Answered after " + floodAnsweredMeanwhile + " requests of the flood", 
+				floodAnsweredMeanwhile <= bound);
+		assertTrue("The flood was answered before the other client's request", 
+				answeredBeforeProbe + bound < FLOOD_SIZE);
+		CompletableFuture.allOf(flood).get(SERVER_OPERATION_TIMEOUT * 3L, TimeUnit.MILLISECONDS);
+	}
+}
@@ -10,6 +10,10 @@
  *******************************************************************************/
 package org.jboss.tools.rsp.eclipse.debug.core.model;
 
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
 import org.jboss.tools.rsp.eclipse.debug.core.model.IStreamMonitor;
 
 /**
@@ -47,4 +51,45 @@ public interface IFlushableStreamMonitor extends IStreamMonitor {
 	 * buffered
 	 */
 	public boolean isBuffered();
+
+	/**
+	 * Returns the number of bytes read from this monitor's underlying stream,
+	 * whether or not they were buffered.
+	 *
+	 * @return the number of bytes read
+	 */
+	public default long getTotalBytes() {
+		return 0;
+	}
+
+	/**
+	 * Returns the number of bytes that are no longer part of the contents
+	 * because the buffer reached its capacity. The contents are the
+	 * last bytes read.
+	 *
+	 * @return the number of bytes dropped from the buffer
+	 */
+	public default long getDroppedBytes() {
+		return 0;
+	}
+
+	/**
+	 * Returns the files the bytes dropped from the contents were appended to,
+	 * oldest first. Together with the contents they make up the end of
+	 * the stream. The files are kept until this monitor is disposed.
+	 *
+	 * @return the files holding the dropped bytes, empty if they were discarded
+	 */
+	public default List<File> getSpillFiles() {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Releases the contents of this monitor and deletes the files
+	 * the dropped bytes were appended to. Called once the launch
+	 * of the monitored process is removed.
+	 */
+	public default void dispose() {
+		// nothing to release
+	}
 }
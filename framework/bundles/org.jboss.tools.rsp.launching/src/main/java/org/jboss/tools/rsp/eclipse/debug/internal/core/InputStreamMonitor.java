@@ -15,6 +15,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Vector;
 
+import org.jboss.tools.rsp.launching.ProcessIOService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,9 +38,18 @@ public class InputStreamMonitor {
 	 */
 	private Vector<String> fQueue;
 	/**
-	 * The thread which writes to the stream.
+	 * Whether the monitor started writing to the stream.
 	 */
-	private Thread fThread;
+	private boolean fStarted;
+	/**
+	 * Whether a task is writing the queue to the stream.
+	 */
+	private boolean fWriting;
+	/**
+	 * Whether the monitor is closing, the stream is closed
+	 * once the queue is written.
+	 */
+	private boolean fClosing;
 	/**
 	 * A lock for ensuring that writes to the queue are contiguous
 	 */
@@ -87,23 +97,30 @@ public class InputStreamMonitor {
 	public void write(String text) {
 		synchronized(fLock) {
 			fQueue.add(text);
-			fLock.notifyAll();
+			scheduleWrite();
 		}
 	}
 
 	/**
-	 * Starts a thread which writes the stream.
+	 * Writes the queue on the process I/O service, unless it is already.
+	 * Must be called holding the lock.
+	 */
+	private void scheduleWrite() {
+		if (fStarted && !fWriting && (fClosing || !fQueue.isEmpty())) {
+			fWriting = true;
+			ProcessIOService.getDefault().execute(this::write);
+		}
+	}
+
+	/**
+	 * Starts writing the stream.
 	 */
 	public void startMonitoring() {
-		if (fThread == null) {
-			fThread= new Thread(new Runnable() {
-				@Override
-				public void run() {
-					write();
-				}
-			}, "Input Stream Monitor"); //DebugCoreMessages.InputStreamMonitor_label);
-			fThread.setDaemon(true);
-			fThread.start();
+		synchronized(fLock) {
+			if (!fStarted) {
+				fStarted = true;
+				scheduleWrite();
+			}
 		}
 	}
 
@@ -112,53 +129,68 @@ public class InputStreamMonitor {
 	 * monitor and the underlying stream.
 	 */
 	public void close() {
-		if (fThread != null) {
-			Thread thread= fThread;
-			fThread= null;
-			thread.interrupt();
+		synchronized(fLock) {
+			if (fStarted && !fClosing) {
+				fClosing = true;
+				scheduleWrite();
+			}
 		}
 	}
 
 	/**
-	 * Continuously writes to the stream.
+	 * Writes the queue to the stream, closing the stream
+	 * if the monitor is closing.
 	 */
 	protected void write() {
-		while (fThread != null) {
-			writeNext();
-		}
-		if (!fClosed) {
-			try {
-			    fStream.close();
-			} catch (IOException e) {
-				log(e);
-			}
+		while (writeNext()) {
+			// keep writing
 		}
 	}
 
 	/**
-	 * Write the text in the queue to the stream.
+	 * Write the next text in the queue to the stream.
+	 *
+	 * @return whether there may be more to write
 	 */
-	protected void writeNext() {
-		while (!fQueue.isEmpty() && !fClosed) {
-			String text = fQueue.firstElement();
-			fQueue.removeElementAt(0);
-			try {
-				if (fEncoding != null) {
-					fStream.write(text.getBytes(fEncoding));
-				} else {
-					fStream.write(text.getBytes());
+	protected boolean writeNext() {
+		String text;
+		boolean closeStream = false;
+		synchronized(fLock) {
+			if (fQueue.isEmpty() || fClosed) {
+				fWriting = false;
+				if (!fClosing) {
+					return false;
 				}
-				fStream.flush();
+				fQueue.clear();
+				closeStream = !fClosed;
+				fClosed = true;
+				text = null;
+			} else {
+				text = fQueue.remove(0);
+			}
+		}
+		if (closeStream) {
+			try {
+			    fStream.close();
 			} catch (IOException e) {
 				log(e);
 			}
+			return false;
+		}
+		if (text == null) {
+			return false;
 		}
 		try {
-			synchronized(fLock) {
-				fLock.wait();
+			if (fEncoding != null) {
+				fStream.write(text.getBytes(fEncoding));
+			} else {
+				fStream.write(text.getBytes());
 			}
-		} catch (InterruptedException e) {
+			fStream.flush();
+		} catch (IOException e) {
+			log(e);
 		}
+		return true;
 	}
 
     /**
@@ -168,13 +200,13 @@ public class InputStreamMonitor {
      * @exception IOException if an exception occurs closing the input stream
      */
     public void closeInputStream() throws IOException {
-        if (!fClosed) {
+        synchronized(fLock) {
+            if (fClosed) {
+                throw new IOException();
+            }
             fClosed = true;
-            fStream.close();
-        } else {
-            throw new IOException();
         }
-
+        fStream.close();
     }
 	private void log(Throwable t) {
 		String msg = (t == null || t.getMessage() == null ? "Unknown Error" : t.getMessage());
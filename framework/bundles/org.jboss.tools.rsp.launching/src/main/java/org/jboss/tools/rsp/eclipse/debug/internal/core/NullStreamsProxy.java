@@ -16,14 +16,15 @@ import java.io.InputStream;
 import org.jboss.tools.rsp.eclipse.debug.core.IStreamListener;
 import org.jboss.tools.rsp.eclipse.debug.core.model.IStreamMonitor;
 import org.jboss.tools.rsp.eclipse.debug.core.model.IStreamsProxy2;
+import org.jboss.tools.rsp.launching.ProcessIOService;
 
 public class NullStreamsProxy implements IStreamsProxy2 {
     private NullStreamMonitor outputStreamMonitor;
     private NullStreamMonitor errorStreamMonitor;
 
     public NullStreamsProxy(Process process) {
-        outputStreamMonitor = new NullStreamMonitor(process.getInputStream());
-        errorStreamMonitor = new NullStreamMonitor(process.getErrorStream());
+        outputStreamMonitor = new NullStreamMonitor(process, process.getInputStream());
+        errorStreamMonitor = new NullStreamMonitor(process, process.getErrorStream());
     }
 
     /* (non-Javadoc)
@@ -59,27 +60,32 @@ public class NullStreamsProxy implements IStreamsProxy2 {
     private class NullStreamMonitor implements IStreamMonitor {
         private InputStream fStream;
 
-        public NullStreamMonitor(InputStream stream) {
+        public NullStreamMonitor(Process process, InputStream stream) {
             fStream = stream;
-            startReaderThread();
+            startReading(process);
         }
 
-        private void startReaderThread() {
-            Thread thread = new Thread(new Runnable() {
+        private void startReading(Process process) {
+            ProcessIOService.getDefault().read(process, new ProcessIOService.IStreamReader() {
+                private byte[] bytes = new byte[1024];
+
                 @Override
-				public void run() {
-                    byte[] bytes = new byte[1024];
+                public int read(boolean block) {
                     try {
-                        while(fStream.read(bytes) >= 0) {
-                            //do nothing
+                        if (!block && fStream.available() == 0) {
+                            return 0;
                         }
+                        //do nothing
+                        return fStream.read(bytes);
                     } catch (IOException e) {
+                        return -1;
                     }
                 }
-            }, "Null Streams Proxy");// DebugCoreMessages.NullStreamsProxy_0);
-            thread.setDaemon(true);
-            thread.start();
 
+                @Override
+                public void finish() {
+                }
+            });
         }
 
         /* (non-Javadoc)
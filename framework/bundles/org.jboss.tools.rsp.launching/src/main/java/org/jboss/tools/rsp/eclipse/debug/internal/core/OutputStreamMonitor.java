@@ -12,14 +12,29 @@ package org.jboss.tools.rsp.eclipse.debug.internal.core;
 
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.jboss.tools.rsp.eclipse.core.runtime.ISafeRunnable;
 import org.jboss.tools.rsp.eclipse.core.runtime.ListenerList;
 import org.jboss.tools.rsp.eclipse.core.runtime.SafeRunner;
 import org.jboss.tools.rsp.eclipse.debug.core.IStreamListener;
 import org.jboss.tools.rsp.eclipse.debug.core.model.IFlushableStreamMonitor;
+import org.jboss.tools.rsp.launching.ProcessIOService;
+import org.jboss.tools.rsp.launching.utils.ByteRingBuffer;
+import org.jboss.tools.rsp.launching.utils.ProcessOutputBuffers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,14 +65,19 @@ public class OutputStreamMonitor implements IFlushableStreamMonitor {
 	private boolean fBuffered = true;
 
 	/**
-	 * The local copy of the stream contents
+	 * The last bytes of the stream contents
 	 */
-	private StringBuffer fContents;
+	private ByteRingBuffer fContents;
 
 	/**
-	 * The thread which reads from the stream
+	 * The number of bytes read from the stream
 	 */
-	private Thread fThread;
+	private long fTotalBytes;
+
+	/**
+	 * Completed once the stream is not read anymore
+	 */
+	private CompletableFuture<Void> fDone;
 
 	/**
 	 * The size of the read buffer
@@ -71,9 +91,21 @@ public class OutputStreamMonitor implements IFlushableStreamMonitor {
 	 */
 	private boolean fKilled= false;
 
-    private long lastSleep;
+	private Charset fCharset;
 
-	private String fEncoding;
+	private CharsetDecoder fDecoder;
+
+	/**
+	 * The bytes read, along with those of a character split between two reads
+	 */
+	private ByteBuffer fBytes;
+
+	private CharBuffer fChars;
+
+	/**
+	 * Notifies the listeners. Appends are notified one at a time.
+	 */
+	private final ContentNotifier fNotifier = new ContentNotifier();
 
 	/**
 	 * Creates an output stream monitor on the
@@ -83,9 +115,37 @@ public class OutputStreamMonitor implements IFlushableStreamMonitor {
 	 * @param encoding stream encoding or <code>null</code> for system default
 	 */
 	public OutputStreamMonitor(InputStream stream, String encoding) {
+		this(stream, encoding, ProcessOutputBuffers.create());
+	}
+
+	/**
+	 * Creates an output stream monitor on the
+	 * given stream (connected to system out or err).
+	 *
+	 * @param stream input stream to read from
+	 * @param encoding stream encoding or <code>null</code> for system default
+	 * @param contents the buffer keeping the last contents of the stream
+	 */
+	public OutputStreamMonitor(InputStream stream, String encoding, ByteRingBuffer contents) {
         fStream = new BufferedInputStream(stream, 8192);
-        fEncoding = encoding;
-		fContents= new StringBuffer();
+        fCharset = toCharset(encoding);
+		fContents= contents;
+		fDecoder = fCharset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		fBytes = ByteBuffer.allocate(BUFFER_SIZE);
+		fChars = CharBuffer.allocate((int) Math.ceil(BUFFER_SIZE * (double) fDecoder.maxCharsPerByte()));
+	}
+
+	private static Charset toCharset(String encoding) {
+		if (encoding != null) {
+			try {
+				return Charset.forName(encoding);
+			} catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+				LOG.error("Unsupported encoding " + encoding + ", using the default one", e);
+			}
+		}
+		return Charset.defaultCharset();
 	}
 
 	/* (non-Javadoc)
@@ -99,18 +159,29 @@ public class OutputStreamMonitor implements IFlushableStreamMonitor {
 	/**
 	 * Causes the monitor to close all
 	 * communications between it and the
-	 * underlying stream by waiting for the thread to terminate.
+	 * underlying stream by waiting for the reading to end.
 	 */
 	protected void close() {
-		if (fThread != null) {
-			Thread thread= fThread;
-			fThread= null;
-			try {
-				thread.join();
-			} catch (InterruptedException ie) {
-			}
-			fListeners = new ListenerList<>();
+		try {
+			closeAsync().get();
+		} catch (InterruptedException | ExecutionException e) {
+		}
+	}
+
+	/**
+	 * Causes the monitor to close all
+	 * communications between it and the
+	 * underlying stream once the reading ended.
+	 * 
+	 * @return a future completed once the reading ended
+	 */
+	protected CompletableFuture<Void> closeAsync() {
+		CompletableFuture<Void> done= fDone;
+		if (done == null) {
+			return CompletableFuture.completedFuture(null);
 		}
+		fDone= null;
+		return done.thenRun(() -> fListeners = new ListenerList<>());
 	}
 
 	/**
@@ -119,7 +190,7 @@ public class OutputStreamMonitor implements IFlushableStreamMonitor {
 	 * @param text the text that was appended to the stream
 	 */
 	private void fireStreamAppended(String text) {
-		getNotifier().notifyAppend(text);
+		fNotifier.notifyAppend(text);
 	}
 
 	/* (non-Javadoc)
@@ -127,65 +198,107 @@ public class OutputStreamMonitor implements IFlushableStreamMonitor {
 	 */
 	@Override
 	public synchronized String getContents() {
-		return fContents.toString();
+		byte[] bytes = fContents.toByteArray();
+		int start = 0;
+		if( fContents.getDroppedBytes() > 0 && StandardCharsets.UTF_8.equals(fCharset)) {
+			// do not start with the remainder of a dropped character
+			while( start < bytes.length && (bytes[start] & 0xC0) == 0x80 ) {
+				start++;
+			}
+		}
+		return new String(bytes, start, bytes.length - start, fCharset);
 	}
 
 	/**
-	 * Continually reads from the stream.
-	 * <p>
-	 * This method, along with the <code>startReading</code>
-	 * method is used to allow <code>OutputStreamMonitor</code>
-	 * to implement <code>Runnable</code> without publicly
-	 * exposing a <code>run</code> method.
+	 * @see IFlushableStreamMonitor#getTotalBytes()
 	 */
-	private void read() {
-        lastSleep = System.currentTimeMillis();
-        long currentTime = lastSleep;
-		byte[] bytes= new byte[BUFFER_SIZE];
-		int read = 0;
-		while (read >= 0) {
-			try {
-				if (fKilled) {
-					break;
-				}
-				read= fStream.read(bytes);
-				if (read > 0) {
-					String text;
-					if (fEncoding != null) {
-						text = new String(bytes, 0, read, fEncoding);
-					} else {
-						text = new String(bytes, 0, read);
-					}
-					synchronized (this) {
-						if (isBuffered()) {
-							fContents.append(text);
-						}
-						fireStreamAppended(text);
+	@Override
+	public synchronized long getTotalBytes() {
+		return fTotalBytes;
+	}
+
+	/**
+	 * @see IFlushableStreamMonitor#getDroppedBytes()
+	 */
+	@Override
+	public synchronized long getDroppedBytes() {
+		return fContents.getDroppedBytes();
+	}
+
+	/**
+	 * @see IFlushableStreamMonitor#getSpillFiles()
+	 */
+	@Override
+	public List<File> getSpillFiles() {
+		return fContents.getSpillFiles();
+	}
+
+	/**
+	 * @see IFlushableStreamMonitor#dispose()
+	 */
+	@Override
+	public synchronized void dispose() {
+		fContents.dispose();
+	}
+
+	/**
+	 * Reads the bytes available from the stream.
+	 *
+	 * @param block whether to wait for bytes to be available
+	 * @return the number of bytes read, or -1 if the stream ended
+	 * @see ProcessIOService.IStreamReader#read(boolean)
+	 */
+	private int read(boolean block) {
+		if (fKilled) {
+			return -1;
+		}
+		try {
+			if (!block && fStream.available() == 0) {
+				return 0;
+			}
+			int carried = fBytes.position();
+			int read= fStream.read(fBytes.array(), carried, fBytes.remaining());
+			if (read > 0) {
+				fBytes.position(carried + read);
+				fBytes.flip();
+				String text = decode(fDecoder, fBytes, fChars, false);
+				synchronized (this) {
+					fTotalBytes += read;
+					if (isBuffered()) {
+						fContents.write(fBytes.array(), carried, read);
 					}
+					fireStreamAppended(text);
 				}
-			} catch (IOException ioe) {
-				if (!fKilled) {
-					log(ioe);
-				}
-				return;
-			} catch (NullPointerException e) {
-				// killing the stream monitor while reading can cause an NPE
-				// when reading from the stream
-				if (!fKilled && fThread != null) {
-					log(e);
-				}
-				return;
+				fBytes.compact();
+			}
+			return read;
+		} catch (IOException ioe) {
+			if (!fKilled) {
+				log(ioe);
+			}
+			return -1;
+		} catch (NullPointerException e) {
+			// killing the stream monitor while reading can cause an NPE
+			// when reading from the stream
+			if (!fKilled && fDone != null) {
+				log(e);
 			}
+			return -1;
+		}
+	}
 
-            currentTime = System.currentTimeMillis();
-            if (currentTime - lastSleep > 1000) {
-                lastSleep = currentTime;
-                try {
-                    Thread.sleep(1); // just give up CPU to maintain UI responsiveness.
-                } catch (InterruptedException e) {
-                }
-            }
+	/**
+	 * Notifies what is left of the stream and closes it. 
+	 * The spill files of the contents are kept until this monitor is disposed.
+	 */
+	private void finish() {
+		// an incomplete character at the end of the stream is replaced
+		fBytes.flip();
+		String text = decode(fDecoder, fBytes, fChars, true);
+		synchronized (this) {
+			fireStreamAppended(text);
 		}
+		fContents.close();
 		try {
 			fStream.close();
 		} catch (IOException e) {
@@ -193,6 +306,23 @@ public class OutputStreamMonitor implements IFlushableStreamMonitor {
 		}
 	}
 
+	/**
+	 * Decodes the given bytes, leaving those of an incomplete character
+	 * unless the end of the input is reached.
+	 * 
+	 * @return the decoded text, or <code>null</code> if there is none
+	 */
+	private static String decode(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer chars, boolean endOfInput) {
+		decoder.decode(bytes, chars, endOfInput);
+		if (endOfInput) {
+			decoder.flush(chars);
+		}
+		chars.flip();
+		String text = chars.hasRemaining() ? chars.toString() : null;
+		chars.clear();
+		return text;
+	}
+
 	protected void kill() {
 		fKilled= true;
 	}
@@ -206,19 +336,31 @@ public class OutputStreamMonitor implements IFlushableStreamMonitor {
 	}
 
 	/**
-	 * Starts a thread which reads from the stream
+	 * Starts reading from the stream
 	 */
 	protected void startMonitoring() {
-		if (fThread == null) {
-			fThread= new Thread(new Runnable() {
+		startMonitoring(null);
+	}
+
+	/**
+	 * Starts reading from the stream of the given process
+	 *
+	 * @param process the process whose stream is read, or <code>null</code> if unknown
+	 * @see ProcessIOService#read(Process, ProcessIOService.IStreamReader)
+	 */
+	protected void startMonitoring(Process process) {
+		if (fDone == null) {
+			fDone= ProcessIOService.getDefault().read(process, new ProcessIOService.IStreamReader() {
 				@Override
-				public void run() {
-					read();
+				public int read(boolean block) {
+					return OutputStreamMonitor.this.read(block);
 				}
-			}, "Output Stream Monitor"); // DebugCoreMessages.OutputStreamMonitor_label);
-            fThread.setDaemon(true);
-            fThread.setPriority(Thread.MIN_PRIORITY);
-			fThread.start();
+
+				@Override
+				public void finish() {
+					OutputStreamMonitor.this.finish();
+				}
+			});
 		}
 	}
 
@@ -235,7 +377,7 @@ public class OutputStreamMonitor implements IFlushableStreamMonitor {
 	 */
 	@Override
 	public synchronized void flushContents() {
-		fContents.setLength(0);
+		fContents.clear();
 	}
 
 	/**
@@ -246,10 +388,6 @@ public class OutputStreamMonitor implements IFlushableStreamMonitor {
 		return fBuffered;
 	}
 
-	private ContentNotifier getNotifier() {
-		return new ContentNotifier();
-	}
-
 	class ContentNotifier implements ISafeRunnable {
 
 		private IStreamListener fListener;
@@ -12,6 +12,7 @@ package org.jboss.tools.rsp.eclipse.debug.internal.core;
 
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import org.jboss.tools.rsp.eclipse.debug.core.model.IStreamMonitor;
 import org.jboss.tools.rsp.eclipse.debug.core.model.IStreamsProxy;
@@ -54,8 +55,8 @@ public class StreamsProxy implements IStreamsProxy, IStreamsProxy2 {
 		fOutputMonitor= new OutputStreamMonitor(process.getInputStream(), encoding);
 		fErrorMonitor= new OutputStreamMonitor(process.getErrorStream(), encoding);
 		fInputMonitor= new InputStreamMonitor(process.getOutputStream(), encoding);
-		fOutputMonitor.startMonitoring();
-		fErrorMonitor.startMonitoring();
+		fOutputMonitor.startMonitoring(process);
+		fErrorMonitor.startMonitoring(process);
 		fInputMonitor.startMonitoring();
 	}
 
@@ -66,11 +67,23 @@ public class StreamsProxy implements IStreamsProxy, IStreamsProxy2 {
 	 * in the streams is read.
 	 */
 	public void close() {
-		if (!isClosed(true)) {
-			fOutputMonitor.close();
-			fErrorMonitor.close();
-			fInputMonitor.close();
+		closeAsync().join();
+	}
+
+	/**
+	 * Causes the proxy to close all
+	 * communications between it and the
+	 * underlying streams once all remaining data
+	 * in the streams is read, without waiting for it.
+	 * 
+	 * @return a future completed once the streams are closed
+	 */
+	public CompletableFuture<Void> closeAsync() {
+		if (isClosed(true)) {
+			return CompletableFuture.completedFuture(null);
 		}
+		return CompletableFuture.allOf(fOutputMonitor.closeAsync(), fErrorMonitor.closeAsync())
+				.thenRun(fInputMonitor::close);
 	}
 
 	/**
@@ -0,0 +1,337 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.launching;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the output streams of all launched processes and observes their exit
+ * on a few shared threads, rather than on several threads per process.
+ *
+ * Where virtual threads are available, each stream is read by a virtual thread
+ * blocking on it. Otherwise a small pool polls the streams for the bytes
+ * available, backing off while they are idle. Once a process has exited,
+ * its streams are read until nothing is left, without waiting for their end,
+ * which child processes that inherited them might hold back. A virtual thread
+ * that is still blocked on such a stream a while after its process exited
+ * is given up on.
+ *
+ * Process exit is observed with {@code Process.onExit()} where it is available,
+ * otherwise by checking the processes periodically on the pool.
+ */
+public class ProcessIOService {
+	private static final Logger LOG = LoggerFactory.getLogger(ProcessIOService.class);
+
+	/**
+	 * Reads a stream of a process
+	 */
+	public interface IStreamReader {
+		/**
+		 * Reads the bytes of the stream that are available.
+		 *
+		 * @param block whether to wait for bytes to be available
+		 * @return the number of bytes read, 0 if there were none,
+		 *         or -1 if the stream ended or cannot be read anymore
+		 */
+		int read(boolean block);
+
+		/**
+		 * Called once no more bytes are read
+		 */
+		void finish();
+	}
+
+	private static final long MIN_IDLE_DELAY = 1;
+	private static final long MAX_IDLE_DELAY = 50;
+	private static final long EXIT_CHECK_DELAY = 100;
+	/*
+	 * The time a blocking read may still take once the process exited
+	 */
+	private static final long EXITED_READ_TIMEOUT = 1000;
+	/*
+	 * Reads of a stream in a row before the thread goes to the other streams
+	 */
+	private static final int MAX_READS_PER_TURN = 16;
+
+	private static final Method ON_EXIT = findOnExit();
+
+	private static ProcessIOService instance;
+
+	public static synchronized ProcessIOService getDefault() {
+		if( instance == null ) {
+			int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+			instance = new ProcessIOService(threads, true);
+		}
+		return instance;
+	}
+
+	private final ScheduledThreadPoolExecutor pool;
+	private final ThreadPoolExecutor tasks;
+	private final ExecutorService readers;
+
+	/**
+	 * @param threads the number of threads polling the streams,
+	 *                and running the tasks of this service
+	 * @param useVirtualThreads whether to read the streams with virtual threads
+	 *                          if they are available
+	 */
+	public ProcessIOService(int threads, boolean useVirtualThreads) {
+		this(threads, useVirtualThreads ? newVirtualThreadExecutor() : null);
+	}
+
+	/**
+	 * @param threads the number of threads polling the streams,
+	 *                and running the tasks of this service
+	 * @param readers the executor reading each stream on a thread of its own,
+	 *                or {@code null} to poll the streams
+	 */
+	public ProcessIOService(int threads, ExecutorService readers) {
+		if( threads <= 0 ) {
+			throw new IllegalArgumentException("The number of threads must be positive");
+		}
+		this.pool = new ScheduledThreadPoolExecutor(threads, new DaemonThreadFactory("Process I/O"));
+		this.pool.setRemoveOnCancelPolicy(true);
+		this.tasks = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), new DaemonThreadFactory("Process I/O Task"));
+		this.tasks.allowCoreThreadTimeOut(true);
+		this.readers = readers;
+	}
+
+	/**
+	 * Reads the given stream of the given process until it ends,
+	 * or until the process exited and nothing is left to read.
+	 * When polling, a stream ending before its process exits is only
+	 * finished once the process exits.
+	 *
+	 * @param process the process whose stream is read, or {@code null} if unknown.
+	 *                Streams of unknown processes are read until they end,
+	 *                blocking one of the task threads unless virtual threads are used.
+	 * @param reader the reader of the stream
+	 * @return a future completed once the reader finished
+	 */
+	public CompletableFuture<Void> read(Process process, IStreamReader reader) {
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		if( readers != null && process != null ) {
+			readers.execute(() -> readUntilDrained(process, reader, done));
+			onExit(process).thenRun(() -> pool.schedule(
+					() -> giveUp(process, done), EXITED_READ_TIMEOUT, TimeUnit.MILLISECONDS));
+		} else if( readers != null ) {
+			readers.execute(() -> readUntilEnd(reader, done));
+		} else if( process == null ) {
+			tasks.execute(() -> readUntilEnd(reader, done));
+		} else {
+			pool.execute(new StreamPoller(process, reader, done));
+		}
+		return done;
+	}
+
+	private static void readUntilEnd(IStreamReader reader, CompletableFuture<Void> done) {
+		try {
+			while( reader.read(true) >= 0 ) {
+				// keep reading
+			}
+		} catch(RuntimeException re) {
+			LOG.error("Error reading the output of a process", re);
+		}
+		finish(reader, done);
+	}
+
+	/*
+	 * Blocks on the stream while the process is alive, 
+	 * then reads what is left without waiting for the stream to end
+	 */
+	private static void readUntilDrained(Process process, IStreamReader reader, CompletableFuture<Void> done) {
+		try {
+			while( true ) {
+				// checked first, all its output is available once the process exited
+				boolean exited = !process.isAlive();
+				int read = reader.read(!exited);
+				if( read < 0 || (read == 0 && exited))
+					break;
+			}
+		} catch(RuntimeException re) {
+			LOG.error("Error reading the output of a process", re);
+		}
+		finish(reader, done);
+	}
+
+	/*
+	 * The reader is blocked on a stream that a child of the exited process holds.
+	 * It finishes whenever the stream ends, no one waits for it anymore.
+	 */
+	private static void giveUp(Process process, CompletableFuture<Void> done) {
+		if( done.complete(null)) {
+			LOG.debug("Stopped waiting for the output of exited process " + process);
+		}
+	}
+
+	private static void finish(IStreamReader reader, CompletableFuture<Void> done) {
+		try {
+			reader.finish();
+		} catch(RuntimeException re) {
+			LOG.error("Error reading the output of a process", re);
+		}
+		done.complete(null);
+	}
+
+	/**
+	 * Returns a future completed with the given process once it exited.
+	 * Dependent actions that do not say otherwise run on the task threads
+	 * of this service.
+	 *
+	 * @param process the process to observe
+	 */
+	public CompletableFuture<Process> onExit(Process process) {
+		CompletableFuture<Process> ret = new CompletableFuture<>();
+		CompletableFuture<?> exit = nativeOnExit(process);
+		if( exit != null ) {
+			exit.whenCompleteAsync((p, t) -> ret.complete(process), tasks);
+		} else {
+			pool.execute(() -> checkExit(process, ret));
+		}
+		return ret;
+	}
+
+	private void checkExit(Process process, CompletableFuture<Process> exit) {
+		if( exit.isDone())
+			return;
+		if( process.isAlive()) {
+			pool.schedule(() -> checkExit(process, exit), EXIT_CHECK_DELAY, TimeUnit.MILLISECONDS);
+		} else {
+			tasks.execute(() -> exit.complete(process));
+		}
+	}
+
+	/**
+	 * Runs the given task on the task threads of this service.
+	 * Tasks may block for a short while, such as when writing to a process.
+	 */
+	public void execute(Runnable task) {
+		tasks.execute(task);
+	}
+
+	/**
+	 * Returns whether each stream is read by a thread of its own, 
+	 * such as a virtual thread
+	 */
+	public boolean usesVirtualThreads() {
+		return readers != null;
+	}
+
+	public void dispose() {
+		pool.shutdownNow();
+		tasks.shutdownNow();
+		if( readers != null ) {
+			readers.shutdownNow();
+		}
+	}
+
+	/*
+	 * Reads a stream for a while, then gives the thread to the other streams
+	 */
+	private class StreamPoller implements Runnable {
+		private final Process process;
+		private final IStreamReader reader;
+		private final CompletableFuture<Void> done;
+		private long idleDelay = MIN_IDLE_DELAY;
+
+		StreamPoller(Process process, IStreamReader reader, CompletableFuture<Void> done) {
+			this.process = process;
+			this.reader = reader;
+			this.done = done;
+		}
+
+		@Override
+		public void run() {
+			try {
+				for( int i = 0; i < MAX_READS_PER_TURN; i++ ) {
+					// checked first, all its output is available once the process exited
+					boolean exited = !process.isAlive();
+					int read = reader.read(false);
+					if( read < 0 || (read == 0 && exited)) {
+						finish(reader, done);
+						return;
+					}
+					if( read == 0 ) {
+						pool.schedule(this, idleDelay, TimeUnit.MILLISECONDS);
+						idleDelay = Math.min(MAX_IDLE_DELAY, idleDelay * 2);
+						return;
+					}
+					idleDelay = MIN_IDLE_DELAY;
+				}
+				pool.execute(this);
+			} catch(RuntimeException re) {
+				LOG.error("Error reading the output of a process", re);
+				finish(reader, done);
+			}
+		}
+	}
+
+	private static class DaemonThreadFactory implements ThreadFactory {
+		private final String name;
+		private final AtomicInteger count = new AtomicInteger();
+
+		DaemonThreadFactory(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, name + " " + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+	/*
+	 * Virtual threads are available from Java 21 on
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService)m.invoke(null);
+		} catch(ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/*
+	 * Process.onExit() is available from Java 9 on
+	 */
+	private static Method findOnExit() {
+		try {
+			return Process.class.getMethod("onExit");
+		} catch(NoSuchMethodException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static CompletableFuture<?> nativeOnExit(Process process) {
+		if( ON_EXIT == null )
+			return null;
+		try {
+			return (CompletableFuture<?>)ON_EXIT.invoke(process);
+		} catch(ReflectiveOperationException | RuntimeException e) {
+			LOG.debug("Could not observe the exit of process " + process, e);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.launching.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the last bytes written to it, up to a fixed capacity.
+ * Older bytes are dropped, or appended to a spill file if there is one.
+ * The spill file is rolled over to a single backup once it reaches its
+ * maximum size, so at most twice that size is kept on disk.
+ */
+public class ByteRingBuffer {
+	private static final Logger LOG = LoggerFactory.getLogger(ByteRingBuffer.class);
+
+	private static final String BACKUP_SUFFIX = ".1";
+	private static final int INITIAL_SIZE = 8192;
+
+	private final int capacity;
+	// grows up to the capacity, short lived processes print little
+	private byte[] buffer;
+	private int start;
+	private int size;
+	private long total;
+	private long dropped;
+
+	private final File spillFile;
+	private final long maxSpillSize;
+	private OutputStream spill;
+	private long spillSize;
+	private boolean spillFailed;
+	private boolean disposed;
+
+	public ByteRingBuffer(int capacity) {
+		this(capacity, null, 0);
+	}
+
+	/**
+	 * @param capacity the number of bytes kept in memory
+	 * @param spillFile the file dropped bytes are appended to, or {@code null}
+	 * @param maxSpillSize the size at which the spill file is rolled over, in bytes
+	 */
+	public ByteRingBuffer(int capacity, File spillFile, long maxSpillSize) {
+		if( capacity <= 0 ) {
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		this.capacity = capacity;
+		this.buffer = new byte[Math.min(capacity, INITIAL_SIZE)];
+		this.spillFile = maxSpillSize > 0 ? spillFile : null;
+		this.maxSpillSize = maxSpillSize;
+	}
+
+	public synchronized void write(byte[] bytes, int off, int len) {
+		total += len;
+		if( len >= capacity ) {
+			drop(size);
+			int skipped = len - capacity;
+			spill(bytes, off, skipped);
+			dropped += skipped;
+			grow(capacity);
+			System.arraycopy(bytes, off + skipped, buffer, 0, capacity);
+			start = 0;
+			size = capacity;
+			return;
+		}
+		if( size + len > buffer.length ) {
+			grow(size + len);
+		}
+		int overflow = size + len - buffer.length;
+		if( overflow > 0 ) {
+			drop(overflow);
+		}
+		int length = buffer.length;
+		int end = (start + size) % length;
+		int first = Math.min(len, length - end);
+		System.arraycopy(bytes, off, buffer, end, first);
+		System.arraycopy(bytes, off + first, buffer, 0, len - first);
+		size += len;
+	}
+
+	private void grow(int required) {
+		if( buffer.length >= capacity )
+			return;
+		int length = buffer.length;
+		while( length < required && length < capacity ) {
+			length = (int)Math.min(capacity, length * 2L);
+		}
+		byte[] kept = toByteArray();
+		buffer = new byte[length];
+		System.arraycopy(kept, 0, buffer, 0, kept.length);
+		start = 0;
+	}
+
+	/*
+	 * Drops the given number of the oldest bytes
+	 */
+	private void drop(int count) {
+		int length = buffer.length;
+		int first = Math.min(count, length - start);
+		spill(buffer, start, first);
+		spill(buffer, 0, count - first);
+		start = (start + count) % length;
+		size -= count;
+		dropped += count;
+	}
+
+	private void spill(byte[] bytes, int off, int len) {
+		if( spillFile == null || spillFailed || disposed || len == 0 )
+			return;
+		try {
+			if( spill == null ) {
+				spillSize = spillFile.length();
+			}
+			if( spillSize > 0 && spillSize + len > maxSpillSize ) {
+				roll();
+			}
+			if( spill == null ) {
+				spillFile.getParentFile().mkdirs();
+				spill = new FileOutputStream(spillFile, true);
+			}
+			spill.write(bytes, off, len);
+			spillSize += len;
+		} catch(IOException ioe) {
+			LOG.error("Could not write to " + spillFile + ", dropped output is discarded from now on", ioe);
+			closeSpill();
+			spillFailed = true;
+		}
+	}
+
+	private void roll() throws IOException {
+		closeSpill();
+		File backup = getBackupFile();
+		if( backup.exists() && !backup.delete()) {
+			throw new IOException("Could not delete " + backup);
+		}
+		if( !spillFile.renameTo(backup)) {
+			throw new IOException("Could not rename " + spillFile);
+		}
+		spillSize = 0;
+	}
+
+	private void closeSpill() {
+		if( spill != null ) {
+			try {
+				spill.close();
+			} catch(IOException ioe) {
+				// ignore
+			}
+			spill = null;
+		}
+	}
+
+	/**
+	 * Returns a copy of the bytes kept, oldest first
+	 */
+	public synchronized byte[] toByteArray() {
+		byte[] ret = new byte[size];
+		int first = Math.min(size, buffer.length - start);
+		System.arraycopy(buffer, start, ret, 0, first);
+		System.arraycopy(buffer, 0, ret, first, size - first);
+		return ret;
+	}
+
+	/**
+	 * Discards the bytes kept, without spilling them
+	 */
+	public synchronized void clear() {
+		start = 0;
+		size = 0;
+	}
+
+	/**
+	 * Closes the spill file, if any.
+	 * Bytes written afterwards reopen it.
+	 */
+	public synchronized void close() {
+		closeSpill();
+	}
+
+	/**
+	 * Closes and deletes the spill file and its backup, if any. 
+	 * Bytes dropped afterwards are discarded.
+	 */
+	public synchronized void dispose() {
+		disposed = true;
+		closeSpill();
+		if( spillFile != null ) {
+			delete(spillFile);
+			delete(getBackupFile());
+		}
+	}
+
+	private static void delete(File f) {
+		if( f.exists() && !f.delete()) {
+			LOG.warn("Could not delete " + f);
+		}
+	}
+
+	private File getBackupFile() {
+		return new File(spillFile.getPath() + BACKUP_SUFFIX);
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of bytes written since this buffer was created
+	 */
+	public synchronized long getTotalBytes() {
+		return total;
+	}
+
+	/**
+	 * Returns the number of bytes dropped because the buffer was full,
+	 * whether or not they were spilled
+	 */
+	public synchronized long getDroppedBytes() {
+		return dropped;
+	}
+
+	public File getSpillFile() {
+		return spillFile;
+	}
+
+	/**
+	 * Returns the files holding the bytes dropped so far, oldest first. 
+	 * The backup the spill file rolled over to comes first, if any.
+	 * 
+	 * @return the existing spill files, empty once disposed
+	 */
+	public synchronized List<File> getSpillFiles() {
+		List<File> ret = new ArrayList<>(2);
+		if( spillFile == null || disposed )
+			return ret;
+		File backup = getBackupFile();
+		if( backup.exists())
+			ret.add(backup);
+		if( spillFile.exists())
+			ret.add(spillFile);
+		return ret;
+	}
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.launching.utils;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the buffers keeping the output of launched processes,
+ * as configured by the application.
+ */
+public class ProcessOutputBuffers {
+	private static final Logger LOG = LoggerFactory.getLogger(ProcessOutputBuffers.class);
+
+	/**
+	 * The number of bytes of each output stream kept in memory by default
+	 */
+	public static final int DEFAULT_CAPACITY = 1024 * 1024;
+
+	private static final AtomicInteger COUNT = new AtomicInteger();
+	private static final String SPILL_PREFIX = "output-";
+
+	private static volatile int capacity = DEFAULT_CAPACITY;
+	private static volatile File spillDirectory;
+	private static volatile long maxSpillSize;
+
+	private ProcessOutputBuffers() {
+		// inhibit instantiation
+	}
+
+	/**
+	 * Configures the buffers created afterwards. 
+	 * Spill files left in the given folder by a previous run are deleted.
+	 *
+	 * @param capacity the number of bytes of each output stream kept in memory
+	 * @param spillDirectory the folder of the files dropped output is appended to,
+	 *                       or {@code null} to discard it
+	 * @param maxSpillSize the size of each spill file before it rolls over,
+	 *                     or 0 to discard dropped output
+	 */
+	public static void configure(int capacity, File spillDirectory, long maxSpillSize) {
+		ProcessOutputBuffers.capacity = capacity > 0 ? capacity : DEFAULT_CAPACITY;
+		ProcessOutputBuffers.spillDirectory = spillDirectory;
+		ProcessOutputBuffers.maxSpillSize = maxSpillSize;
+		deleteSpillFiles(spillDirectory);
+	}
+
+	/*
+	 * The buffers delete their spill files once disposed, along with 
+	 * the launch of their process. Files found here belong to a previous run.
+	 */
+	private static void deleteSpillFiles(File dir) {
+		File[] children = dir == null ? null : dir.listFiles((d, name) -> name.startsWith(SPILL_PREFIX));
+		if( children == null )
+			return;
+		for( File f : children ) {
+			if( !f.delete()) {
+				LOG.warn("Could not delete " + f);
+			}
+		}
+	}
+
+	public static ByteRingBuffer create() {
+		File dir = spillDirectory;
+		long max = maxSpillSize;
+		if( dir == null || max <= 0 ) {
+			return new ByteRingBuffer(capacity);
+		}
+		File spill = new File(dir, SPILL_PREFIX + System.currentTimeMillis() + "-" + COUNT.incrementAndGet() + ".log");
+		return new ByteRingBuffer(capacity, spill, max);
+	}
+}
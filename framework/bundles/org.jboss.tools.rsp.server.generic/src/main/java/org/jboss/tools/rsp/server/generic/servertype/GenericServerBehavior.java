@@ -13,6 +13,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.regex.Pattern;
 
 import org.jboss.tools.rsp.api.DefaultServerAttributes;
 import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
@@ -52,7 +53,8 @@ import org.jboss.tools.rsp.server.spi.model.polling.IPollResultListener;
 import org.jboss.tools.rsp.server.spi.model.polling.IServerStatePoller;
 import org.jboss.tools.rsp.server.spi.model.polling.IServerStatePoller.SERVER_STATE;
 import org.jboss.tools.rsp.server.spi.model.polling.PollThreadUtils;
-import org.jboss.tools.rsp.server.spi.model.polling.WebPortPoller;
+import org.jboss.tools.rsp.server.spi.model.polling.LogPatternPoller;
+import org.jboss.tools.rsp.server.spi.model.polling.NioWebPortPoller;
 import org.jboss.tools.rsp.server.spi.servertype.CreateServerValidation;
 import org.jboss.tools.rsp.server.spi.servertype.IServer;
 import org.jboss.tools.rsp.server.spi.servertype.IServerDelegate;
@@ -68,6 +70,7 @@ public class GenericServerBehavior extends AbstractServerDelegate
 	public static final String START_LAUNCH_SHARED_DATA = "GenericServerBehavior.startLaunch";
 	public static final boolean FLAG_MODE_START = true;
 	public static final boolean FLAG_MODE_STOP = false;
+	private static final int DEFAULT_LOG_POLLER_FALLBACK_DELAY = 30000;
 	
 
 	private JSONMemento behaviorMemento;
@@ -322,26 +325,54 @@ public class GenericServerBehavior extends AbstractServerDelegate
 		if("webPoller".equals(pollerId)) {
 			JSONMemento props = startupMemento.getChild("pollerProperties");
 			if( props != null ) {
-				String urlFromProps = props.getString("url");
-				String fromPropsWithSubs = urlFromProps;
-				try {
-					fromPropsWithSubs = applySubstitutions(urlFromProps);
-				} catch(CoreException ce) {
-					// TODO log
-				}
-				final String finalUrl = fromPropsWithSubs;
-				WebPortPoller toRun = new WebPortPoller("Web Poller: " + this.getServer().getName()) {
-					@Override
-					protected String getURL(IServer server) {
-						return finalUrl;
-					}
-				};
-				return toRun;
+				return getWebPoller(props.getString("url"));
+			}
+		}
+		if("logPoller".equals(pollerId)) {
+			JSONMemento props = startupMemento.getChild("pollerProperties");
+			if( props != null ) {
+				return getLogPoller(props);
 			}
 		}
 		return null;
 	}
 
+	private IServerStatePoller getWebPoller(String urlFromProps) {
+		String fromPropsWithSubs = urlFromProps;
+		try {
+			fromPropsWithSubs = applySubstitutions(urlFromProps);
+		} catch(CoreException ce) {
+			// TODO log
+		}
+		final String finalUrl = fromPropsWithSubs;
+		NioWebPortPoller toRun = new NioWebPortPoller("Web Poller: " + this.getServer().getName()) {
+			@Override
+			protected String getURL(IServer server) {
+				return finalUrl;
+			}
+		};
+		return toRun;
+	}
+
+	/*
+	 * Matches the output of the server with the "started", "failed" and "stopped" 
+	 * patterns. If a "url" is given, it is pinged when no line matched
+	 * after "fallbackDelay" milliseconds.
+	 */
+	private IServerStatePoller getLogPoller(JSONMemento props) {
+		String url = props.getString("url");
+		Integer fallbackDelay = props.getInteger("fallbackDelay");
+		IServerStatePoller fallback = url == null ? null : getWebPoller(url);
+		return new LogPatternPoller("Log Poller: " + this.getServer().getName(),
+				toPattern(props.getString("started")), 
+				toPattern(props.getString("failed")),
+				toPattern(props.getString("stopped")),
+				fallback, fallbackDelay == null ? DEFAULT_LOG_POLLER_FALLBACK_DELAY : fallbackDelay);
+	}
+
+	private Pattern toPattern(String regex) {
+		return regex == null || regex.isEmpty() ? null : Pattern.compile(regex);
+	}
 
 	private void launchPoller(SERVER_STATE upOrDown, String pollerId, JSONMemento startupMemento) {
 		// TODO eventually break this out
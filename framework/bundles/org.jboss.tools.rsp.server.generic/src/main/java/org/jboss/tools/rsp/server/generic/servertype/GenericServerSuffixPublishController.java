@@ -43,6 +43,15 @@ public class GenericServerSuffixPublishController extends AbstractFilesystemPubl
 		util.addAttribute(ServerManagementAPIConstants.DEPLOYMENT_OPTION_OUTPUT_NAME, 
 				ServerManagementAPIConstants.ATTR_TYPE_STRING,
 				"Customize the output name including extension for this deployment. Example: sample.war (Leave blank for default)", null);
+		util.addAttribute(ServerManagementAPIConstants.DEPLOYMENT_OPTION_WATCH_INCLUDES, 
+				ServerManagementAPIConstants.ATTR_TYPE_STRING,
+				"Comma-separated globs of the folders to watch in an exploded deployment. Example: WEB-INF/classes/** (Leave blank to watch all folders)", null);
+		util.addAttribute(ServerManagementAPIConstants.DEPLOYMENT_OPTION_WATCH_EXCLUDES, 
+				ServerManagementAPIConstants.ATTR_TYPE_STRING,
+				"Comma-separated globs of the folders never to watch in an exploded deployment. Example: **/.git/**,**/node_modules/**", null);
+		util.addAttribute(ServerManagementAPIConstants.DEPLOYMENT_OPTION_LINK_FILES, 
+				ServerManagementAPIConstants.ATTR_TYPE_BOOL,
+				"Publish an exploded deployment as hard links to its files instead of copies. Files are copied if the deployment folder is on another filesystem.", false);
 		return util.toPojo();
 	}
 	
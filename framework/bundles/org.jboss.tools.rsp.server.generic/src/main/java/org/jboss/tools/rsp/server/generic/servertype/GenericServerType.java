@@ -11,6 +11,7 @@ package org.jboss.tools.rsp.server.generic.servertype;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.jboss.tools.rsp.api.DefaultServerAttributes;
 import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
 import org.jboss.tools.rsp.api.dao.Attributes;
 import org.jboss.tools.rsp.api.dao.ServerLaunchMode;
@@ -73,11 +74,31 @@ public class GenericServerType extends AbstractServerType {
 			if( optionalAttributes != null ) {
 				fillAttributeUtility(attrs, optionalAttributes);
 			}
+			fillPublishAttributes(attrs);
 			this.optional = attrs.toPojo();
 		}
 		return optional;
 	}
 	
+	/*
+	 * Declare the publish attributes every server type supports,
+	 * unless the extension declares them itself
+	 */
+	private void fillPublishAttributes(CreateServerAttributesUtility attrs) {
+		if( !attrs.listAttributes().contains(DefaultServerAttributes.PUBLISH_COPY_THREADS)) {
+			attrs.addAttribute(DefaultServerAttributes.PUBLISH_COPY_THREADS, 
+					ServerManagementAPIConstants.ATTR_TYPE_INT, 
+					"Set the number of threads copying files while publishing. 0 uses one thread per processor, up to 8.", 
+					DefaultServerAttributes.PUBLISH_COPY_THREADS_DEFAULT);
+		}
+		if( !attrs.listAttributes().contains(DefaultServerAttributes.PUBLISH_DEPLOYABLE_THREADS)) {
+			attrs.addAttribute(DefaultServerAttributes.PUBLISH_DEPLOYABLE_THREADS, 
+					ServerManagementAPIConstants.ATTR_TYPE_INT, 
+					"Set the number of deployables published at the same time. 1 publishes them one after another.", 
+					DefaultServerAttributes.PUBLISH_DEPLOYABLE_THREADS_DEFAULT);
+		}
+	}
+	
 	private void fillAttributeUtility(CreateServerAttributesUtility util, JSONMemento memento) {
 		JSONMemento[] attrKeys = memento.getChildren();
 		for( int i = 0; i < attrKeys.length; i++ ) {
@@ -8,6 +8,24 @@
  ******************************************************************************/
 package org.jboss.tools.rsp.server.spi.filewatcher;
 
+import java.util.List;
+
 public interface IFileWatcherEventListener {
 	public void fileChanged(FileWatcherEvent event);
+
+	/**
+	 * Called by a file watcher service delivering events in batches. 
+	 * Events for the same path have already been coalesced, and 
+	 * the events are in the order their paths first changed. 
+	 * 
+	 * The default implementation calls {@link #fileChanged(FileWatcherEvent)}
+	 * for each event. 
+	 * 
+	 * @param events the coalesced events
+	 */
+	public default void filesChanged(List<FileWatcherEvent> events) {
+		for( FileWatcherEvent event : events ) {
+			fileChanged(event);
+		}
+	}
 }
@@ -19,5 +19,26 @@ public interface IFileWatcherService {
 	public void addFileWatcherListener(Path path, 
 			IFileWatcherEventListener listener, boolean recursive);
 	
+	/**
+	 * Add a listener for the given path, limiting which folders 
+	 * below it are watched when the listener is recursive. 
+	 * Patterns are globs relative to the given path, 
+	 * for example "target/classes/**" or "**&#47;.git/**". 
+	 * Events for files in folders that are not watched are not delivered.
+	 * 
+	 * Implementations that do not support filtering watch every folder.
+	 * 
+	 * @param path the path to listen to
+	 * @param listener the listener
+	 * @param recursive whether to listen to changes in all folders below the path
+	 * @param includes the folders to watch, or null to watch all folders
+	 * @param excludes the folders never to watch, or null
+	 */
+	public default void addFileWatcherListener(Path path, 
+			IFileWatcherEventListener listener, boolean recursive, 
+			String[] includes, String[] excludes) {
+		addFileWatcherListener(path, listener, recursive);
+	}
+	
 	public void removeFileWatcherListener(Path path, IFileWatcherEventListener listener);
 }
@@ -11,57 +11,115 @@ package org.jboss.tools.rsp.server.spi.model.polling;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
 
 import org.jboss.tools.rsp.server.spi.servertype.IServer;
 
+/**
+ * A poller that pings the server until it is in the expected state.
+ * Pings are scheduled on the shared {@link PollScheduler}, 
+ * spaced as the poller's {@link PollingPolicy} decides. 
+ * Pings that block run on the scheduler's separate pool.
+ */
 public abstract class AbstractPoller implements IServerStatePoller {
 
-	private static final long POLLING_DELAY = 200;
-
 	private IServer server;
 	private boolean canceled; 
 	private boolean done;
 	private SERVER_STATE state;
 	private SERVER_STATE expectedState;
-	private ExecutorService executor = Executors.newSingleThreadExecutor(
-			(Runnable runnable) -> new Thread(runnable, getThreadName()));
+	private ScheduledFuture<?> nextPing;
+	private CompletableFuture<SERVER_STATE> pendingPing;
+	private PollingPolicy.Schedule schedule;
+	private long startTime;
 	
 	public void beginPolling(IServer server, SERVER_STATE expectedState) {
 		this.server = server;
 		this.canceled = done = false;
 		this.expectedState = expectedState;
 		this.state = SERVER_STATE.UNKNOWN;
+		this.startTime = System.currentTimeMillis();
+		this.schedule = getPollingPolicy().start(
+				PollingPolicy.getExpectedDuration(server, expectedState));
 		launchThread();
 	}
 
 	protected void launchThread() {
-		executor.execute(() -> pollerRun());
+		setStateInternal(false, state);
+		schedulePing(0);
+	}
+
+	protected PollScheduler getScheduler() {
+		return PollScheduler.getDefault();
+	}
+
+	/**
+	 * Returns the policy spacing the pings. 
+	 * Server types whose pings are costly should ping less often.
+	 */
+	protected PollingPolicy getPollingPolicy() {
+		return PollingPolicy.DEFAULT;
+	}
+
+	private synchronized void schedulePing(long delay) {
+		if( !canceled && !done ) {
+			nextPing = getScheduler().schedule(this::pollerRun, delay);
+		}
 	}
 
 	private void pollerRun() {
-		setStateInternal(false, state);
-		while (!canceled && !done) {
-			SERVER_STATE stat = onePing(server);
-			if (expectedState == stat) {
-				setStateInternal(true, stat);
-			}
-			try {
-				Thread.sleep(POLLING_DELAY);
-			} catch (InterruptedException e) {
-				cancel(CANCELATION_CAUSE.CANCEL);
-			}
+		if( isCanceledOrDone())
+			return;
+		CompletableFuture<SERVER_STATE> ping = onePingAsync(server);
+		synchronized(this) {
+			pendingPing = ping;
+		}
+		ping.whenComplete((stat, t) -> pinged(t == null ? stat : SERVER_STATE.UNKNOWN));
+	}
+
+	private void pinged(SERVER_STATE stat) {
+		if( isCanceledOrDone())
+			return;
+		if (expectedState == stat) {
+			setStateInternal(true, stat);
+			if( !isCanceled())
+				PollingPolicy.recordDuration(server, stat, System.currentTimeMillis() - startTime);
+		} else {
+			schedulePing(schedule.nextDelay());
 		}
 	}
 
+	private synchronized boolean isCanceledOrDone() {
+		return canceled || done;
+	}
+
+	private synchronized boolean isCanceled() {
+		return canceled;
+	}
+
 	protected abstract SERVER_STATE onePing(IServer server);
+
+	/**
+	 * Pings the server without waiting for the answer.
+	 * Pollers that can ping without blocking a thread override this, 
+	 * the default runs the blocking {@link #onePing(IServer)} 
+	 * outside of the scheduled pool.
+	 */
+	protected CompletableFuture<SERVER_STATE> onePingAsync(IServer server) {
+		return getScheduler().runBlocking(() -> onePing(server));
+	}
 	
 	private synchronized void setStateInternal(boolean done, SERVER_STATE state) {
+		if( canceled ) 
+			return;
 		this.done = done;
 		this.state = state;
 	}
 	
+	/**
+	 * Returns a name describing this poller
+	 */
 	protected abstract String getThreadName();
 
 	@Override
@@ -81,7 +139,21 @@ public abstract class AbstractPoller implements IServerStatePoller {
 	
 	@Override
 	public void cleanup() {
-		executor.shutdownNow();
+		ScheduledFuture<?> f;
+		CompletableFuture<SERVER_STATE> ping;
+		synchronized(this) {
+			f = nextPing;
+			ping = pendingPing;
+			nextPing = null;
+			pendingPing = null;
+		}
+		if( f != null ) {
+			f.cancel(false);
+		}
+		if( ping != null ) {
+			// Interrupts a ping that is in progress
+			ping.cancel(false);
+		}
 	}
 
 	@Override
@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.spi.model.polling;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ScheduledFuture;
+import java.util.regex.Pattern;
+
+import org.jboss.tools.rsp.api.dao.ServerHandle;
+import org.jboss.tools.rsp.server.spi.model.IServerModelListener;
+import org.jboss.tools.rsp.server.spi.model.ServerModelListenerAdapter;
+import org.jboss.tools.rsp.server.spi.servertype.IServer;
+
+/**
+ * A poller that reads the output of the server's processes
+ * and concludes as soon as a line matches one of its patterns.
+ * It does not ping the server at all.
+ *
+ * Output is matched line by line, no matter how it is split in chunks.
+ * When expecting the server to be up, a line matching the started pattern
+ * concludes it is up, and a line matching the failed or stopped pattern
+ * concludes it is down. When expecting it to be down, only the stopped
+ * pattern is looked for.
+ *
+ * Servers may log elsewhere than to the console. If a fallback poller is given,
+ * it begins polling when no line matched within the fallback delay,
+ * and its answer is used as well. It also answers synchronous state requests,
+ * since there is no output to read then.
+ */
+public class LogPatternPoller implements IServerStatePoller {
+
+	/*
+	 * Longer lines are only matched on their end
+	 */
+	private static final int MAX_LINE_LENGTH = 16 * 1024;
+
+	private final String name;
+	private final Pattern started;
+	private final Pattern failed;
+	private final Pattern stopped;
+	private final IServerStatePoller fallback;
+	private final long fallbackDelay;
+
+	private IServer server;
+	private SERVER_STATE expectedState;
+	private SERVER_STATE state;
+	private boolean done;
+	private boolean canceled;
+	private boolean fallbackStarted;
+	private final StringBuilder line = new StringBuilder();
+	private IServerModelListener listener;
+	private ScheduledFuture<?> fallbackStart;
+
+	/**
+	 * @param name a name describing this poller
+	 * @param started the pattern of the line printed once the server is started, or {@code null}
+	 * @param failed the pattern of a line printed if the server fails to start, or {@code null}
+	 * @param stopped the pattern of the line printed once the server is stopped, or {@code null}
+	 */
+	public LogPatternPoller(String name, Pattern started, Pattern failed, Pattern stopped) {
+		this(name, started, failed, stopped, null, 0);
+	}
+
+	/**
+	 * @param name a name describing this poller
+	 * @param started the pattern of the line printed once the server is started, or {@code null}
+	 * @param failed the pattern of a line printed if the server fails to start, or {@code null}
+	 * @param stopped the pattern of the line printed once the server is stopped, or {@code null}
+	 * @param fallback the poller to use if no line matches, or {@code null}
+	 * @param fallbackDelay the time to wait for a matching line
+	 *                      before using the fallback poller, in milliseconds
+	 */
+	public LogPatternPoller(String name, Pattern started, Pattern failed, Pattern stopped,
+			IServerStatePoller fallback, long fallbackDelay) {
+		this.name = name;
+		this.started = started;
+		this.failed = failed;
+		this.stopped = stopped;
+		this.fallback = fallback;
+		this.fallbackDelay = fallbackDelay;
+	}
+
+	@Override
+	public void beginPolling(IServer server, SERVER_STATE expectedState) throws PollingException {
+		synchronized(this) {
+			this.server = server;
+			this.expectedState = expectedState;
+			this.state = SERVER_STATE.UNKNOWN;
+			this.done = canceled = fallbackStarted = false;
+			this.line.setLength(0);
+		}
+		if( server != null ) {
+			IServerModelListener l = new ServerModelListenerAdapter() {
+				@Override
+				public void serverProcessOutputAppended(ServerHandle handle, String processId, int streamType, String text) {
+					if( server.getId().equals(handle.getId())) {
+						outputAppended(text);
+					}
+				}
+			};
+			synchronized(this) {
+				listener = l;
+			}
+			server.getServerModel().addServerModelListener(l);
+		}
+		if( fallback != null ) {
+			ScheduledFuture<?> f = getScheduler().schedule(this::startFallback, fallbackDelay);
+			synchronized(this) {
+				fallbackStart = f;
+			}
+		}
+	}
+
+	protected PollScheduler getScheduler() {
+		return PollScheduler.getDefault();
+	}
+
+	/**
+	 * Matches the given output of the server
+	 */
+	protected void outputAppended(String text) {
+		boolean concluded;
+		synchronized(this) {
+			if( done || canceled )
+				return;
+			int start = 0;
+			int end;
+			while( !done && (end = text.indexOf('\n', start)) != -1 ) {
+				append(text, start, end);
+				match(line);
+				line.setLength(0);
+				start = end + 1;
+			}
+			if( !done && start < text.length()) {
+				// An incomplete line may already tell
+				append(text, start, text.length());
+				match(line);
+			}
+			concluded = done;
+		}
+		if( concluded ) {
+			stopListening();
+		}
+	}
+
+	private void append(String text, int start, int end) {
+		line.append(text, start, end);
+		if( line.length() > MAX_LINE_LENGTH ) {
+			line.delete(0, line.length() - MAX_LINE_LENGTH);
+		}
+	}
+
+	private void match(CharSequence text) {
+		if( expectedState == SERVER_STATE.UP ) {
+			if( matches(started, text)) {
+				conclude(SERVER_STATE.UP);
+			} else if( matches(failed, text) || matches(stopped, text)) {
+				conclude(SERVER_STATE.DOWN);
+			}
+		} else if( matches(stopped, text)) {
+			conclude(SERVER_STATE.DOWN);
+		}
+	}
+
+	private static boolean matches(Pattern p, CharSequence text) {
+		return p != null && p.matcher(text).find();
+	}
+
+	private void conclude(SERVER_STATE state) {
+		this.state = state;
+		this.done = true;
+	}
+
+	private void startFallback() {
+		synchronized(this) {
+			if( done || canceled )
+				return;
+			fallbackStarted = true;
+		}
+		try {
+			fallback.beginPolling(server, expectedState);
+		} catch(PollingException pe) {
+			cancel(CANCELATION_CAUSE.FAILED);
+		}
+	}
+
+	private void stopListening() {
+		IServerModelListener l;
+		ScheduledFuture<?> f;
+		IServer s;
+		synchronized(this) {
+			l = listener;
+			f = fallbackStart;
+			s = server;
+			listener = null;
+			fallbackStart = null;
+		}
+		if( l != null && s != null ) {
+			s.getServerModel().removeServerModelListener(l);
+		}
+		if( f != null ) {
+			f.cancel(false);
+		}
+	}
+
+	private synchronized boolean isFallbackStarted() {
+		return fallbackStarted;
+	}
+
+	@Override
+	public boolean isComplete() throws PollingException, RequiresInfoException {
+		synchronized(this) {
+			if( done )
+				return true;
+		}
+		return isFallbackStarted() && fallback.isComplete();
+	}
+
+	@Override
+	public SERVER_STATE getState() throws PollingException, RequiresInfoException {
+		synchronized(this) {
+			if( done || canceled )
+				return state;
+		}
+		if( isFallbackStarted() && fallback.isComplete())
+			return fallback.getState();
+		synchronized(this) {
+			return state;
+		}
+	}
+
+	@Override
+	public void cleanup() {
+		stopListening();
+		if( isFallbackStarted()) {
+			fallback.cleanup();
+		}
+	}
+
+	@Override
+	public void cancel(CANCELATION_CAUSE cause) {
+		synchronized(this) {
+			this.canceled = true;
+			this.state = null;
+		}
+		if( isFallbackStarted()) {
+			fallback.cancel(cause);
+		}
+		cleanup();
+	}
+
+	@Override
+	public TIMEOUT_BEHAVIOR getTimeoutBehavior() {
+		return fallback == null ? TIMEOUT_BEHAVIOR.FAIL : fallback.getTimeoutBehavior();
+	}
+
+	@Override
+	public List<String> getRequiredProperties() {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public void provideCredentials(Properties credentials) {
+	}
+
+	@Override
+	public synchronized IServer getServer() {
+		return server;
+	}
+
+	@Override
+	public SERVER_STATE getCurrentStateSynchronous(IServer server) {
+		return fallback == null ? SERVER_STATE.UNKNOWN : fallback.getCurrentStateSynchronous(server);
+	}
+
+	@Override
+	public String toString() {
+		return "Log Poller: " + name;
+	}
+}
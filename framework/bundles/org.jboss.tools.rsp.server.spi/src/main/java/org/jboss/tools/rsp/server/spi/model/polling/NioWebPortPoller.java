@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.spi.model.polling;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.jboss.tools.rsp.server.spi.servertype.IServer;
+
+/**
+ * A web port poller that pings with HEAD requests sent on the shared
+ * {@link WebPortSelector}, reusing its connection between pings.
+ * No thread waits for the server to answer.
+ *
+ * Urls other than http are pinged the way {@link WebPortPoller} does.
+ */
+public abstract class NioWebPortPoller extends WebPortPoller {
+
+	private WebPortSelector.Connection connection;
+
+	public NioWebPortPoller(String name) {
+		super(name);
+	}
+
+	protected WebPortSelector getSelector() {
+		return WebPortSelector.getDefault();
+	}
+
+	@Override
+	protected CompletableFuture<SERVER_STATE> onePingAsync(IServer server) {
+		URL url = getHttpURL(server);
+		if( url == null )
+			return super.onePingAsync(server);
+		return ping(getConnection(url), url);
+	}
+
+	@Override
+	protected SERVER_STATE onePing(IServer server) {
+		URL url = getHttpURL(server);
+		if( url == null )
+			return super.onePing(server);
+		WebPortSelector.Connection c = createConnection(url);
+		try {
+			return ping(c, url).get();
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			return SERVER_STATE.DOWN;
+		} catch(ExecutionException ee) {
+			return SERVER_STATE.DOWN;
+		} finally {
+			getSelector().close(c);
+		}
+	}
+
+	private CompletableFuture<SERVER_STATE> ping(WebPortSelector.Connection c, URL url) {
+		String path = url.getFile().isEmpty() ? "/" : url.getFile();
+		// Any answer, even an error, means the server is up
+		return getSelector().ping(c, path, CONNECT_TIMEOUT, RESPONSE_TIMEOUT)
+				.handle((status, t) -> t == null ? SERVER_STATE.UP : SERVER_STATE.DOWN);
+	}
+
+	private URL getHttpURL(IServer server) {
+		try {
+			URL url = new URL(getURL(server));
+			return "http".equals(url.getProtocol()) ? url : null;
+		} catch(MalformedURLException e) {
+			return null;
+		}
+	}
+
+	/*
+	 * The host is resolved once, when the connection is created for the poll
+	 */
+	private synchronized WebPortSelector.Connection getConnection(URL url) {
+		if( connection == null 
+				|| !connection.getAddress().getHostString().equals(url.getHost())
+				|| connection.getAddress().getPort() != getPort(url)) {
+			closeConnection();
+			connection = createConnection(url);
+		}
+		return connection;
+	}
+
+	private static WebPortSelector.Connection createConnection(URL url) {
+		return new WebPortSelector.Connection(url.getHost(), getPort(url));
+	}
+
+	private static int getPort(URL url) {
+		return url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+	}
+
+	private synchronized void closeConnection() {
+		if( connection != null ) {
+			getSelector().close(connection);
+			connection = null;
+		}
+	}
+
+	@Override
+	public void cleanup() {
+		super.cleanup();
+		closeConnection();
+	}
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.spi.model.polling;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the checks of all server pollers as scheduled tasks
+ * on a small pool shared by all servers, rather than
+ * on threads that sleep between checks.
+ * 
+ * Pings that block, such as running a process or connecting to a port, 
+ * run on a separate pool so that they do not delay the checks of other servers.
+ */
+public class PollScheduler {
+	private static final Logger LOG = LoggerFactory.getLogger(PollScheduler.class);
+	private static final int MAX_THREADS = 4;
+	private static final long BLOCKING_KEEP_ALIVE = 60;
+
+	private static PollScheduler instance;
+	private static ExecutorService blockingInstance;
+
+	public static synchronized PollScheduler getDefault() {
+		if( instance == null ) {
+			int threads = Math.max(2, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+			instance = new PollScheduler(createExecutor(threads), getDefaultBlockingExecutor());
+		}
+		return instance;
+	}
+
+	private static synchronized ExecutorService getDefaultBlockingExecutor() {
+		if( blockingInstance == null ) {
+			blockingInstance = createBlockingExecutor();
+		}
+		return blockingInstance;
+	}
+
+	/*
+	 * Each poller waits for one ping at a time, 
+	 * the pool grows with the servers being pinged at once
+	 */
+	private static ExecutorService createBlockingExecutor() {
+		AtomicInteger count = new AtomicInteger();
+		return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 
+				BLOCKING_KEEP_ALIVE, TimeUnit.SECONDS, new SynchronousQueue<>(), (Runnable r) -> {
+			Thread t = new Thread(r, "Server Ping " + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	private static ScheduledExecutorService createExecutor(int threads) {
+		AtomicInteger count = new AtomicInteger();
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads, (Runnable r) -> {
+			Thread t = new Thread(r, "Server Poller " + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		// Checks are cancelled whenever a server reaches its state
+		executor.setRemoveOnCancelPolicy(true);
+		return executor;
+	}
+
+	private final ScheduledExecutorService executor;
+	private final ExecutorService blockingExecutor;
+
+	public PollScheduler(ScheduledExecutorService executor) {
+		this(executor, getDefaultBlockingExecutor());
+	}
+
+	public PollScheduler(ScheduledExecutorService executor, ExecutorService blockingExecutor) {
+		this.executor = executor;
+		this.blockingExecutor = blockingExecutor;
+	}
+
+	/**
+	 * Runs the given check once the delay elapses.
+	 * Checks that need to run again schedule themselves again.
+	 *
+	 * @param check the check to run
+	 * @param delay the delay, in milliseconds
+	 * @return the future of the check, to cancel it
+	 */
+	public ScheduledFuture<?> schedule(Runnable check, long delay) {
+		return executor.schedule(() -> {
+			try {
+				check.run();
+			} catch(RuntimeException re) {
+				LOG.error("Error while polling a server", re);
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Runs the given ping, which may block, outside of the scheduled pool.
+	 * Cancelling the returned future interrupts the ping if it is running.
+	 *
+	 * @param ping the ping to run
+	 * @return a future completed with the result of the ping
+	 */
+	public <T> CompletableFuture<T> runBlocking(Supplier<T> ping) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		Future<?> task;
+		try {
+			task = blockingExecutor.submit(() -> {
+				try {
+					result.complete(ping.get());
+				} catch(RuntimeException re) {
+					result.completeExceptionally(re);
+				}
+			});
+		} catch(RejectedExecutionException ree) {
+			result.completeExceptionally(ree);
+			return result;
+		}
+		result.whenComplete((r, t) -> {
+			if( result.isCancelled())
+				task.cancel(true);
+		});
+		return result;
+	}
+}
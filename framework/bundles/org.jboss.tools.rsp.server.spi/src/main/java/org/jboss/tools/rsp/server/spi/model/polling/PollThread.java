@@ -8,6 +8,10 @@
  ******************************************************************************/
 package org.jboss.tools.rsp.server.spi.model.polling;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
 import org.jboss.tools.rsp.eclipse.osgi.util.NLS;
 import org.jboss.tools.rsp.server.spi.model.polling.IServerStatePoller.CANCELATION_CAUSE;
 import org.jboss.tools.rsp.server.spi.model.polling.IServerStatePoller.SERVER_STATE;
@@ -17,14 +21,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Polls a server until it reaches the expected state, the timeout is reached
+ * or polling is cancelled, and notifies the listener of the outcome.
+ * 
+ * Despite its name, it does not own a thread. Each check runs as a 
+ * scheduled task on the shared {@link PollScheduler}.
  * 
  * @author rob.stryker@jboss.com
  */
-public class PollThread extends Thread {
+public class PollThread {
 
 	private static final Logger LOG = LoggerFactory.getLogger(PollThread.class);
 
-	private static final int POLL_DELAY = 100;
+	/*
+	 * Checks only read the poller's answer, yet there is no need
+	 * to read it often for a server that takes long to start
+	 */
+	private static final PollingPolicy CHECK_POLICY = new PollingPolicy(100, 500, 1.5, 0);
 	
 	private boolean aborted;
 	private SERVER_STATE expectedState;
@@ -33,70 +46,162 @@ public class PollThread extends Thread {
 	private IServer server;
 	private int timeout;
 	private boolean listenerAlerted = false;
+	private final PollScheduler scheduler;
+	private final CountDownLatch finished = new CountDownLatch(1);
+	private boolean started;
+	// Whether the task owning nextCheck has begun executing
+	private boolean running;
+	private long startTime;
+	private ScheduledFuture<?> nextCheck;
+	private PollingPolicy.Schedule schedule;
 
 	public PollThread(SERVER_STATE expectedState, IServerStatePoller poller, IPollResultListener listener, IServer server, int timeout) {
-		super(NLS.bind("{0} - Server Poller", server.getName()));
+		this(expectedState, poller, listener, server, timeout, PollScheduler.getDefault());
+	}
+
+	public PollThread(SERVER_STATE expectedState, IServerStatePoller poller, IPollResultListener listener, 
+			IServer server, int timeout, PollScheduler scheduler) {
 		this.expectedState = expectedState;
 		this.poller = poller;
 		this.server = server;
 		this.listener = listener;
 		this.aborted = false;
 		this.timeout = timeout;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Begins polling on the shared scheduler. 
+	 * A poll thread can only be started once.
+	 */
+	public synchronized void start() {
+		if( started ) 
+			throw new IllegalStateException(NLS.bind("Polling server {0} has already started", server.getName()));
+		started = true;
+		nextCheck = scheduler.schedule(this::run, 0);
 	}
 
+	/**
+	 * Returns whether polling has started, and not yet finished
+	 */
+	public synchronized boolean isAlive() {
+		return started && finished.getCount() > 0;
+	}
 
-	@Override
-	public void run() {
-		// Poller not found. Abort
-		if (poller == null) {
-			LOG.error("No poller defined, aborting polling.");
-			alertListener(getOpposite(expectedState));
+	/**
+	 * Waits for polling to finish. Returns immediately if it has not started. 
+	 */
+	public void join() throws InterruptedException {
+		if( isStarted())
+			finished.await();
+	}
+
+	/**
+	 * Waits at most the given duration, in milliseconds, for polling to finish
+	 */
+	public void join(long millis) throws InterruptedException {
+		if( isStarted())
+			finished.await(millis, TimeUnit.MILLISECONDS);
+	}
+
+	private synchronized boolean isStarted() {
+		return started;
+	}
+
+	protected void run() {
+		if( !beginTask()) {
+			finish();
 			return;
 		}
+		try {
+			// Poller not found. Abort
+			if (poller == null) {
+				LOG.error("No poller defined, aborting polling.");
+				alertListener(getOpposite(expectedState));
+				finish();
+				return;
+			}
+			startTime = System.currentTimeMillis();
+			schedule = CHECK_POLICY.start(0);
+			poller.beginPolling(getServer(), expectedState);
+			if( !scheduleCheck())
+				finish();
+		} catch(Exception e) {
+			LOG.error("Error occurred while polling, aborting.", e);
+			cancel(e.getMessage(), CANCELATION_CAUSE.FAILED);
+			finish();
+		}
+	}
 
-		int maxWait = getTimeout();
-
-		long startTime = System.currentTimeMillis();
+	/*
+	 * Ask the poller once. Either conclude or check again later.
+	 */
+	private void check() {
+		if( !beginTask()) {
+			finish();
+			return;
+		}
 		boolean done = false;
-		boolean serverStartedOrStopped = false;
 		try {
-			poller.beginPolling(getServer(), expectedState);
-	
-			// begin the loop; ask the poller every so often
-			while (!serverStartedOrStopped
-					&& !isAborted()
-					&& !done
-					&& !timeoutReached(startTime, maxWait)) {
-				try {
-					Thread.sleep(POLL_DELAY);
-					done = poller.isComplete();
-				} catch (PollingException | InterruptedException e) {
-					// abort and put the message in event log
-					cancel(e.getMessage(), CANCELATION_CAUSE.FAILED);
-					return;
-				} catch (RequiresInfoException rie) {
-					// This way each request for new info is checked only once.
-					if (!rie.getChecked()) {
-						rie.setChecked();
-						fireRequestCredentials(expectedState, poller);
-					}
+			try {
+				done = poller.isComplete();
+			} catch (PollingException e) {
+				// abort and put the message in event log
+				cancel(e.getMessage(), CANCELATION_CAUSE.FAILED);
+				finish();
+				return;
+			} catch (RequiresInfoException rie) {
+				// This way each request for new info is checked only once.
+				if (!rie.getChecked()) {
+					rie.setChecked();
+					fireRequestCredentials(expectedState, poller);
 				}
-				serverStartedOrStopped = isStartedOrStopped(server.getDelegate());
 			}
+			boolean serverStartedOrStopped = isStartedOrStopped(server.getDelegate());
 			if (serverStartedOrStopped) {
 				// we stopped. Did we abort?
 				handleUncertainTermination();
 			} else if (done) {
 				// the poller has an answer
 				handlePollerHasAnswer();
-			} else {
+			} else if (timeoutReached(startTime, getTimeout())) {
 				// we timed out. get response from preferences
 				handleTimeoutTermination();
+			} else if (scheduleCheck()) {
+				return;
 			}
 		} catch(Exception e) {
 			LOG.error("Error occurred while polling, aborting.", e);
 			cancel(e.getMessage(), CANCELATION_CAUSE.FAILED);
 		}
+		finish();
+	}
+
+	/*
+	 * Marks the scheduled task as running. 
+	 * Returns false if polling was cancelled before the task began.
+	 */
+	private synchronized boolean beginTask() {
+		if( aborted ) 
+			return false;
+		running = true;
+		return true;
+	}
+
+	/*
+	 * Returns false if polling was cancelled, and no check was scheduled. 
+	 * The calling task is then responsible to finish.
+	 */
+	private synchronized boolean scheduleCheck() {
+		if( aborted ) 
+			return false;
+		running = false;
+		nextCheck = scheduler.schedule(this::check, schedule.nextDelay());
+		return true;
+	}
+
+	private void finish() {
+		finished.countDown();
 	}
 
 	private SERVER_STATE getOpposite(SERVER_STATE state) {
@@ -188,6 +293,25 @@ public class PollThread extends Thread {
 			cancelPoller(cause);
 			log(message, cause);
 			alertListener(getOpposite(expectedState));
+			cancelNextCheck();
+		}
+	}
+
+	private void cancelNextCheck() {
+		ScheduledFuture<?> f;
+		boolean pending;
+		synchronized(this) {
+			f = nextCheck;
+			nextCheck = null;
+			pending = !running;
+		}
+		/*
+		 * FutureTask#cancel also succeeds for a task that is executing.
+		 * A task that has begun finishes by itself, and one that begins 
+		 * later sees the abort and finishes without checking.
+		 */
+		if( f != null && f.cancel(false) && pending) {
+			finish();
 		}
 	}
 
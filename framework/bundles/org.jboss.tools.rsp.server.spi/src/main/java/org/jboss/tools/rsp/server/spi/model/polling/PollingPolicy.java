@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.spi.model.polling;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.jboss.tools.rsp.server.spi.model.polling.IServerStatePoller.SERVER_STATE;
+import org.jboss.tools.rsp.server.spi.servertype.IServer;
+import org.jboss.tools.rsp.server.spi.servertype.IServerDelegate;
+
+/**
+ * Decides how long a poller waits between two attempts.
+ *
+ * Polling starts fast and backs off exponentially up to a cap,
+ * with some jitter so that servers started together do not
+ * ping in lockstep. When a server is known to need some time
+ * to reach its state, polling stays at the cap until that time
+ * is nearly over, and then starts fast again.
+ *
+ * Server types override the policy of their poller.
+ */
+public class PollingPolicy {
+
+	/**
+	 * Suits pings that are cheap, ex. a request to a local port
+	 */
+	public static final PollingPolicy DEFAULT = new PollingPolicy(100, 2000, 1.5, 0.2);
+
+	/*
+	 * Fast polling resumes once this fraction of the expected duration elapsed
+	 */
+	private static final double EXPECTED_FRACTION = 0.75;
+
+	/*
+	 * The weight of the last duration in the learned expected duration
+	 */
+	private static final double LEARNING_WEIGHT = 0.5;
+
+	private static final String EXPECTED_DURATION_KEY = PollingPolicy.class.getName() + ".expected.";
+
+	private final long initialDelay;
+	private final long maxDelay;
+	private final double multiplier;
+	private final double jitter;
+
+	/**
+	 * @param initialDelay the delay before the second attempt, in milliseconds
+	 * @param maxDelay the longest delay between two attempts, in milliseconds
+	 * @param multiplier the factor applied to the delay after each attempt
+	 * @param jitter the fraction by which each delay varies randomly, between 0 and 1
+	 */
+	public PollingPolicy(long initialDelay, long maxDelay, double multiplier, double jitter) {
+		if( initialDelay < 0 || maxDelay < initialDelay || multiplier < 1 || jitter < 0 || jitter > 1 ) {
+			throw new IllegalArgumentException("Invalid polling policy");
+		}
+		this.initialDelay = initialDelay;
+		this.maxDelay = maxDelay;
+		this.multiplier = multiplier;
+		this.jitter = jitter;
+	}
+
+	public long getInitialDelay() {
+		return initialDelay;
+	}
+
+	public long getMaxDelay() {
+		return maxDelay;
+	}
+
+	/**
+	 * Begins a series of attempts.
+	 *
+	 * @param expectedDuration the time the server usually needs to reach its state,
+	 *                         in milliseconds, or 0 if unknown
+	 * @return the delays of the series
+	 */
+	public Schedule start(long expectedDuration) {
+		return new Schedule(expectedDuration, System.currentTimeMillis());
+	}
+
+	/**
+	 * The delays between the attempts of one polling.
+	 * A schedule is used by one poller at a time.
+	 */
+	public class Schedule {
+		private final long expectedDuration;
+		private final long startTime;
+		private long delay;
+
+		Schedule(long expectedDuration, long startTime) {
+			this.expectedDuration = expectedDuration;
+			this.startTime = startTime;
+			this.delay = initialDelay;
+		}
+
+		/**
+		 * Returns the delay before the next attempt, in milliseconds
+		 */
+		public long nextDelay() {
+			return nextDelay(System.currentTimeMillis());
+		}
+
+		long nextDelay(long now) {
+			long fastAt = startTime + (long)(expectedDuration * EXPECTED_FRACTION);
+			long base;
+			if( expectedDuration > 0 && now < fastAt ) {
+				// Asking early is pointless, but do not oversleep the expected time
+				base = Math.max(initialDelay, Math.min(maxDelay, fastAt - now));
+			} else {
+				base = delay;
+				delay = Math.min(maxDelay, (long)(delay * multiplier));
+			}
+			return jitter(base);
+		}
+
+		private long jitter(long base) {
+			if( jitter == 0 || base == 0 )
+				return base;
+			double factor = 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+			return Math.max(1, (long)(base * factor));
+		}
+	}
+
+	/**
+	 * Returns the time the given server needed to reach the given state
+	 * in its previous pollings, in milliseconds, or 0 if unknown.
+	 */
+	public static long getExpectedDuration(IServer server, SERVER_STATE state) {
+		IServerDelegate delegate = getDelegate(server);
+		Object o = delegate == null ? null : delegate.getSharedData(EXPECTED_DURATION_KEY + state);
+		return o instanceof Long ? (Long)o : 0;
+	}
+
+	/**
+	 * Learns the time the given server needed to reach the given state
+	 */
+	public static void recordDuration(IServer server, SERVER_STATE state, long duration) {
+		IServerDelegate delegate = getDelegate(server);
+		if( delegate == null || duration <= 0 )
+			return;
+		long previous = getExpectedDuration(server, state);
+		long expected = previous == 0 ? duration
+				: (long)(LEARNING_WEIGHT * duration + (1 - LEARNING_WEIGHT) * previous);
+		delegate.putSharedData(EXPECTED_DURATION_KEY + state, expected);
+	}
+
+	private static IServerDelegate getDelegate(IServer server) {
+		return server == null ? null : server.getDelegate();
+	}
+}
@@ -19,6 +19,9 @@ import org.jboss.tools.rsp.server.spi.servertype.IServer;
 
 public abstract class WebPortPoller extends AbstractPoller implements IServerStatePoller {
 
+	protected static final int CONNECT_TIMEOUT = 1000;
+	protected static final int RESPONSE_TIMEOUT = 5000;
+
 	private String name;
 
 	public WebPortPoller(String string) {
@@ -38,6 +41,9 @@ public abstract class WebPortPoller extends AbstractPoller implements IServerSta
 		try {
 			URL pingUrl = new URL(url);
 			conn = pingUrl.openConnection();
+			// A server that accepts connections but never answers must not block the poller
+			conn.setConnectTimeout(CONNECT_TIMEOUT);
+			conn.setReadTimeout(RESPONSE_TIMEOUT);
 			((HttpURLConnection)conn).getResponseCode();
 			return SERVER_STATE.UP;
 		} catch( FileNotFoundException fnfe ) {
@@ -0,0 +1,391 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.spi.model.polling;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.UnresolvedAddressException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends HTTP HEAD requests to web ports without blocking,
+ * all on a single thread.
+ *
+ * Each poller keeps a {@link Connection} that stays open between its pings
+ * as long as the server allows it. Pings time out if the server does not
+ * accept the connection or does not answer in time.
+ */
+public class WebPortSelector {
+	private static final Logger LOG = LoggerFactory.getLogger(WebPortSelector.class);
+
+	/*
+	 * Only the status line and the headers are read
+	 */
+	private static final int MAX_HEADER_SIZE = 8192;
+	private static final String HEADER_END = "\r\n\r\n";
+
+	private static WebPortSelector instance;
+
+	/**
+	 * Returns the shared selector, replacing it if its thread has stopped
+	 */
+	public static synchronized WebPortSelector getDefault() {
+		if( instance == null || instance.isDisposed()) {
+			try {
+				instance = new WebPortSelector();
+			} catch(IOException ioe) {
+				throw new UncheckedIOException("Could not open a selector to poll web ports", ioe);
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * A connection to a web port, reused by the pings of one poller.
+	 */
+	public static class Connection {
+		private final InetSocketAddress address;
+		// accessed on the selector thread only
+		private SocketChannel channel;
+		private SelectionKey key;
+
+		public Connection(String host, int port) {
+			this.address = new InetSocketAddress(host, port);
+		}
+
+		public InetSocketAddress getAddress() {
+			return address;
+		}
+	}
+
+	private static class Exchange {
+		private final Connection connection;
+		private final ByteBuffer request;
+		private final ByteBuffer response = ByteBuffer.allocate(MAX_HEADER_SIZE);
+		private final long connectTimeout;
+		private final long responseTimeout;
+		private final CompletableFuture<Integer> result;
+		private long deadline;
+		private boolean connecting;
+		private boolean reused;
+
+		private Exchange(Connection connection, byte[] request,
+				long connectTimeout, long responseTimeout, CompletableFuture<Integer> result) {
+			this.connection = connection;
+			this.request = ByteBuffer.wrap(request);
+			this.connectTimeout = connectTimeout;
+			this.responseTimeout = responseTimeout;
+			this.result = result;
+		}
+	}
+
+	private final Selector selector;
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+	// accessed on the selector thread only
+	private final Set<Exchange> exchanges = new HashSet<>();
+	private volatile boolean disposed;
+
+	public WebPortSelector() throws IOException {
+		this.selector = Selector.open();
+		Thread t = new Thread(this::loop, "Web Port Poller");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/**
+	 * Sends a HEAD request for the given path over the given connection,
+	 * opening it if needed.
+	 *
+	 * @param connection the connection to the web port
+	 * @param path the path of the request
+	 * @param connectTimeout the time to wait for the connection, in milliseconds
+	 * @param responseTimeout the time to wait for the response, in milliseconds
+	 * @return the status code of the response. Completes exceptionally
+	 *         if the port cannot be reached or does not answer in time.
+	 */
+	public CompletableFuture<Integer> ping(Connection connection, String path,
+			long connectTimeout, long responseTimeout) {
+		CompletableFuture<Integer> result = new CompletableFuture<>();
+		InetSocketAddress address = connection.getAddress();
+		String request = "HEAD " + path + " HTTP/1.1\r\n"
+				+ "Host: " + address.getHostString() + ":" + address.getPort() + "\r\n"
+				+ "Connection: keep-alive\r\n"
+				+ "\r\n";
+		Exchange ex = new Exchange(connection, request.getBytes(StandardCharsets.US_ASCII),
+				connectTimeout, responseTimeout, result);
+		if( !execute(() -> start(ex))) {
+			result.completeExceptionally(new IOException("Web port polling is disposed"));
+		}
+		return result;
+	}
+
+	/**
+	 * Closes the given connection, failing its ping in progress if any
+	 */
+	public void close(Connection connection) {
+		execute(() -> {
+			Exchange ex = connection.key == null ? null : (Exchange)connection.key.attachment();
+			if( ex != null ) {
+				fail(ex, new IOException("Connection closed"));
+			} else {
+				closeChannel(connection);
+			}
+		});
+	}
+
+	/**
+	 * Stops the selector thread and closes all connections
+	 */
+	public void dispose() {
+		disposed = true;
+		selector.wakeup();
+	}
+
+	/**
+	 * Returns whether this selector no longer accepts pings, 
+	 * either because it was disposed or because its thread failed
+	 */
+	public boolean isDisposed() {
+		return disposed;
+	}
+
+	private boolean execute(Runnable task) {
+		// Tasks are either accepted before closeAll drains them, or refused
+		synchronized(tasks) {
+			if( disposed )
+				return false;
+			tasks.add(task);
+		}
+		selector.wakeup();
+		return true;
+	}
+
+	private void loop() {
+		while( !disposed ) {
+			try {
+				selector.select(getSelectTimeout());
+				runTasks();
+				for( SelectionKey key : selector.selectedKeys()) {
+					handle(key);
+				}
+				selector.selectedKeys().clear();
+				expire();
+			} catch(IOException | ClosedSelectorException e) {
+				LOG.error("Error while polling web ports", e);
+				break;
+			} catch(RuntimeException re) {
+				LOG.error("Error while polling web ports", re);
+			}
+		}
+		closeAll();
+	}
+
+	private long getSelectTimeout() {
+		long now = System.currentTimeMillis();
+		long timeout = 0;
+		for( Exchange ex : exchanges ) {
+			long remaining = Math.max(1, ex.deadline - now);
+			timeout = timeout == 0 ? remaining : Math.min(timeout, remaining);
+		}
+		return timeout;
+	}
+
+	private void runTasks() {
+		Runnable task;
+		while( (task = tasks.poll()) != null ) {
+			task.run();
+		}
+	}
+
+	private void start(Exchange ex) {
+		if( ex.result.isDone())
+			return;
+		exchanges.add(ex);
+		Connection c = ex.connection;
+		try {
+			if( c.channel != null && c.channel.isOpen()) {
+				ex.reused = true;
+				c.key.attach(ex);
+				responding(ex);
+			} else {
+				ex.reused = false;
+				SocketChannel channel = SocketChannel.open();
+				c.channel = channel;
+				channel.configureBlocking(false);
+				c.key = channel.register(selector, 0, ex);
+				if( channel.connect(c.address)) {
+					responding(ex);
+				} else {
+					ex.connecting = true;
+					ex.deadline = System.currentTimeMillis() + ex.connectTimeout;
+					c.key.interestOps(SelectionKey.OP_CONNECT);
+				}
+			}
+		} catch(IOException ioe) {
+			fail(ex, ioe);
+		} catch(UnresolvedAddressException uae) {
+			fail(ex, new IOException("Unknown host " + c.address.getHostString(), uae));
+		}
+	}
+
+	private void responding(Exchange ex) {
+		ex.connecting = false;
+		ex.deadline = System.currentTimeMillis() + ex.responseTimeout;
+		ex.connection.key.interestOps(SelectionKey.OP_WRITE);
+	}
+
+	private void handle(SelectionKey key) {
+		Exchange ex = (Exchange)key.attachment();
+		if( ex == null || !key.isValid())
+			return;
+		SocketChannel channel = ex.connection.channel;
+		try {
+			if( key.isConnectable()) {
+				if( channel.finishConnect())
+					responding(ex);
+			} else if( key.isWritable()) {
+				channel.write(ex.request);
+				if( !ex.request.hasRemaining())
+					key.interestOps(SelectionKey.OP_READ);
+			} else if( key.isReadable()) {
+				read(ex, channel);
+			}
+		} catch(IOException ioe) {
+			if( ex.reused && ex.response.position() == 0 ) {
+				// The server closed the idle connection. Try again on a new one.
+				closeChannel(ex.connection);
+				ex.request.rewind();
+				start(ex);
+			} else {
+				fail(ex, ioe);
+			}
+		}
+	}
+
+	private void read(Exchange ex, SocketChannel channel) throws IOException {
+		if( channel.read(ex.response) < 0 )
+			throw new EOFException("Connection closed by the server");
+		String read = new String(ex.response.array(), 0, ex.response.position(), StandardCharsets.US_ASCII);
+		int end = read.indexOf(HEADER_END);
+		if( end == -1 && ex.response.hasRemaining())
+			return;
+		String[] lines = (end == -1 ? read : read.substring(0, end)).split("\r\n");
+		int status = parseStatus(lines[0]);
+		// A response with oversized headers can not be skipped to reuse the connection
+		boolean keepAlive = end != -1 && isKeepAlive(lines);
+		complete(ex, status, keepAlive);
+	}
+
+	private static int parseStatus(String statusLine) throws IOException {
+		String[] segments = statusLine.split(" ");
+		if( segments.length < 2 || !segments[0].startsWith("HTTP/"))
+			throw new IOException("Not an HTTP response: " + statusLine);
+		try {
+			return Integer.parseInt(segments[1]);
+		} catch(NumberFormatException nfe) {
+			throw new IOException("Not an HTTP response: " + statusLine, nfe);
+		}
+	}
+
+	private static boolean isKeepAlive(String[] lines) {
+		boolean keepAlive = lines[0].startsWith("HTTP/1.1");
+		for( int i = 1; i < lines.length; i++ ) {
+			String line = lines[i].toLowerCase();
+			if( line.startsWith("connection:")) {
+				keepAlive = !line.contains("close");
+			}
+		}
+		return keepAlive;
+	}
+
+	private void complete(Exchange ex, int status, boolean keepAlive) {
+		exchanges.remove(ex);
+		Connection c = ex.connection;
+		if( keepAlive ) {
+			c.key.attach(null);
+			c.key.interestOps(0);
+		} else {
+			closeChannel(c);
+		}
+		ex.result.complete(status);
+	}
+
+	private void fail(Exchange ex, IOException e) {
+		exchanges.remove(ex);
+		closeChannel(ex.connection);
+		ex.result.completeExceptionally(e);
+	}
+
+	private void expire() {
+		long now = System.currentTimeMillis();
+		for( Exchange ex : new ArrayList<>(exchanges)) {
+			if( ex.result.isDone()) {
+				// cancelled by the caller
+				exchanges.remove(ex);
+				closeChannel(ex.connection);
+			} else if( now >= ex.deadline ) {
+				fail(ex, new SocketTimeoutException(ex.connecting ? "Connect timed out" : "Read timed out"));
+			}
+		}
+	}
+
+	private void closeChannel(Connection c) {
+		if( c.channel != null ) {
+			try {
+				c.channel.close();
+			} catch(IOException ioe) {
+				// ignore
+			}
+		}
+		c.channel = null;
+		c.key = null;
+	}
+
+	private void closeAll() {
+		synchronized(tasks) {
+			disposed = true;
+		}
+		Runnable task;
+		while( (task = tasks.poll()) != null ) {
+			try {
+				task.run();
+			} catch(RuntimeException re) {
+				// the selector may be closed already. Pending exchanges are failed below.
+			}
+		}
+		for( Exchange ex : new ArrayList<>(exchanges)) {
+			fail(ex, new IOException("Web port polling is disposed"));
+		}
+		try {
+			for( SelectionKey key : selector.keys()) {
+				key.channel().close();
+			}
+			selector.close();
+		} catch(IOException | ClosedSelectorException e) {
+			LOG.error("Error while closing web port polling", e);
+		}
+	}
+}
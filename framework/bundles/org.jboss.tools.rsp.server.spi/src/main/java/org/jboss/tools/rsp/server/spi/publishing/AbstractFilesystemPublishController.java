@@ -19,12 +19,14 @@ import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
+import org.jboss.tools.rsp.api.DefaultServerAttributes;
 import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
 import org.jboss.tools.rsp.api.dao.DeployableReference;
 import org.jboss.tools.rsp.eclipse.core.runtime.CoreException;
@@ -32,6 +34,8 @@ import org.jboss.tools.rsp.eclipse.core.runtime.IStatus;
 import org.jboss.tools.rsp.eclipse.core.runtime.Status;
 import org.jboss.tools.rsp.eclipse.osgi.util.NLS;
 import org.jboss.tools.rsp.server.spi.SPIActivator;
+import org.jboss.tools.rsp.server.spi.model.IDataStoreModel;
+import org.jboss.tools.rsp.server.spi.model.IServerManagementModel;
 import org.jboss.tools.rsp.server.spi.servertype.IDeployableResourceDelta;
 import org.jboss.tools.rsp.server.spi.servertype.IServer;
 import org.jboss.tools.rsp.server.spi.servertype.IServerDelegate;
@@ -42,6 +46,9 @@ import org.slf4j.LoggerFactory;
 public abstract class AbstractFilesystemPublishController implements IPublishController {
 
 	private static final Logger LOG = LoggerFactory.getLogger(AbstractFilesystemPublishController.class);
+	private static final String PUBLISH_MANIFEST_FOLDER = "publish-manifests";
+	private static final String PUBLISH_MANIFEST_SUFFIX = ".manifest";
+	private static final int MAX_DEFAULT_COPY_THREADS = 8;
 	
 	private IServer server;
 	private IServerDelegate delegate;
@@ -205,7 +212,7 @@ public abstract class AbstractFilesystemPublishController implements IPublishCon
 			if( supportsExplodedDeployment()) {
 				return incrementalPublishCopyExplodedModule(opts, delta);
 			} else {
-				return zipAndCopyExplodedModule(opts);
+				return zipAndCopyExplodedModule(opts, delta);
 			}
 		}
 		return ServerManagementAPIConstants.PUBLISH_STATE_UNKNOWN;
@@ -239,7 +246,7 @@ public abstract class AbstractFilesystemPublishController implements IPublishCon
 			if( supportsExplodedDeployment()) {
 				return fullPublishCopyExplodedModule(opts, publishType, modulePublishType);
 			} else {
-				return zipAndCopyExplodedModule(opts);
+				return zipAndCopyExplodedModule(opts, null);
 			}
 		}
 		return ServerManagementAPIConstants.PUBLISH_STATE_UNKNOWN;
@@ -261,12 +268,33 @@ public abstract class AbstractFilesystemPublishController implements IPublishCon
 	protected int fullPublishCopyExplodedModule(DeployableReference opts, int publishType, int modulePublishType) throws CoreException {
 		File dest = getDestinationPath(opts).toFile();
 		Path src = new File(opts.getPath()).toPath();
+		PublishManifest manifest = loadPublishManifest(opts);
+		ParallelFileCopier copier = createFileCopier(opts);
 		try {
-			completeDelete(dest.toPath());
+			/*
+			 * With a manifest, only copy files whose content changed, 
+			 * leaving the timestamps of the others untouched. 
+			 * A clean publish, or a destination that is not a folder, starts over.
+			 */
+			boolean startOver = manifest == null || dest.isFile()
+					|| publishType == ServerManagementAPIConstants.PUBLISH_CLEAN;
+			if( startOver ) {
+				completeDelete(dest.toPath());
+				if( manifest != null )
+					manifest.clear();
+			}
 			dest.mkdirs();
-			Files.walkFileTree(src, new CopyFileVisitor(dest.toPath()));
-			return ServerManagementAPIConstants.PUBLISH_STATE_NONE;
+			SyncFileVisitor visitor = new SyncFileVisitor(src, dest.toPath(), manifest, copier);
+			Files.walkFileTree(src, visitor);
+			List<String> errors = copier.finish();
+			if( manifest != null ) {
+				deleteStaleFiles(dest.toPath(), dest.toPath(), visitor.getVisited());
+				manifest.retainAll(visitor.getVisited());
+				savePublishManifest(manifest);
+			}
+			return incrementalExplodedPublishResult(opts, errors);
 		} catch(IOException ioe) {
+			copier.finish();
 			String errMsg = NLS.bind("Error publishing module {0} to server {1}", opts.getLabel(), getServer().getName());
 			LOG.error(errMsg, ioe);
 			return delegate.getServerPublishModel().getDeployableState(opts).getPublishState();
@@ -277,8 +305,9 @@ public abstract class AbstractFilesystemPublishController implements IPublishCon
 			IDeployableResourceDelta delta) throws CoreException {
 		File dest = getDestinationPath(opts).toFile();
 		Path src = new File(opts.getPath()).toPath();
+		PublishManifest manifest = loadPublishManifest(opts);
 		
-		List<String> errors = new ArrayList<>();
+		ParallelFileCopier copier = createFileCopier(opts);
 		Map<Path, Integer> deltaVals = delta.getResourceDeltaMap();
 		for( Map.Entry<Path, Integer> entry : deltaVals.entrySet()) {
 			int change = entry.getValue();
@@ -289,49 +318,200 @@ public abstract class AbstractFilesystemPublishController implements IPublishCon
 				if( !fileDest.toFile().delete() ) {
 					LOG.debug("Error: Cannot delete file " + fileDest.toFile().getAbsolutePath());
 				}
+				if( manifest != null ) {
+					manifest.removeTree(entry.getKey().toString(), fileSrc.getFileSystem().getSeparator());
+				}
 			} else if( change == IDeployableResourceDelta.CREATED || 
 					change == IDeployableResourceDelta.MODIFIED) {
-				incrementalPublishCopySingleFile(fileSrc, fileDest, errors);
+				incrementalPublishCopySingleFile(fileSrc, fileDest, copier, 
+						manifest, entry.getKey().toString());
+			} else if( change == IDeployableResourceDelta.SUBTREE_CHANGED) {
+				incrementalPublishSyncFolder(src, dest.toPath(), entry.getKey(), copier, manifest);
 			}
 		}
+		List<String> errors = copier.finish();
+		if( manifest != null ) {
+			savePublishManifest(manifest);
+		}
 
 		return incrementalExplodedPublishResult(opts, errors);
 	}
 	
-	private int zipAndCopyExplodedModule(DeployableReference opts) {
-		File dest = getDestinationPath(opts).toFile();
+	/*
+	 * The delta only knows that something in the folder changed, 
+	 * so bring the whole folder in line with the source.
+	 */
+	private void incrementalPublishSyncFolder(Path src, Path dest, Path relative, 
+			ParallelFileCopier copier, PublishManifest manifest) {
+		Path folderSrc = src.resolve(relative);
+		Path folderDest = dest.resolve(relative);
+		String separator = src.getFileSystem().getSeparator();
+		try {
+			if( !Files.exists(folderSrc)) {
+				completeDelete(folderDest);
+				if( manifest != null ) {
+					manifest.removeTree(relative.toString(), separator);
+				}
+				return;
+			}
+			SyncFileVisitor visitor = new SyncFileVisitor(src, dest, manifest, copier);
+			Files.walkFileTree(folderSrc, visitor);
+			List<String> stale = deleteStaleFiles(dest, folderDest, visitor.getVisited());
+			if( manifest != null ) {
+				stale.forEach(p -> manifest.removeTree(p, separator));
+			}
+		} catch(IOException ioe) {
+			copier.addError("Unable to synchronize " + folderDest.toString());
+		}
+	}
+
+	/*
+	 * Delete every file and folder below the start folder 
+	 * whose path relative to the destination is not in the given set.
+	 * Returns the relative paths deleted.
+	 */
+	private List<String> deleteStaleFiles(Path dest, Path start, Set<String> keep) throws IOException {
+		List<Path> stale = new ArrayList<>();
+		if( !Files.isDirectory(start))
+			return new ArrayList<>();
+		try (Stream<Path> paths = Files.walk(start)) {
+			paths.filter(p -> !p.equals(dest))
+				.filter(p -> !keep.contains(dest.relativize(p).toString()))
+				.forEach(stale::add);
+		}
+		List<String> deleted = new ArrayList<>();
+		for( Path p : stale ) {
+			if( p.toFile().exists()) {
+				completeDelete(p);
+				deleted.add(dest.relativize(p).toString());
+			}
+		}
+		return deleted;
+	}
+	
+	/**
+	 * Returns the file holding the publish manifest of the given 
+	 * deployable, or null if the server has no data location
+	 * in which to keep it.
+	 */
+	protected Path getPublishManifestPath(DeployableReference reference) {
+		IServerManagementModel mgmt = getServer() == null ? null : getServer().getServerManagementModel();
+		IDataStoreModel dataStore = mgmt == null ? null : mgmt.getDataStoreModel();
+		File dataLocation = dataStore == null ? null : dataStore.getDataLocation();
+		if( dataLocation == null || getServer().getId() == null )
+			return null;
+		Path dest = getDestinationPath(reference).toAbsolutePath();
+		String name = dest.getFileName() + "-" 
+				+ Integer.toHexString(dest.toString().hashCode()) + PUBLISH_MANIFEST_SUFFIX;
+		return dataLocation.toPath().resolve(PUBLISH_MANIFEST_FOLDER)
+				.resolve(getServer().getId()).resolve(name);
+	}
+	
+	/**
+	 * Returns the number of threads copying files while publishing, 
+	 * taken from the server's {@link DefaultServerAttributes#PUBLISH_COPY_THREADS}
+	 * attribute, or based on the number of processors if it is not set. 
+	 */
+	protected int getCopyThreadCount() {
+		int def = Math.min(MAX_DEFAULT_COPY_THREADS, Runtime.getRuntime().availableProcessors());
+		if( getServer() == null )
+			return def;
+		int configured = getServer().getAttribute(DefaultServerAttributes.PUBLISH_COPY_THREADS, 
+				DefaultServerAttributes.PUBLISH_COPY_THREADS_DEFAULT);
+		return configured > 0 ? configured : def;
+	}
+	
+	protected ParallelFileCopier createFileCopier(DeployableReference reference) {
+		ParallelFileCopier copier = new ParallelFileCopier(getCopyThreadCount());
+		copier.setLinkFiles(shouldLinkFiles(reference));
+		return copier;
+	}
+	
+	/**
+	 * Returns whether the deployable's files should be published 
+	 * as hard links to its source files, as requested by the
+	 * {@link ServerManagementAPIConstants#DEPLOYMENT_OPTION_LINK_FILES} option.
+	 * Files are copied if links cannot be created.
+	 */
+	protected boolean shouldLinkFiles(DeployableReference reference) {
+		Map<String, Object> options = reference.getOptions();
+		Object val = options == null ? null : options.get(ServerManagementAPIConstants.DEPLOYMENT_OPTION_LINK_FILES);
+		return val != null && Boolean.parseBoolean(val.toString());
+	}
+	
+	private PublishManifest loadPublishManifest(DeployableReference reference) {
+		Path p = getPublishManifestPath(reference);
+		return p == null ? null : PublishManifest.load(p);
+	}
+	
+	private void savePublishManifest(PublishManifest manifest) {
+		try {
+			manifest.save();
+		} catch(IOException ioe) {
+			LOG.warn("Unable to save publish manifest. The next publish will compare all files.", ioe);
+		}
+	}
+	
+	private void deletePublishManifest(DeployableReference reference) {
+		Path p = getPublishManifestPath(reference);
+		if( p != null ) {
+			try {
+				Files.deleteIfExists(p);
+			} catch(IOException ioe) {
+				LOG.debug("Unable to delete publish manifest " + p, ioe);
+			}
+		}
+	}
+	
+	/*
+	 * Package the folder into an archive for servers that cannot deploy exploded
+	 * folders. When the delta since the previous publish is known, entries it
+	 * does not mention are copied, already compressed, from the previous archive.
+	 */
+	private int zipAndCopyExplodedModule(DeployableReference opts, IDeployableResourceDelta delta) {
+		Path dest = getDestinationPath(opts);
 		Path src = new File(opts.getPath()).toPath();
 		try {
-			completeDelete(dest.toPath());
-			pack(src.toString(), dest.getAbsolutePath());
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			if( Files.isDirectory(dest))
+				completeDelete(dest);
+			Predicate<String> unchanged = delta == null ? null : unchangedEntries(delta);
+			new ZipPackager(getCopyThreadCount()).pack(src, dest, unchanged);
+			return ServerManagementAPIConstants.PUBLISH_STATE_NONE;
+		} catch (IOException ioe) {
+			String errMsg = NLS.bind("Error publishing module {0} to server {1}", opts.getLabel(), getServer().getName());
+			LOG.error(errMsg, ioe);
+			return delegate.getServerPublishModel().getDeployableState(opts).getPublishState();
 		}
-		return ServerManagementAPIConstants.PUBLISH_STATE_NONE;
 	}
-	private static void pack(String sourceDirPath, String zipFilePath) throws IOException {
-	    Path p = Files.createFile(Paths.get(zipFilePath));
-	    try (ZipOutputStream zs = new ZipOutputStream(Files.newOutputStream(p))) {
-	        Path pp = Paths.get(sourceDirPath);
-	        Files.walk(pp)
-	          .filter(path -> !Files.isDirectory(path))
-	          .forEach(path -> {
-	              ZipEntry zipEntry = new ZipEntry(pp.relativize(path).toString());
-	              try {
-	                  zs.putNextEntry(zipEntry);
-	                  Files.copy(path, zs);
-	                  zs.closeEntry();
-	            } catch (IOException e) {
-	                System.err.println(e);
-	            }
-	          });
-	    }
+	
+	private static Predicate<String> unchangedEntries(IDeployableResourceDelta delta) {
+		Set<String> changed = new HashSet<>();
+		for( Path p : delta.getResourceDeltaMap().keySet()) {
+			StringBuilder sb = new StringBuilder();
+			for( Path segment : p ) {
+				if( sb.length() > 0 )
+					sb.append('/');
+				sb.append(segment.toString());
+			}
+			changed.add(sb.toString());
+		}
+		if( changed.contains(""))
+			// The whole deployable changed
+			return name -> false;
+		// An entry is changed if it, or any folder above it, is in the delta
+		return name -> {
+			for( int i = name.length(); i > 0; i = name.lastIndexOf('/', i - 1)) {
+				if( changed.contains(name.substring(0, i)))
+					return false;
+			}
+			return true;
+		};
 	}
 
-	private void incrementalPublishCopySingleFile(Path fileSrc, Path fileDest, List<String> errors) {
+	private void incrementalPublishCopySingleFile(Path fileSrc, Path fileDest, ParallelFileCopier copier, 
+			PublishManifest manifest, String relative) {
 		if( !fileSrc.toFile().exists()) {
-			errors.add("Source path does not exist: " + fileSrc.toString());
+			copier.addError("Source path does not exist: " + fileSrc.toString());
 			return;
 		}
 		if(fileSrc.toFile().isDirectory()) {
@@ -339,16 +519,18 @@ public abstract class AbstractFilesystemPublishController implements IPublishCon
 			if( !fileDest.toFile().exists()) {
 				boolean result = fileDest.toFile().mkdirs();
 				if( !result ) {
-					errors.add("Unable to create directory " + fileDest.toString());
+					copier.addError("Unable to create directory " + fileDest.toString());
 				}
 			}
 		}
 		if( fileSrc.toFile().isFile()) {
-			try {
-				Files.copy(fileSrc, fileDest, StandardCopyOption.REPLACE_EXISTING);
-			} catch(IOException ioe) {
-				errors.add("Unable to copy " + fileSrc.toString() + " to " + fileDest.toString());
+			// The delta does not order a new folder before its files
+			File parent = fileDest.toFile().getParentFile();
+			if( parent != null && !parent.exists() && !parent.mkdirs()) {
+				copier.addError("Unable to create directory " + parent.toString());
+				return;
 			}
+			copier.copy(fileSrc, fileDest, manifest, relative);
 		}
 	}
 
@@ -402,6 +584,7 @@ public abstract class AbstractFilesystemPublishController implements IPublishCon
 		if( dest == null ) {
 			return getServerPublishModel().getDeployableState(reference).getPublishState();
 		}
+		deletePublishManifest(reference);
 		if( !dest.exists())
 			return ServerManagementAPIConstants.PUBLISH_STATE_NONE;
 		
@@ -444,4 +627,62 @@ public abstract class AbstractFilesystemPublishController implements IPublishCon
 	    }
 	}
 	
+	/*
+	 * Creates the folders of a source tree and hands its files to the 
+	 * copier, which skips those whose content matches the publish 
+	 * manifest, if any. Remembers every path visited. 
+	 */
+	private static class SyncFileVisitor extends SimpleFileVisitor<Path> {
+		private final Path sourcePath;
+		private final Path targetPath;
+		private final PublishManifest manifest;
+		private final ParallelFileCopier copier;
+		private final Set<String> visited = new HashSet<>();
+
+		public SyncFileVisitor(Path sourcePath, Path targetPath, 
+				PublishManifest manifest, ParallelFileCopier copier) {
+			this.sourcePath = sourcePath;
+			this.targetPath = targetPath;
+			this.manifest = manifest;
+			this.copier = copier;
+		}
+
+		@Override
+		public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+			if( dir.equals(sourcePath))
+				return FileVisitResult.CONTINUE;
+			Path relative = sourcePath.relativize(dir);
+			visited.add(relative.toString());
+			Path target = targetPath.resolve(relative);
+			try {
+				if( !Files.isDirectory(target)) {
+					Files.deleteIfExists(target);
+					Files.createDirectories(target);
+				}
+			} catch(IOException ioe) {
+				copier.addError("Unable to create directory " + target.toString());
+				return FileVisitResult.SKIP_SUBTREE;
+			}
+			return FileVisitResult.CONTINUE;
+		}
+
+		@Override
+		public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+			String relative = sourcePath.relativize(file).toString();
+			visited.add(relative);
+			copier.copy(file, targetPath.resolve(relative), manifest, relative);
+			return FileVisitResult.CONTINUE;
+		}
+
+		@Override
+		public FileVisitResult visitFileFailed(Path file, IOException exc) {
+			copier.addError("Unable to read " + file.toString());
+			return FileVisitResult.CONTINUE;
+		}
+
+		public Set<String> getVisited() {
+			return visited;
+		}
+	}
+	
 }
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.spi.publishing;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copies files on a bounded pool of worker threads.
+ *
+ * Copies are submitted from a single thread, which must create
+ * any destination folder before submitting the files inside it.
+ * When the queue of pending copies is full, the submitting thread
+ * performs the copy itself, which keeps memory use bounded.
+ *
+ * Errors, whether reported by a copy or added by the caller,
+ * are returned by {@link #finish()} in the order the work was
+ * submitted, regardless of the order in which copies complete.
+ *
+ * The copier may instead create hard links to the source files.
+ * If a link cannot be created, for example because the destination
+ * is on another filesystem, the file is copied and all further
+ * files are copied as well.
+ */
+public class ParallelFileCopier {
+	private static final Logger LOG = LoggerFactory.getLogger(ParallelFileCopier.class);
+
+	// Files at least this large are copied with FileChannel.transferTo
+	public static final long TRANSFER_THRESHOLD = 1024 * 1024;
+	private static final int QUEUED_COPIES_PER_THREAD = 64;
+
+	private final ThreadPoolExecutor pool;
+	private final Map<Integer, String> errors = new ConcurrentSkipListMap<>();
+	private final AtomicBoolean linkFiles = new AtomicBoolean(false);
+	private int sequence = 0;
+
+	/**
+	 * @param threads the number of threads copying files.
+	 * With 1 or less, files are copied on the calling thread.
+	 */
+	public ParallelFileCopier(int threads) {
+		if( threads <= 1 ) {
+			this.pool = null;
+			return;
+		}
+		AtomicInteger count = new AtomicInteger();
+		this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(threads * QUEUED_COPIES_PER_THREAD),
+				(Runnable r) -> {
+					Thread t = new Thread(r, "RSP Publish Copy " + count.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				},
+				new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * Create hard links to the source files rather than copies.
+	 * Must be called before any file is submitted.
+	 */
+	public void setLinkFiles(boolean link) {
+		this.linkFiles.set(link);
+	}
+
+	public boolean isLinkFiles() {
+		return linkFiles.get();
+	}
+
+	/**
+	 * Copy the source file to the destination, replacing it.
+	 * If a manifest is given, the file is only copied if it
+	 * reports the content changed, and the manifest forgets the
+	 * file if the copy fails.
+	 *
+	 * @param src the source file
+	 * @param dest the destination file
+	 * @param manifest the publish manifest, or null to always copy
+	 * @param relative the file's path relative to the deployable
+	 */
+	public void copy(Path src, Path dest, PublishManifest manifest, String relative) {
+		int seq = sequence++;
+		Runnable r = () -> {
+			try {
+				if( manifest == null || manifest.needsCopy(relative, src, dest)) {
+					if( !linkFiles.get() || !linkFile(src, dest)) {
+						copyFile(src, dest);
+					}
+				}
+			} catch(IOException | RuntimeException e) {
+				errors.put(seq, "Unable to copy " + src.toString() + " to " + dest.toString());
+				if( manifest != null ) {
+					manifest.remove(relative);
+				}
+			}
+		};
+		if( pool == null ) {
+			r.run();
+		} else {
+			pool.execute(r);
+		}
+	}
+
+	/**
+	 * Record an error, ordered after all work submitted so far
+	 */
+	public void addError(String error) {
+		errors.put(sequence++, error);
+	}
+
+	/**
+	 * Wait for all copies to complete and release the worker threads.
+	 * @return the errors, in the order the work was submitted
+	 */
+	public List<String> finish() {
+		if( pool != null ) {
+			pool.shutdown();
+			try {
+				while( !pool.awaitTermination(1, TimeUnit.SECONDS)) {
+					// keep waiting
+				}
+			} catch(InterruptedException ie) {
+				pool.shutdownNow();
+				Thread.currentThread().interrupt();
+				addError("Interrupted while copying files");
+			}
+		}
+		return new ArrayList<>(errors.values());
+	}
+
+	/*
+	 * Replace the destination with a hard link to the source, 
+	 * returning false and disabling links if that is not possible
+	 */
+	private boolean linkFile(Path src, Path dest) {
+		try {
+			if( Files.isSameFile(src, dest))
+				return true;
+		} catch(IOException ioe) {
+			// The destination does not exist yet
+		}
+		try {
+			Files.deleteIfExists(dest);
+			Files.createLink(dest, src);
+			return true;
+		} catch(IOException | UnsupportedOperationException | SecurityException e) {
+			if( linkFiles.compareAndSet(true, false)) {
+				LOG.info("Unable to link {} to {}. Copying files instead: {}", dest, src, e.getMessage());
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Copy a single file, replacing the destination.
+	 * Large files are transferred between channels,
+	 * letting the operating system avoid copying through user space.
+	 */
+	public static void copyFile(Path src, Path dest) throws IOException {
+		if( Files.size(src) < TRANSFER_THRESHOLD ) {
+			Files.copy(src, dest, StandardCopyOption.REPLACE_EXISTING);
+			return;
+		}
+		// Never write through an existing hard link to the source
+		Files.deleteIfExists(dest);
+		try (FileChannel in = FileChannel.open(src, StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(dest, StandardOpenOption.CREATE_NEW,
+						StandardOpenOption.WRITE)) {
+			long size = in.size();
+			long position = 0;
+			while( position < size ) {
+				long transferred = in.transferTo(position, size - position, out);
+				if( transferred <= 0 ) {
+					// The source was truncated while copying
+					break;
+				}
+				position += transferred;
+			}
+		}
+	}
+}
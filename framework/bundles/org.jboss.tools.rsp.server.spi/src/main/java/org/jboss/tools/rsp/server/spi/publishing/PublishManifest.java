@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.spi.publishing;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers the size, modification time and content hash of each
+ * file last published for a deployable, so that publishing only
+ * copies files whose content actually changed.
+ *
+ * Build tools often rewrite files with identical bytes. Skipping
+ * those keeps the timestamps in the server's deployment folder
+ * unchanged, so the server does not redeploy needlessly.
+ *
+ * Paths are relative to the deployable's root.
+ * This class is thread-safe.
+ */
+public class PublishManifest {
+	private static final Logger LOG = LoggerFactory.getLogger(PublishManifest.class);
+
+	private static final String HEADER = "# rsp publish manifest v1";
+	private static final String SEPARATOR = "\t";
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static class Entry {
+		private final long size;
+		private final long modified;
+		private final long hash;
+
+		private Entry(long size, long modified, long hash) {
+			this.size = size;
+			this.modified = modified;
+			this.hash = hash;
+		}
+	}
+
+	private final Path file;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private PublishManifest(Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * Load the manifest stored in the given file. A missing
+	 * or unreadable file results in an empty manifest.
+	 */
+	public static PublishManifest load(Path file) {
+		PublishManifest ret = new PublishManifest(file);
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line = reader.readLine();
+			if( !HEADER.equals(line))
+				return ret;
+			while((line = reader.readLine()) != null ) {
+				String[] parts = line.split(SEPARATOR, 4);
+				if( parts.length == 4 ) {
+					ret.entries.put(parts[3], new Entry(Long.parseLong(parts[0]),
+							Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+				}
+			}
+		} catch(NoSuchFileException nsfe) {
+			// Nothing published yet
+		} catch(IOException | NumberFormatException e) {
+			LOG.warn("Unable to read publish manifest {}. All files will be compared.", file);
+			ret.entries.clear();
+		}
+		return ret;
+	}
+
+	/**
+	 * Write this manifest to its file, replacing it atomically where possible.
+	 */
+	public void save() throws IOException {
+		Files.createDirectories(file.getParent());
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.newLine();
+			for( Map.Entry<String, Entry> e : entries.entrySet()) {
+				Entry v = e.getValue();
+				writer.write(v.size + SEPARATOR + v.modified + SEPARATOR + v.hash + SEPARATOR + e.getKey());
+				writer.newLine();
+			}
+		}
+		try {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch(IOException ioe) {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Delete this manifest's file
+	 */
+	public void delete() throws IOException {
+		entries.clear();
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Decide whether the source file must be copied to the destination.
+	 * The source is only hashed when its size or modification time
+	 * differ from those recorded. The manifest is updated to describe
+	 * the source, assuming the caller copies it when asked to.
+	 * If that copy fails, the caller must {@link #remove(String)} the path.
+	 *
+	 * @param relative the path of the file relative to the deployable
+	 * @param src the source file
+	 * @param dest the destination file
+	 * @return true if the file must be copied
+	 */
+	public boolean needsCopy(String relative, Path src, Path dest) throws IOException {
+		BasicFileAttributes srcAttrs = Files.readAttributes(src, BasicFileAttributes.class);
+		long size = srcAttrs.size();
+		long modified = srcAttrs.lastModifiedTime().toMillis();
+		long destSize = Files.isRegularFile(dest) ? Files.size(dest) : -1;
+		Entry existing = entries.get(relative);
+		if( destSize != size ) {
+			// The destination is missing or differs in a way we can see cheaply
+			entries.put(relative, new Entry(size, modified, hash(src)));
+			return true;
+		}
+		if( existing != null && existing.size == size && existing.modified == modified ) {
+			return false;
+		}
+
+		long hash = hash(src);
+		entries.put(relative, new Entry(size, modified, hash));
+		if( existing != null ) {
+			return existing.size != size || existing.hash != hash;
+		}
+		// Never published with a manifest. Compare against what is there.
+		return hash(dest) != hash;
+	}
+
+	/**
+	 * Forget the given path
+	 */
+	public void remove(String relative) {
+		entries.remove(relative);
+	}
+
+	/**
+	 * Forget the given path and every path below it
+	 */
+	public void removeTree(String relative, String separator) {
+		String prefix = relative + separator;
+		entries.keySet().removeIf(k -> k.equals(relative) || k.startsWith(prefix));
+	}
+
+	/**
+	 * Forget every path not in the given collection
+	 */
+	public void retainAll(Collection<String> relative) {
+		entries.keySet().retainAll(relative);
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	public boolean contains(String relative) {
+		return entries.containsKey(relative);
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/*
+	 * A fast, non-cryptographic 64 bit hash of the file's content,
+	 * made of its CRC-32 and Adler-32 checksums
+	 */
+	private static long hash(Path p) throws IOException {
+		CRC32 crc = new CRC32();
+		Adler32 adler = new Adler32();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream is = Files.newInputStream(p)) {
+			int read;
+			while((read = is.read(buffer)) != -1 ) {
+				crc.update(buffer, 0, read);
+				adler.update(buffer, 0, read);
+			}
+		}
+		return (crc.getValue() << 32) | adler.getValue();
+	}
+}
@@ -0,0 +1,578 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.spi.publishing;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Packages a folder into a zip archive.
+ *
+ * Entries are compressed in parallel on a pool of threads and written
+ * to the archive in the order of their names. Files that are already
+ * compressed, such as jars and images, are stored rather than deflated.
+ * Entries known to be unchanged are copied, still compressed, from the
+ * previous archive at the same location. Files too large to compress
+ * in memory are compressed while writing, and the memory held by the
+ * entries waiting to be written is bounded.
+ *
+ * The archive is written to a temporary file next to the destination,
+ * then moved over the destination, so the server never sees a
+ * partially written archive.
+ */
+public class ZipPackager {
+	private static final Logger LOG = LoggerFactory.getLogger(ZipPackager.class);
+
+	private static final Set<String> STORED_SUFFIXES = new HashSet<>(Arrays.asList(
+			"jar", "war", "ear", "rar", "sar", "zip", "gz", "tgz", "bz2", "xz", "7z",
+			"png", "jpg", "jpeg", "gif", "webp", "ico", "woff", "woff2",
+			"mp3", "mp4", "ogg", "webm", "pdf"));
+
+	// Files this large are compressed while writing, instead of in memory
+	private static final long STREAMING_THRESHOLD = 16L * 1024 * 1024;
+	// Beyond these, the archive needs zip64 extensions
+	private static final int MAX_ENTRIES = 0xFFFF;
+	private static final long MAX_SIZE = 0xFFFFFFFFL - 64L * 1024 * 1024;
+	private static final int ENTRIES_IN_FLIGHT_PER_THREAD = 4;
+	// The memory held by entries compressed but not written yet
+	private static final long BYTES_IN_FLIGHT = 32L * 1024 * 1024;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final int LOCAL_HEADER_SIG = 0x04034b50;
+	private static final int DATA_DESCRIPTOR_SIG = 0x08074b50;
+	private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+	private static final int END_OF_CENTRAL_SIG = 0x06054b50;
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int END_OF_CENTRAL_SIZE = 22;
+	private static final int VERSION = 20;
+	private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+	private static final int FLAG_UTF8 = 0x0800;
+
+	private final int threads;
+	private final int level;
+
+	public ZipPackager(int threads) {
+		this(threads, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * @param threads the number of threads compressing entries
+	 * @param level the deflate compression level
+	 */
+	public ZipPackager(int threads, int level) {
+		this.threads = Math.max(1, threads);
+		this.level = level;
+	}
+
+	/*
+	 * One file to package, and once prepared, how it is written
+	 */
+	private static class Entry {
+		private final Path file;
+		private final String name;
+		private final byte[] nameBytes;
+		private final long size;
+		private final long dosTime;
+		private int method;
+		private int flags = FLAG_UTF8;
+		private long crc;
+		private long compressedSize;
+		private byte[] data;
+		private long offset;
+		// the memory it holds until written
+		private long inFlight;
+
+		private Entry(Path file, String name, long size, long modified) {
+			this.file = file;
+			this.name = name;
+			this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+			this.size = size;
+			this.dosTime = toDosTime(modified);
+		}
+	}
+
+	/*
+	 * An entry of the previous archive
+	 */
+	private static class PreviousEntry {
+		private int method;
+		private long crc;
+		private long compressedSize;
+		private long size;
+		private long localHeaderOffset;
+	}
+
+	/**
+	 * Package the contents of the source folder into the destination archive.
+	 *
+	 * @param sourceDir the folder to package
+	 * @param dest the archive to create or replace
+	 * @param unchanged tests whether an entry name is known to be unchanged
+	 * since the previous archive was written, or null to compress every entry
+	 */
+	public void pack(Path sourceDir, Path dest, Predicate<String> unchanged) throws IOException {
+		List<Entry> entries = listEntries(sourceDir);
+		Path tmp = dest.resolveSibling("." + dest.getFileName() + ".tmp");
+		try {
+			if( requiresZip64(entries)) {
+				packSequential(entries, tmp);
+			} else {
+				packParallel(entries, dest, tmp, unchanged);
+			}
+			try {
+				Files.move(tmp, dest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch(IOException ioe) {
+				Files.move(tmp, dest, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private List<Entry> listEntries(Path sourceDir) throws IOException {
+		List<Entry> entries = new ArrayList<>();
+		Files.walkFileTree(sourceDir, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if( attrs.isRegularFile()) {
+					entries.add(new Entry(file, toEntryName(sourceDir.relativize(file)),
+							attrs.size(), attrs.lastModifiedTime().toMillis()));
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		Collections.sort(entries, (a, b) -> a.name.compareTo(b.name));
+		return entries;
+	}
+
+	private static String toEntryName(Path relative) {
+		StringBuilder sb = new StringBuilder();
+		for( Path segment : relative ) {
+			if( sb.length() > 0 )
+				sb.append('/');
+			sb.append(segment.toString());
+		}
+		return sb.toString();
+	}
+
+	private boolean requiresZip64(List<Entry> entries) {
+		if( entries.size() >= MAX_ENTRIES )
+			return true;
+		long total = 0;
+		for( Entry e : entries ) {
+			total += e.size + LOCAL_HEADER_SIZE + CENTRAL_HEADER_SIZE + 2 * e.nameBytes.length;
+		}
+		return total >= MAX_SIZE;
+	}
+
+	/*
+	 * Archives too large for the plain zip format are written by
+	 * ZipOutputStream, which adds the zip64 extensions as needed
+	 */
+	private void packSequential(List<Entry> entries, Path tmp) throws IOException {
+		try (ZipOutputStream zs = new ZipOutputStream(new BufferedOutputStream(
+				Files.newOutputStream(tmp), BUFFER_SIZE))) {
+			zs.setLevel(level);
+			for( Entry e : entries ) {
+				ZipEntry ze = new ZipEntry(e.name);
+				ze.setTime(Files.getLastModifiedTime(e.file).toMillis());
+				zs.putNextEntry(ze);
+				Files.copy(e.file, zs);
+				zs.closeEntry();
+			}
+		}
+	}
+
+	private void packParallel(List<Entry> entries, Path dest, Path tmp,
+			Predicate<String> unchanged) throws IOException {
+		Map<String, PreviousEntry> previous = unchanged == null ?
+				Collections.emptyMap() : readCentralDirectory(dest);
+		AtomicInteger count = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(threads, (Runnable r) -> {
+			Thread t = new Thread(r, "RSP Zip Packager " + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		try (FileChannel prevChannel = previous.isEmpty() ? null : FileChannel.open(dest, StandardOpenOption.READ);
+				CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(
+						Files.newOutputStream(tmp), BUFFER_SIZE))) {
+			int window = threads * ENTRIES_IN_FLIGHT_PER_THREAD;
+			ArrayDeque<Future<Entry>> pending = new ArrayDeque<>();
+			long inFlight = 0;
+			for( Entry e : entries ) {
+				PreviousEntry prev = previous.get(e.name);
+				boolean reused = prev != null && prev.size == e.size 
+						&& prev.compressedSize < STREAMING_THRESHOLD && unchanged.test(e.name);
+				boolean streamed = !reused && e.size >= STREAMING_THRESHOLD;
+				e.inFlight = streamed ? 0 : e.size;
+				// Bound both the entries and the memory waiting to be written
+				while( !pending.isEmpty() 
+						&& (pending.size() >= window || inFlight + e.inFlight > BYTES_IN_FLIGHT)) {
+					inFlight -= write(out, await(pending.poll()));
+				}
+				inFlight += e.inFlight;
+				if( reused ) {
+					pending.add(pool.submit(() -> reuse(e, prev, prevChannel)));
+				} else if( streamed ) {
+					// Written, and compressed, by the writing thread
+					pending.add(CompletableFuture.completedFuture(e));
+				} else {
+					pending.add(pool.submit((Callable<Entry>)() -> compress(e)));
+				}
+			}
+			while( !pending.isEmpty()) {
+				write(out, await(pending.poll()));
+			}
+			writeCentralDirectory(out, entries);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static Entry await(Future<Entry> f) throws IOException {
+		try {
+			return f.get();
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while packaging", ie);
+		} catch(ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if( cause instanceof IOException )
+				throw (IOException)cause;
+			throw new IOException(cause);
+		}
+	}
+
+	private static boolean isCompressed(String name) {
+		int dot = name.lastIndexOf('.');
+		if( dot == -1 || dot < name.lastIndexOf('/'))
+			return false;
+		return STORED_SUFFIXES.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+	}
+
+	private Entry compress(Entry e) throws IOException {
+		byte[] raw = Files.readAllBytes(e.file);
+		if( raw.length != e.size ) {
+			throw new IOException("File changed while packaging: " + e.file);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(raw, 0, raw.length);
+		e.crc = crc.getValue();
+		if( !isCompressed(e.name)) {
+			Deflater deflater = new Deflater(level, true);
+			try {
+				deflater.setInput(raw);
+				deflater.finish();
+				ByteArrayOutputStream bos = new ByteArrayOutputStream(raw.length / 2 + 64);
+				byte[] buf = new byte[BUFFER_SIZE];
+				while( !deflater.finished()) {
+					int n = deflater.deflate(buf);
+					bos.write(buf, 0, n);
+				}
+				// Keep the compressed form only if it is smaller
+				if( bos.size() < raw.length ) {
+					e.method = ZipEntry.DEFLATED;
+					e.data = bos.toByteArray();
+					e.compressedSize = e.data.length;
+					return e;
+				}
+			} finally {
+				deflater.end();
+			}
+		}
+		e.method = ZipEntry.STORED;
+		e.data = raw;
+		e.compressedSize = raw.length;
+		return e;
+	}
+
+	private Entry reuse(Entry e, PreviousEntry prev, FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, header, prev.localHeaderOffset);
+		if( header.getInt(0) != LOCAL_HEADER_SIG ) {
+			// Not what we expected. Compress the file again.
+			return compress(e);
+		}
+		long dataStart = prev.localHeaderOffset + LOCAL_HEADER_SIZE
+				+ (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+		ByteBuffer data = ByteBuffer.allocate((int)prev.compressedSize);
+		readFully(channel, data, dataStart);
+		e.method = prev.method;
+		e.crc = prev.crc;
+		e.compressedSize = prev.compressedSize;
+		e.data = data.array();
+		return e;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+		long pos = position;
+		while( buf.hasRemaining()) {
+			int n = channel.read(buf, pos);
+			if( n < 0 )
+				throw new IOException("Unexpected end of archive");
+			pos += n;
+		}
+	}
+
+	/*
+	 * Read the central directory of an archive, returning an empty
+	 * map if it does not exist or can not be understood
+	 */
+	private static Map<String, PreviousEntry> readCentralDirectory(Path archive) {
+		Map<String, PreviousEntry> ret = new HashMap<>();
+		if( !Files.isRegularFile(archive))
+			return ret;
+		try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if( size < END_OF_CENTRAL_SIZE )
+				return ret;
+			// Archives written by this class have no comment
+			ByteBuffer end = ByteBuffer.allocate(END_OF_CENTRAL_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, end, size - END_OF_CENTRAL_SIZE);
+			if( end.getInt(0) != END_OF_CENTRAL_SIG )
+				return ret;
+			long cdSize = end.getInt(12) & 0xFFFFFFFFL;
+			long cdOffset = end.getInt(16) & 0xFFFFFFFFL;
+			if( cdOffset + cdSize > size )
+				return ret;
+			ByteBuffer cd = ByteBuffer.allocate((int)cdSize).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, cd, cdOffset);
+			int pos = 0;
+			while( pos + CENTRAL_HEADER_SIZE <= cdSize && cd.getInt(pos) == CENTRAL_HEADER_SIG ) {
+				PreviousEntry pe = new PreviousEntry();
+				pe.method = cd.getShort(pos + 10) & 0xFFFF;
+				pe.crc = cd.getInt(pos + 16) & 0xFFFFFFFFL;
+				pe.compressedSize = cd.getInt(pos + 20) & 0xFFFFFFFFL;
+				pe.size = cd.getInt(pos + 24) & 0xFFFFFFFFL;
+				int nameLength = cd.getShort(pos + 28) & 0xFFFF;
+				int extraLength = cd.getShort(pos + 30) & 0xFFFF;
+				int commentLength = cd.getShort(pos + 32) & 0xFFFF;
+				pe.localHeaderOffset = cd.getInt(pos + 42) & 0xFFFFFFFFL;
+				byte[] name = new byte[nameLength];
+				cd.position(pos + CENTRAL_HEADER_SIZE);
+				cd.get(name);
+				if( pe.method == ZipEntry.STORED || pe.method == ZipEntry.DEFLATED ) {
+					ret.put(new String(name, StandardCharsets.UTF_8), pe);
+				}
+				pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+			}
+		} catch(IOException | RuntimeException e) {
+			LOG.debug("Unable to read the previous archive {}: {}", archive, e.getMessage());
+			ret.clear();
+		}
+		return ret;
+	}
+
+	/*
+	 * Returns the memory the entry no longer holds
+	 */
+	private long write(CountingOutputStream out, Entry e) throws IOException {
+		e.offset = out.getCount();
+		if( e.data == null ) {
+			writeStreamed(out, e);
+		} else {
+			writeLocalHeader(out, e);
+			out.write(e.data);
+			// Release the memory as soon as possible
+			e.data = null;
+		}
+		return e.inFlight;
+	}
+
+	/*
+	 * Write a large file without holding it in memory
+	 */
+	private void writeStreamed(CountingOutputStream out, Entry e) throws IOException {
+		byte[] buf = new byte[BUFFER_SIZE];
+		CRC32 crc = new CRC32();
+		if( isCompressed(e.name)) {
+			// A stored entry needs its checksum in the header
+			try (InputStream is = Files.newInputStream(e.file)) {
+				int n;
+				while((n = is.read(buf)) != -1 ) {
+					crc.update(buf, 0, n);
+				}
+			}
+			e.method = ZipEntry.STORED;
+			e.crc = crc.getValue();
+			e.compressedSize = e.size;
+			writeLocalHeader(out, e);
+			long copied = Files.copy(e.file, out);
+			if( copied != e.size )
+				throw new IOException("File changed while packaging: " + e.file);
+			return;
+		}
+
+		e.method = ZipEntry.DEFLATED;
+		e.flags |= FLAG_DATA_DESCRIPTOR;
+		writeLocalHeader(out, e);
+		long start = out.getCount();
+		long read = 0;
+		Deflater deflater = new Deflater(level, true);
+		byte[] outBuf = new byte[BUFFER_SIZE];
+		try (InputStream is = Files.newInputStream(e.file)) {
+			int n;
+			while((n = is.read(buf)) != -1 ) {
+				crc.update(buf, 0, n);
+				read += n;
+				deflater.setInput(buf, 0, n);
+				while( !deflater.needsInput()) {
+					out.write(outBuf, 0, deflater.deflate(outBuf));
+				}
+			}
+			deflater.finish();
+			while( !deflater.finished()) {
+				out.write(outBuf, 0, deflater.deflate(outBuf));
+			}
+		} finally {
+			deflater.end();
+		}
+		if( read != e.size )
+			throw new IOException("File changed while packaging: " + e.file);
+		e.crc = crc.getValue();
+		e.compressedSize = out.getCount() - start;
+		ByteBuffer descriptor = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+		descriptor.putInt(DATA_DESCRIPTOR_SIG).putInt((int)e.crc)
+			.putInt((int)e.compressedSize).putInt((int)e.size);
+		out.write(descriptor.array());
+	}
+
+	private void writeLocalHeader(OutputStream out, Entry e) throws IOException {
+		boolean deferred = (e.flags & FLAG_DATA_DESCRIPTOR) != 0;
+		ByteBuffer b = ByteBuffer.allocate(LOCAL_HEADER_SIZE + e.nameBytes.length)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		b.putInt(LOCAL_HEADER_SIG);
+		b.putShort((short)VERSION);
+		b.putShort((short)e.flags);
+		b.putShort((short)e.method);
+		b.putInt((int)e.dosTime);
+		b.putInt(deferred ? 0 : (int)e.crc);
+		b.putInt(deferred ? 0 : (int)e.compressedSize);
+		b.putInt(deferred ? 0 : (int)e.size);
+		b.putShort((short)e.nameBytes.length);
+		b.putShort((short)0);
+		b.put(e.nameBytes);
+		out.write(b.array());
+	}
+
+	private void writeCentralDirectory(CountingOutputStream out, List<Entry> entries) throws IOException {
+		long start = out.getCount();
+		for( Entry e : entries ) {
+			ByteBuffer b = ByteBuffer.allocate(CENTRAL_HEADER_SIZE + e.nameBytes.length)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			b.putInt(CENTRAL_HEADER_SIG);
+			b.putShort((short)VERSION);
+			b.putShort((short)VERSION);
+			b.putShort((short)e.flags);
+			b.putShort((short)e.method);
+			b.putInt((int)e.dosTime);
+			b.putInt((int)e.crc);
+			b.putInt((int)e.compressedSize);
+			b.putInt((int)e.size);
+			b.putShort((short)e.nameBytes.length);
+			b.putShort((short)0);   // extra field length
+			b.putShort((short)0);   // comment length
+			b.putShort((short)0);   // disk number
+			b.putShort((short)0);   // internal attributes
+			b.putInt(0);            // external attributes
+			b.putInt((int)e.offset);
+			b.put(e.nameBytes);
+			out.write(b.array());
+		}
+		long size = out.getCount() - start;
+		ByteBuffer end = ByteBuffer.allocate(END_OF_CENTRAL_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		end.putInt(END_OF_CENTRAL_SIG);
+		end.putShort((short)0);
+		end.putShort((short)0);
+		end.putShort((short)entries.size());
+		end.putShort((short)entries.size());
+		end.putInt((int)size);
+		end.putInt((int)start);
+		end.putShort((short)0);
+		out.write(end.array());
+	}
+
+	private static long toDosTime(long millis) {
+		LocalDateTime t = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+		if( t.getYear() < 1980 ) {
+			return (1 << 21) | (1 << 16);
+		}
+		return ((long)(t.getYear() - 1980) << 25) | (t.getMonthValue() << 21)
+				| (t.getDayOfMonth() << 16) | (t.getHour() << 11)
+				| (t.getMinute() << 5) | (t.getSecond() >> 1);
+	}
+
+	private static class CountingOutputStream extends FilterOutputStream {
+		private long count = 0;
+
+		public CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		public long getCount() {
+			return count;
+		}
+	}
+}
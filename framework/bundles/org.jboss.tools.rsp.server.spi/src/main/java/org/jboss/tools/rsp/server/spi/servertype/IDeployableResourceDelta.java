@@ -16,11 +16,17 @@ public interface IDeployableResourceDelta {
 	public static final int CREATED = 1;
 	public static final int MODIFIED = 2;
 	public static final int DELETED = 3;
+	/**
+	 * Anything in or below the folder may have been created, modified, 
+	 * or deleted. The folder should be synchronized as a whole.
+	 */
+	public static final int SUBTREE_CHANGED = 4;
 	
 	/**
 	 * Returns a map of changed resources within this deployable.
 	 * The key is a relative path to the deployment's source directory.
-	 * The value is one of CREATED, MODIFIED, or DELETED. 
+	 * The value is one of CREATED, MODIFIED, DELETED, or SUBTREE_CHANGED. 
+	 * The map may be a read-only view, and must not be modified.
 	 * @return
 	 */
 	public Map<Path, Integer> getResourceDeltaMap();
@@ -55,7 +55,8 @@ public interface IServerPublishModel {
 	public IStatus removeDeployable(DeployableReference reference);
 
 	/**
-	 * Returns a list of the deployables for this server and their current states
+	 * Returns a list of the deployables for this server and their current states.
+	 * The list and states may be shared with other callers and must not be modified.
 	 * @return
 	 */
 	public List<DeployableState> getDeployableStates();
@@ -93,7 +94,8 @@ public interface IServerPublishModel {
 
 	/**
 	 * Returns the current state for the given deployment. Return {@code null} if
-	 * the deployment doesn't exist yet.
+	 * the deployment doesn't exist yet. The state may be shared with other 
+	 * callers and must not be modified.
 	 * 
 	 * @param reference
 	 * @return
@@ -101,8 +103,8 @@ public interface IServerPublishModel {
 	public DeployableState getDeployableState(DeployableReference reference);
 	
 	/**
-	 * Ensure the DeployableReference is filled with the options it was originally
-	 * created with.
+	 * Returns a copy of the DeployableReference filled with the options 
+	 * it was originally created with. The given reference is not modified.
 	 * 
 	 * @return
 	 */
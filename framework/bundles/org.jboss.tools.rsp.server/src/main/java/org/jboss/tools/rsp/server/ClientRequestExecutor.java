@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the requests of the clients on a bounded number of threads.
+ *
+ * Each client has its own queue, and the clients with queued requests
+ * take turns, so a client sending many requests does not delay
+ * the requests of the others. A client also runs at most one request
+ * fewer than there are threads, leaving one for the others when its
+ * requests block.
+ *
+ * The number of queued requests and the time they waited are logged
+ * periodically at debug level, while requests are run.
+ */
+public class ClientRequestExecutor {
+	private static final Logger LOG = LoggerFactory.getLogger(ClientRequestExecutor.class);
+
+	/*
+	 * The key of the requests made without a client
+	 */
+	private static final Object NO_CLIENT = new Object();
+
+	private static class Request {
+		private final Runnable runnable;
+		private final long queued = System.nanoTime();
+
+		Request(Runnable runnable) {
+			this.runnable = runnable;
+		}
+	}
+
+	private static class ClientQueue {
+		private final Object client;
+		private final Deque<Request> requests = new ArrayDeque<>();
+		private int running;
+		private boolean ready;
+
+		ClientQueue(Object client) {
+			this.client = client;
+		}
+	}
+
+	private final String name;
+	private final int threads;
+	private final int maxPerClient;
+	private final long statisticsInterval;
+
+	private final Object lock = new Object();
+	private final Map<Object, ClientQueue> queues = new IdentityHashMap<>();
+	// the clients whose turn is coming, with requests they may run
+	private final Deque<ClientQueue> ready = new ArrayDeque<>();
+	private int workers;
+	private int idle;
+	// idle workers notified, but not awake yet
+	private int notified;
+	private int queued;
+	private boolean shutdown;
+
+	private long dispatched;
+	private long totalWait;
+	private long maxWait;
+
+	// since the statistics were last logged
+	private long statisticsStart = System.nanoTime();
+	private long intervalDispatched;
+	private long intervalTotalWait;
+	private long intervalMaxWait;
+
+	/**
+	 * @param name the name of the threads
+	 * @param threads the maximum number of requests running at once
+	 */
+	public ClientRequestExecutor(String name, int threads) {
+		this(name, threads, 0);
+	}
+
+	/**
+	 * @param name the name of the threads
+	 * @param threads the maximum number of requests running at once
+	 * @param statisticsInterval the minimum duration, in milliseconds, 
+	 * between logging the queue depth and wait times, or 0 to never log them
+	 */
+	public ClientRequestExecutor(String name, int threads, int statisticsInterval) {
+		if( threads <= 0 ) {
+			throw new IllegalArgumentException("The number of threads must be positive");
+		}
+		this.name = name;
+		this.threads = threads;
+		this.maxPerClient = Math.max(1, threads - 1);
+		this.statisticsInterval = TimeUnit.MILLISECONDS.toNanos(Math.max(0, statisticsInterval));
+	}
+
+	/**
+	 * Queues the given request of the given client.
+	 *
+	 * @param client the client making the request, or {@code null}
+	 * @param runnable the request
+	 * @throws RejectedExecutionException if this executor is shut down
+	 */
+	public void execute(Object client, Runnable runnable) {
+		Object key = client == null ? NO_CLIENT : client;
+		synchronized(lock) {
+			if( shutdown ) {
+				throw new RejectedExecutionException(name + " is shut down");
+			}
+			ClientQueue q = queues.computeIfAbsent(key, ClientQueue::new);
+			q.requests.add(new Request(runnable));
+			queued++;
+			makeReady(q);
+		}
+	}
+
+	/*
+	 * Must be called holding the lock
+	 */
+	private void makeReady(ClientQueue q) {
+		if( !q.ready && !q.requests.isEmpty() && q.running < maxPerClient ) {
+			q.ready = true;
+			ready.add(q);
+			if( idle > notified ) {
+				notified++;
+				lock.notify();
+			} else if( workers < threads ) {
+				startWorker();
+			}
+		}
+	}
+
+	private void startWorker() {
+		workers++;
+		Thread t = new Thread(this::work, name + " " + workers);
+		t.setDaemon(true);
+		t.start();
+	}
+
+	private void work() {
+		while( true ) {
+			ClientQueue q;
+			Request r;
+			String statistics;
+			synchronized(lock) {
+				while( ready.isEmpty() && !shutdown ) {
+					idle++;
+					try {
+						lock.wait();
+					} catch(InterruptedException ie) {
+						// keep waiting unless shut down
+					} finally {
+						idle--;
+						notified = Math.max(0, notified - 1);
+					}
+				}
+				if( shutdown ) {
+					workers--;
+					return;
+				}
+				q = ready.poll();
+				q.ready = false;
+				r = q.requests.poll();
+				q.running++;
+				queued--;
+				// back of the line
+				makeReady(q);
+				long now = System.nanoTime();
+				recordWait(now - r.queued);
+				statistics = LOG.isDebugEnabled() ? takeStatistics(now) : null;
+			}
+			if( statistics != null ) {
+				LOG.debug(statistics);
+			}
+			try {
+				r.runnable.run();
+			} catch(RuntimeException | Error e) {
+				LOG.error("Error running a request", e);
+			} finally {
+				synchronized(lock) {
+					q.running--;
+					if( !shutdown ) {
+						makeReady(q);
+					}
+					if( q.running == 0 && q.requests.isEmpty()) {
+						queues.remove(q.client);
+					}
+				}
+			}
+		}
+	}
+
+	private void recordWait(long wait) {
+		dispatched++;
+		totalWait += wait;
+		maxWait = Math.max(maxWait, wait);
+		intervalDispatched++;
+		intervalTotalWait += wait;
+		intervalMaxWait = Math.max(intervalMaxWait, wait);
+	}
+
+	/*
+	 * Returns the statistics to log if they are due, starting a new interval
+	 */
+	String takeStatistics(long now) {
+		synchronized(lock) {
+			if( statisticsInterval <= 0 || now - statisticsStart < statisticsInterval ) {
+				return null;
+			}
+			String ret = String.format(
+					"%s: %d requests run in the last %d ms, waiting %.1f ms on average and %.1f ms at most. "
+					+ "%d requests queued, %d of %d threads busy.", 
+					name, intervalDispatched, TimeUnit.NANOSECONDS.toMillis(now - statisticsStart), 
+					intervalDispatched == 0 ? 0 : intervalTotalWait / 1e6 / intervalDispatched, 
+					intervalMaxWait / 1e6, queued, workers - idle, threads);
+			statisticsStart = now;
+			intervalDispatched = 0;
+			intervalTotalWait = 0;
+			intervalMaxWait = 0;
+			return ret;
+		}
+	}
+
+	/**
+	 * Returns the number of requests waiting to run
+	 */
+	public int getQueueDepth() {
+		synchronized(lock) {
+			return queued;
+		}
+	}
+
+	/**
+	 * Returns the number of requests of the given client waiting to run
+	 *
+	 * @param client the client, or {@code null} for the requests made without one
+	 */
+	public int getQueueDepth(Object client) {
+		synchronized(lock) {
+			ClientQueue q = queues.get(client == null ? NO_CLIENT : client);
+			return q == null ? 0 : q.requests.size();
+		}
+	}
+
+	/**
+	 * Returns the average time requests waited before running, in milliseconds
+	 */
+	public double getAverageWaitTime() {
+		synchronized(lock) {
+			return dispatched == 0 ? 0 : totalWait / 1e6 / dispatched;
+		}
+	}
+
+	/**
+	 * Returns the longest time a request waited before running, in milliseconds
+	 */
+	public double getMaxWaitTime() {
+		synchronized(lock) {
+			return maxWait / 1e6;
+		}
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Stops the threads once the running requests are done.
+	 * Queued requests are discarded.
+	 */
+	public void shutdown() {
+		synchronized(lock) {
+			shutdown = true;
+			queues.clear();
+			ready.clear();
+			queued = 0;
+			lock.notifyAll();
+		}
+	}
+}
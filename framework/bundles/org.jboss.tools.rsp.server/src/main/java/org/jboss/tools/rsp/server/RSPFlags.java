@@ -20,11 +20,127 @@ public class RSPFlags {
 	public static final String LOG_LEVEL_FLAG = LoggingConstants.SYSPROP_LOG_LEVEL_FLAG;
 	public static final String SYSPROP_SERVER_PORT = "rsp.server.port";
 	public static final int DEFAULT_PORT = 27511;
+	public static final String SYSPROP_FILEWATCHER_QUIET_WINDOW = "rsp.filewatcher.quietwindow";
+	public static final int DEFAULT_FILEWATCHER_QUIET_WINDOW = 100;
+	public static final String SYSPROP_FILEWATCHER_LISTENER_THREADS = "rsp.filewatcher.listener.threads";
+	public static final int DEFAULT_FILEWATCHER_LISTENER_THREADS = 2;
+	public static final String SYSPROP_PUBLISH_DELTA_COLLAPSE_THRESHOLD = "rsp.publish.delta.collapse.threshold";
+	public static final int DEFAULT_PUBLISH_DELTA_COLLAPSE_THRESHOLD = 1000;
+	public static final String SYSPROP_PUBLISH_THREADS = "rsp.publish.threads";
+	public static final int DEFAULT_PUBLISH_THREADS = 4;
+	public static final String SYSPROP_PROCESS_OUTPUT_BUFFER_SIZE = "rsp.process.output.buffer.size";
+	public static final int DEFAULT_PROCESS_OUTPUT_BUFFER_SIZE = 1024 * 1024;
+	public static final String SYSPROP_PROCESS_OUTPUT_SPILL_SIZE = "rsp.process.output.spill.size";
+	public static final int DEFAULT_PROCESS_OUTPUT_SPILL_SIZE = 0;
+	public static final String SYSPROP_REQUEST_THREADS = "rsp.request.threads";
+	public static final int DEFAULT_REQUEST_THREADS = 8;
+	public static final String SYSPROP_REQUEST_STATISTICS_INTERVAL = "rsp.request.statistics.interval";
+	public static final int DEFAULT_REQUEST_STATISTICS_INTERVAL = 60000;
+	public static final String SYSPROP_CLIENT_OUTPUT_BUFFER_SIZE = "rsp.client.output.buffer.size";
+	public static final int DEFAULT_CLIENT_OUTPUT_BUFFER_SIZE = 256 * 1024;
+	public static final String SYSPROP_CLIENT_OUTPUT_WINDOW = "rsp.client.output.window";
+	public static final int DEFAULT_CLIENT_OUTPUT_WINDOW = 50;
+	public static final String SYSPROP_CLIENT_RESYNC_WINDOW = "rsp.client.resync.window";
+	public static final int DEFAULT_CLIENT_RESYNC_WINDOW = 1000;
 	
 	public static int getServerPort() {
 		return getIntSysprop(SYSPROP_SERVER_PORT, DEFAULT_PORT);
 	}
 
+	/**
+	 * The duration, in milliseconds, the file watcher waits for 
+	 * the filesystem to be quiet before delivering a batch of events.
+	 * 0 delivers every event immediately.
+	 */
+	public static int getFileWatcherQuietWindow() {
+		return getIntSysprop(SYSPROP_FILEWATCHER_QUIET_WINDOW, DEFAULT_FILEWATCHER_QUIET_WINDOW);
+	}
+
+	/**
+	 * The number of threads calling file watcher listeners.
+	 * 0 calls them on the file watcher thread.
+	 */
+	public static int getFileWatcherListenerThreads() {
+		return getIntSysprop(SYSPROP_FILEWATCHER_LISTENER_THREADS, DEFAULT_FILEWATCHER_LISTENER_THREADS);
+	}
+
+	/**
+	 * The number of changed entries in one folder above which a 
+	 * deployable's delta records the whole folder as changed.
+	 * 0 never collapses folders.
+	 */
+	public static int getPublishDeltaCollapseThreshold() {
+		return getIntSysprop(SYSPROP_PUBLISH_DELTA_COLLAPSE_THRESHOLD, DEFAULT_PUBLISH_DELTA_COLLAPSE_THRESHOLD);
+	}
+
+	/**
+	 * The number of threads, shared by all servers, publishing 
+	 * deployables besides the thread running each publish.
+	 */
+	public static int getPublishThreads() {
+		int threads = getIntSysprop(SYSPROP_PUBLISH_THREADS, DEFAULT_PUBLISH_THREADS);
+		return threads > 0 ? threads : DEFAULT_PUBLISH_THREADS;
+	}
+
+	/**
+	 * The number of bytes of each process output stream kept in memory.
+	 */
+	public static int getProcessOutputBufferSize() {
+		return getIntSysprop(SYSPROP_PROCESS_OUTPUT_BUFFER_SIZE, DEFAULT_PROCESS_OUTPUT_BUFFER_SIZE);
+	}
+
+	/**
+	 * The size, in bytes, at which the file keeping process output
+	 * dropped from memory rolls over. 0 discards dropped output.
+	 */
+	public static int getProcessOutputSpillSize() {
+		return getIntSysprop(SYSPROP_PROCESS_OUTPUT_SPILL_SIZE, DEFAULT_PROCESS_OUTPUT_SPILL_SIZE);
+	}
+
+	/**
+	 * The number of threads running the requests of the clients.
+	 */
+	public static int getRequestThreads() {
+		int threads = getIntSysprop(SYSPROP_REQUEST_THREADS, DEFAULT_REQUEST_THREADS);
+		return threads > 0 ? threads : DEFAULT_REQUEST_THREADS;
+	}
+
+	/**
+	 * The minimum duration, in milliseconds, between logging how many 
+	 * requests of the clients are queued and how long they waited, 
+	 * at debug level. 0 never logs them.
+	 */
+	public static int getRequestStatisticsInterval() {
+		return getIntSysprop(SYSPROP_REQUEST_STATISTICS_INTERVAL, DEFAULT_REQUEST_STATISTICS_INTERVAL);
+	}
+
+	/**
+	 * The number of characters of process output waiting to be sent 
+	 * to a client above which the oldest are dropped.
+	 */
+	public static int getClientOutputBufferSize() {
+		int size = getIntSysprop(SYSPROP_CLIENT_OUTPUT_BUFFER_SIZE, DEFAULT_CLIENT_OUTPUT_BUFFER_SIZE);
+		return size > 0 ? size : DEFAULT_CLIENT_OUTPUT_BUFFER_SIZE;
+	}
+
+	/**
+	 * The duration, in milliseconds, during which process output
+	 * is coalesced before being sent to a client.
+	 * 0 sends it as soon as possible.
+	 */
+	public static int getClientOutputWindow() {
+		return getIntSysprop(SYSPROP_CLIENT_OUTPUT_WINDOW, DEFAULT_CLIENT_OUTPUT_WINDOW);
+	}
+
+	/**
+	 * The duration, in milliseconds, a newly connected client has to ask 
+	 * for the server states changed since it last received them, 
+	 * before it is sent all of them. 0 sends all of them immediately.
+	 */
+	public static int getClientResyncWindow() {
+		return getIntSysprop(SYSPROP_CLIENT_RESYNC_WINDOW, DEFAULT_CLIENT_RESYNC_WINDOW);
+	}
+
 	public static int getIntSysprop(String key, int def) {
 		int logLevel = def;
 		String logLevelTmp = System.getProperty(key);
@@ -16,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -30,6 +31,7 @@ import org.jboss.tools.rsp.api.dao.CreateServerResponse;
 import org.jboss.tools.rsp.api.dao.DiscoveryPath;
 import org.jboss.tools.rsp.api.dao.DownloadRuntimeDescription;
 import org.jboss.tools.rsp.api.dao.DownloadSingleRuntimeRequest;
+import org.jboss.tools.rsp.api.dao.EventSubscription;
 import org.jboss.tools.rsp.api.dao.GetServerJsonResponse;
 import org.jboss.tools.rsp.api.dao.JobHandle;
 import org.jboss.tools.rsp.api.dao.JobProgress;
@@ -49,6 +51,8 @@ import org.jboss.tools.rsp.api.dao.ServerHandle;
 import org.jboss.tools.rsp.api.dao.ServerLaunchMode;
 import org.jboss.tools.rsp.api.dao.ServerStartingAttributes;
 import org.jboss.tools.rsp.api.dao.ServerState;
+import org.jboss.tools.rsp.api.dao.ServerStateRevisions;
+import org.jboss.tools.rsp.api.dao.ServerStatesDelta;
 import org.jboss.tools.rsp.api.dao.ServerType;
 import org.jboss.tools.rsp.api.dao.StartServerResponse;
 import org.jboss.tools.rsp.api.dao.Status;
@@ -85,6 +89,7 @@ public class ServerManagementServerImpl implements RSPServer {
 	
 	private final IServerManagementModel managementModel;
 	private final RemoteEventManager remoteEventManager;
+	private final ClientRequestExecutor requestExecutor;
 	private ServerManagementServerLauncher launcher;
 	
 	public ServerManagementServerImpl(ServerManagementServerLauncher launcher, 
@@ -92,11 +97,25 @@ public class ServerManagementServerImpl implements RSPServer {
 		this.launcher = launcher;
 		this.managementModel = managementModel;
 		this.remoteEventManager = createRemoteEventManager();
+		this.requestExecutor = createRequestExecutor();
 	}
 	
 	protected RemoteEventManager createRemoteEventManager() {
 		return new RemoteEventManager(this);
 	}
+
+	protected ClientRequestExecutor createRequestExecutor() {
+		return new ClientRequestExecutor("RSP Request", RSPFlags.getRequestThreads(), 
+				RSPFlags.getRequestStatisticsInterval());
+	}
+
+	/**
+	 * Returns the executor running the requests of the clients,
+	 * which tells how many are queued and how long they wait.
+	 */
+	public ClientRequestExecutor getRequestExecutor() {
+		return requestExecutor;
+	}
 	
 	public List<RSPClient> getClients() {
 		return new ArrayList<>(clients);
@@ -119,13 +138,16 @@ public class ServerManagementServerImpl implements RSPServer {
 
 	public void clientAdded(SocketLauncher<RSPClient> launcher) {
 		this.managementModel.clientAdded(launcher.getRemoteProxy());
-		this.remoteEventManager.initClientWithServerStates(launcher.getRemoteProxy());
+		this.remoteEventManager.clientAdded(launcher.getRemoteProxy());
 	}
 	
 	protected void removeClient(SocketLauncher<RSPClient> launcher) {
 		this.launchers.remove(launcher);
 		this.managementModel.clientRemoved(launcher.getRemoteProxy());
 		this.clients.remove(launcher.getRemoteProxy());
+		if( this.remoteEventManager != null ) {
+			this.remoteEventManager.clientRemoved(launcher.getRemoteProxy());
+		}
 	}
 	
 	public List<SocketLauncher<RSPClient>> getActiveLaunchers() {
@@ -242,6 +264,7 @@ public class ServerManagementServerImpl implements RSPServer {
 	private void shutdownSync() {
 		managementModel.dispose();
 		launcher.shutdown();
+		requestExecutor.shutdown();
 	}
 	
 	@Override
@@ -506,6 +529,9 @@ public class ServerManagementServerImpl implements RSPServer {
 
 	public ServerState getServerStateSync(ServerHandle handle) {
 		IServer is = managementModel.getServerModel().getServer(handle.getId());
+		if( remoteEventManager != null ) {
+			return remoteEventManager.getServerState(is);
+		}
 		return is.getDelegate().getServerState();
 	}
 	
@@ -568,6 +594,9 @@ public class ServerManagementServerImpl implements RSPServer {
 	public CompletableFuture<ServerCapabilitiesResponse> registerClientCapabilities(ClientCapabilitiesRequest request) {
 		RSPClient rspc = ClientThreadLocal.getActiveClient();
 		IStatus s = managementModel.getCapabilityManagement().registerClientCapabilities(rspc, request);
+		if( rspc != null && remoteEventManager != null ) {
+			remoteEventManager.clientRegistered(rspc);
+		}
 		Status st = StatusConverter.convert(s);
 		Map<String,String> resp2 = managementModel.getCapabilityManagement().getServerCapabilities();
 		ServerCapabilitiesResponse resp = new ServerCapabilitiesResponse(st, resp2);
@@ -804,6 +833,40 @@ public class ServerManagementServerImpl implements RSPServer {
 		return StatusConverter.convert(s);
 	}
 
+	/*
+	 * Events
+	 */
+	@Override
+	public CompletableFuture<Status> subscribeEvents(EventSubscription subscription) {
+		return createCompletableFuture(() -> subscribeEventsSync(subscription));
+	}
+
+	protected Status subscribeEventsSync(EventSubscription subscription) {
+		RSPClient rspc = ClientThreadLocal.getActiveClient();
+		if( rspc == null || remoteEventManager == null ) {
+			return errorStatus("Events can only be subscribed to by a connected client");
+		}
+		try {
+			remoteEventManager.subscribe(rspc, subscription);
+		} catch(IllegalArgumentException iae) {
+			return errorStatus(iae.getMessage());
+		}
+		return StatusConverter.convert(org.jboss.tools.rsp.eclipse.core.runtime.Status.OK_STATUS);
+	}
+
+	@Override
+	public CompletableFuture<ServerStatesDelta> resyncServerStates(ServerStateRevisions revisions) {
+		return createCompletableFuture(() -> resyncServerStatesSync(revisions));
+	}
+
+	protected ServerStatesDelta resyncServerStatesSync(ServerStateRevisions revisions) {
+		RSPClient rspc = ClientThreadLocal.getActiveClient();
+		if( rspc == null || remoteEventManager == null ) {
+			return new ServerStatesDelta(new ArrayList<>(), new ArrayList<>());
+		}
+		return remoteEventManager.resyncServerStates(rspc, revisions);
+	}
+
 	
 	/*
 	 * Server actions
@@ -907,14 +970,23 @@ public class ServerManagementServerImpl implements RSPServer {
 		return StatusConverter.convert(is);
 	}
 
-	private static <T> CompletableFuture<T> createCompletableFuture(Supplier<T> supplier) {
+	private <T> CompletableFuture<T> createCompletableFuture(Supplier<T> supplier) {
 		final RSPClient rspc = ClientThreadLocal.getActiveClient();
 		CompletableFuture<T> completableFuture = new CompletableFuture<>();
-		CompletableFuture.runAsync(() -> {
-			ClientThreadLocal.setActiveClient(rspc);
-			completableFuture.complete(supplier.get());
-			ClientThreadLocal.setActiveClient(null);
-		});
+		try {
+			requestExecutor.execute(rspc, () -> {
+				ClientThreadLocal.setActiveClient(rspc);
+				try {
+					completableFuture.complete(supplier.get());
+				} catch(RuntimeException re) {
+					completableFuture.completeExceptionally(re);
+				} finally {
+					ClientThreadLocal.setActiveClient(null);
+				}
+			});
+		} catch(RejectedExecutionException ree) {
+			completableFuture.completeExceptionally(ree);
+		}
 		return completableFuture;
 	}
 
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.filewatcher;
+
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.jboss.tools.rsp.server.spi.filewatcher.FileWatcherEvent;
+import org.jboss.tools.rsp.server.spi.filewatcher.IFileWatcherEventListener;
+
+/**
+ * Collects the events to deliver to each listener until the
+ * filesystem has been quiet for a given window.
+ *
+ * Events for the same path are coalesced, following the
+ * same rules as a deployable's resource delta:
+ * a deletion followed by a creation is a modification,
+ * a creation followed by a deletion cancels out, and
+ * a modification followed by a deletion is a deletion.
+ *
+ * To avoid starving listeners during a continuous storm
+ * of events, a batch is also due once its oldest event has
+ * waited for the maximum delay.
+ *
+ * This class is not thread-safe. Callers must synchronize access.
+ */
+class FileWatcherEventBatch {
+
+	private final long quietWindow;
+	private final long maxDelay;
+	private final Map<IFileWatcherEventListener, Map<Path, FileWatcherEvent>> pending
+		= new LinkedHashMap<>();
+	private long firstEvent = 0;
+	private long lastEvent = 0;
+
+	public FileWatcherEventBatch(long quietWindow, long maxDelay) {
+		this.quietWindow = quietWindow;
+		this.maxDelay = Math.max(quietWindow, maxDelay);
+	}
+
+	public void add(IFileWatcherEventListener listener, FileWatcherEvent event) {
+		long now = System.currentTimeMillis();
+		if( pending.isEmpty()) {
+			firstEvent = now;
+		}
+		lastEvent = now;
+		Map<Path, FileWatcherEvent> forListener =
+				pending.computeIfAbsent(listener, k -> new LinkedHashMap<>());
+		FileWatcherEvent existing = forListener.get(event.getPath());
+		if( existing == null ) {
+			forListener.put(event.getPath(), event);
+			return;
+		}
+		WatchEvent.Kind<?> kind = coalesce(existing.getKind(), event.getKind());
+		if( kind == null ) {
+			forListener.remove(event.getPath());
+		} else if( kind != existing.getKind()) {
+			forListener.put(event.getPath(), new FileWatcherEvent(event.getPath(), kind));
+		}
+	}
+
+	/*
+	 * Returns the kind of the combined event, or null if the events cancel out
+	 */
+	private WatchEvent.Kind<?> coalesce(WatchEvent.Kind<?> existing, WatchEvent.Kind<?> next) {
+		if( existing == StandardWatchEventKinds.ENTRY_DELETE
+				&& next != StandardWatchEventKinds.ENTRY_DELETE) {
+			return StandardWatchEventKinds.ENTRY_MODIFY;
+		}
+		if( existing == StandardWatchEventKinds.ENTRY_CREATE
+				&& next == StandardWatchEventKinds.ENTRY_DELETE) {
+			return null;
+		}
+		if( existing == StandardWatchEventKinds.ENTRY_MODIFY
+				&& next == StandardWatchEventKinds.ENTRY_DELETE) {
+			return StandardWatchEventKinds.ENTRY_DELETE;
+		}
+		return existing;
+	}
+
+	public boolean isEmpty() {
+		return pending.isEmpty();
+	}
+
+	/**
+	 * @return the number of milliseconds until this batch is due,
+	 * or 0 if it is due now
+	 */
+	public long getRemainingDelay() {
+		long due = Math.min(lastEvent + quietWindow, firstEvent + maxDelay);
+		return Math.max(0, due - System.currentTimeMillis());
+	}
+
+	public boolean isDue() {
+		return !isEmpty() && getRemainingDelay() == 0;
+	}
+
+	/**
+	 * Remove and return all pending events, grouped by listener.
+	 * Listeners whose events all cancelled out are omitted.
+	 */
+	public Map<IFileWatcherEventListener, List<FileWatcherEvent>> drain() {
+		Map<IFileWatcherEventListener, List<FileWatcherEvent>> ret = new LinkedHashMap<>();
+		Iterator<Entry<IFileWatcherEventListener, Map<Path, FileWatcherEvent>>> it
+			= pending.entrySet().iterator();
+		while(it.hasNext()) {
+			Entry<IFileWatcherEventListener, Map<Path, FileWatcherEvent>> e = it.next();
+			if( !e.getValue().isEmpty()) {
+				ret.put(e.getKey(), new ArrayList<>(e.getValue().values()));
+			}
+			it.remove();
+		}
+		return ret;
+	}
+}
@@ -11,24 +11,31 @@ package org.jboss.tools.rsp.server.filewatcher;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jboss.tools.rsp.server.spi.filewatcher.FileWatcherEvent;
 import org.jboss.tools.rsp.server.spi.filewatcher.IFileWatcherEventListener;
@@ -40,31 +47,87 @@ public class FileWatcherService implements IFileWatcherService {
 	private static final Logger LOG = LoggerFactory.getLogger(FileWatcherService.class);
 
 	// The watch service from java.nio
-	private WatchService watchService;
+	private volatile WatchService watchService;
 	/* 
-	 *  A map of paths and associated listeners that have been specifically
-	 *  requested by some client to be listened to.
-	 *  
-	 */ 
-	private HashMap<Path, List<RegistrationRequest>> requests = new HashMap<>();
-	
-	/*
-	 * A map of path -> watch key, listing each and every folder 
+	 * A trie of path segments holding both the paths and associated 
+	 * listeners that have been specifically requested by some client 
+	 * to be listened to, and the watch key for each and every folder 
 	 * that we are subscribed to receive events from. 
-	 * This map will contain much more data than the requests map. 
-	 * It will possibly contain recursive subscriptions, as well 
+	 * 
+	 * There will be many more subscriptions than requests. 
+	 * Subscriptions will possibly include recursive subscriptions, as well 
 	 * as parent subscriptions up to the root of the filesystem. 
 	 */
-	private Map<Path, WatchKey> subscriptions = new HashMap<>();
+	private PathTrie trie = new PathTrie();
 	
 	private boolean closing = false;
 	
 	private ExecutorService executor = null;
 	private Future<?> executorFuture = null;
 	
+	/*
+	 * When batching is enabled, listener events are collected here
+	 * and delivered once the filesystem has been quiet for the
+	 * given window. Only accessed from the watcher thread.
+	 */
+	private static final int MAX_DELAY_FACTOR = 10;
+	private final int quietWindow;
+	private FileWatcherEventBatch batch = null;
+	
+	/*
+	 * When listener threads are enabled, listeners are called 
+	 * on this dispatcher rather than on the watcher thread.
+	 */
+	private final int listenerThreads;
+	private volatile ListenerDispatcher dispatcher = null;
+	
+	// Total time spent registering folders below recursive requests
+	private final AtomicLong registrationNanos = new AtomicLong();
+	
+	/**
+	 * Create a service delivering every event to listeners
+	 * as soon as it is received, on the watcher thread.
+	 */
+	public FileWatcherService() {
+		this(0);
+	}
+	
+	/**
+	 * Create a service that coalesces events per path and 
+	 * delivers them to listeners in batches once no 
+	 * event has been received for the given quiet window. 
+	 * A batch is never held back longer than ten times the window.
+	 * 
+	 * @param quietWindow the quiet window in milliseconds, 
+	 * or 0 to deliver every event immediately
+	 */
+	public FileWatcherService(int quietWindow) {
+		this(quietWindow, 0);
+	}
+	
+	/**
+	 * Create a service that coalesces events as described in 
+	 * {@link #FileWatcherService(int)} and calls listeners on a 
+	 * pool of the given number of threads. Each listener 
+	 * still receives its events one call at a time, in order. 
+	 * 
+	 * @param quietWindow the quiet window in milliseconds, 
+	 * or 0 to deliver every event immediately
+	 * @param listenerThreads the number of threads calling listeners, 
+	 * or 0 to call them on the watcher thread
+	 */
+	public FileWatcherService(int quietWindow, int listenerThreads) {
+		this.quietWindow = Math.max(0, quietWindow);
+		this.listenerThreads = Math.max(0, listenerThreads);
+	}
+	
 	private String getThreadName() {
 		return "RSP File Watcher Service";
 	}
+	
+	private String getListenerThreadName() {
+		return "RSP File Watcher Listener";
+	}
 
 	private void log(Exception e) {
 		LOG.error(e.getMessage(), e);
@@ -86,6 +149,12 @@ public class FileWatcherService implements IFileWatcherService {
 			log(e);
 			throw new IllegalStateException("Unable to create a filesystem watch service");
 		}
+		if( quietWindow > 0 ) {
+			this.batch = new FileWatcherEventBatch(quietWindow, quietWindow * MAX_DELAY_FACTOR);
+		}
+		if( listenerThreads > 0 ) {
+			this.dispatcher = new ListenerDispatcher(listenerThreads, getListenerThreadName());
+		}
 		this.executor = Executors.newSingleThreadExecutor(
 				(Runnable runnable) -> new Thread(runnable, getThreadName()));
 		this.executorFuture = executor.submit(() -> runFileWatcher());
@@ -116,55 +185,173 @@ public class FileWatcherService implements IFileWatcherService {
 		executor.shutdownNow();
 		this.executor = null;
 		this.executorFuture = null;
+		if( dispatcher != null ) {
+			dispatcher.shutdown();
+			this.dispatcher = null;
+		}
 	}
 	
 	private synchronized void disposeModel() {
-		for( WatchKey key : subscriptions.values()) {
+		for( WatchKey key : trie.clearKeys()) {
 			key.cancel();
 		}
-		subscriptions.clear();
-		this.subscriptions = null;
 	}
 	
 	@Override
-	public synchronized void addFileWatcherListener(Path path, 
+	public void addFileWatcherListener(Path path, 
 			IFileWatcherEventListener listener, boolean recursive) {
-		RegistrationRequest req = new RegistrationRequest(path, listener, recursive);
-		List<RegistrationRequest> list = requests.get(path);
-		if( list == null ) {
-			list = new ArrayList<>();
-			requests.put(path, list);
+		addFileWatcherListener(path, listener, recursive, null, null);
+	}
+	
+	@Override
+	public void addFileWatcherListener(Path path, 
+			IFileWatcherEventListener listener, boolean recursive, 
+			String[] includes, String[] excludes) {
+		WatchFilter filter = (includes == null && excludes == null) ? 
+				WatchFilter.ALL : new WatchFilter(includes, excludes);
+		RegistrationRequest req = new RegistrationRequest(path, listener, recursive, filter);
+		synchronized(this) {
+			// Ignore a request for an identical listener
+			if( !trie.addRequest(req))
+				return;
+			ensurePathAndParentsSubscribed(path);
+		}
+		// Walking a large tree must not block every other registration
+		if( recursive ) {
+			ensureChildrenSubscribed(path);
 		}
-		
-		// Ignore a request for an identical listener
-		if( listContainsRequestForListener(list, listener))
+	}
+	
+	/*
+	 * Subscribe to the given folder and every folder below it 
+	 * accepted by a recursive request. 
+	 * 
+	 * The tree is walked and the folders are registered with the 
+	 * watch service without holding the service's lock. Each folder is 
+	 * registered before its children are listed, so a folder created 
+	 * during the walk is either found by the walk or reported by an event. 
+	 * The resulting keys are then recorded while holding the lock, 
+	 * dropping those no longer required by then. 
+	 */
+	private void ensureChildrenSubscribed(Path p) {
+		List<RegistrationRequest> covering;
+		WatchService ws;
+		synchronized(this) {
+			covering = trie.getRecursiveRequestsAtOrAbove(p);
+			ws = watchService;
+		}
+		if( ws == null || covering.isEmpty() || !Files.isDirectory(p))
 			return;
 		
-		list.add(req);
-		
-		ensurePathAndParentsSubscribed(path);
-		if( recursive ) {
-			ensureChildrenSubscribed(path);
+		long start = System.nanoTime();
+		Map<Path, WatchKey> registered = registerTree(ws, p, covering);
+		int count = commitRegistrations(ws, registered);
+		long nanos = System.nanoTime() - start;
+		registrationNanos.addAndGet(nanos);
+		LOG.debug("Subscribed to {} folders below {} in {} ms", 
+				count, p, TimeUnit.NANOSECONDS.toMillis(nanos));
+	}
+	
+	/*
+	 * Register the given folder, then walk each of its child 
+	 * folders in parallel, registering every accepted folder.
+	 */
+	private Map<Path, WatchKey> registerTree(WatchService ws, Path p, 
+			List<RegistrationRequest> covering) {
+		Map<Path, WatchKey> registered = new ConcurrentHashMap<>();
+		if( !shouldWatch(covering, p) || !registerInto(ws, p, registered))
+			return registered;
+		List<Path> children = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(p, Files::isDirectory)) {
+			for( Path child : stream ) {
+				children.add(child);
+			}
+		} catch(IOException | RuntimeException e) {
+			LOG.debug("Unable to list folder {}: {}", p, e.getMessage());
 		}
+		children.parallelStream().forEach(child -> walkAndRegister(ws, child, covering, registered));
+		return registered;
 	}
+	
+	private void walkAndRegister(WatchService ws, Path root, 
+			List<RegistrationRequest> covering, Map<Path, WatchKey> registered) {
+		try {
+			Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), 
+					Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+					if( !shouldWatch(covering, dir))
+						return FileVisitResult.SKIP_SUBTREE;
+					return registerInto(ws, dir, registered) ? 
+							FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+				}
 
-	private boolean listContainsRequestForListener(List<RegistrationRequest> list, 
-			IFileWatcherEventListener listener) {
-		for( RegistrationRequest req : list ) {
-			if( req.getListener() == listener )
-				return true;
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException exc) {
+					// Unreadable folders and symbolic link cycles are not watched
+					LOG.debug("Unable to visit {}: {}", file, exc.getMessage());
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch(IOException e) {
+			log(e);
 		}
-		return false;
 	}
 	
-	private void ensureChildrenSubscribed(Path p) {
-		if( p.toFile().exists() && p.toFile().isDirectory()) {
-			subscribeSinglePath(p);
-			File[] kids = p.toFile().listFiles();
-			for( int i = 0; i < kids.length; i++ ) {
-				ensureChildrenSubscribed(kids[i].toPath());
+	/*
+	 * Register the folder with the watch service, 
+	 * returning false if the watch service has been closed.
+	 */
+	private boolean registerInto(WatchService ws, Path dir, Map<Path, WatchKey> registered) {
+		try {
+			registered.put(dir, register(ws, dir));
+		} catch(ClosedWatchServiceException cwse) {
+			return false;
+		} catch(IOException e) {
+			LOG.debug("Unable to watch folder {}: {}", dir, e.getMessage());
+		}
+		return true;
+	}
+	
+	/*
+	 * Record the keys registered while walking a tree, 
+	 * returning the number of folders now subscribed
+	 */
+	private synchronized int commitRegistrations(WatchService ws, Map<Path, WatchKey> registered) {
+		if( ws != watchService ) {
+			// The service was stopped while walking
+			return 0;
+		}
+		int count = 0;
+		for( Entry<Path, WatchKey> e : registered.entrySet()) {
+			Path dir = e.getKey();
+			WatchKey key = e.getValue();
+			WatchKey existing = trie.getKey(dir);
+			if( !pathShouldBeSubscribed(dir)) {
+				// A registration was removed while walking
+				if( existing == null )
+					key.cancel();
+				continue;
+			}
+			if( !key.isValid()) {
+				// The key was cancelled by a concurrent change. Register again.
+				subscribeSinglePath(dir);
+			} else if( !key.equals(existing)) {
+				trie.putKey(dir, key);
+				if( existing != null )
+					existing.cancel();
 			}
+			count++;
 		}
+		return count;
+	}
+	
+	private static boolean shouldWatch(List<RegistrationRequest> covering, Path dir) {
+		for( RegistrationRequest req : covering ) {
+			if( req.shouldWatch(dir))
+				return true;
+		}
+		return false;
 	}
 	
 	private void ensurePathAndParentsSubscribed(Path p) {
@@ -182,10 +369,10 @@ public class FileWatcherService implements IFileWatcherService {
 			// The service should return the same watchkey for 
 			// the same path, assuming the folder hasn't been deleted
 			// and recreated. 
-			WatchKey key = register(working);
-			WatchKey existing = subscriptions.get(working);
+			WatchKey key = register(watchService, working);
+			WatchKey existing = trie.getKey(working);
 			if( !key.equals(existing)) {
-				subscriptions.put(working, key);
+				trie.putKey(working, key);
 				if( existing != null )
 					existing.cancel();
 			}
@@ -194,7 +381,7 @@ public class FileWatcherService implements IFileWatcherService {
 		}
 	}
 
-	private WatchKey register(Path working) throws IOException {
+	private WatchKey register(WatchService ws, Path working) throws IOException {
 		WatchEvent.Kind<?>[] watchEventKinds = new WatchEvent.Kind<?>[] { 
 			StandardWatchEventKinds.ENTRY_CREATE,
 			StandardWatchEventKinds.ENTRY_DELETE, 
@@ -206,30 +393,18 @@ public class FileWatcherService implements IFileWatcherService {
 				LOG.warn("Watchservice requires high sensitivity on this system."
 						+ " Unfortunately it isn't present and thus watching the filesystem is unreliable."
 						+ " Please use openjdk or a sun jvm to allow us to use high sensitivity.");
-				return working.register(watchService, watchEventKinds);
+				return working.register(ws, watchEventKinds);
 			} else {
-				return working.register(watchService, watchEventKinds, highSensivity.get());
+				return working.register(ws, watchEventKinds, highSensivity.get());
 			}
 		} else {
-			return working.register(watchService, watchEventKinds);
+			return working.register(ws, watchEventKinds);
 		}
 	}
 
 	@Override
 	public synchronized void removeFileWatcherListener(Path path, IFileWatcherEventListener listener) {
-		List<RegistrationRequest> list = requests.get(path);
-		if( list != null ) {
-			Iterator<RegistrationRequest> rit = list.iterator();
-			RegistrationRequest r = null;
-			while(rit.hasNext()) {
-				r = rit.next();
-				if( r.getListener() == listener ) {
-					rit.remove();
-				}
-			}
-			if( list.isEmpty() ) {
-				requests.remove(path);
-			}
+		if( trie.removeRequest(path, listener)) {
 			updateSubscriptionsForRemovedRegistration(path);
 		}
 	}
@@ -263,7 +438,7 @@ public class FileWatcherService implements IFileWatcherService {
 		 *  /home/user/test/deployments or /home/user/test/incoming
 		 */
 		 
-		List<Path> nested = findAllSubtreeSubscriptions(path);
+		List<Path> nested = trie.getSubscribedPathsAtOrBelow(path);
 		for( Path test : nested ) {
 			if( !pathShouldBeSubscribed(test)) {
 				removeSubscription(test);
@@ -271,74 +446,43 @@ public class FileWatcherService implements IFileWatcherService {
 		}
 	}
 	
-	private List<Path> findAllSubtreeSubscriptions(Path path) {
-		List<Path> nested = new ArrayList<Path>();
-		for( Path test : subscriptions.keySet()) {
-			if( test.startsWith(path)) {
-				nested.add(test);
-			}
-		}
-		return nested;
-	}
-	
 	private void removeSubscription(Path path) {
 		// Stop watching the given folder. 
-		WatchKey wk = subscriptions.get(path);
+		WatchKey wk = trie.removeKey(path);
 		if( wk != null )
 			wk.cancel();
-		subscriptions.remove(path);
 	}
 
 
 	private boolean pathShouldBeSubscribed(Path path) {
-		// A recursive request to me or my parent exists, so I'm still needed
-		if( pathOrParentHasRecursiveRequest(path))
+		// A recursive request to me or my parent accepts me, so I'm still needed
+		if( recursiveRequestMatches(path))
 			return true;
 		
-		// A request still exists for this exact path, so I'm still needed
-		if( requestMatchesExact(path))
+		// A request still exists for this exact path, 
+		// or for a subfolder (or lower), so I'm still needed
+		if( trie.hasRequestAtOrBelow(path))
 			return true;
-		
-		// A request for a subfolder (or lower) still exists, so I'm still needed
-		Set<Path> requestPaths = getRequestsKeySet();
-		for( Path testRequest : requestPaths) {
-			if( testRequest.startsWith(path))
-				return true;
-		}
 
 		// Nobody needs me
 		return false;
 	}
-	
-	private boolean pathOrParentHasRecursiveRequest(Path p) {
-		Path working = p;
-		while(working != null ) {
-			if( singlePathHasRecursiveRequest(working)) {
-				return true;
-			}
-			working = working.getParent();
-		}
-		return false;
-	}
-	private boolean singlePathHasRecursiveRequest(Path p) {
-		List<RegistrationRequest> list = getRequestsForPath(p);
-		if( list == null ) 
-			return false;
-		Iterator<RegistrationRequest> rit = list.iterator();
-		RegistrationRequest r = null;
-		while(rit.hasNext()) {
-			r = rit.next();
-			if( r.isRecursive())
-				return true;
-		}
-		return false;
-	}
 
 	public void runFileWatcher() {
 		WatchKey key;
 		try {
-			while (watchService != null && (key = watchService.take()) != null) {
-				handleEvents(key);
+			while (watchService != null) {
+				if( batch == null || batch.isEmpty()) {
+					key = watchService.take();
+				} else {
+					key = watchService.poll(batch.getRemainingDelay(), TimeUnit.MILLISECONDS);
+				}
+				if( key != null ) {
+					handleEvents(key);
+				}
+				if( batch != null && batch.isDue()) {
+					flushBatch();
+				}
 			}
 		} catch (InterruptedException | ClosedWatchServiceException e) {
 			if( !isClosing()) {
@@ -358,6 +502,10 @@ public class FileWatcherService implements IFileWatcherService {
 		key.reset();
 		
 		for (WatchEvent<?> event : events) {
+			if( event.kind() == StandardWatchEventKinds.OVERFLOW ) {
+				handleOverflow(key);
+				continue;
+			}
 			Path eventContext = (Path)event.context();
 			if( eventContext != null ) {
 				handleSingleEvent(key, event);
@@ -365,9 +513,63 @@ public class FileWatcherService implements IFileWatcherService {
 		}
 	}
 	
+	/*
+	 * The watch service lost events for the folder watched by the given key.
+	 * We cannot know which changes were lost, so rescan that folder. 
+	 */
+	private void handleOverflow(WatchKey key) {
+		Path folder = (Path)key.watchable();
+		LOG.warn("File watcher events were lost for {}. Rescanning the folder.", folder);
+		rescanAfterOverflow(folder);
+	}
+	
+	/*
+	 * Make sure the folder's subscriptions are still correct, then 
+	 * fire a modification event for the folder and each of its children.
+	 * Child folders that were not subscribed before the rescan were 
+	 * created while events were lost, so they are fired as creations, 
+	 * which in turn fires synthetic creation events for their contents. 
+	 * 
+	 * Deletions of the folder's children can not be recovered, 
+	 * but listeners are told the folder itself was modified. 
+	 */
+	protected void rescanAfterOverflow(Path folder) {
+		File[] children = folder.toFile().listFiles();
+		if( children == null ) {
+			// The folder itself is gone
+			fireEvent(folder, StandardWatchEventKinds.ENTRY_DELETE);
+			return;
+		}
+		List<Path> createdFolders = resubscribeFolder(folder, children);
+		fireEvent(folder, StandardWatchEventKinds.ENTRY_MODIFY);
+		for( int i = 0; i < children.length; i++ ) {
+			Path child = children[i].toPath();
+			fireEvent(child, createdFolders.contains(child) ? 
+					StandardWatchEventKinds.ENTRY_CREATE : StandardWatchEventKinds.ENTRY_MODIFY);
+		}
+	}
+	
+	/*
+	 * Subscribe to any child folder that requires it, 
+	 * returning the child folders that were not subscribed before
+	 */
+	private List<Path> resubscribeFolder(Path folder, File[] children) {
+		List<Path> created = new ArrayList<>();
+		for( int i = 0; i < children.length; i++ ) {
+			Path child = children[i].toPath();
+			if( children[i].isDirectory() && getSubscription(child) == null ) {
+				subscribeToChanges(StandardWatchEventKinds.ENTRY_CREATE, child);
+				if( getSubscription(child) != null ) {
+					created.add(child);
+				}
+			}
+		}
+		return created;
+	}
+	
 	protected void handleSingleEvent(WatchKey key, WatchEvent<?> event) {
 		Path context = ((Path)key.watchable()).resolve((Path)event.context());
-		subscribeToChanges(event, context);
+		subscribeToChanges(event.kind(), context);
 		fireSingleFileEvent(key, event);
 	}
 	
@@ -378,93 +580,95 @@ public class FileWatcherService implements IFileWatcherService {
 	 * sure the watch service is listening to the right things after
 	 * whatever changes have been detected. 
 	 */
-	private synchronized void subscribeToChanges(WatchEvent<?> event, Path eventContext) {
-		if( event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+	private void subscribeToChanges(WatchEvent.Kind<?> kind, Path eventContext) {
+		if( kind == StandardWatchEventKinds.ENTRY_DELETE) {
 			// something we were watching has been deleted. Let's 
 			// make sure that we delete all current watch keys for that 
 			// and any sub-directories if possible
-			removeAllSubscriptionsRecursive(eventContext);
-		} else if( event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+			synchronized(this) {
+				removeAllSubscriptionsRecursive(eventContext);
+			}
+		} else if( kind == StandardWatchEventKinds.ENTRY_CREATE) {
 			if( eventContext.toFile().isDirectory()) {
 				// a new folder has been created. 
 				// Let's see if any requests match this path, 
 				// or if any recursive requests match our parents
-				boolean recursive = recursiveRequestMatches(eventContext);
-				if( recursive ) {
+				if( subscribeCreatedFolder(eventContext)) {
+					// The new tree is walked without holding the lock
 					ensureChildrenSubscribed(eventContext);
-				} else if( requestMatchesExact(eventContext) ) {
-					subscribeSinglePath(eventContext);
-				} else {
-					// We don't have any recursive requests, or any 
-					// exact-match requests. But, there still might be a 
-					// non-recursive request matching a deeper path
-					List<Path> childRequests = findAllChildRequestPaths(eventContext);
-					for( Path p : childRequests) {
-						ensurePathAndParentsSubscribed(p);
-					}
 				}
 			}
 		}
 		// ignore modify event kind
 		
 	}
+	
+	/*
+	 * Subscribe to a new folder and any requested paths below it, 
+	 * returning true if the folder is watched recursively and 
+	 * its whole tree must be subscribed instead
+	 */
+	private synchronized boolean subscribeCreatedFolder(Path eventContext) {
+		if( recursiveRequestMatches(eventContext)) {
+			return true;
+		}
+		if( requestMatchesExact(eventContext) ) {
+			subscribeSinglePath(eventContext);
+		} else {
+			// We don't have any recursive requests, or any 
+			// exact-match requests. But, there still might be a 
+			// non-recursive request matching a deeper path
+			List<Path> childRequests = findAllChildRequestPaths(eventContext);
+			for( Path p : childRequests) {
+				ensurePathAndParentsSubscribed(p);
+			}
+		}
+		return false;
+	}
 
 	
 	private List<Path> findAllChildRequestPaths(Path context) {
-		return getRequestsKeySet().stream().filter(x -> x.startsWith(context))
-				.collect(Collectors.toList());
+		return trie.getRequestPathsAtOrBelow(context);
 	}
 	
 	private boolean requestMatchesExact(Path path) {
-		List<RegistrationRequest> forPath = getRequestsForPath(path);
-		return forPath != null && !forPath.isEmpty();
+		return trie.hasRequest(path);
 	}
 	
+	/*
+	 * Whether a recursive request for this path or a parent 
+	 * exists, and wants this folder to be watched
+	 */
 	private boolean recursiveRequestMatches(Path path) {
-		Path working = path;
-		while( working != null ) {
-			List<RegistrationRequest> req = getRequestsForPath(working);
-			if( containsRecursiveRequest(req)) {
-				return true;
-			}
-			working = working.getParent();
-		}
-		return false;
+		if( !trie.hasRecursiveRequestAtOrAbove(path))
+			return false;
+		return shouldWatch(trie.getRecursiveRequestsAtOrAbove(path), path);
 	}
 	
-	private boolean containsRecursiveRequest(List<RegistrationRequest> list) {
-		if( list == null )
-			return false;
-		for( RegistrationRequest rr : list ) {
-			if( rr.isRecursive())
-				return true;
-		}
-		return false;
+	private synchronized WatchKey getSubscription(Path path) {
+		return trie.getKey(path);
 	}
 
 	private void removeAllSubscriptionsRecursive(Path eventContext) {
 		Path absolute = eventContext.toAbsolutePath();
-		Iterator<Path> pit = new ArrayList<Path>(subscriptions.keySet()).iterator();
-		Path p1 = null;
-		while(pit.hasNext()) {
-			p1 = pit.next();
-			if( p1.startsWith(absolute)) {
-				WatchKey wk = subscriptions.get(p1);
-				wk.cancel();
-				subscriptions.remove(p1);
-			}
+		for( Path p1 : trie.getSubscribedPathsAtOrBelow(absolute)) {
+			removeSubscription(p1);
 		}
 	}
 
 	protected void fireSingleFileEvent(WatchKey key, WatchEvent<?> event) {
 		Path context = ((Path)key.watchable()).resolve((Path)event.context());
-		FileWatcherEvent toFire = new FileWatcherEvent(context, event.kind());
+		fireEvent(context, event.kind());
+	}
+	
+	private void fireEvent(Path context, WatchEvent.Kind<?> kind) {
+		FileWatcherEvent toFire = new FileWatcherEvent(context, kind);
 
 		// Find non-recursive requests matching this exact path
 		Set<IFileWatcherEventListener> nonRecursive = findListenersForExactPath(context, false);
 		// and fire their simple events
 		for(IFileWatcherEventListener one : nonRecursive  ) {
-			one.fileChanged(toFire);
+			deliver(one, toFire);
 		}
 		
 		// Find all recursive listeners at level 'context' or above
@@ -474,7 +678,7 @@ public class FileWatcherService implements IFileWatcherService {
 		
 		// Now let's fire this item's event to all recursive listeners
 		for(IFileWatcherEventListener one : recursiveListeners  ) {
-			one.fileChanged(toFire);
+			deliver(one, toFire);
 		}
 		
 		/* 
@@ -496,17 +700,52 @@ public class FileWatcherService implements IFileWatcherService {
 		 * and fire events at each step for every recursive listener. 
 		 * 
 		 */
-		if( event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+		if( kind == StandardWatchEventKinds.ENTRY_CREATE
 				&& context.toFile().isDirectory() && context.toFile().exists()) {
 			List<ListenerEvent> events = createRecursiveSyntheticCreationEvents(
 					context, recursiveListeners);
 			for( ListenerEvent e : events ) {
-				e.getListener().fileChanged(e.getEvent());
+				deliver(e.getListener(), e.getEvent());
 			}
 		}
 		
 	}
 	
+	private void deliver(IFileWatcherEventListener listener, FileWatcherEvent event) {
+		if( batch != null ) {
+			batch.add(listener, event);
+			return;
+		}
+		ListenerDispatcher d = dispatcher;
+		if( d != null ) {
+			d.dispatch(listener, event);
+		} else {
+			call(() -> listener.fileChanged(event));
+		}
+	}
+	
+	protected void flushBatch() {
+		Map<IFileWatcherEventListener, List<FileWatcherEvent>> toDeliver = batch.drain();
+		ListenerDispatcher d = dispatcher;
+		for( Entry<IFileWatcherEventListener, List<FileWatcherEvent>> e : toDeliver.entrySet()) {
+			IFileWatcherEventListener listener = e.getKey();
+			List<FileWatcherEvent> events = e.getValue();
+			if( d != null ) {
+				d.dispatch(listener, events);
+			} else {
+				call(() -> listener.filesChanged(events));
+			}
+		}
+	}
+	
+	private void call(Runnable callback) {
+		try {
+			callback.run();
+		} catch(RuntimeException re) {
+			log(re);
+		}
+	}
+	
 	private List<ListenerEvent> createRecursiveSyntheticCreationEvents(
 			Path context, Set<IFileWatcherEventListener> recursiveListeners) {
 		File[] children = context.toFile().listFiles();
@@ -530,9 +769,8 @@ public class FileWatcherService implements IFileWatcherService {
 				
 				// Now recurse if this child is a directory
 				if( child.toFile().exists() && child.toFile().isDirectory()) {
-					Set<IFileWatcherEventListener> childRecurseListeners = new HashSet<>();
-					childRecurseListeners.addAll(recursiveListeners);
-					childRecurseListeners.addAll(findListenersForExactPath(child, true));
+					Set<IFileWatcherEventListener> childRecurseListeners = 
+							getRecursiveListenersForPathOrParent(child);
 					ret.addAll(createRecursiveSyntheticCreationEvents(child, childRecurseListeners));
 				}
 			}
@@ -540,30 +778,21 @@ public class FileWatcherService implements IFileWatcherService {
 		return ret;
 	}
 
-	protected Set<IFileWatcherEventListener> findListenersForExactPath(Path p, boolean recursive) {
-		List<RegistrationRequest> forPath = getRequestsForPath(p);
-		if( forPath != null ) {
-			return (forPath.stream().filter(x -> recursive == x.isRecursive())
-					.map(RegistrationRequest::getListener).collect(Collectors.toSet()));
-		}
-		return Collections.emptySet();
+	/*
+	 * The sets returned by the trie are immutable and replaced 
+	 * whenever registrations change, so they may be iterated 
+	 * safely after the lock has been released. 
+	 */
+	protected synchronized Set<IFileWatcherEventListener> findListenersForExactPath(Path p, boolean recursive) {
+		return trie.getListeners(p, recursive);
 	}
 
-	protected Set<IFileWatcherEventListener> findListenersForExactPath(Path p) {
-		List<RegistrationRequest> forPath = getRequestsForPath(p);
-		if( forPath != null ) {
-			return (forPath.stream().map(RegistrationRequest::getListener)
-					.collect(Collectors.toSet()));
-		}
-		return Collections.emptySet();
+	protected synchronized Set<IFileWatcherEventListener> findListenersForExactPath(Path p) {
+		return trie.getListeners(p);
 	}
 
 	protected synchronized List<RegistrationRequest> getRequestsForPath(Path p) {
-		return requests.get(p);
-	}
-	
-	protected synchronized Set<Path> getRequestsKeySet() {
-		return requests.keySet();
+		return trie.getRequests(p);
 	}
 	
 	/*
@@ -571,28 +800,9 @@ public class FileWatcherService implements IFileWatcherService {
 	 * in addition to all recursive listeners registered for any 
 	 * parent path
 	 */
-	protected Set<IFileWatcherEventListener> 
+	protected synchronized Set<IFileWatcherEventListener> 
 				getRecursiveListenersForPathOrParent(Path target) {
-		Path[] all = getPathAndAncestors(target);
-		Set<IFileWatcherEventListener> ret = new HashSet<>();
-		for( Path p : all ) {
-			ret.addAll(findListenersForExactPath(p, true));
-		}
-		return ret;
-	}
-	
-	/*
-	 * Get an array of paths representing 
-	 * both the parameter and all of its parent directories
-	 */
-	private Path[] getPathAndAncestors(Path p) {
-		ArrayList<Path> ret = new ArrayList<>();
-		Path working = p;
-		while( working != null ) {
-			ret.add(working);
-			working = working.getParent();
-		}
-		return ret.toArray(new Path[ret.size()]);
+		return trie.getRecursiveListenersForPathOrParent(target);
 	}
 	
 	protected static class ListenerEvent {
@@ -617,12 +827,18 @@ public class FileWatcherService implements IFileWatcherService {
 		private Path path;
 		private IFileWatcherEventListener listener;
 		private boolean recursive;
+		private WatchFilter filter;
 
 		public RegistrationRequest(Path path, IFileWatcherEventListener listener, boolean recursive) {
+			this(path, listener, recursive, WatchFilter.ALL);
+		}
+
+		RegistrationRequest(Path path, IFileWatcherEventListener listener, 
+				boolean recursive, WatchFilter filter) {
 			this.path = path;
 			this.listener = listener;
 			this.recursive = recursive;
-			
+			this.filter = filter;
 		}
 
 		public Path getPath() {
@@ -636,6 +852,31 @@ public class FileWatcherService implements IFileWatcherService {
 		public boolean isRecursive() {
 			return recursive;
 		}
+
+		/**
+		 * @return whether the given folder, at or below this 
+		 * request's path, should be watched for this request
+		 */
+		public boolean shouldWatch(Path folder) {
+			if( filter.acceptsAll() || !folder.startsWith(path))
+				return true;
+			return filter.shouldWatch(path.relativize(folder));
+		}
+	}
+
+	/**
+	 * @return the number of folders currently watched
+	 */
+	public synchronized int getWatchedFolderCount() {
+		return trie.getSubscriptionCount();
+	}
+	
+	/**
+	 * @return the total time, in milliseconds, spent subscribing 
+	 * to the folders below recursive registrations
+	 */
+	public long getRegistrationTime() {
+		return TimeUnit.NANOSECONDS.toMillis(registrationNanos.get());
 	}
 
 	/*
@@ -649,11 +890,11 @@ public class FileWatcherService implements IFileWatcherService {
 		return executor;
 	}
 
-	protected HashMap<Path, List<RegistrationRequest>> getRequests() {
-		return requests;
+	protected synchronized HashMap<Path, List<RegistrationRequest>> getRequests() {
+		return trie.getRequestsSnapshot();
 	}
 
-	protected Map<Path, WatchKey> getSubscriptions() {
-		return subscriptions;
+	protected synchronized Map<Path, WatchKey> getSubscriptions() {
+		return trie.getSubscriptionsSnapshot();
 	}
 }
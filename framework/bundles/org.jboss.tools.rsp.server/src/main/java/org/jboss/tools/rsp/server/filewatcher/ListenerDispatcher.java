@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.filewatcher;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.tools.rsp.server.spi.filewatcher.FileWatcherEvent;
+import org.jboss.tools.rsp.server.spi.filewatcher.IFileWatcherEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers events to listeners on a bounded pool of threads, so that
+ * a slow listener cannot keep the watcher thread from draining
+ * the watch service.
+ *
+ * Events for the same listener are delivered one call at a time, in
+ * the order they were submitted. Different listeners may be called
+ * concurrently. At most one task per listener is ever queued in
+ * the pool, so the pool's queue is bounded by the number of listeners.
+ *
+ * The calls waiting for a listener are bounded as well. Once a listener
+ * falls that far behind, further events are merged into its last
+ * waiting call, coalesced per path as in {@link FileWatcherEventBatch},
+ * and delivered with {@link IFileWatcherEventListener#filesChanged(List)}.
+ */
+class ListenerDispatcher {
+	private static final Logger LOG = LoggerFactory.getLogger(ListenerDispatcher.class);
+
+	// Calls made per turn before a listener yields its thread to others
+	private static final int MAX_CALLBACKS_PER_TURN = 64;
+	// Calls waiting per listener before further events are merged
+	static final int MAX_QUEUED_PER_LISTENER = 256;
+	private static final int KEEP_ALIVE_SECONDS = 60;
+
+	private final ThreadPoolExecutor pool;
+	private final Map<IFileWatcherEventListener, ArrayDeque<Delivery>> queues = new HashMap<>();
+
+	public ListenerDispatcher(int threads, String threadName) {
+		AtomicInteger count = new AtomicInteger();
+		this.pool = new ThreadPoolExecutor(threads, threads,
+				KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				(Runnable runnable) -> {
+					Thread t = new Thread(runnable, threadName + " " + count.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				},
+				// turns scheduled while shutting down are dropped with their queues
+				new ThreadPoolExecutor.DiscardPolicy());
+		this.pool.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Deliver a single event with {@link IFileWatcherEventListener#fileChanged(FileWatcherEvent)}
+	 */
+	public void dispatch(IFileWatcherEventListener listener, FileWatcherEvent event) {
+		enqueue(listener, new Delivery(listener, event));
+	}
+
+	/**
+	 * Deliver coalesced events with {@link IFileWatcherEventListener#filesChanged(List)}
+	 */
+	public void dispatch(IFileWatcherEventListener listener, List<FileWatcherEvent> events) {
+		Delivery delivery = new Delivery(listener);
+		delivery.addAll(events);
+		enqueue(listener, delivery);
+	}
+
+	private void enqueue(IFileWatcherEventListener listener, Delivery delivery) {
+		synchronized(queues) {
+			ArrayDeque<Delivery> queue = queues.get(listener);
+			if( queue != null ) {
+				// a turn is already scheduled for this listener
+				if( queue.size() < MAX_QUEUED_PER_LISTENER ) {
+					queue.add(delivery);
+				} else {
+					merge(queue, delivery);
+				}
+				return;
+			}
+			queue = new ArrayDeque<>();
+			queue.add(delivery);
+			queues.put(listener, queue);
+		}
+		schedule(listener);
+	}
+
+	/*
+	 * Merge the delivery into the last one waiting in the full queue
+	 */
+	private void merge(ArrayDeque<Delivery> queue, Delivery delivery) {
+		Delivery last = queue.peekLast();
+		if( last.event != null ) {
+			Delivery merged = new Delivery(last.listener);
+			merged.add(last.event);
+			queue.pollLast();
+			queue.add(merged);
+			last = merged;
+		}
+		if( delivery.event != null ) {
+			last.add(delivery.event);
+		} else {
+			last.addAll(delivery.batch.drain().get(delivery.listener));
+		}
+	}
+
+	private void schedule(IFileWatcherEventListener listener) {
+		pool.execute(() -> runTurn(listener));
+	}
+
+	private void runTurn(IFileWatcherEventListener listener) {
+		for( int i = 0; i < MAX_CALLBACKS_PER_TURN; i++ ) {
+			Runnable next = poll(listener);
+			if( next == null )
+				return;
+			try {
+				next.run();
+			} catch(RuntimeException re) {
+				LOG.error(re.getMessage(), re);
+			}
+		}
+		// More calls may be waiting. Let other listeners run first.
+		schedule(listener);
+	}
+
+	/*
+	 * Return the next call to the listener, or null
+	 * if there is none, ending the listener's turn
+	 */
+	private Runnable poll(IFileWatcherEventListener listener) {
+		synchronized(queues) {
+			ArrayDeque<Delivery> queue = queues.get(listener);
+			while( queue != null && !queue.isEmpty()) {
+				Runnable next = queue.poll().toCallback();
+				if( next != null ) {
+					return next;
+				}
+			}
+			queues.remove(listener);
+			return null;
+		}
+	}
+
+	public void shutdown() {
+		pool.shutdownNow();
+		synchronized(queues) {
+			queues.clear();
+		}
+	}
+
+	/*
+	 * The events of one call to a listener: either a single event,
+	 * or a batch coalescing the events of one or more calls.
+	 * Guarded by the dispatcher's queues.
+	 */
+	private static class Delivery {
+		private final IFileWatcherEventListener listener;
+		private final FileWatcherEvent event;
+		private final FileWatcherEventBatch batch;
+
+		Delivery(IFileWatcherEventListener listener, FileWatcherEvent event) {
+			this.listener = listener;
+			this.event = event;
+			this.batch = null;
+		}
+
+		Delivery(IFileWatcherEventListener listener) {
+			this.listener = listener;
+			this.event = null;
+			this.batch = new FileWatcherEventBatch(0, 0);
+		}
+
+		void add(FileWatcherEvent e) {
+			batch.add(listener, e);
+		}
+
+		void addAll(List<FileWatcherEvent> events) {
+			if( events != null ) {
+				for( FileWatcherEvent e : events ) {
+					batch.add(listener, e);
+				}
+			}
+		}
+
+		/*
+		 * Return the call to make, or null if the merged events cancelled out
+		 */
+		Runnable toCallback() {
+			if( event != null ) {
+				return () -> listener.fileChanged(event);
+			}
+			List<FileWatcherEvent> events = batch.drain().get(listener);
+			if( events == null ) {
+				return null;
+			}
+			return () -> listener.filesChanged(events);
+		}
+	}
+}
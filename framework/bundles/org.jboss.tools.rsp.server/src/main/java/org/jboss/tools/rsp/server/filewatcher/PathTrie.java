@@ -0,0 +1,418 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.filewatcher;
+
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.tools.rsp.server.filewatcher.FileWatcherService.RegistrationRequest;
+import org.jboss.tools.rsp.server.spi.filewatcher.IFileWatcherEventListener;
+
+/**
+ * A trie of path segments holding both the registration requests
+ * made for a path and the watch key the service holds for it.
+ *
+ * Every node caches the listener sets needed to dispatch an event
+ * for its path. Finding the listeners for a changed path therefore
+ * costs a walk down the path's segments, independent of how many
+ * registrations exist. The caches are rebuilt when registrations
+ * change, which is rare compared to the number of events.
+ *
+ * This class is not thread-safe. Callers must synchronize access.
+ */
+class PathTrie {
+
+	private static final Set<IFileWatcherEventListener> NO_LISTENERS = Collections.emptySet();
+
+	private static class Node {
+		private final Node parent;
+		private final Path segment;
+		private final Path path;
+		private Map<Path, Node> children;
+		private List<RegistrationRequest> requests;
+		private WatchKey key;
+
+		// Number of nodes in this subtree, including this one, having requests
+		private int requestNodesInSubtree = 0;
+
+		// All listeners requested for this exact path
+		private Set<IFileWatcherEventListener> listeners = NO_LISTENERS;
+		// Non-recursive listeners requested for this exact path
+		private Set<IFileWatcherEventListener> nonRecursiveListeners = NO_LISTENERS;
+		// Recursive listeners requested for this exact path
+		private Set<IFileWatcherEventListener> recursiveListeners = NO_LISTENERS;
+		// Recursive listeners requested for this path or any of its parents
+		private Set<IFileWatcherEventListener> inheritedRecursiveListeners = NO_LISTENERS;
+
+		private Node(Node parent, Path segment, Path path) {
+			this.parent = parent;
+			this.segment = segment;
+			this.path = path;
+			if( parent != null )
+				this.inheritedRecursiveListeners = parent.inheritedRecursiveListeners;
+		}
+
+		private boolean hasRequests() {
+			return requests != null && !requests.isEmpty();
+		}
+
+		private boolean isEmpty() {
+			return !hasRequests() && key == null
+					&& (children == null || children.isEmpty());
+		}
+	}
+
+	private final Node root = new Node(null, null, null);
+	private int requestNodes = 0;
+	private int subscriptionNodes = 0;
+
+	/*
+	 * Walk the trie along the segments of the given path.
+	 * If create is true, missing nodes are created. Otherwise,
+	 * when closest is true the deepest existing node is returned,
+	 * and when it is false null is returned if the exact node is missing.
+	 */
+	private Node walk(Path p, boolean create, boolean closest) {
+		Node working = root;
+		Path pRoot = p.getRoot();
+		if( pRoot != null ) {
+			Node next = child(working, pRoot, create);
+			if( next == null )
+				return closest ? working : null;
+			working = next;
+		}
+		for( Path segment : p ) {
+			Node next = child(working, segment, create);
+			if( next == null )
+				return closest ? working : null;
+			working = next;
+		}
+		return working;
+	}
+
+	private Node child(Node n, Path segment, boolean create) {
+		Node ret = n.children == null ? null : n.children.get(segment);
+		if( ret == null && create ) {
+			if( n.children == null )
+				n.children = new HashMap<>();
+			Path childPath = n.path == null ? segment : n.path.resolve(segment);
+			ret = new Node(n, segment, childPath);
+			n.children.put(segment, ret);
+		}
+		return ret;
+	}
+
+	/*
+	 * Remove the given node and any of its parents
+	 * that no longer hold any data
+	 */
+	private void prune(Node n) {
+		Node working = n;
+		while( working != null && working != root && working.isEmpty()) {
+			working.parent.children.remove(working.segment);
+			working = working.parent;
+		}
+	}
+
+	/*
+	 * Requests
+	 */
+
+	public List<RegistrationRequest> getRequests(Path p) {
+		Node n = walk(p, false, false);
+		return n == null || !n.hasRequests() ? null : n.requests;
+	}
+
+	/**
+	 * Add the given request unless a request for the same listener
+	 * already exists for that path.
+	 *
+	 * @return true if the request was added
+	 */
+	public boolean addRequest(RegistrationRequest req) {
+		Node n = walk(req.getPath(), true, false);
+		if( n.requests == null ) {
+			n.requests = new ArrayList<>();
+		}
+		for( RegistrationRequest existing : n.requests ) {
+			if( existing.getListener() == req.getListener())
+				return false;
+		}
+		boolean wasEmpty = n.requests.isEmpty();
+		n.requests.add(req);
+		if( wasEmpty )
+			updateRequestNodeCount(n, 1);
+		requestsChanged(n);
+		return true;
+	}
+
+	/**
+	 * Remove all requests for the given listener at the given path
+	 *
+	 * @return true if the path had any requests
+	 */
+	public boolean removeRequest(Path p, IFileWatcherEventListener listener) {
+		Node n = walk(p, false, false);
+		if( n == null || !n.hasRequests())
+			return false;
+		n.requests.removeIf(r -> r.getListener() == listener);
+		if( n.requests.isEmpty()) {
+			n.requests = null;
+			updateRequestNodeCount(n, -1);
+		}
+		requestsChanged(n);
+		prune(n);
+		return true;
+	}
+
+	private void updateRequestNodeCount(Node n, int delta) {
+		requestNodes += delta;
+		for( Node working = n; working != null; working = working.parent ) {
+			working.requestNodesInSubtree += delta;
+		}
+	}
+
+	private void requestsChanged(Node n) {
+		Set<IFileWatcherEventListener> all = new LinkedHashSet<>();
+		Set<IFileWatcherEventListener> nonRecursive = new LinkedHashSet<>();
+		Set<IFileWatcherEventListener> recursive = new LinkedHashSet<>();
+		if( n.requests != null ) {
+			for( RegistrationRequest r : n.requests ) {
+				all.add(r.getListener());
+				(r.isRecursive() ? recursive : nonRecursive).add(r.getListener());
+			}
+		}
+		n.listeners = unmodifiable(all);
+		n.nonRecursiveListeners = unmodifiable(nonRecursive);
+		boolean recursiveChanged = !n.recursiveListeners.equals(recursive);
+		n.recursiveListeners = unmodifiable(recursive);
+		if( recursiveChanged ) {
+			updateInheritedListeners(n);
+		}
+	}
+
+	private void updateInheritedListeners(Node n) {
+		Set<IFileWatcherEventListener> fromParent =
+				n.parent == null ? NO_LISTENERS : n.parent.inheritedRecursiveListeners;
+		if( n.recursiveListeners.isEmpty()) {
+			n.inheritedRecursiveListeners = fromParent;
+		} else if( fromParent.isEmpty()) {
+			n.inheritedRecursiveListeners = n.recursiveListeners;
+		} else {
+			Set<IFileWatcherEventListener> merged = new LinkedHashSet<>(fromParent);
+			merged.addAll(n.recursiveListeners);
+			n.inheritedRecursiveListeners = Collections.unmodifiableSet(merged);
+		}
+		if( n.children != null ) {
+			for( Node child : n.children.values()) {
+				updateInheritedListeners(child);
+			}
+		}
+	}
+
+	private static Set<IFileWatcherEventListener> unmodifiable(Set<IFileWatcherEventListener> s) {
+		return s.isEmpty() ? NO_LISTENERS : Collections.unmodifiableSet(s);
+	}
+
+	public boolean hasRequest(Path p) {
+		Node n = walk(p, false, false);
+		return n != null && n.hasRequests();
+	}
+
+	public boolean hasRequestAtOrBelow(Path p) {
+		Node n = walk(p, false, false);
+		return n != null && n.requestNodesInSubtree > 0;
+	}
+
+	public boolean hasRecursiveRequestAtOrAbove(Path p) {
+		return !walk(p, false, true).inheritedRecursiveListeners.isEmpty();
+	}
+
+	/**
+	 * @return the recursive requests made for the given path
+	 * or any of its parents
+	 */
+	public List<RegistrationRequest> getRecursiveRequestsAtOrAbove(Path p) {
+		List<RegistrationRequest> ret = new ArrayList<>();
+		Node working = walk(p, false, true);
+		if( working.inheritedRecursiveListeners.isEmpty())
+			return ret;
+		while( working != null ) {
+			if( working.hasRequests()) {
+				for( RegistrationRequest req : working.requests ) {
+					if( req.isRecursive())
+						ret.add(req);
+				}
+			}
+			working = working.parent;
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the paths of all requests at the given path or below it
+	 */
+	public List<Path> getRequestPathsAtOrBelow(Path p) {
+		List<Path> ret = new ArrayList<>();
+		Node n = walk(p, false, false);
+		if( n != null )
+			collectRequestPaths(n, ret);
+		return ret;
+	}
+
+	private void collectRequestPaths(Node n, List<Path> collector) {
+		if( n.requestNodesInSubtree == 0 )
+			return;
+		if( n.hasRequests())
+			collector.add(n.path);
+		if( n.children != null ) {
+			for( Node child : n.children.values()) {
+				collectRequestPaths(child, collector);
+			}
+		}
+	}
+
+	/*
+	 * Listeners
+	 */
+
+	public Set<IFileWatcherEventListener> getListeners(Path p) {
+		Node n = walk(p, false, false);
+		return n == null ? NO_LISTENERS : n.listeners;
+	}
+
+	public Set<IFileWatcherEventListener> getListeners(Path p, boolean recursive) {
+		Node n = walk(p, false, false);
+		if( n == null )
+			return NO_LISTENERS;
+		return recursive ? n.recursiveListeners : n.nonRecursiveListeners;
+	}
+
+	/**
+	 * @return all recursive listeners registered for the given path
+	 * or any of its parents
+	 */
+	public Set<IFileWatcherEventListener> getRecursiveListenersForPathOrParent(Path p) {
+		return walk(p, false, true).inheritedRecursiveListeners;
+	}
+
+	/*
+	 * Subscriptions
+	 */
+
+	public WatchKey getKey(Path p) {
+		Node n = walk(p, false, false);
+		return n == null ? null : n.key;
+	}
+
+	/**
+	 * Set the watch key for the given path
+	 * @return the previous key, or null
+	 */
+	public WatchKey putKey(Path p, WatchKey key) {
+		Node n = walk(p, true, false);
+		WatchKey existing = n.key;
+		n.key = key;
+		if( existing == null )
+			subscriptionNodes++;
+		return existing;
+	}
+
+	/**
+	 * Remove the watch key for the given path
+	 * @return the removed key, or null
+	 */
+	public WatchKey removeKey(Path p) {
+		Node n = walk(p, false, false);
+		if( n == null || n.key == null )
+			return null;
+		WatchKey existing = n.key;
+		n.key = null;
+		subscriptionNodes--;
+		prune(n);
+		return existing;
+	}
+
+	/**
+	 * @return the paths of all subscriptions at the given path or below it
+	 */
+	public List<Path> getSubscribedPathsAtOrBelow(Path p) {
+		List<Path> ret = new ArrayList<>();
+		Node n = walk(p, false, false);
+		if( n != null )
+			collectSubscribedPaths(n, ret);
+		return ret;
+	}
+
+	private void collectSubscribedPaths(Node n, List<Path> collector) {
+		if( n.key != null )
+			collector.add(n.path);
+		if( n.children != null ) {
+			for( Node child : n.children.values()) {
+				collectSubscribedPaths(child, collector);
+			}
+		}
+	}
+
+	/**
+	 * Remove all watch keys from the trie
+	 * @return the removed keys
+	 */
+	public List<WatchKey> clearKeys() {
+		List<Path> paths = getAllSubscribedPaths();
+		List<WatchKey> ret = new ArrayList<>(paths.size());
+		for( Path p : paths ) {
+			ret.add(removeKey(p));
+		}
+		return ret;
+	}
+
+	private List<Path> getAllSubscribedPaths() {
+		List<Path> ret = new ArrayList<>();
+		collectSubscribedPaths(root, ret);
+		return ret;
+	}
+
+	/*
+	 * Sizes and snapshots
+	 */
+
+	public int getRequestPathCount() {
+		return requestNodes;
+	}
+
+	public int getSubscriptionCount() {
+		return subscriptionNodes;
+	}
+
+	public HashMap<Path, List<RegistrationRequest>> getRequestsSnapshot() {
+		HashMap<Path, List<RegistrationRequest>> ret = new HashMap<>();
+		List<Path> paths = new ArrayList<>();
+		collectRequestPaths(root, paths);
+		for( Path p : paths ) {
+			ret.put(p, new ArrayList<>(getRequests(p)));
+		}
+		return ret;
+	}
+
+	public Map<Path, WatchKey> getSubscriptionsSnapshot() {
+		Map<Path, WatchKey> ret = new HashMap<>();
+		for( Path p : getAllSubscribedPaths()) {
+			ret.put(p, getKey(p));
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.filewatcher;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides which folders below a recursive registration are watched.
+ *
+ * Patterns are globs relative to the registered folder, for example
+ * {@code target/classes/**} or {@code **}{@code /.git/**}.
+ * A leading {@code **}{@code /} also matches zero folders, so the latter
+ * excludes a {@code .git} folder directly inside the registered folder.
+ *
+ * A folder is watched if it matches no exclusion and either
+ * there are no inclusions, or it may contain an included path.
+ * The registered folder itself is always watched.
+ */
+class WatchFilter {
+
+	public static final WatchFilter ALL = new WatchFilter(null, null);
+
+	// A child name used to ask whether a folder's contents match a pattern
+	private static final String ANY_CHILD = "_";
+	private static final String ANY_PARENT_PREFIX = "**/";
+	private static final String GLOB_CHARS = "*?[{";
+
+	private final List<PathMatcher> includes;
+	private final List<PathMatcher> excludes;
+	// The literal folders leading to each inclusion, or null if any folder may
+	private final List<Path> includePrefixes;
+
+	public WatchFilter(String[] includes, String[] excludes) {
+		this.includes = toMatchers(includes);
+		this.excludes = toMatchers(excludes);
+		this.includePrefixes = toPrefixes(includes);
+	}
+
+	private static List<PathMatcher> toMatchers(String[] patterns) {
+		List<PathMatcher> ret = new ArrayList<>();
+		if( patterns == null )
+			return ret;
+		for( String pattern : patterns ) {
+			String trimmed = pattern == null ? "" : pattern.trim();
+			if( trimmed.isEmpty())
+				continue;
+			ret.add(FileSystems.getDefault().getPathMatcher("glob:" + trimmed));
+			if( trimmed.startsWith(ANY_PARENT_PREFIX)) {
+				String rest = trimmed.substring(ANY_PARENT_PREFIX.length());
+				ret.add(FileSystems.getDefault().getPathMatcher("glob:" + rest));
+			}
+		}
+		return ret;
+	}
+
+	private static List<Path> toPrefixes(String[] patterns) {
+		List<Path> ret = new ArrayList<>();
+		if( patterns == null )
+			return ret;
+		for( String pattern : patterns ) {
+			String trimmed = pattern == null ? "" : pattern.trim();
+			if( trimmed.isEmpty())
+				continue;
+			String prefix = getLiteralPrefix(trimmed);
+			if( prefix.isEmpty()) {
+				// Any folder may contain a match
+				return null;
+			}
+			ret.add(Paths.get(prefix));
+		}
+		return ret;
+	}
+
+	/*
+	 * Return the folders of the pattern before the first segment using glob syntax
+	 */
+	private static String getLiteralPrefix(String pattern) {
+		int firstGlob = pattern.length();
+		for( int i = 0; i < pattern.length(); i++ ) {
+			if( GLOB_CHARS.indexOf(pattern.charAt(i)) != -1 ) {
+				firstGlob = i;
+				break;
+			}
+		}
+		int lastSeparator = pattern.lastIndexOf('/', firstGlob);
+		return lastSeparator == -1 ? "" : pattern.substring(0, lastSeparator);
+	}
+
+	public boolean acceptsAll() {
+		return includes.isEmpty() && excludes.isEmpty();
+	}
+
+	/**
+	 * @param relative the folder's path relative to the registered folder
+	 * @return whether the folder should be watched
+	 */
+	public boolean shouldWatch(Path relative) {
+		if( acceptsAll() || relative.toString().isEmpty())
+			return true;
+		Path contents = relative.resolve(ANY_CHILD);
+		if( matchesAny(excludes, relative, contents))
+			return false;
+		if( includes.isEmpty() || includePrefixes == null )
+			return true;
+		if( matchesAny(includes, relative, contents))
+			return true;
+		for( Path prefix : includePrefixes ) {
+			if( prefix.startsWith(relative))
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean matchesAny(List<PathMatcher> matchers, Path folder, Path contents) {
+		for( PathMatcher m : matchers ) {
+			if( m.matches(folder) || m.matches(contents))
+				return true;
+		}
+		return false;
+	}
+}
@@ -13,6 +13,12 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jboss.tools.rsp.api.DefaultServerAttributes;
 import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
@@ -41,9 +47,13 @@ import org.jboss.tools.rsp.eclipse.debug.core.DebugEvent;
 import org.jboss.tools.rsp.eclipse.debug.core.IDebugEventSetListener;
 import org.jboss.tools.rsp.eclipse.debug.core.ILaunch;
 import org.jboss.tools.rsp.eclipse.debug.core.IStreamListener;
+import org.jboss.tools.rsp.eclipse.debug.core.model.IFlushableStreamMonitor;
 import org.jboss.tools.rsp.eclipse.debug.core.model.IProcess;
+import org.jboss.tools.rsp.eclipse.debug.core.model.IStreamMonitor;
+import org.jboss.tools.rsp.eclipse.debug.core.model.IStreamsProxy;
 import org.jboss.tools.rsp.eclipse.osgi.util.NLS;
 import org.jboss.tools.rsp.launching.RuntimeProcessEventManager;
+import org.jboss.tools.rsp.server.RSPFlags;
 import org.jboss.tools.rsp.server.ServerCoreActivator;
 import org.jboss.tools.rsp.server.model.internal.ServerStreamListener;
 import org.jboss.tools.rsp.server.model.internal.publishing.ServerPublishStateModel;
@@ -93,6 +103,9 @@ public abstract class AbstractServerDelegate implements IServerDelegate, IDebugE
 	public void dispose() {
 		if( registerAsProcessListener())
 			RuntimeProcessEventManager.getDefault().removeListener(this);
+		for( ILaunch l : getLaunches()) {
+			removeLaunch(l);
+		}
 	}
 	
 	protected boolean registerAsProcessListener() {
@@ -336,7 +349,7 @@ public abstract class AbstractServerDelegate implements IServerDelegate, IDebugE
 
 	@Override
 	public void handleDebugEvents(DebugEvent[] events) {
-		ArrayList<ILaunch> launchList = new ArrayList<>(this.launches);
+		List<ILaunch> launchList = getLaunches();
 		for( int i = 0; i < events.length; i++ ) {
 			Object o = events[i].getSource();
 			if( o instanceof IProcess && events[i].getKind() == DebugEvent.TERMINATE) {
@@ -356,7 +369,14 @@ public abstract class AbstractServerDelegate implements IServerDelegate, IDebugE
 	}
 
 	protected void registerLaunch(ILaunch launch2) {
-		launches.add(launch2);
+		// the output of earlier runs is not kept
+		for( ILaunch l : getLaunches()) {
+			if( l.isTerminated())
+				removeLaunch(l);
+		}
+		synchronized(launches) {
+			launches.add(launch2);
+		}
 		String ctime = "" + System.currentTimeMillis();
 		IProcess[] all = launch2.getProcesses();
 		
@@ -376,6 +396,37 @@ public abstract class AbstractServerDelegate implements IServerDelegate, IDebugE
 		}
 	}
 
+	protected List<ILaunch> getLaunches() {
+		synchronized(launches) {
+			return new ArrayList<>(launches);
+		}
+	}
+
+	/**
+	 * Forgets the given launch and releases the output of its processes,
+	 * deleting the files their dropped output was spilled to.
+	 * 
+	 * @param launch the launch to remove
+	 */
+	protected void removeLaunch(ILaunch launch) {
+		synchronized(launches) {
+			launches.remove(launch);
+		}
+		for( IProcess p : launch.getProcesses()) {
+			IStreamsProxy proxy = p.getStreamsProxy();
+			if( proxy != null ) {
+				disposeMonitor(proxy.getOutputStreamMonitor());
+				disposeMonitor(proxy.getErrorStreamMonitor());
+			}
+		}
+	}
+
+	private static void disposeMonitor(IStreamMonitor monitor) {
+		if( monitor instanceof IFlushableStreamMonitor ) {
+			((IFlushableStreamMonitor)monitor).dispose();
+		}
+	}
+
 	protected String getProcessId(IProcess p) {
 		return p.getAttribute(PROCESS_ID_KEY);
 	}
@@ -462,14 +513,19 @@ public abstract class AbstractServerDelegate implements IServerDelegate, IDebugE
 		try {
 			publishStart(publishType);
 			List<DeployableState> list = getServerPublishModel().getDeployableStates();
-			for( DeployableState state : list ) {
-				try {
-					publish(publishType, state);
-				} catch(CoreException ce) {
-					String mod = state.getReference().getLabel();
-					String server = getServer().getName();
-					ms.add(new Status(IStatus.ERROR, ServerCoreActivator.BUNDLE_ID, 
-							NLS.bind("Error while publishing deployable {0} to server {1}", mod, server), ce)); 
+			int threads = Math.min(getPublishThreadCount(), list.size());
+			if( threads > 1 ) {
+				for( IStatus s : publishConcurrently(publishType, list, threads)) {
+					if( s != null )
+						ms.add(s);
+				}
+			} else {
+				for( DeployableState state : list ) {
+					try {
+						publish(publishType, state);
+					} catch(CoreException ce) {
+						ms.add(createPublishErrorStatus(state, ce));
+					}
 				}
 			}
 		} catch(CoreException ce) {
@@ -487,11 +543,118 @@ public abstract class AbstractServerDelegate implements IServerDelegate, IDebugE
 		return ms;
 	}
 
+	/**
+	 * Returns the number of deployables to publish at the same time, 
+	 * taken from the server's {@link DefaultServerAttributes#PUBLISH_DEPLOYABLE_THREADS}
+	 * attribute. Subclasses whose publishing is not thread-safe 
+	 * may override this to return 1.
+	 */
+	protected int getPublishThreadCount() {
+		return getServer().getAttribute(DefaultServerAttributes.PUBLISH_DEPLOYABLE_THREADS, 
+				DefaultServerAttributes.PUBLISH_DEPLOYABLE_THREADS_DEFAULT);
+	}
+
+	/*
+	 * Publish the deployables using up to the given number of threads, 
+	 * the calling one and threads of the pool shared by all servers, 
+	 * returning once all of them are done. The statuses are in the order 
+	 * of the list, null for the deployables that were published successfully.
+	 */
+	private IStatus[] publishConcurrently(int publishType, List<DeployableState> list, int threads) {
+		IStatus[] results = new IStatus[list.size()];
+		AtomicInteger next = new AtomicInteger();
+		AtomicBoolean cancelled = new AtomicBoolean();
+		int helpers = threads - 1;
+		CountDownLatch done = new CountDownLatch(helpers);
+		for( int i = 0; i < helpers; i++ ) {
+			PublishPool.POOL.execute(() -> {
+				try {
+					publishNext(publishType, list, results, next, cancelled);
+				} finally {
+					done.countDown();
+				}
+			});
+		}
+		// The calling thread publishes too, so publishing progresses even if the pool is busy
+		publishNext(publishType, list, results, next, cancelled);
+		
+		// publishFinish must never run while a deployable is still being published
+		boolean interrupted = false;
+		while( true ) {
+			try {
+				done.await();
+				break;
+			} catch(InterruptedException ie) {
+				interrupted = true;
+				cancelled.set(true);
+			}
+		}
+		if( interrupted ) {
+			Thread.currentThread().interrupt();
+		}
+		return results;
+	}
+
+	/*
+	 * Publish the next deployables of the list until none is left. 
+	 * Those not started once publishing is cancelled are reported as cancelled.
+	 */
+	private void publishNext(int publishType, List<DeployableState> list, IStatus[] results, 
+			AtomicInteger next, AtomicBoolean cancelled) {
+		for( int i = next.getAndIncrement(); i < list.size(); i = next.getAndIncrement()) {
+			DeployableState state = list.get(i);
+			if( Thread.currentThread().isInterrupted()) {
+				cancelled.set(true);
+			}
+			if( cancelled.get()) {
+				results[i] = new Status(IStatus.CANCEL, ServerCoreActivator.BUNDLE_ID, 
+						NLS.bind("Publishing deployable {0} to server {1} was cancelled", 
+								state.getReference().getLabel(), getServer().getName()));
+				continue;
+			}
+			try {
+				publish(publishType, state);
+			} catch(CoreException | RuntimeException e) {
+				results[i] = createPublishErrorStatus(state, e);
+			}
+		}
+	}
+
+	/*
+	 * The threads publishing deployables concurrently, shared by all servers
+	 * and only created once a server publishes concurrently
+	 */
+	private static class PublishPool {
+		private static final ThreadPoolExecutor POOL = createPool(RSPFlags.getPublishThreads());
+
+		private static ThreadPoolExecutor createPool(int threads) {
+			AtomicInteger count = new AtomicInteger();
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 
+					60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), 
+					(Runnable r) -> {
+						Thread t = new Thread(r, "RSP Publish " + count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					});
+			pool.allowCoreThreadTimeOut(true);
+			return pool;
+		}
+	}
+
+	private IStatus createPublishErrorStatus(DeployableState state, Exception e) {
+		String mod = state.getReference().getLabel();
+		String server = getServer().getName();
+		return new Status(IStatus.ERROR, ServerCoreActivator.BUNDLE_ID, 
+				NLS.bind("Error while publishing deployable {0} to server {1}", mod, server), e); 
+	}
+
 	protected void publish(int publishRequestType, DeployableState state) throws CoreException {
 		int modulePublishState = state.getPublishState();
 		
+		// The state is shared with other readers of the model. Fill a copy.
 		DeployableReference ref = state.getReference();
-		DeployableReference refWithOptions = getServerPublishModel().fillOptionsFromCache(ref);
+		DeployableReference refWithOptions = getServerPublishModel().fillOptionsFromCache(
+				new DeployableReference(ref.getLabel(), ref.getPath()));
 		
 		publishDeployable(refWithOptions, publishRequestType, modulePublishState);
 		DeployableState postState = getServerPublishModel().getDeployableState(state.getReference());
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.tools.rsp.api.RSPClient;
+import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
+import org.jboss.tools.rsp.api.dao.EventSubscription;
+
+/**
+ * The notifications each client subscribed to.
+ *
+ * Clients that did not subscribe receive all notifications.
+ */
+public class EventSubscriptions {
+
+	public static final Set<String> EVENT_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+			ServerManagementAPIConstants.EVENT_DISCOVERY_PATH_ADDED,
+			ServerManagementAPIConstants.EVENT_DISCOVERY_PATH_REMOVED,
+			ServerManagementAPIConstants.EVENT_SERVER_ADDED,
+			ServerManagementAPIConstants.EVENT_SERVER_REMOVED,
+			ServerManagementAPIConstants.EVENT_SERVER_ATTRIBUTES_CHANGED,
+			ServerManagementAPIConstants.EVENT_SERVER_STATE_CHANGED,
+			ServerManagementAPIConstants.EVENT_SERVER_PROCESS_CREATED,
+			ServerManagementAPIConstants.EVENT_SERVER_PROCESS_TERMINATED,
+			ServerManagementAPIConstants.EVENT_SERVER_PROCESS_OUTPUT_APPENDED,
+			ServerManagementAPIConstants.EVENT_JOB_ADDED,
+			ServerManagementAPIConstants.EVENT_JOB_REMOVED,
+			ServerManagementAPIConstants.EVENT_JOB_CHANGED)));
+
+	private static class Filter {
+		// null for all
+		private final Set<String> eventTypes;
+		// null for all
+		private final Set<String> serverIds;
+
+		Filter(Set<String> eventTypes, Set<String> serverIds) {
+			this.eventTypes = eventTypes;
+			this.serverIds = serverIds;
+		}
+
+		boolean accepts(String eventType, String serverId) {
+			return (eventTypes == null || eventTypes.contains(eventType))
+					&& (serverId == null || serverIds == null || serverIds.contains(serverId));
+		}
+	}
+
+	private final Map<RSPClient, Filter> filters = new IdentityHashMap<>();
+
+	/**
+	 * Replaces the subscription of the given client.
+	 *
+	 * @param client the client
+	 * @param subscription the notifications to send the client, 
+	 *                     or {@code null} for all of them
+	 * @throws IllegalArgumentException if an event type is unknown
+	 */
+	public void subscribe(RSPClient client, EventSubscription subscription) {
+		if( subscription == null ) {
+			remove(client);
+			return;
+		}
+		Set<String> types = null;
+		if( subscription.getEventTypes() != null ) {
+			types = new HashSet<>(subscription.getEventTypes());
+			for( String type : types ) {
+				if( !EVENT_TYPES.contains(type)) {
+					throw new IllegalArgumentException("Unknown event type: " + type);
+				}
+			}
+		}
+		Set<String> ids = null;
+		if( subscription.getServerIds() != null && !subscription.getServerIds().isEmpty()) {
+			ids = new HashSet<>(subscription.getServerIds());
+		}
+		synchronized(filters) {
+			filters.put(client, new Filter(types, ids));
+		}
+	}
+
+	/**
+	 * Forgets the subscription of the given client
+	 */
+	public void remove(RSPClient client) {
+		synchronized(filters) {
+			filters.remove(client);
+		}
+	}
+
+	/**
+	 * Returns the given clients that want the given notification
+	 *
+	 * @param clients the clients
+	 * @param eventType the name of the notification
+	 * @param serverId the server the notification is about, 
+	 *                 or {@code null} if it is not about a server
+	 */
+	public List<RSPClient> getSubscribers(List<RSPClient> clients, String eventType, String serverId) {
+		List<RSPClient> ret = new ArrayList<>(clients.size());
+		synchronized(filters) {
+			if( filters.isEmpty()) {
+				return clients;
+			}
+			for( RSPClient c : clients ) {
+				Filter f = filters.get(c);
+				if( f == null || f.accepts(eventType, serverId)) {
+					ret.add(c);
+				}
+			}
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.eclipse.lsp4j.jsonrpc.json.MessageConstants;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.messages.NotificationMessage;
+import org.eclipse.lsp4j.jsonrpc.services.ServiceEndpoints;
+import org.jboss.tools.rsp.api.RSPClient;
+import org.jboss.tools.rsp.api.SocketLauncher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends a notification to many clients, serializing it only once.
+ *
+ * The serialized message is written as is to the socket of each client,
+ * so the cost of serializing does not grow with the number of clients.
+ * Clients without a socket, or whose messages are traced, 
+ * are notified through their proxy instead.
+ */
+public class NotificationBroadcaster {
+	private static final Logger LOG = LoggerFactory.getLogger(NotificationBroadcaster.class);
+
+	private static final String CLIENT_SEGMENT = "client/";
+
+	private final MessageJsonHandler jsonHandler = 
+			new MessageJsonHandler(ServiceEndpoints.getSupportedMethods(RSPClient.class));
+
+	/**
+	 * Sends the given notification to the given clients
+	 * 
+	 * @param launchers the launchers of the connected clients
+	 * @param clients the clients to notify
+	 * @param method the name of the notification in {@link RSPClient}
+	 * @param param the parameter of the notification
+	 * @param notification sends the notification through the proxy of a client
+	 */
+	public <P> void broadcast(List<SocketLauncher<RSPClient>> launchers, List<RSPClient> clients, 
+			String method, P param, BiConsumer<RSPClient, P> notification) {
+		Map<RSPClient, SocketLauncher<RSPClient>> byClient = new IdentityHashMap<>();
+		for( SocketLauncher<RSPClient> l : launchers ) {
+			byClient.put(l.getRemoteProxy(), l);
+		}
+		byte[] message = null;
+		for( RSPClient c : clients ) {
+			SocketLauncher<RSPClient> l = byClient.get(c);
+			if( l == null || l.isTracing()) {
+				notification.accept(c, param);
+				continue;
+			}
+			if( message == null ) {
+				message = serialize(method, param);
+			}
+			try {
+				l.writeMessage(message);
+			} catch(IOException ioe) {
+				LOG.error("Error sending notification {} to a client", method, ioe);
+			}
+		}
+	}
+
+	/**
+	 * Returns the json-rpc message of the given notification, 
+	 * headers included, as it is written to the socket
+	 */
+	public byte[] serialize(String method, Object param) {
+		NotificationMessage message = new NotificationMessage();
+		message.setJsonrpc(MessageConstants.JSONRPC_VERSION);
+		message.setMethod(CLIENT_SEGMENT + method);
+		message.setParams(param);
+		byte[] content = jsonHandler.serialize(message).getBytes(StandardCharsets.UTF_8);
+		byte[] header = (MessageConstants.CONTENT_LENGTH_HEADER + ": " + content.length 
+				+ MessageConstants.CRLF + MessageConstants.CRLF).getBytes(StandardCharsets.US_ASCII);
+		byte[] ret = new byte[header.length + content.length];
+		System.arraycopy(header, 0, ret, 0, header.length);
+		System.arraycopy(content, 0, ret, header.length, content.length);
+		return ret;
+	}
+}
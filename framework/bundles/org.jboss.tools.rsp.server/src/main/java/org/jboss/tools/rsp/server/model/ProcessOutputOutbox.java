@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.jboss.tools.rsp.api.RSPClient;
+import org.jboss.tools.rsp.api.dao.ServerHandle;
+import org.jboss.tools.rsp.api.dao.ServerProcessOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends the output of the server processes to a client, on a thread of its own.
+ *
+ * Output appended within a short window is coalesced per server, process
+ * and stream into a single notification. A client falling behind does not
+ * slow down the processes: once the output waiting to be sent exceeds
+ * the capacity, the oldest output is dropped, and a marker telling
+ * how much was dropped is sent in its place.
+ */
+public class ProcessOutputOutbox {
+	private static final Logger LOG = LoggerFactory.getLogger(ProcessOutputOutbox.class);
+
+	private static class Key {
+		private final String serverId;
+		private final String processId;
+		private final int streamType;
+
+		Key(String serverId, String processId, int streamType) {
+			this.serverId = serverId;
+			this.processId = processId;
+			this.streamType = streamType;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(serverId, processId, streamType);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if( !(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return streamType == other.streamType && Objects.equals(serverId, other.serverId)
+					&& Objects.equals(processId, other.processId);
+		}
+	}
+
+	private static class Pending {
+		private final ServerHandle server;
+		private final String processId;
+		private final int streamType;
+		private final StringBuilder text = new StringBuilder();
+		private long elided;
+
+		Pending(ServerHandle server, String processId, int streamType) {
+			this.server = server;
+			this.processId = processId;
+			this.streamType = streamType;
+		}
+	}
+
+	/*
+	 * Consecutive output appended to the same stream
+	 */
+	private static class Chunk {
+		private final Pending pending;
+		private int length;
+
+		Chunk(Pending pending, int length) {
+			this.pending = pending;
+			this.length = length;
+		}
+	}
+
+	private final RSPClient client;
+	private final int capacity;
+	private final long window;
+
+	private final Object lock = new Object();
+	private Map<Key, Pending> pending = new LinkedHashMap<>();
+	// the output waiting to be sent, in the order it was appended
+	private Deque<Chunk> chunks = new ArrayDeque<>();
+	private List<Runnable> afterOutput = new ArrayList<>();
+	private int size;
+	private long elided;
+	private boolean disposed;
+	private boolean closed;
+	private Thread sender;
+
+	/**
+	 * @param client the client to send the output to
+	 * @param capacity the number of characters waiting to be sent
+	 *                 above which the oldest are dropped
+	 * @param window the time during which output is coalesced, in milliseconds
+	 */
+	public ProcessOutputOutbox(RSPClient client, int capacity, long window) {
+		if( capacity <= 0 ) {
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		this.client = client;
+		this.capacity = capacity;
+		this.window = window;
+	}
+
+	/**
+	 * Queues the given output to be sent to the client
+	 */
+	public void append(ServerHandle server, String processId, int streamType, String text) {
+		if( text == null || text.isEmpty())
+			return;
+		synchronized(lock) {
+			if( disposed || closed )
+				return;
+			Key key = new Key(server.getId(), processId, streamType);
+			Pending p = pending.computeIfAbsent(key, k -> new Pending(server, processId, streamType));
+			p.text.append(text);
+			Chunk last = chunks.peekLast();
+			if( last != null && last.pending == p ) {
+				last.length += text.length();
+			} else {
+				chunks.addLast(new Chunk(p, text.length()));
+			}
+			size += text.length();
+			if( size > capacity ) {
+				dropOldest(size - capacity);
+			}
+			wakeSender();
+		}
+	}
+
+	/*
+	 * Drops the output appended first, whatever its stream. 
+	 * Must be called holding the lock
+	 */
+	private void dropOldest(int count) {
+		while( count > 0 && !chunks.isEmpty()) {
+			Chunk c = chunks.peekFirst();
+			int dropped = Math.min(count, c.length);
+			// the oldest chunk of a stream is at the start of its text
+			c.pending.text.delete(0, dropped);
+			c.pending.elided += dropped;
+			c.length -= dropped;
+			if( c.length == 0 ) {
+				chunks.removeFirst();
+			}
+			elided += dropped;
+			size -= dropped;
+			count -= dropped;
+		}
+	}
+
+	/**
+	 * Runs the given notification on the sender thread,
+	 * once the output queued before it is sent. 
+	 * Notifications are still run once the outbox is closed.
+	 */
+	public void afterOutput(Runnable notification) {
+		synchronized(lock) {
+			if( disposed )
+				return;
+			afterOutput.add(notification);
+			wakeSender();
+		}
+	}
+
+	/*
+	 * Must be called holding the lock
+	 */
+	private void wakeSender() {
+		if( sender == null ) {
+			sender = new Thread(this::send, "Process Output Sender");
+			sender.setDaemon(true);
+			sender.start();
+		} else {
+			lock.notify();
+		}
+	}
+
+	private void send() {
+		while( true ) {
+			synchronized(lock) {
+				while( pending.isEmpty() && afterOutput.isEmpty() && !disposed && !closed ) {
+					try {
+						lock.wait();
+					} catch(InterruptedException ie) {
+						// keep waiting unless disposed
+					}
+				}
+				if( disposed )
+					return;
+				if( pending.isEmpty() && afterOutput.isEmpty()) {
+					// closed, a later notification starts another sender
+					sender = null;
+					return;
+				}
+			}
+			if( window > 0 ) {
+				try {
+					Thread.sleep(window);
+				} catch(InterruptedException ie) {
+					// send what is there
+				}
+			}
+			Map<Key, Pending> output;
+			List<Runnable> after;
+			synchronized(lock) {
+				output = pending;
+				after = afterOutput;
+				pending = new LinkedHashMap<>();
+				chunks = new ArrayDeque<>();
+				afterOutput = new ArrayList<>();
+				size = 0;
+			}
+			for( Pending p : output.values()) {
+				send(p);
+			}
+			for( Runnable r : after ) {
+				run(r);
+			}
+		}
+	}
+
+	private void send(Pending p) {
+		String text = p.elided == 0 ? p.text.toString()
+				: "[" + p.elided + " characters of output elided]\n" + p.text;
+		run(() -> client.serverProcessOutputAppended(
+				new ServerProcessOutput(p.server, p.processId, p.streamType, text)));
+	}
+
+	private void run(Runnable r) {
+		try {
+			r.run();
+		} catch(RuntimeException re) {
+			LOG.error("Error notifying client", re);
+		}
+	}
+
+	/**
+	 * Returns the number of characters of output dropped
+	 * because the client fell behind
+	 */
+	public long getElided() {
+		synchronized(lock) {
+			return elided;
+		}
+	}
+
+	/**
+	 * Stops accepting output. What is queued is still sent, 
+	 * and so are the notifications queued afterwards.
+	 */
+	public void close() {
+		synchronized(lock) {
+			closed = true;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Stops sending to the client, output not sent yet is discarded
+	 */
+	public void dispose() {
+		synchronized(lock) {
+			disposed = true;
+			pending.clear();
+			chunks.clear();
+			afterOutput.clear();
+			size = 0;
+			lock.notifyAll();
+		}
+	}
+}
@@ -9,23 +9,35 @@
 package org.jboss.tools.rsp.server.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 import org.jboss.tools.rsp.api.RSPClient;
+import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
 import org.jboss.tools.rsp.api.dao.DiscoveryPath;
+import org.jboss.tools.rsp.api.dao.EventSubscription;
 import org.jboss.tools.rsp.api.dao.JobHandle;
 import org.jboss.tools.rsp.api.dao.JobProgress;
 import org.jboss.tools.rsp.api.dao.JobRemoved;
 import org.jboss.tools.rsp.api.dao.ServerHandle;
 import org.jboss.tools.rsp.api.dao.ServerProcess;
-import org.jboss.tools.rsp.api.dao.ServerProcessOutput;
 import org.jboss.tools.rsp.api.dao.ServerState;
+import org.jboss.tools.rsp.api.dao.ServerStateRevisions;
+import org.jboss.tools.rsp.api.dao.ServerStatesDelta;
 import org.jboss.tools.rsp.api.dao.VMDescription;
 import org.jboss.tools.rsp.eclipse.core.runtime.IStatus;
 import org.jboss.tools.rsp.eclipse.jdt.launching.IVMInstall;
 import org.jboss.tools.rsp.eclipse.jdt.launching.IVMInstallChangedListener;
 import org.jboss.tools.rsp.eclipse.jdt.launching.PropertyChangeEvent;
+import org.jboss.tools.rsp.server.RSPFlags;
 import org.jboss.tools.rsp.server.ServerManagementServerImpl;
 import org.jboss.tools.rsp.server.spi.discovery.IDiscoveryPathListener;
 import org.jboss.tools.rsp.server.spi.jobs.IJob;
@@ -39,6 +51,14 @@ public class RemoteEventManager implements IDiscoveryPathListener,
 	IVMInstallChangedListener, IServerModelListener, IJobListener {
 	
 	private ServerManagementServerImpl server;
+	private final Map<RSPClient, ProcessOutputOutbox> outboxes = new IdentityHashMap<>();
+	private final EventSubscriptions subscriptions = new EventSubscriptions();
+	private final NotificationBroadcaster broadcaster = new NotificationBroadcaster();
+	private final ServerRevisions revisions = new ServerRevisions();
+	// the clients not sent the server states yet
+	private final Map<RSPClient, ScheduledFuture<?>> pendingInit = new IdentityHashMap<>();
+	private final ScheduledThreadPoolExecutor timer = createTimer();
+
 	public RemoteEventManager(ServerManagementServerImpl serverManagementServerImpl) {
 		this.server = serverManagementServerImpl; 
 		serverManagementServerImpl.getModel().getDiscoveryPathModel().addListener(this);
@@ -46,34 +66,79 @@ public class RemoteEventManager implements IDiscoveryPathListener,
 		serverManagementServerImpl.getModel().getServerModel().addServerModelListener(this);
 		serverManagementServerImpl.getModel().getJobManager().addJobListener(this);
 	}
+
+	private static ScheduledThreadPoolExecutor createTimer() {
+		ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, (Runnable r) -> {
+			Thread t = new Thread(r, "Client Init Timer");
+			t.setDaemon(true);
+			return t;
+		});
+		timer.setRemoveOnCancelPolicy(true);
+		timer.setKeepAliveTime(60, TimeUnit.SECONDS);
+		timer.allowCoreThreadTimeOut(true);
+		return timer;
+	}
 	
+	/*
+	 * The clients subscribed to the given event
+	 */
+	private List<RSPClient> getClients(String eventType, String serverId) {
+		return subscriptions.getSubscribers(server.getClients(), eventType, serverId);
+	}
+
+	private List<RSPClient> getClients(String eventType, ServerHandle handle) {
+		return getClients(eventType, handle == null ? null : handle.getId());
+	}
+
+	/*
+	 * Sends the given notification to the clients subscribed to it, 
+	 * serializing it once for all of them
+	 */
+	private <P> void broadcast(String eventType, String serverId, P param, BiConsumer<RSPClient, P> notification) {
+		List<RSPClient> l = getClients(eventType, serverId);
+		if( !l.isEmpty()) {
+			broadcaster.broadcast(server.getActiveLaunchers(), l, eventType, param, notification);
+		}
+	}
+
+	/**
+	 * Replaces the notifications sent to the given client
+	 * 
+	 * @throws IllegalArgumentException if an event type is unknown
+	 */
+	public void subscribe(RSPClient client, EventSubscription subscription) {
+		subscriptions.subscribe(client, subscription);
+		if( subscription != null && subscription.getEventTypes() != null && !subscription.getEventTypes()
+				.contains(ServerManagementAPIConstants.EVENT_SERVER_PROCESS_OUTPUT_APPENDED)) {
+			// opted out of all output, what is queued is still sent
+			ProcessOutputOutbox outbox = removeOutbox(client);
+			if( outbox != null ) {
+				outbox.close();
+			}
+		}
+	}
+
 	@Override
 	public void discoveryPathAdded(DiscoveryPath path) {
-		List<RSPClient> l = server.getClients();
-		for( RSPClient c : l) {
-			c.discoveryPathAdded(path);
-		}
+		broadcast(ServerManagementAPIConstants.EVENT_DISCOVERY_PATH_ADDED, null, 
+				path, RSPClient::discoveryPathAdded);
 	}
 	@Override
 	public void discoveryPathRemoved(DiscoveryPath path) {
-		List<RSPClient> l = server.getClients();
-		for( RSPClient c : l) {
-			c.discoveryPathRemoved(path);
-		}
+		broadcast(ServerManagementAPIConstants.EVENT_DISCOVERY_PATH_REMOVED, null, 
+				path, RSPClient::discoveryPathRemoved);
 	}
 
 	public void serverAdded(ServerHandle server2) {
-		List<RSPClient> l = server.getClients();
-		for( RSPClient c : l) {
-			c.serverAdded(server2);
-		}
+		revisions.changed(server2.getId());
+		broadcast(ServerManagementAPIConstants.EVENT_SERVER_ADDED, server2.getId(), 
+				server2, RSPClient::serverAdded);
 	}
 	
 	public void serverRemoved(ServerHandle server2) {
-		List<RSPClient> l = server.getClients();
-		for( RSPClient c : l) {
-			c.serverRemoved(server2);
-		}
+		revisions.removed(server2.getId());
+		broadcast(ServerManagementAPIConstants.EVENT_SERVER_REMOVED, server2.getId(), 
+				server2, RSPClient::serverRemoved);
 	}
 	
 	public void serverAttributesChanged(ServerHandle server) {
@@ -81,14 +146,64 @@ public class RemoteEventManager implements IDiscoveryPathListener,
 	}
 	
 	public void serverStateChanged(ServerHandle server, ServerState state) {
-		List<RSPClient> l = this.server.getClients();
 		if( this.server.getModel().getServerModel().getServer(server.getId()) != null ) {
-			for( RSPClient c : l) {
-				c.serverStateChanged(state);
-			}
+			state.setRevision(revisions.changed(server.getId()));
+			state.setEpoch(revisions.getEpoch());
+			broadcast(ServerManagementAPIConstants.EVENT_SERVER_STATE_CHANGED, server.getId(), 
+					state, RSPClient::serverStateChanged);
 		}
 	}
 	
+	/**
+	 * Returns the current state of the given server, with its revision
+	 */
+	public ServerState getServerState(IServer server) {
+		ServerState state = server.getDelegate().getServerState();
+		state.setRevision(revisions.getRevision(server.getId()));
+		state.setEpoch(revisions.getEpoch());
+		return state;
+	}
+
+	/**
+	 * Initializes a newly connected client with all server states, 
+	 * once it had the time to ask for the states it does not know 
+	 * with {@link #resyncServerStates(RSPClient, ServerStateRevisions)} instead.
+	 */
+	public void clientAdded(RSPClient client) {
+		int window = RSPFlags.getClientResyncWindow();
+		if( window <= 0 ) {
+			initClientWithServerStates(client);
+			return;
+		}
+		synchronized(pendingInit) {
+			pendingInit.put(client, timer.schedule(() -> clientRegistered(client), window, TimeUnit.MILLISECONDS));
+		}
+	}
+
+	/**
+	 * Initializes the given client with all server states 
+	 * if it was not yet, now that it registered
+	 */
+	public void clientRegistered(RSPClient client) {
+		if( cancelInit(client)) {
+			initClientWithServerStates(client);
+		}
+	}
+
+	/*
+	 * Returns whether the client was still to be initialized
+	 */
+	private boolean cancelInit(RSPClient client) {
+		ScheduledFuture<?> init;
+		synchronized(pendingInit) {
+			init = pendingInit.remove(client);
+		}
+		if( init != null ) {
+			init.cancel(false);
+		}
+		return init != null;
+	}
+
 	/*
 	 * Initialize a new client with all server states
 	 */
@@ -97,30 +212,109 @@ public class RemoteEventManager implements IDiscoveryPathListener,
 		List<IServer> all = new ArrayList<>(model.getServers().values());
 		ServerState state = null;
 		for( Iterator<IServer> it = all.iterator(); it.hasNext(); ) {
-			state = it.next().getDelegate().getServerState();
+			state = getServerState(it.next());
 			client.serverStateChanged(state);
 		}
 	}
+
+	/**
+	 * Returns the states of the servers that changed since the given revisions, 
+	 * or of all servers if the revisions are of a previous run, 
+	 * and the servers among the given ones that were removed. 
+	 * The client is then no longer sent all server states.
+	 */
+	public ServerStatesDelta resyncServerStates(RSPClient client, ServerStateRevisions known) {
+		cancelInit(client);
+		Map<String, Long> seen = known == null || known.getRevisions() == null ? 
+				Collections.emptyMap() : known.getRevisions();
+		Map<String, IServer> all = new HashMap<>(server.getModel().getServerModel().getServers());
+		List<ServerState> changed = new ArrayList<>();
+		String epoch = known == null ? null : known.getEpoch();
+		for( String id : revisions.getChanged(all.keySet(), epoch, seen)) {
+			changed.add(getServerState(all.get(id)));
+		}
+		List<String> removed = new ArrayList<>();
+		for( String id : seen.keySet()) {
+			if( !all.containsKey(id)) {
+				removed.add(id);
+			}
+		}
+		return new ServerStatesDelta(changed, removed);
+	}
 	
 	public void serverProcessCreated(ServerHandle server, String processId) {
-		List<RSPClient> l = this.server.getClients();
-		for( RSPClient c : l) {
-			c.serverProcessCreated(new ServerProcess(server, processId));
-		}
+		broadcast(ServerManagementAPIConstants.EVENT_SERVER_PROCESS_CREATED, server.getId(), 
+				new ServerProcess(server, processId), RSPClient::serverProcessCreated);
 	}
 	
 	public void serverProcessTerminated(ServerHandle server, String processId) {
-		List<RSPClient> l = this.server.getClients();
+		List<RSPClient> l = getClients(ServerManagementAPIConstants.EVENT_SERVER_PROCESS_TERMINATED, server);
+		ServerProcess process = new ServerProcess(server, processId);
 		for( RSPClient c : l) {
-			c.serverProcessTerminated(new ServerProcess(server, processId));
+			ProcessOutputOutbox outbox = getOutbox(c);
+			if( outbox != null ) {
+				// after the last output of the process
+				outbox.afterOutput(() -> c.serverProcessTerminated(process));
+			}
 		}
 	}
 	
 	public void serverProcessOutputAppended(ServerHandle server, String processId, int streamType, String text) {
-		List<RSPClient> l = this.server.getClients();
+		List<RSPClient> l = getClients(ServerManagementAPIConstants.EVENT_SERVER_PROCESS_OUTPUT_APPENDED, server);
 		for( RSPClient c : l) {
-			c.serverProcessOutputAppended(new ServerProcessOutput(
-					server, processId, streamType, text));
+			ProcessOutputOutbox outbox = getOutbox(c);
+			if( outbox != null ) {
+				outbox.append(server, processId, streamType, text);
+			}
+		}
+	}
+
+	/*
+	 * Output is sent on a thread of each client, 
+	 * so a client falling behind does not block the processes. 
+	 * Returns null if the client disconnected meanwhile.
+	 */
+	private ProcessOutputOutbox getOutbox(RSPClient client) {
+		synchronized(outboxes) {
+			ProcessOutputOutbox outbox = outboxes.get(client);
+			// clients are removed from the server before their outbox is disposed
+			if( outbox == null && isConnected(client)) {
+				outbox = new ProcessOutputOutbox(client, 
+						RSPFlags.getClientOutputBufferSize(), RSPFlags.getClientOutputWindow());
+				outboxes.put(client, outbox);
+			}
+			return outbox;
+		}
+	}
+
+	private boolean isConnected(RSPClient client) {
+		for( RSPClient c : server.getClients()) {
+			if( c == client ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Stops sending events to the given client, which disconnected
+	 */
+	public void clientRemoved(RSPClient client) {
+		cancelInit(client);
+		subscriptions.remove(client);
+		disposeOutbox(client);
+	}
+
+	private void disposeOutbox(RSPClient client) {
+		ProcessOutputOutbox outbox = removeOutbox(client);
+		if( outbox != null ) {
+			outbox.dispose();
+		}
+	}
+
+	private ProcessOutputOutbox removeOutbox(RSPClient client) {
+		synchronized(outboxes) {
+			return outboxes.remove(client);
 		}
 	}
 	
@@ -163,26 +357,17 @@ public class RemoteEventManager implements IDiscoveryPathListener,
 	@Override
 	public void jobAdded(IJob job) {
 		JobHandle jh = new JobHandle(job.getName(), job.getId());
-		List<RSPClient> l = server.getClients();
-		for( RSPClient c : l) {
-			c.jobAdded(jh);
-		}
+		broadcast(ServerManagementAPIConstants.EVENT_JOB_ADDED, null, jh, RSPClient::jobAdded);
 	}
 	@Override
 	public void jobRemoved(IJob job, IStatus status) {
 		JobHandle jh = new JobHandle(job.getName(), job.getId());
 		JobRemoved rem = new JobRemoved(jh,  StatusConverter.convert(status));
-		List<RSPClient> l = server.getClients();
-		for( RSPClient c : l) {
-			c.jobRemoved(rem);
-		}
+		broadcast(ServerManagementAPIConstants.EVENT_JOB_REMOVED, null, rem, RSPClient::jobRemoved);
 	}
 	@Override
 	public void progressChanged(IJob job, double work) {
 		JobProgress progress = new JobProgress(new JobHandle(job.getName(), job.getId()), work); 
-		List<RSPClient> l = server.getClients();
-		for( RSPClient c : l) {
-			c.jobChanged(progress);
-		}
+		broadcast(ServerManagementAPIConstants.EVENT_JOB_CHANGED, null, progress, RSPClient::jobChanged);
 	}
 }
@@ -23,10 +23,12 @@ import org.jboss.tools.rsp.api.dao.ServerHandle;
 import org.jboss.tools.rsp.api.dao.ServerState;
 import org.jboss.tools.rsp.eclipse.jdt.launching.IVMInstallRegistry;
 import org.jboss.tools.rsp.eclipse.jdt.launching.VMInstallRegistry;
+import org.jboss.tools.rsp.launching.utils.ProcessOutputBuffers;
 import org.jboss.tools.rsp.runtime.core.RuntimeCoreActivator;
 import org.jboss.tools.rsp.runtime.core.model.IDownloadRuntimesModel;
 import org.jboss.tools.rsp.secure.model.ISecureStorageProvider;
 import org.jboss.tools.rsp.server.CapabilityManagement;
+import org.jboss.tools.rsp.server.RSPFlags;
 import org.jboss.tools.rsp.server.discovery.DiscoveryPathModel;
 import org.jboss.tools.rsp.server.discovery.serverbeans.ServerBeanTypeManager;
 import org.jboss.tools.rsp.server.filewatcher.FileWatcherService;
@@ -50,6 +52,7 @@ public class ServerManagementModel implements IServerManagementModel {
 	private static final Logger LOG = LoggerFactory.getLogger(ServerManagementModel.class);
 
 	private static final String SECURESTORAGE_DIRECTORY = "securestorage";
+	private static final String PROCESS_OUTPUT_FOLDER = "process-output";
 
 	private ISecureStorageProvider secureStorage;
 	private ICapabilityManagement capabilities;
@@ -67,6 +70,7 @@ public class ServerManagementModel implements IServerManagementModel {
 		this.capabilities = createCapabilityManagement();
 		this.fDataStoreModel = dataLocation;
 		File dLocFile = dataLocation.getDataLocation();
+		configureProcessOutputBuffers(dLocFile);
 		this.secureStorage = createSecureStorageProvider(getSecureStorageFile(dLocFile), capabilities);
 		this.rpm = createDiscoveryPathModel();
 		this.serverBeanTypeManager = createServerBeanTypeManager();
@@ -79,6 +83,11 @@ public class ServerManagementModel implements IServerManagementModel {
 		this.jobManager = createJobManager();
 	}
 	
+	protected void configureProcessOutputBuffers(File dataLocation) {
+		ProcessOutputBuffers.configure(RSPFlags.getProcessOutputBufferSize(), 
+				new File(dataLocation, PROCESS_OUTPUT_FOLDER), RSPFlags.getProcessOutputSpillSize());
+	}
+
 	@Override
 	public IJobManager getJobManager() {
 		return this.jobManager;
@@ -175,7 +184,8 @@ public class ServerManagementModel implements IServerManagementModel {
 	}
 
 	protected IFileWatcherService createFileWatcherService() {
-		return new FileWatcherService();
+		return new FileWatcherService(RSPFlags.getFileWatcherQuietWindow(), 
+				RSPFlags.getFileWatcherListenerThreads());
 	}
 
 	protected IJobManager createJobManager() {
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The revision of the state of each server.
+ *
+ * A single counter gives the revisions of all servers, so a revision
+ * tells which changes a client saw. Revisions are not kept across restarts.
+ * Each run has its own epoch instead, sent along with the revisions, and 
+ * the revisions of another epoch are unknown: a client never mistakes 
+ * a state it did not see for one it did.
+ */
+public class ServerRevisions {
+	private final String epoch;
+	private final Map<String, Long> revisions = new HashMap<>();
+	private long last;
+
+	public ServerRevisions() {
+		this(UUID.randomUUID().toString(), 0);
+	}
+
+	public ServerRevisions(String epoch, long start) {
+		this.epoch = epoch;
+		this.last = start;
+	}
+
+	/**
+	 * Returns the epoch of the revisions, which differs for each run
+	 */
+	public String getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * Records a change of the state of the given server
+	 * 
+	 * @return the new revision of its state
+	 */
+	public synchronized long changed(String serverId) {
+		long revision = ++last;
+		revisions.put(serverId, revision);
+		return revision;
+	}
+
+	/**
+	 * Returns the revision of the state of the given server
+	 */
+	public synchronized long getRevision(String serverId) {
+		Long revision = revisions.get(serverId);
+		return revision == null ? changed(serverId) : revision;
+	}
+
+	/**
+	 * Forgets the given server, which was removed
+	 */
+	public synchronized void removed(String serverId) {
+		revisions.remove(serverId);
+	}
+
+	/**
+	 * Returns the given servers whose state changed since the given revisions. 
+	 * All of them changed if the revisions are of another epoch.
+	 * 
+	 * @param serverIds the servers
+	 * @param knownEpoch the epoch of the revisions last seen
+	 * @param known the revisions last seen by server id
+	 */
+	public synchronized List<String> getChanged(Iterable<String> serverIds, 
+			String knownEpoch, Map<String, Long> known) {
+		boolean sameEpoch = epoch.equals(knownEpoch);
+		List<String> ret = new ArrayList<>();
+		for( String id : serverIds ) {
+			Long seen = known == null || !sameEpoch ? null : known.get(id);
+			if( seen == null || getRevision(id) > seen ) {
+				ret.add(id);
+			}
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.model.internal.publishing;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs automatic publishes once a server's deployables have been
+ * left alone for some duration.
+ *
+ * Each file change reschedules the publish of its server, so the
+ * publish runs only once changes stop arriving. At most one publish
+ * runs per server at a time. Changes that arrive while a publish runs
+ * schedule a single follow-up publish, after the publish completes.
+ *
+ * All servers share one timer thread, and publishes run on a pool
+ * whose threads are reused between publishes.
+ */
+public class AutoPublishDebouncer {
+	private static final long PUBLISH_THREAD_KEEPALIVE_SECONDS = 60;
+
+	private static AutoPublishDebouncer instance;
+
+	public static synchronized AutoPublishDebouncer getDefault() {
+		if( instance == null ) {
+			instance = new AutoPublishDebouncer(createTimer(), createPublishPool());
+		}
+		return instance;
+	}
+
+	private static ScheduledExecutorService createTimer() {
+		ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, (Runnable r) -> {
+			Thread t = new Thread(r, "Autopublish Timer");
+			t.setDaemon(true);
+			return t;
+		});
+		// Cancelled publishes are rescheduled constantly while files change
+		timer.setRemoveOnCancelPolicy(true);
+		return timer;
+	}
+
+	private static ExecutorService createPublishPool() {
+		AtomicInteger count = new AtomicInteger();
+		return new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+				PUBLISH_THREAD_KEEPALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(),
+				(Runnable r) -> {
+					Thread t = new Thread(r, "Autopublish " + count.incrementAndGet());
+					t.setDaemon(true);
+					t.setPriority(Thread.MIN_PRIORITY + 1);
+					return t;
+				});
+	}
+
+	/*
+	 * The pending or running publish of one server
+	 */
+	private static class Entry {
+		private Runnable publish;
+		private long delay;
+		private ScheduledFuture<?> scheduled;
+		private boolean running;
+		private boolean followUp;
+	}
+
+	private final ScheduledExecutorService timer;
+	private final ExecutorService publishPool;
+	private final Map<Object, Entry> entries = new HashMap<>();
+
+	/**
+	 * @param timer schedules the publishes
+	 * @param publishPool runs the publishes
+	 */
+	public AutoPublishDebouncer(ScheduledExecutorService timer, ExecutorService publishPool) {
+		this.timer = timer;
+		this.publishPool = publishPool;
+	}
+
+	/**
+	 * Schedule a publish for the given server once the delay elapses,
+	 * replacing any publish scheduled for it that has not started yet.
+	 *
+	 * @param key identifies the server
+	 * @param delay the inactivity period, in milliseconds
+	 * @param publish performs the publish
+	 */
+	public synchronized void schedule(Object key, long delay, Runnable publish) {
+		Entry e = entries.computeIfAbsent(key, k -> new Entry());
+		e.publish = publish;
+		e.delay = delay;
+		if( e.running ) {
+			e.followUp = true;
+			return;
+		}
+		if( e.scheduled != null ) {
+			e.scheduled.cancel(false);
+		}
+		e.scheduled = timer.schedule(() -> fire(key, e), delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Forget the publish scheduled for the given server, if it has
+	 * not started yet. A running publish is allowed to complete.
+	 */
+	public synchronized void cancel(Object key) {
+		Entry e = entries.get(key);
+		if( e == null )
+			return;
+		e.followUp = false;
+		if( e.scheduled != null ) {
+			e.scheduled.cancel(false);
+			e.scheduled = null;
+		}
+		if( !e.running ) {
+			entries.remove(key);
+		}
+	}
+
+	/**
+	 * Returns whether a publish is scheduled or running for the given server
+	 */
+	public synchronized boolean isPending(Object key) {
+		return entries.containsKey(key);
+	}
+
+	private void fire(Object key, Entry e) {
+		Runnable publish;
+		synchronized(this) {
+			if( entries.get(key) != e || e.running || e.scheduled == null
+					|| e.scheduled.getDelay(TimeUnit.MILLISECONDS) > 0 ) {
+				// Rescheduled or cancelled since this timer was set
+				return;
+			}
+			e.scheduled = null;
+			e.running = true;
+			publish = e.publish;
+		}
+		publishPool.execute(() -> run(key, e, publish));
+	}
+
+	private void run(Object key, Entry e, Runnable publish) {
+		try {
+			publish.run();
+		} catch(RuntimeException re) {
+			ServerPublishStateModel.LOG.error("Error during automatic publish", re);
+		} finally {
+			synchronized(this) {
+				e.running = false;
+				if( e.followUp ) {
+					e.followUp = false;
+					e.scheduled = timer.schedule(() -> fire(key, e), e.delay, TimeUnit.MILLISECONDS);
+				} else {
+					entries.remove(key);
+				}
+			}
+		}
+	}
+}
@@ -8,90 +8,230 @@
  ******************************************************************************/
 package org.jboss.tools.rsp.server.model.internal.publishing;
 
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
 
 import org.jboss.tools.rsp.api.dao.DeployableReference;
+import org.jboss.tools.rsp.server.RSPFlags;
 import org.jboss.tools.rsp.server.spi.filewatcher.FileWatcherEvent;
 import org.jboss.tools.rsp.server.spi.servertype.IDeployableResourceDelta;
 
+/**
+ * The changes to a deployable's resources since it was last published.
+ *
+ * Changes are kept as interned relative path strings with a primitive
+ * change code. Once a folder holds more changed entries than the collapse
+ * threshold, they are replaced by a single {@link #SUBTREE_CHANGED} entry
+ * for the folder, and later changes below it are ignored.
+ *
+ * {@link #getResourceDeltaMap()} returns a read-only view rather than a copy.
+ * The changes are copied only if the delta changes after a view was handed out,
+ * so views never change. This class is not thread safe.
+ */
 public class DeployableDelta implements IDeployableResourceDelta {
-	
+
 	private static final int UNKNOWN_KIND = -1;
 	private DeployableReference reference;
-	private Map<Path, Integer> changes;
+	private final int collapseThreshold;
+	private final FileSystem fileSystem;
+	private final String separator;
+	private ChangeTable changes;
+	// whether changes are shared with a view, and must be copied before changing them
+	private boolean shared;
+	// the number of changed entries directly in each folder
+	private final Map<String, int[]> childCounts = new HashMap<>();
+	private int collapsed;
 
 	public DeployableDelta(DeployableReference reference) {
+		this(reference, RSPFlags.getPublishDeltaCollapseThreshold());
+	}
+
+	/**
+	 * @param reference the deployable
+	 * @param collapseThreshold the number of changed entries in a folder
+	 * above which the whole folder is marked as changed, or 0 to never collapse
+	 */
+	public DeployableDelta(DeployableReference reference, int collapseThreshold) {
 		this.reference = reference;
-		this.changes  = new HashMap<>();
+		this.collapseThreshold = collapseThreshold;
+		this.fileSystem = reference == null || reference.getPath() == null ?
+				FileSystems.getDefault() : Paths.get(reference.getPath()).getFileSystem();
+		this.separator = fileSystem.getSeparator();
+		this.changes = new ChangeTable(16);
 	}
-	
+
 	public DeployableDelta(DeployableReference reference, Map<Path, Integer> ch) {
-		this.reference = reference;
-		this.changes = ch;
+		this(reference, 0);
+		for( Map.Entry<Path, Integer> e : ch.entrySet()) {
+			changes.put(e.getKey().toString().intern(), e.getValue());
+		}
 	}
 
 	/**
-	 * Returns a map of relative paths and their change type
+	 * Creates a delta for the given reference holding the same changes
+	 * as the given delta. The changes are shared until either delta changes.
+	 */
+	public DeployableDelta(DeployableReference reference, DeployableDelta delta) {
+		this(reference, delta.collapseThreshold);
+		this.changes = delta.changes;
+		this.shared = true;
+		delta.shared = true;
+		for( Map.Entry<String, int[]> e : delta.childCounts.entrySet()) {
+			childCounts.put(e.getKey(), new int[] { e.getValue()[0] });
+		}
+		this.collapsed = delta.collapsed;
+	}
+
+	/**
+	 * Returns a read-only map of relative paths and their change type.
+	 * Later changes to this delta are not visible in the returned map.
 	 */
 	@Override
 	public Map<Path, Integer> getResourceDeltaMap() {
-		return new HashMap<>(changes);
+		shared = true;
+		return new ChangeMap(changes, fileSystem);
 	}
 
 	/**
 	 * Returns the DeployableReference for this delta.
-	 * 
+	 *
 	 * @return the deployable reference
-	 * 
+	 *
 	 * @see DeployableReference
 	 */
 	public DeployableReference getReference() {
 		return reference;
 	}
-	
+
 	/**
 	 * Registers a change for the given file watcher event.
-	 * 
+	 *
 	 * @param event the event to register the change for
 	 */
 	public void registerChange(FileWatcherEvent event) {
 		Path changedFile = event.getPath();
 		Path referenceBase = Paths.get(reference.getPath());
 		Path relative = referenceBase.relativize(changedFile);
-		
+
 		int currentChangeConverted = convert(event.getKind());
-		
+
 		if (UNKNOWN_KIND == currentChangeConverted) {
 			return;
 		}
 
-		if(!changes.containsKey(relative)) {
-			changes.put(relative, currentChangeConverted);
+		String key = relative.toString();
+		if( collapsed > 0 && isInChangedSubtree(key)) {
+			return;
+		}
+
+		int existingChange = changes.get(key);
+		if( existingChange == 0 ) {
+			writableChanges().put(key.intern(), currentChangeConverted);
+			addChild(key);
 		} else {
 			// Ok, this file has already been changed... ugh
-			int existingChange = changes.get(relative);
 			if( existingChange == DELETED && currentChangeConverted != DELETED ) {
-				changes.put(relative, MODIFIED);
+				writableChanges().put(key, MODIFIED);
 			} else if( existingChange == CREATED && currentChangeConverted == DELETED) {
-				changes.remove(relative);
+				writableChanges().remove(key);
+				removeChild(key);
 			} else if( existingChange == MODIFIED && currentChangeConverted == DELETED) {
-				changes.put(relative, DELETED);
+				writableChanges().put(key, DELETED);
 			}
 		}
 	}
-	
+
 	/**
 	 * Clears all the changes that were registered in this delta.
 	 */
 	public void clear() {
-		changes.clear();
+		if( shared ) {
+			changes = new ChangeTable(16);
+			shared = false;
+		} else {
+			changes.clear();
+		}
+		childCounts.clear();
+		collapsed = 0;
+	}
+
+	private ChangeTable writableChanges() {
+		if( shared ) {
+			changes = changes.copy();
+			shared = false;
+		}
+		return changes;
+	}
+
+	private boolean isInChangedSubtree(String key) {
+		for( String p = key; p != null; p = parent(p)) {
+			if( changes.get(p) == SUBTREE_CHANGED )
+				return true;
+		}
+		return false;
+	}
+
+	/*
+	 * Returns the folder holding the given relative path,
+	 * "" for the deployable's root, or null above the root
+	 */
+	private String parent(String key) {
+		if( key.isEmpty())
+			return null;
+		int i = key.lastIndexOf(separator);
+		return i == -1 ? "" : key.substring(0, i);
+	}
+
+	private void addChild(String key) {
+		String folder = parent(key);
+		if( folder == null )
+			return;
+		int[] count = childCounts.computeIfAbsent(folder, k -> new int[1]);
+		count[0]++;
+		if( collapseThreshold > 0 && count[0] > collapseThreshold ) {
+			collapse(folder);
+		}
 	}
-	
+
+	private void removeChild(String key) {
+		String folder = parent(key);
+		int[] count = folder == null ? null : childCounts.get(folder);
+		if( count != null && --count[0] == 0 ) {
+			childCounts.remove(folder);
+		}
+	}
+
+	/*
+	 * Replace every change in and below the folder by a single entry
+	 */
+	private void collapse(String folder) {
+		boolean root = folder.isEmpty();
+		String prefix = root ? "" : folder + separator;
+		Predicate<String> below = k -> k.startsWith(prefix) && !k.equals(folder);
+		boolean existed = changes.get(folder) != 0;
+		collapsed -= writableChanges().removeIf(below, SUBTREE_CHANGED);
+		childCounts.keySet().removeIf(k -> k.equals(folder) || below.test(k));
+		if( changes.get(folder) == SUBTREE_CHANGED )
+			collapsed--;
+		changes.put(folder, SUBTREE_CHANGED);
+		collapsed++;
+		if( !existed ) {
+			addChild(folder);
+		}
+	}
+
 	private int convert(WatchEvent.Kind<?> kind) {
 		if( kind == StandardWatchEventKinds.ENTRY_CREATE)
 			return CREATED;
@@ -103,4 +243,199 @@ public class DeployableDelta implements IDeployableResourceDelta {
 			return UNKNOWN_KIND;
 	}
 
+	/*
+	 * An open addressing hash table of relative paths and their change codes.
+	 * A code of 0 means the path is not in the table.
+	 */
+	private static final class ChangeTable {
+		private String[] keys;
+		private byte[] codes;
+		private int size;
+
+		private ChangeTable(int capacity) {
+			this.keys = new String[capacity];
+			this.codes = new byte[capacity];
+		}
+
+		private ChangeTable copy() {
+			ChangeTable t = new ChangeTable(0);
+			t.keys = keys.clone();
+			t.codes = codes.clone();
+			t.size = size;
+			return t;
+		}
+
+		private int slot(String key) {
+			int h = key.hashCode();
+			return (h ^ (h >>> 16)) & (keys.length - 1);
+		}
+
+		private int indexOf(String key) {
+			for( int i = slot(key); keys[i] != null; i = (i + 1) & (keys.length - 1)) {
+				if( keys[i].equals(key))
+					return i;
+			}
+			return -1;
+		}
+
+		private int get(String key) {
+			int i = indexOf(key);
+			return i == -1 ? 0 : codes[i];
+		}
+
+		private void put(String key, int code) {
+			int i = indexOf(key);
+			if( i != -1 ) {
+				codes[i] = (byte)code;
+				return;
+			}
+			if( (size + 1) * 3 > keys.length * 2 ) {
+				resize(keys.length * 2);
+			}
+			insert(key, code);
+			size++;
+		}
+
+		private void insert(String key, int code) {
+			int i = slot(key);
+			while( keys[i] != null ) {
+				i = (i + 1) & (keys.length - 1);
+			}
+			keys[i] = key;
+			codes[i] = (byte)code;
+		}
+
+		private void resize(int capacity) {
+			String[] oldKeys = keys;
+			byte[] oldCodes = codes;
+			keys = new String[capacity];
+			codes = new byte[capacity];
+			for( int i = 0; i < oldKeys.length; i++ ) {
+				if( oldKeys[i] != null )
+					insert(oldKeys[i], oldCodes[i]);
+			}
+		}
+
+		private void remove(String key) {
+			int i = indexOf(key);
+			if( i == -1 )
+				return;
+			int mask = keys.length - 1;
+			keys[i] = null;
+			size--;
+			// Shift back the entries that follow, so lookups still find them
+			for( int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask ) {
+				int home = slot(keys[j]);
+				boolean reachable = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+				if( !reachable ) {
+					keys[i] = keys[j];
+					codes[i] = codes[j];
+					keys[j] = null;
+					i = j;
+				}
+			}
+		}
+
+		/*
+		 * Removes the matching entries,
+		 * returning how many of them had the given code
+		 */
+		private int removeIf(Predicate<String> filter, int code) {
+			String[] oldKeys = keys;
+			byte[] oldCodes = codes;
+			keys = new String[oldKeys.length];
+			codes = new byte[oldKeys.length];
+			size = 0;
+			int removed = 0;
+			for( int i = 0; i < oldKeys.length; i++ ) {
+				if( oldKeys[i] == null )
+					continue;
+				if( filter.test(oldKeys[i])) {
+					if( oldCodes[i] == code )
+						removed++;
+				} else {
+					insert(oldKeys[i], oldCodes[i]);
+					size++;
+				}
+			}
+			return removed;
+		}
+
+		private void clear() {
+			keys = new String[16];
+			codes = new byte[16];
+			size = 0;
+		}
+	}
+
+	/*
+	 * A read-only view of a table that is no longer changed
+	 */
+	private static final class ChangeMap extends AbstractMap<Path, Integer> {
+		private final ChangeTable table;
+		private final FileSystem fileSystem;
+
+		private ChangeMap(ChangeTable table, FileSystem fileSystem) {
+			this.table = table;
+			this.fileSystem = fileSystem;
+		}
+
+		@Override
+		public int size() {
+			return table.size;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		public Integer get(Object key) {
+			if( !(key instanceof Path))
+				return null;
+			int code = table.get(key.toString());
+			return code == 0 ? null : Integer.valueOf(code);
+		}
+
+		@Override
+		public Set<Map.Entry<Path, Integer>> entrySet() {
+			return new AbstractSet<Map.Entry<Path, Integer>>() {
+				@Override
+				public int size() {
+					return table.size;
+				}
+
+				@Override
+				public Iterator<Map.Entry<Path, Integer>> iterator() {
+					return new Iterator<Map.Entry<Path, Integer>>() {
+						private int next = advance(0);
+
+						private int advance(int from) {
+							int i = from;
+							while( i < table.keys.length && table.keys[i] == null ) {
+								i++;
+							}
+							return i;
+						}
+
+						@Override
+						public boolean hasNext() {
+							return next < table.keys.length;
+						}
+
+						@Override
+						public Map.Entry<Path, Integer> next() {
+							if( !hasNext())
+								throw new NoSuchElementException();
+							int i = next;
+							next = advance(i + 1);
+							return new SimpleImmutableEntry<>(
+									fileSystem.getPath(table.keys[i]), Integer.valueOf(table.codes[i]));
+						}
+					};
+				}
+			};
+		}
+	}
 }
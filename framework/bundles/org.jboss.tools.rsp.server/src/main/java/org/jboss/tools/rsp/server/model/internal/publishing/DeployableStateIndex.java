@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.model.internal.publishing;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
+import org.jboss.tools.rsp.api.dao.DeployableState;
+
+/**
+ * Indexes the deployables of a publish model by the path of their root,
+ * and counts how many deployables are in each publish state.
+ *
+ * Finding the deployables affected by a changed file costs one lookup
+ * per segment of the file's path, and the server publish state can
+ * be derived from the counts without visiting the deployables.
+ *
+ * This class is not thread safe.
+ */
+public class DeployableStateIndex {
+
+	private static class Indexed {
+		private final Path root;
+		private int publishState;
+
+		private Indexed(Path root, int publishState) {
+			this.root = root;
+			this.publishState = publishState;
+		}
+	}
+
+	private final Map<Path, String> roots = new HashMap<>();
+	private final Map<String, Indexed> indexed = new HashMap<>();
+	private final int[] counts = new int[ServerManagementAPIConstants.PUBLISH_STATE_UNKNOWN + 1];
+
+	public DeployableStateIndex() {
+		// empty index
+	}
+
+	public DeployableStateIndex(Map<String, DeployableState> states) {
+		for( Entry<String, DeployableState> e : states.entrySet()) {
+			put(e.getKey(), e.getValue());
+		}
+	}
+
+	/**
+	 * Adds the given state, replacing any state indexed for the given key
+	 */
+	public void put(String key, DeployableState state) {
+		remove(key);
+		Path root = new File(state.getReference().getPath()).toPath();
+		int publishState = state.getPublishState();
+		indexed.put(key, new Indexed(root, publishState));
+		roots.put(root, key);
+		count(publishState, 1);
+	}
+
+	public void remove(String key) {
+		Indexed i = indexed.remove(key);
+		if( i == null )
+			return;
+		roots.remove(i.root, key);
+		count(i.publishState, -1);
+	}
+
+	/**
+	 * Records a change of publish state for the given key, if it is indexed
+	 */
+	public void setPublishState(String key, int publishState) {
+		Indexed i = indexed.get(key);
+		if( i == null || i.publishState == publishState )
+			return;
+		count(i.publishState, -1);
+		i.publishState = publishState;
+		count(publishState, 1);
+	}
+
+	/**
+	 * Returns the key of the deployable whose root is exactly the given path,
+	 * or {@code null} if there is none. Callers look up each parent of
+	 * a changed path to find all the deployables that contain it.
+	 */
+	public String getKey(Path root) {
+		return roots.get(root);
+	}
+
+	/**
+	 * Returns the number of deployables in the given publish state
+	 */
+	public int getCount(int publishState) {
+		if( publishState < 0 || publishState >= counts.length )
+			return 0;
+		return counts[publishState];
+	}
+
+	private void count(int publishState, int delta) {
+		if( publishState >= 0 && publishState < counts.length ) {
+			counts[publishState] += delta;
+		}
+	}
+}
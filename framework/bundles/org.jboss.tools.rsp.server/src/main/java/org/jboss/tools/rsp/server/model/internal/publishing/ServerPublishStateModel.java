@@ -11,16 +11,20 @@ package org.jboss.tools.rsp.server.model.internal.publishing;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.stream.Collectors;
 
 import org.jboss.tools.rsp.api.DefaultServerAttributes;
 import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
 import org.jboss.tools.rsp.api.dao.DeployableReference;
 import org.jboss.tools.rsp.api.dao.DeployableState;
+import org.jboss.tools.rsp.api.dao.ServerState;
+import org.jboss.tools.rsp.eclipse.core.runtime.CoreException;
 import org.jboss.tools.rsp.eclipse.core.runtime.IStatus;
 import org.jboss.tools.rsp.eclipse.core.runtime.Status;
 import org.jboss.tools.rsp.eclipse.osgi.util.NLS;
@@ -31,6 +35,7 @@ import org.jboss.tools.rsp.server.spi.filewatcher.IFileWatcherEventListener;
 import org.jboss.tools.rsp.server.spi.filewatcher.IFileWatcherService;
 import org.jboss.tools.rsp.server.spi.publishing.IFullPublishRequiredCallback;
 import org.jboss.tools.rsp.server.spi.servertype.IDeployableResourceDelta;
+import org.jboss.tools.rsp.server.spi.servertype.IServer;
 import org.jboss.tools.rsp.server.spi.servertype.IServerPublishModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,10 +49,22 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 	
 	private AbstractServerDelegate delegate;
 	private IFileWatcherService fileWatcher;
-	private int publishState = AbstractServerDelegate.PUBLISH_STATE_UNKNOWN;
+	private volatile int publishState = AbstractServerDelegate.PUBLISH_STATE_UNKNOWN;
+	
+	/*
+	 * Copies of the states, for readers to use without locking. 
+	 * Writers change the states while holding the lock on this model, 
+	 * then publish a new snapshot.
+	 */
+	private volatile Snapshot snapshot;
+	
+	/*
+	 * Deployment roots and publish state counts of the states, 
+	 * maintained by writers while holding the lock.
+	 */
+	private DeployableStateIndex index;
+	private Map<String, DeployableState> indexedStates;
 	
-	private AutoPublishThread autoPublish;
-
 	private IFullPublishRequiredCallback fullPublishRequired;
 	
 	public ServerPublishStateModel(AbstractServerDelegate delegate, IFileWatcherService fileWatcher) {
@@ -62,11 +79,25 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 		this.deploymentOptions = new LinkedHashMap<>();
 	}
 
+	private static class Snapshot {
+		// The map the states were copied from
+		private final Map<String, DeployableState> source;
+		private final Map<String, DeployableState> states;
+		private final List<DeployableState> list;
+
+		private Snapshot(Map<String, DeployableState> source, Map<String, DeployableState> states) {
+			this.source = source;
+			this.states = Collections.unmodifiableMap(states);
+			this.list = Collections.unmodifiableList(new ArrayList<>(states.values()));
+		}
+	}
+
 	@Override
 	public synchronized void initialize(List<DeployableReference> references) {
 		for( DeployableReference reference : references ) {
 			addDeployableImpl(reference, ServerManagementAPIConstants.PUBLISH_STATE_UNKNOWN);
 		}
+		publishSnapshot();
 		updateServerPublishStateFromDeployments();
 		fireState();
 	}
@@ -76,7 +107,7 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 				createDeployableState(reference, publishState, ServerManagementAPIConstants.STATE_UNKNOWN);
 		
 		String key = getKey(reference);
-		getStates().put(key, deployableState);
+		putState(key, deployableState);
 		deploymentOptions.put(getKey(reference), reference.getOptions());
 
 		registerFileWatcher(reference);
@@ -100,9 +131,23 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 			File f = new File(reference.getPath());
 			boolean recursive = f.exists() && f.isDirectory();
 			String path = reference.getPath();
-			fileWatcher.addFileWatcherListener(new File(path).toPath(), this, recursive);
+			Map<String, Object> options = reference.getOptions();
+			String[] includes = getGlobs(options, ServerManagementAPIConstants.DEPLOYMENT_OPTION_WATCH_INCLUDES);
+			String[] excludes = getGlobs(options, ServerManagementAPIConstants.DEPLOYMENT_OPTION_WATCH_EXCLUDES);
+			if( includes == null && excludes == null ) {
+				fileWatcher.addFileWatcherListener(new File(path).toPath(), this, recursive);
+			} else {
+				fileWatcher.addFileWatcherListener(new File(path).toPath(), this, recursive, includes, excludes);
+			}
 		}
 	}
+	
+	private String[] getGlobs(Map<String, Object> options, String key) {
+		Object val = options == null ? null : options.get(key);
+		if( val == null || val.toString().trim().isEmpty())
+			return null;
+		return val.toString().split(",");
+	}
 
 	/**
 	 * Adds the given deployable to this model.
@@ -119,6 +164,7 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 		}
 
 		addDeployableImpl(withOptions, ServerManagementAPIConstants.PUBLISH_STATE_ADD);
+		publishSnapshot();
 		updateServerPublishStateFromDeployments();
 		fireState();
 		launchOrUpdateAutopublishThread();
@@ -126,8 +172,8 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 	}
 
 	@Override
-	public synchronized boolean contains(DeployableReference reference) {
-		return getStates().containsKey(getKey(reference));
+	public boolean contains(DeployableReference reference) {
+		return getSnapshot().states.containsKey(getKey(reference));
 	}
 
 	@Override
@@ -143,6 +189,8 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 			deployableRemoved(reference);
 		}
 		ds.setPublishState(ServerManagementAPIConstants.PUBLISH_STATE_REMOVE);
+		getIndex().setPublishState(getKey(reference), ServerManagementAPIConstants.PUBLISH_STATE_REMOVE);
+		publishSnapshot();
 		String path = reference.getPath();
 		if (fileWatcher != null) {
 			fileWatcher.removeFileWatcherListener(new File(path).toPath(), this);
@@ -164,35 +212,79 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 	public synchronized void deployableRemoved(DeployableReference reference) {
 		String k = getKey(reference);
 		getStates().remove(k);
+		getIndex().remove(k);
 		deploymentOptions.remove(k);
+		publishSnapshot();
 	}
 
+	/**
+	 * Returns the current states without locking. 
+	 * The returned list and states are shared, and must not be modified.
+	 */
 	@Override
-	public synchronized List<DeployableState> getDeployableStates() {
-		List<DeployableState> ret = getStates().values().stream().
-				map(element -> cloneDeployableState(element.getReference(), element))
-				.collect(Collectors.toList());
-		return new ArrayList<>(ret);
+	public List<DeployableState> getDeployableStates() {
+		return getSnapshot().list;
 	}
 
 	@Override
-	public synchronized List<DeployableState> getDeployableStatesWithOptions() {
-		List<DeployableState> ret = getStates().values().stream().
+	public List<DeployableState> getDeployableStatesWithOptions() {
+		List<DeployableState> ret = getSnapshot().list.stream().
 				map(element -> cloneDeployableState(element.getReference(), element))
 				.collect(Collectors.toList());
 		for( DeployableState ds : ret ) {
-			fillOptionsFromCache(ds.getReference());
+			ds.setReference(fillOptionsFromCache(ds.getReference()));
 		}
-		return new ArrayList<>(ret);
+		return ret;
 	}
 
+	/**
+	 * Returns the current state without locking. 
+	 * The returned state is shared, and must not be modified.
+	 */
 	@Override
-	public synchronized DeployableState getDeployableState(DeployableReference reference) {
-		DeployableState ds = getStates().get(getKey(reference));
-		if (ds == null) {
-			return null;
+	public DeployableState getDeployableState(DeployableReference reference) {
+		return getSnapshot().states.get(getKey(reference));
+	}
+
+	private Snapshot getSnapshot() {
+		Snapshot s = snapshot;
+		if( s != null && s.source == getStates()) 
+			return s;
+		synchronized(this) {
+			publishSnapshot();
+			return snapshot;
+		}
+	}
+
+	/*
+	 * Must be called while holding the lock, after changing any state
+	 */
+	private void publishSnapshot() {
+		Map<String, DeployableState> source = getStates();
+		Map<String, DeployableState> copy = new LinkedHashMap<>();
+		for( Entry<String, DeployableState> e : source.entrySet()) {
+			DeployableState ds = e.getValue();
+			copy.put(e.getKey(), cloneDeployableState(ds.getReference(), ds));
+		}
+		this.snapshot = new Snapshot(source, copy);
+	}
+
+	private void putState(String key, DeployableState state) {
+		getStates().put(key, state);
+		getIndex().put(key, state);
+	}
+
+	/*
+	 * Must be called while holding the lock. 
+	 * Reindexes the states if they were replaced.
+	 */
+	private DeployableStateIndex getIndex() {
+		Map<String, DeployableState> current = getStates();
+		if( index == null || indexedStates != current ) {
+			index = new DeployableStateIndex(current);
+			indexedStates = current;
 		}
-		return cloneDeployableState(reference, ds);
+		return index;
 	}
 
 	/**
@@ -211,13 +303,14 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 
 	@Override
 	public synchronized void setDeployablePublishState(DeployableReference reference, int publishState) {
-		DeployableState ds = getDeployableState(reference);
+		String key = getKey(reference);
+		DeployableState ds = getStates().get(key);
 		if (ds == null) {
 			return;
 		}
 		DeployableState next = createDeployableState(reference, publishState, ds.getState());
-		String key = getKey(reference);
-		getStates().put(key, next);
+		putState(key, next);
+		publishSnapshot();
 		if( publishState == ServerManagementAPIConstants.PUBLISH_STATE_NONE) {
 			clearDelta(key);
 		}
@@ -240,7 +333,8 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 			return;
 		}
 		DeployableState next = createDeployableState(reference, ds.getPublishState(), runState);
-		getStates().put(getKey(reference), next);
+		putState(getKey(reference), next);
+		publishSnapshot();
 	}
 
 	/*
@@ -271,34 +365,68 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 	 */
 	@Override
 	public synchronized void fileChanged(FileWatcherEvent event) {
-		Path affected = event.getPath();
-		List<DeployableState> ds = new ArrayList<>(getStates().values());
+		boolean changed = fileChangedImpl(event);
+		if( changed )
+			publishSnapshot();
+		updateServerPublishStateFromDeployments();
+		if( changed ) 
+			fireState();
+		launchOrUpdateAutopublishThread();
+	}
+
+	/*
+	 * Handle a batch of events while holding the lock once, 
+	 * recomputing the server publish state and notifying 
+	 * the auto publisher only once for the whole batch.
+	 */
+	@Override
+	public synchronized void filesChanged(List<FileWatcherEvent> events) {
 		boolean changed = false;
-		for( DeployableState d : ds ) {
-			Path deploymentPath = new File(d.getReference().getPath()).toPath();
-			if( affected.startsWith(deploymentPath)) {
-				int currentPubState = d.getPublishState();
-				if( currentPubState == ServerManagementAPIConstants.PUBLISH_STATE_NONE
-						|| currentPubState == ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL) {
-					int newState = getRequiredPublishStateOnFileChange(event);
-					if( newState > currentPubState ) {
-						d.setPublishState(newState);
-						changed = true;
-					}
-				}
-				if( currentPubState == ServerManagementAPIConstants.PUBLISH_STATE_NONE 
-						|| currentPubState == ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL
-						|| currentPubState == ServerManagementAPIConstants.PUBLISH_STATE_FULL ) {
-					registerSingleDelta(event, d.getReference());
-				}
-			}
+		for( FileWatcherEvent event : events ) {
+			changed |= fileChangedImpl(event);
 		}
+		if( changed )
+			publishSnapshot();
 		updateServerPublishStateFromDeployments();
 		if( changed ) 
 			fireState();
 		launchOrUpdateAutopublishThread();
 	}
 
+	private boolean fileChangedImpl(FileWatcherEvent event) {
+		DeployableStateIndex idx = getIndex();
+		boolean changed = false;
+		// Every deployment whose root is the changed path or one of its parents
+		for( Path p = event.getPath(); p != null; p = p.getParent()) {
+			String key = idx.getKey(p);
+			DeployableState d = key == null ? null : getStates().get(key);
+			if( d != null ) {
+				changed |= fileChangedImpl(event, key, d);
+			}
+		}
+		return changed;
+	}
+
+	private boolean fileChangedImpl(FileWatcherEvent event, String key, DeployableState d) {
+		boolean changed = false;
+		int currentPubState = d.getPublishState();
+		if( currentPubState == ServerManagementAPIConstants.PUBLISH_STATE_NONE
+				|| currentPubState == ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL) {
+			int newState = getRequiredPublishStateOnFileChange(event);
+			if( newState > currentPubState ) {
+				d.setPublishState(newState);
+				getIndex().setPublishState(key, newState);
+				changed = true;
+			}
+		}
+		if( currentPubState == ServerManagementAPIConstants.PUBLISH_STATE_NONE 
+				|| currentPubState == ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL
+				|| currentPubState == ServerManagementAPIConstants.PUBLISH_STATE_FULL ) {
+			registerSingleDelta(event, d.getReference());
+		}
+		return changed;
+	}
+
 	protected int getRequiredPublishStateOnFileChange(FileWatcherEvent event) {
 		if( fullPublishRequired != null && 
 				fullPublishRequired.requiresFullPublish(event)) {
@@ -324,17 +452,17 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 	}
 	
 	public synchronized void updateServerPublishStateFromDeployments(boolean fireEvent) {
-		List<DeployableState> vals = new ArrayList<>(getStates().values());
+		DeployableStateIndex idx = getIndex();
 		int newState = ServerManagementAPIConstants.PUBLISH_STATE_NONE;
 
-		if( deployableExists(ServerManagementAPIConstants.PUBLISH_STATE_ADD, vals) || 
-				deployableExists(ServerManagementAPIConstants.PUBLISH_STATE_REMOVE, vals) ||
-				deployableExists(ServerManagementAPIConstants.PUBLISH_STATE_FULL, vals)) {
+		if( deployableExists(ServerManagementAPIConstants.PUBLISH_STATE_ADD, idx) || 
+				deployableExists(ServerManagementAPIConstants.PUBLISH_STATE_REMOVE, idx) ||
+				deployableExists(ServerManagementAPIConstants.PUBLISH_STATE_FULL, idx)) {
 			newState = ServerManagementAPIConstants.PUBLISH_STATE_FULL;
 		} else {
-			if( deployableExists(ServerManagementAPIConstants.PUBLISH_STATE_UNKNOWN, vals)) {
+			if( deployableExists(ServerManagementAPIConstants.PUBLISH_STATE_UNKNOWN, idx)) {
 				newState = ServerManagementAPIConstants.PUBLISH_STATE_UNKNOWN;
-			} else if( deployableExists(ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL, vals)) {
+			} else if( deployableExists(ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL, idx)) {
 				newState = ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL;
 			} else {
 				newState = ServerManagementAPIConstants.PUBLISH_STATE_NONE;
@@ -343,13 +471,12 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 		setServerPublishState(newState, fireEvent);
 	}
 	
-	private boolean deployableExists(int publishState, List<DeployableState> deployableStates) {
-		return deployableStates.stream()
-				.anyMatch(deployState -> deployState.getPublishState() == publishState);
+	private boolean deployableExists(int publishState, DeployableStateIndex idx) {
+		return idx.getCount(publishState) > 0;
 	}
 
 	@Override
-	public synchronized int getServerPublishState() {
+	public int getServerPublishState() {
 		return this.publishState;
 	}
 
@@ -367,8 +494,10 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 		if (reference == null) {
 			return null;
 		}
-		reference.setOptions(deploymentOptions.get(getKey(reference)));
-		return reference;
+		// The given reference may be shared by the snapshot
+		DeployableReference ret = cloneReference(reference);
+		ret.setOptions(deploymentOptions.get(getKey(reference)));
+		return ret;
 	}
 
 	@Override
@@ -379,8 +508,9 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 	private IDeployableResourceDelta cloneDelta(DeployableDelta delta) {
 		if( delta == null )
 			return null;
+		// Shares the changes until the next file change
 		DeployableReference ref = cloneReference(delta.getReference());
-		return new DeployableDelta(ref, delta.getResourceDeltaMap());
+		return new DeployableDelta(ref, delta);
 	}
 	private DeployableReference cloneReference(DeployableReference ref) {
 		return ref == null ? null : new DeployableReference(ref.getLabel(), ref.getPath());
@@ -403,25 +533,45 @@ public class ServerPublishStateModel implements IServerPublishModel, IFileWatche
 			launchOrUpdateAutopublishThreadImpl();
 		}
 	}
+	
+	/**
+	 * Schedule an automatic publish once no change has been seen 
+	 * for the inactivity timeout, postponing any publish already scheduled.
+	 */
 	protected void launchOrUpdateAutopublishThreadImpl() {
-		synchronized (this) {
-			if (this.autoPublish != null) {
-				if (this.autoPublish.isDone() || this.autoPublish.getPublishBegan()) {
-					// we need a new thread
-					this.autoPublish = createNewAutoPublishThread( getInactivityTimeout());
-					this.autoPublish.start();
-				} else {
-					this.autoPublish.updateInactivityCounter();
-				}
-			} else {
-				this.autoPublish = createNewAutoPublishThread( getInactivityTimeout());
-				this.autoPublish.start();
-			}
+		getAutoPublishDebouncer().schedule(this, getInactivityTimeout(), this::autoPublish);
+	}
+	
+	protected AutoPublishDebouncer getAutoPublishDebouncer() {
+		return AutoPublishDebouncer.getDefault();
+	}
+	
+	protected void autoPublish() {
+		if( shouldAutoPublish()) {
+			autoPublishImpl();
 		}
 	}
 	
-	protected AutoPublishThread createNewAutoPublishThread(int timeout) {
-		return new AutoPublishThread(delegate.getServer(), timeout);
+	/**
+	 * Only publish servers that are started and have something to publish
+	 */
+	protected boolean shouldAutoPublish() {
+		ServerState state = getServerState(); 
+		return state.getState() == ServerManagementAPIConstants.STATE_STARTED
+				&& state.getPublishState() != ServerManagementAPIConstants.PUBLISH_STATE_NONE;
+	}
+	
+	protected ServerState getServerState() {
+		return delegate.getServerState();
+	}
+	
+	protected void autoPublishImpl() {
+		IServer server = delegate.getServer();
+		try {
+			server.getServerModel().publish(server, ServerManagementAPIConstants.PUBLISH_INCREMENTAL);
+		} catch (CoreException e) {
+			LOG.error(e.getMessage(), e);
+		}
 	}
 	
 }
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.eclipse.debug.internal.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jboss.tools.rsp.launching.utils.ByteRingBuffer;
+import org.junit.Test;
+
+public class OutputStreamMonitorTest {
+
+	private static final String EURO = "\u20ac";
+	private static final String REPLACEMENT = "\ufffd";
+
+	@Test
+	public void testCharacterSplitBetweenReads() {
+		// the 3 bytes of the euro sign arrive in 3 reads
+		byte[] euro = EURO.getBytes(StandardCharsets.UTF_8);
+		List<String> appended = monitor(
+				concat("a".getBytes(StandardCharsets.UTF_8), new byte[] { euro[0] }),
+				new byte[] { euro[1] },
+				concat(new byte[] { euro[2] }, "b".getBytes(StandardCharsets.UTF_8)));
+		assertEquals("a" + EURO + "b", String.join("", appended));
+		for( String text : appended ) {
+			assertFalse(text.contains(REPLACEMENT));
+		}
+	}
+
+	@Test
+	public void testIncompleteCharacterAtEndIsReplaced() {
+		byte[] euro = EURO.getBytes(StandardCharsets.UTF_8);
+		List<String> appended = monitor(
+				"a".getBytes(StandardCharsets.UTF_8),
+				new byte[] { euro[0], euro[1] });
+		assertEquals("a" + REPLACEMENT, String.join("", appended));
+	}
+
+	@Test
+	public void testContentsKeepCharacterSplitBetweenReads() {
+		byte[] euro = EURO.getBytes(StandardCharsets.UTF_8);
+		TestableOutputStreamMonitor monitor = new TestableOutputStreamMonitor(
+				new ChunkedInputStream(new byte[] { euro[0] }, new byte[] { euro[1], euro[2] }));
+		monitor.start();
+		monitor.stop();
+		assertEquals(EURO, monitor.getContents());
+		assertEquals(3, monitor.getTotalBytes());
+	}
+
+	@Test
+	public void testSpillFileIsKeptUntilDisposed() throws IOException {
+		File dir = Files.createTempDirectory(getClass().getSimpleName()).toFile();
+		File spill = new File(dir, "out.log");
+		try {
+			TestableOutputStreamMonitor monitor = new TestableOutputStreamMonitor(
+					new ChunkedInputStream("abcd".getBytes(StandardCharsets.UTF_8), "efgh".getBytes(StandardCharsets.UTF_8)),
+					new ByteRingBuffer(4, spill, 1024));
+			monitor.start();
+			monitor.stop();
+			// the stream ended, its beginning is still available
+			assertEquals("efgh", monitor.getContents());
+			assertEquals(Collections.singletonList(spill), monitor.getSpillFiles());
+			assertEquals("abcd", new String(Files.readAllBytes(spill.toPath()), StandardCharsets.UTF_8));
+			monitor.dispose();
+			assertTrue(monitor.getSpillFiles().isEmpty());
+			assertFalse(spill.exists());
+		} finally {
+			spill.delete();
+			dir.delete();
+		}
+	}
+
+	private static List<String> monitor(byte[]... chunks) {
+		TestableOutputStreamMonitor monitor = new TestableOutputStreamMonitor(new ChunkedInputStream(chunks));
+		List<String> appended = Collections.synchronizedList(new ArrayList<>());
+		monitor.addListener((text, m) -> appended.add(text));
+		monitor.start();
+		monitor.stop();
+		return appended;
+	}
+
+	private static byte[] concat(byte[] a, byte[] b) {
+		byte[] ret = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, ret, a.length, b.length);
+		return ret;
+	}
+
+	/*
+	 * Exposes the protected life cycle, which is driven by the streams proxy
+	 */
+	private static class TestableOutputStreamMonitor extends OutputStreamMonitor {
+
+		TestableOutputStreamMonitor(InputStream stream) {
+			this(stream, new ByteRingBuffer(1024));
+		}
+
+		TestableOutputStreamMonitor(InputStream stream, ByteRingBuffer contents) {
+			super(stream, StandardCharsets.UTF_8.name(), contents);
+		}
+
+		void start() {
+			startMonitoring();
+		}
+
+		void stop() {
+			// waits until the stream was read to its end
+			close();
+		}
+	}
+
+	/*
+	 * Returns one chunk per read, as a pipe would
+	 */
+	private static class ChunkedInputStream extends InputStream {
+		private final Iterator<byte[]> chunks;
+
+		ChunkedInputStream(byte[]... chunks) {
+			this.chunks = Arrays.asList(chunks).iterator();
+		}
+
+		@Override
+		public int read() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if( !chunks.hasNext())
+				return -1;
+			byte[] chunk = chunks.next();
+			System.arraycopy(chunk, 0, b, off, chunk.length);
+			return chunk.length;
+		}
+	}
+}
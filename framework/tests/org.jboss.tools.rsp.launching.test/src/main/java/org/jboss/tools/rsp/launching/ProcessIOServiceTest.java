@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.launching;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.tools.rsp.launching.ProcessIOService.IStreamReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProcessIOServiceTest {
+
+	private ProcessIOService service;
+
+	@Before
+	public void before() {
+		// polls the streams, whatever the java version
+		this.service = new ProcessIOService(1, false);
+	}
+
+	@After
+	public void after() {
+		service.dispose();
+	}
+
+	@Test
+	public void readsOutputAsItComes() throws Exception {
+		FakeProcess process = new FakeProcess();
+		PipedOutputStream out = new PipedOutputStream();
+		CollectingReader reader = new CollectingReader(new PipedInputStream(out));
+		CompletableFuture<Void> done = service.read(process, reader);
+		out.write("Started".getBytes(StandardCharsets.US_ASCII));
+		Thread.sleep(100);
+		assertFalse(done.isDone());
+		assertEquals("Started", reader.getText());
+		out.write(" in 10ms".getBytes(StandardCharsets.US_ASCII));
+		out.close();
+		process.exit();
+		done.get(5, TimeUnit.SECONDS);
+		assertEquals("Started in 10ms", reader.getText());
+		assertEquals(1, reader.finished);
+	}
+
+	@Test
+	public void stopsReadingOnceProcessExited() throws Exception {
+		FakeProcess process = new FakeProcess();
+		PipedOutputStream out = new PipedOutputStream();
+		CollectingReader reader = new CollectingReader(new PipedInputStream(out));
+		CompletableFuture<Void> done = service.read(process, reader);
+		// a child process still holds the stream
+		out.write("Stopped".getBytes(StandardCharsets.US_ASCII));
+		process.exit();
+		done.get(5, TimeUnit.SECONDS);
+		assertEquals("Stopped", reader.getText());
+		assertEquals(1, reader.finished);
+	}
+
+	@Test
+	public void blockingReaderStopsOnceProcessExitedAndDrained() throws Exception {
+		ProcessIOService blocking = new ProcessIOService(1, Executors.newCachedThreadPool());
+		try {
+			FakeProcess process = new FakeProcess();
+			PipedOutputStream out = new PipedOutputStream();
+			CollectingReader reader = new CollectingReader(new PipedInputStream(out));
+			// a child process still holds the stream
+			out.write("Stopped".getBytes(StandardCharsets.US_ASCII));
+			process.exit();
+			blocking.read(process, reader).get(5, TimeUnit.SECONDS);
+			assertEquals("Stopped", reader.getText());
+			assertEquals(1, reader.finished);
+		} finally {
+			blocking.dispose();
+		}
+	}
+
+	@Test
+	public void blockingReaderIsGivenUpOnceProcessExited() throws Exception {
+		ProcessIOService blocking = new ProcessIOService(1, Executors.newCachedThreadPool());
+		try {
+			FakeProcess process = new FakeProcess();
+			PipedOutputStream out = new PipedOutputStream();
+			CollectingReader reader = new CollectingReader(new PipedInputStream(out));
+			CompletableFuture<Void> done = blocking.read(process, reader);
+			out.write("Stopped".getBytes(StandardCharsets.US_ASCII));
+			// wakes up the blocked reader
+			out.flush();
+			Thread.sleep(100);
+			assertFalse(done.isDone());
+			// the reader is blocked on a stream that a child process still holds
+			process.exit();
+			done.get(5, TimeUnit.SECONDS);
+			assertEquals("Stopped", reader.getText());
+			assertEquals(0, reader.finished);
+		} finally {
+			blocking.dispose();
+		}
+	}
+
+	@Test
+	public void readsStreamsOfUnknownProcesses() throws Exception {
+		CollectingReader reader = new CollectingReader(
+				new ByteArrayInputStream("Hello".getBytes(StandardCharsets.US_ASCII)));
+		service.read(null, reader).get(5, TimeUnit.SECONDS);
+		assertEquals("Hello", reader.getText());
+		assertEquals(1, reader.finished);
+	}
+
+	@Test
+	public void sharesThreadsBetweenStreams() throws Exception {
+		int count = 10;
+		FakeProcess process = new FakeProcess();
+		PipedOutputStream[] outs = new PipedOutputStream[count];
+		CollectingReader[] readers = new CollectingReader[count];
+		CompletableFuture<?>[] done = new CompletableFuture<?>[count];
+		for( int i = 0; i < count; i++ ) {
+			outs[i] = new PipedOutputStream();
+			readers[i] = new CollectingReader(new PipedInputStream(outs[i]));
+			done[i] = service.read(process, readers[i]);
+		}
+		for( int i = 0; i < count; i++ ) {
+			outs[i].write(("stream " + i).getBytes(StandardCharsets.US_ASCII));
+		}
+		process.exit();
+		CompletableFuture.allOf(done).get(5, TimeUnit.SECONDS);
+		for( int i = 0; i < count; i++ ) {
+			assertEquals("stream " + i, readers[i].getText());
+		}
+	}
+
+	@Test
+	public void notifiesProcessExit() throws Exception {
+		FakeProcess process = new FakeProcess();
+		CompletableFuture<Process> exit = service.onExit(process);
+		Thread.sleep(100);
+		assertFalse(exit.isDone());
+		process.exit();
+		assertSame(process, exit.get(5, TimeUnit.SECONDS));
+	}
+
+	private static class CollectingReader implements IStreamReader {
+		private final InputStream in;
+		private final ByteArrayOutputStream read = new ByteArrayOutputStream();
+		private volatile int finished;
+
+		CollectingReader(InputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read(boolean block) {
+			try {
+				if( !block && in.available() == 0 ) {
+					return 0;
+				}
+				byte[] bytes = new byte[4];
+				int count = in.read(bytes);
+				if( count > 0 ) {
+					synchronized(read) {
+						read.write(bytes, 0, count);
+					}
+				}
+				return count;
+			} catch(IOException ioe) {
+				// the pipe is closed
+				return -1;
+			}
+		}
+
+		@Override
+		public void finish() {
+			finished++;
+		}
+
+		String getText() {
+			synchronized(read) {
+				return new String(read.toByteArray(), StandardCharsets.US_ASCII);
+			}
+		}
+	}
+
+	private static class FakeProcess extends Process {
+		private final CountDownLatch exited = new CountDownLatch(1);
+
+		void exit() {
+			exited.countDown();
+		}
+
+		@Override
+		public OutputStream getOutputStream() {
+			return new ByteArrayOutputStream();
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		@Override
+		public InputStream getErrorStream() {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		@Override
+		public int waitFor() throws InterruptedException {
+			exited.await();
+			return 0;
+		}
+
+		@Override
+		public int exitValue() {
+			if( exited.getCount() > 0 ) {
+				throw new IllegalThreadStateException();
+			}
+			return 0;
+		}
+
+		@Override
+		public void destroy() {
+			exit();
+		}
+	}
+}
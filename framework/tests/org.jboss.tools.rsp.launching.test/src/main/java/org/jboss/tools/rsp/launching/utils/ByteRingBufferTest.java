@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.launching.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ByteRingBufferTest {
+
+	private final List<File> tempDirs = new ArrayList<>();
+
+	@After
+	public void after() {
+		for( File dir : tempDirs ) {
+			delete(dir);
+		}
+	}
+
+	@Test
+	public void testKeepsTail() {
+		ByteRingBuffer buffer = new ByteRingBuffer(10);
+		write(buffer, "0123456");
+		write(buffer, "789ab");
+		assertEquals("23456789ab", read(buffer));
+		write(buffer, "cd");
+		assertEquals("456789abcd", read(buffer));
+		assertEquals(14, buffer.getTotalBytes());
+		assertEquals(4, buffer.getDroppedBytes());
+	}
+
+	@Test
+	public void testWriteLargerThanCapacity() {
+		ByteRingBuffer buffer = new ByteRingBuffer(4);
+		write(buffer, "ab");
+		write(buffer, "0123456789");
+		assertEquals("6789", read(buffer));
+		assertEquals(12, buffer.getTotalBytes());
+		assertEquals(8, buffer.getDroppedBytes());
+	}
+
+	@Test
+	public void testGrowsUpToCapacity() {
+		int capacity = 100000;
+		ByteRingBuffer buffer = new ByteRingBuffer(capacity);
+		byte[] chunk = new byte[3000];
+		for( int i = 0; i < 100; i++ ) {
+			for( int j = 0; j < chunk.length; j++ ) {
+				chunk[j] = (byte)(i + j);
+			}
+			buffer.write(chunk, 0, chunk.length);
+		}
+		assertEquals(capacity, buffer.size());
+		assertEquals(300000 - capacity, buffer.getDroppedBytes());
+		byte[] kept = buffer.toByteArray();
+		// the last chunk ends the contents
+		assertArrayEquals(chunk, Arrays.copyOfRange(kept, capacity - chunk.length, capacity));
+	}
+
+	@Test
+	public void testClearKeepsCounts() {
+		ByteRingBuffer buffer = new ByteRingBuffer(4);
+		write(buffer, "abcdef");
+		buffer.clear();
+		assertEquals("", read(buffer));
+		write(buffer, "gh");
+		assertEquals("gh", read(buffer));
+		assertEquals(8, buffer.getTotalBytes());
+		assertEquals(2, buffer.getDroppedBytes());
+	}
+
+	@Test
+	public void testSpillsDroppedBytesToRollingFile() throws IOException {
+		File dir = createTempDir();
+		File spill = new File(dir, "out.log");
+		File backup = new File(dir, "out.log.1");
+		ByteRingBuffer buffer = new ByteRingBuffer(4, spill, 6);
+		write(buffer, "abcd");
+		assertFalse(spill.exists());
+		write(buffer, "efgh");
+		buffer.close();
+		assertEquals("abcd", new String(Files.readAllBytes(spill.toPath()), StandardCharsets.US_ASCII));
+		write(buffer, "ijkl");
+		buffer.close();
+		// "efgh" does not fit in the spill file, which rolled over
+		assertTrue(backup.exists());
+		assertEquals("abcd", new String(Files.readAllBytes(backup.toPath()), StandardCharsets.US_ASCII));
+		assertEquals("efgh", new String(Files.readAllBytes(spill.toPath()), StandardCharsets.US_ASCII));
+		assertEquals("ijkl", read(buffer));
+	}
+
+	@Test
+	public void testDisposeDeletesSpillFiles() throws IOException {
+		File dir = createTempDir();
+		File spill = new File(dir, "out.log");
+		File backup = new File(dir, "out.log.1");
+		ByteRingBuffer buffer = new ByteRingBuffer(4, spill, 6);
+		write(buffer, "abcdefgh");
+		write(buffer, "ijkl");
+		assertTrue(spill.exists());
+		assertTrue(backup.exists());
+		assertEquals(Arrays.asList(backup, spill), buffer.getSpillFiles());
+		buffer.close();
+		// closing keeps the files
+		assertEquals(Arrays.asList(backup, spill), buffer.getSpillFiles());
+		buffer.dispose();
+		assertTrue(buffer.getSpillFiles().isEmpty());
+		assertFalse(spill.exists());
+		assertFalse(backup.exists());
+		write(buffer, "mnop");
+		assertFalse(spill.exists());
+		assertEquals("mnop", read(buffer));
+	}
+
+	@Test
+	public void testConfigureDeletesSpillFilesOfPreviousRun() throws IOException {
+		File dir = createTempDir();
+		File stale = new File(dir, "output-1-1.log");
+		File staleBackup = new File(dir, "output-1-1.log.1");
+		File other = new File(dir, "other.txt");
+		assertTrue(stale.createNewFile());
+		assertTrue(staleBackup.createNewFile());
+		assertTrue(other.createNewFile());
+		try {
+			ProcessOutputBuffers.configure(4, dir, 6);
+			assertFalse(stale.exists());
+			assertFalse(staleBackup.exists());
+			assertTrue(other.exists());
+		} finally {
+			ProcessOutputBuffers.configure(ProcessOutputBuffers.DEFAULT_CAPACITY, null, 0);
+		}
+	}
+
+	private File createTempDir() throws IOException {
+		File dir = Files.createTempDirectory(getClass().getSimpleName()).toFile();
+		tempDirs.add(dir);
+		return dir;
+	}
+
+	private static void delete(File f) {
+		File[] children = f.listFiles();
+		if( children != null ) {
+			for( File child : children ) {
+				delete(child);
+			}
+		}
+		f.delete();
+	}
+
+	private static void write(ByteRingBuffer buffer, String s) {
+		byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+		buffer.write(bytes, 0, bytes.length);
+	}
+
+	private static String read(ByteRingBuffer buffer) {
+		return new String(buffer.toByteArray(), StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.generic.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+
+import org.jboss.tools.rsp.api.DefaultServerAttributes;
+import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
+import org.jboss.tools.rsp.api.dao.Attribute;
+import org.jboss.tools.rsp.api.dao.Attributes;
+import org.jboss.tools.rsp.launching.memento.JSONMemento;
+import org.jboss.tools.rsp.server.generic.servertype.GenericServerType;
+import org.junit.Test;
+
+public class GenericServerTypeTest {
+
+	@Test
+	public void testPublishAttributesAreDeclared() {
+		GenericServerType type = new GenericServerType("generic", "Generic", "A generic server",
+				null, null, null, null, null);
+		Attributes optional = type.getOptionalAttributes();
+		Attribute copyThreads = optional.getAttributes().get(DefaultServerAttributes.PUBLISH_COPY_THREADS);
+		assertNotNull(copyThreads);
+		assertEquals(ServerManagementAPIConstants.ATTR_TYPE_INT, copyThreads.getType());
+		assertEquals(DefaultServerAttributes.PUBLISH_COPY_THREADS_DEFAULT, copyThreads.getDefaultVal());
+		Attribute deployableThreads = optional.getAttributes().get(DefaultServerAttributes.PUBLISH_DEPLOYABLE_THREADS);
+		assertNotNull(deployableThreads);
+		assertEquals(ServerManagementAPIConstants.ATTR_TYPE_INT, deployableThreads.getType());
+		assertEquals(DefaultServerAttributes.PUBLISH_DEPLOYABLE_THREADS_DEFAULT, deployableThreads.getDefaultVal());
+	}
+
+	@Test
+	public void testPublishAttributesDeclaredByExtensionAreKept() {
+		String json = "{\"" + DefaultServerAttributes.PUBLISH_COPY_THREADS + "\": {"
+				+ "\"type\": \"int\", \"description\": \"Copy threads\", \"defaultValue\": \"2\"}}";
+		JSONMemento optionalMemento = JSONMemento.createReadRoot(new ByteArrayInputStream(json.getBytes()));
+		GenericServerType type = new GenericServerType("generic", "Generic", "A generic server",
+				null, null, optionalMemento, null, null);
+		Attribute copyThreads = type.getOptionalAttributes().getAttributes()
+				.get(DefaultServerAttributes.PUBLISH_COPY_THREADS);
+		assertEquals("Copy threads", copyThreads.getDescription());
+		assertEquals(2, copyThreads.getDefaultVal());
+	}
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.spi.model.polling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.regex.Pattern;
+
+import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
+import org.jboss.tools.rsp.api.dao.ServerHandle;
+import org.jboss.tools.rsp.server.spi.model.IServerModel;
+import org.jboss.tools.rsp.server.spi.model.IServerModelListener;
+import org.jboss.tools.rsp.server.spi.model.polling.IServerStatePoller.SERVER_STATE;
+import org.jboss.tools.rsp.server.spi.servertype.IServer;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class LogPatternPollerTest {
+
+	private static final Pattern STARTED = Pattern.compile("WFLYSRV0025:.*started in");
+	private static final Pattern FAILED = Pattern.compile("WFLYSRV0055:");
+	private static final Pattern STOPPED = Pattern.compile("WFLYSRV0050:");
+
+	private IServer server;
+	private IServerModel model;
+	private LogPatternPoller poller;
+
+	@Before
+	public void before() {
+		this.model = mock(IServerModel.class);
+		this.server = mock(IServer.class);
+		when(server.getId()).thenReturn("wf");
+		when(server.getServerModel()).thenReturn(model);
+		this.poller = new LogPatternPoller("wf", STARTED, FAILED, STOPPED);
+	}
+
+	@Test
+	public void matchesLineSplitAcrossChunks() throws Exception {
+		IServerModelListener listener = beginPolling(SERVER_STATE.UP);
+		append(listener, "wf", "INFO  [org.jboss.as] (Controller Boot Thread) WFLYSRV00");
+		assertThat(poller.isComplete()).isFalse();
+		append(listener, "wf", "25: WildFly Full 24.0.0.Final (WildFly Core 16.0.0.Final) sta");
+		assertThat(poller.isComplete()).isFalse();
+		append(listener, "wf", "rted in 3021ms - Started 298 of 537 services\n");
+		assertThat(poller.isComplete()).isTrue();
+		assertThat(poller.getState()).isEqualTo(SERVER_STATE.UP);
+		verify(model).removeServerModelListener(listener);
+	}
+
+	@Test
+	public void doesNotMatchAcrossLines() throws Exception {
+		IServerModelListener listener = beginPolling(SERVER_STATE.UP);
+		append(listener, "wf", "WFLYSRV0025: booting\nstarted in 3021ms\n");
+		assertThat(poller.isComplete()).isFalse();
+	}
+
+	@Test
+	public void concludesDownWhenStartupFails() throws Exception {
+		IServerModelListener listener = beginPolling(SERVER_STATE.UP);
+		append(listener, "wf", "ERROR [org.jboss.as] WFLYSRV0055: Caught exception during boot\n");
+		assertThat(poller.isComplete()).isTrue();
+		assertThat(poller.getState()).isEqualTo(SERVER_STATE.DOWN);
+	}
+
+	@Test
+	public void waitsForStoppedLineWhenExpectingDown() throws Exception {
+		IServerModelListener listener = beginPolling(SERVER_STATE.DOWN);
+		append(listener, "wf", "WFLYSRV0025: WildFly started in 3021ms\r\n");
+		assertThat(poller.isComplete()).isFalse();
+		append(listener, "wf", "WFLYSRV0050: WildFly stopped in 12ms\r\n");
+		assertThat(poller.isComplete()).isTrue();
+		assertThat(poller.getState()).isEqualTo(SERVER_STATE.DOWN);
+	}
+
+	@Test
+	public void ignoresOutputOfOtherServers() throws Exception {
+		IServerModelListener listener = beginPolling(SERVER_STATE.UP);
+		append(listener, "other", "WFLYSRV0025: WildFly started in 3021ms\n");
+		assertThat(poller.isComplete()).isFalse();
+	}
+
+	@Test
+	public void usesFallbackIfNoLineMatches() throws Exception {
+		this.poller = new LogPatternPoller("wf", STARTED, FAILED, STOPPED,
+				new DelayableFixedResponsePoller(SERVER_STATE.UP), 50);
+		beginPolling(SERVER_STATE.UP);
+		long end = System.currentTimeMillis() + 5000;
+		while( !poller.isComplete() && System.currentTimeMillis() < end ) {
+			Thread.sleep(20);
+		}
+		assertThat(poller.isComplete()).isTrue();
+		assertThat(poller.getState()).isEqualTo(SERVER_STATE.UP);
+	}
+
+	private IServerModelListener beginPolling(SERVER_STATE expected) throws PollingException {
+		poller.beginPolling(server, expected);
+		ArgumentCaptor<IServerModelListener> captor = ArgumentCaptor.forClass(IServerModelListener.class);
+		verify(model).addServerModelListener(captor.capture());
+		return captor.getValue();
+	}
+
+	private static void append(IServerModelListener listener, String serverId, String text) {
+		listener.serverProcessOutputAppended(new ServerHandle(serverId, null), "p0",
+				ServerManagementAPIConstants.STREAM_TYPE_SYSOUT, text);
+	}
+}
@@ -20,8 +20,13 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.jboss.tools.rsp.api.DefaultServerAttributes;
@@ -301,6 +306,136 @@ public class PollThreadTest {
 		pollThread.cancel();
 	}
 
+	@Test
+	public void pollsManyServersOnOneThread() throws Exception {
+		// given
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		PollScheduler scheduler = new PollScheduler(executor);
+		List<PollThread> polls = new ArrayList<>();
+		try {
+			// when
+			for( int i = 0; i < 10; i++ ) {
+				PollThread poll = new PollThread(SERVER_STATE.UP, mockPoller(SERVER_STATE.UP), 
+						resultListener, server, TIMEOUT, scheduler);
+				poll.start();
+				polls.add(poll);
+			}
+			for( PollThread poll : polls ) {
+				poll.join(RESULT_TIMEOUT);
+				assertThat(poll.isAlive()).isFalse();
+			}
+
+			// then
+			for( int i = 0; i < 10; i++ ) {
+				AssertedState state = resultListener.getNextNotifiedState();
+				assertThat(state.isAsserted()).isTrue();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void blockedPingDoesNotDelayTimeoutOfOtherServer() throws Exception {
+		// given
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		PollScheduler scheduler = new PollScheduler(executor);
+		CountDownLatch pinging = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AbstractPoller blocked = new AbstractPoller() {
+			@Override
+			protected SERVER_STATE onePing(IServer server) {
+				pinging.countDown();
+				try {
+					release.await();
+				} catch(InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+				return SERVER_STATE.UP;
+			}
+
+			@Override
+			protected PollScheduler getScheduler() {
+				return scheduler;
+			}
+
+			@Override
+			protected String getThreadName() {
+				return "Blocked Poller";
+			}
+		};
+		PollThread blockedPoll = new PollThread(SERVER_STATE.UP, blocked, 
+				new VerifiablePollResultListener(), server, TIMEOUT, scheduler);
+		IServerStatePoller other = mock(IServerStatePoller.class);
+		doReturn(false).when(other).isComplete();
+		doReturn(TIMEOUT_BEHAVIOR.FAIL).when(other).getTimeoutBehavior();
+		PollThread otherPoll = new PollThread(SERVER_STATE.UP, other, resultListener, server, 200, scheduler);
+		try {
+			blockedPoll.start();
+			assertThat(pinging.await(RESULT_TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+
+			// when
+			otherPoll.start();
+			otherPoll.join(RESULT_TIMEOUT);
+
+			// then
+			assertThat(otherPoll.isAlive()).isFalse();
+			AssertedState state = resultListener.getNextNotifiedState();
+			assertThat(state.isAsserted()).isFalse();
+			assertThat(state.getServerState()).isEqualTo(SERVER_STATE.DOWN);
+			assertThat(blockedPoll.isAlive()).isTrue();
+		} finally {
+			release.countDown();
+			blockedPoll.cancel();
+			otherPoll.cancel();
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void cancelWaitsForRunningCheck() throws Exception {
+		// given
+		CountDownLatch checking = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		IServerStatePoller poller = mockPoller(SERVER_STATE.UP);
+		doAnswer(new Answer<Boolean>() {
+			@Override
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				checking.countDown();
+				release.await();
+				return false;
+			}
+		}).when(poller).isComplete();
+		PollThread pollThread = PollThreadUtils.pollServer(server, SERVER_STATE.UP, poller, resultListener, TIMEOUT);
+		assertThat(checking.await(RESULT_TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+
+		// when
+		pollThread.cancel();
+		pollThread.join(100);
+
+		// then
+		assertThat(pollThread.isAlive()).isTrue();
+		release.countDown();
+		pollThread.join(RESULT_TIMEOUT);
+		assertThat(pollThread.isAlive()).isFalse();
+	}
+
+	@Test
+	public void doesNotBeginPollingIfCancelled() throws Exception {
+		// given
+		IServerStatePoller poller = mockPoller(SERVER_STATE.UP);
+		PollThread pollThread = new PollThread(SERVER_STATE.UP, poller, resultListener, server, TIMEOUT);
+
+		// when
+		pollThread.cancel();
+		pollThread.start();
+		pollThread.join(RESULT_TIMEOUT);
+
+		// then
+		assertThat(pollThread.isAlive()).isFalse();
+		verify(poller, never()).beginPolling(server, SERVER_STATE.UP);
+	}
+
 	private IServerDelegate mockServerDelegate() {
 		return mock(IServerDelegate.class);
 	}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.spi.model.polling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.tools.rsp.server.spi.model.polling.IServerStatePoller.SERVER_STATE;
+import org.jboss.tools.rsp.server.spi.servertype.IServer;
+import org.jboss.tools.rsp.server.spi.servertype.IServerDelegate;
+import org.junit.Test;
+
+public class PollingPolicyTest {
+
+	@Test
+	public void backsOffUpToCap() {
+		PollingPolicy.Schedule schedule = new PollingPolicy(100, 1000, 2, 0).start(0);
+		assertThat(schedule.nextDelay()).isEqualTo(100);
+		assertThat(schedule.nextDelay()).isEqualTo(200);
+		assertThat(schedule.nextDelay()).isEqualTo(400);
+		assertThat(schedule.nextDelay()).isEqualTo(800);
+		assertThat(schedule.nextDelay()).isEqualTo(1000);
+		assertThat(schedule.nextDelay()).isEqualTo(1000);
+	}
+
+	@Test
+	public void jitterStaysWithinBounds() {
+		PollingPolicy.Schedule schedule = new PollingPolicy(1000, 1000, 1, 0.2).start(0);
+		for( int i = 0; i < 100; i++ ) {
+			assertThat(schedule.nextDelay()).isBetween(800L, 1200L);
+		}
+	}
+
+	@Test
+	public void waitsAtCapUntilExpectedDurationNearlyElapsed() {
+		PollingPolicy policy = new PollingPolicy(100, 2000, 2, 0);
+		assertThat(policy.start(60000).nextDelay()).isEqualTo(2000);
+		// 3/4 of the expected second
+		assertThat(policy.start(1000).nextDelay()).isBetween(100L, 750L);
+		assertThat(policy.start(100).nextDelay()).isEqualTo(100);
+	}
+
+	@Test
+	public void learnsExpectedDuration() {
+		IServer server = mockServer();
+		assertThat(PollingPolicy.getExpectedDuration(server, SERVER_STATE.UP)).isEqualTo(0);
+		PollingPolicy.recordDuration(server, SERVER_STATE.UP, 10000);
+		assertThat(PollingPolicy.getExpectedDuration(server, SERVER_STATE.UP)).isEqualTo(10000);
+		PollingPolicy.recordDuration(server, SERVER_STATE.UP, 20000);
+		assertThat(PollingPolicy.getExpectedDuration(server, SERVER_STATE.UP)).isEqualTo(15000);
+		assertThat(PollingPolicy.getExpectedDuration(server, SERVER_STATE.DOWN)).isEqualTo(0);
+		assertThat(PollingPolicy.getExpectedDuration(null, SERVER_STATE.UP)).isEqualTo(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsCapBelowInitialDelay() {
+		new PollingPolicy(1000, 100, 1.5, 0);
+	}
+
+	private IServer mockServer() {
+		Map<String, Object> data = new HashMap<>();
+		IServerDelegate delegate = mock(IServerDelegate.class);
+		when(delegate.getSharedData(anyString())).thenAnswer(i -> data.get((String)i.getArguments()[0]));
+		doAnswer(i -> data.put((String)i.getArguments()[0], i.getArguments()[1]))
+			.when(delegate).putSharedData(anyString(), any());
+		IServer server = mock(IServer.class);
+		when(server.getDelegate()).thenReturn(delegate);
+		return server;
+	}
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.spi.model.polling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.tools.rsp.server.spi.model.polling.IServerStatePoller.SERVER_STATE;
+import org.jboss.tools.rsp.server.spi.servertype.IServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WebPortSelectorTest {
+
+	private WebPortSelector selector;
+	private ServerSocket serverSocket;
+	private AtomicInteger connections;
+
+	@Before
+	public void before() throws IOException {
+		this.selector = new WebPortSelector();
+		this.serverSocket = new ServerSocket(0);
+		this.connections = new AtomicInteger();
+	}
+
+	@After
+	public void after() throws IOException {
+		selector.dispose();
+		serverSocket.close();
+	}
+
+	@Test
+	public void reusesConnectionBetweenPings() throws Exception {
+		serve("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n");
+		WebPortSelector.Connection c = connection();
+		assertThat(get(selector.ping(c, "/", 1000, 1000))).isEqualTo(404);
+		assertThat(get(selector.ping(c, "/", 1000, 1000))).isEqualTo(404);
+		assertThat(connections.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void reconnectsIfServerClosesConnection() throws Exception {
+		serve("HTTP/1.1 200 OK\r\nConnection: close\r\n\r\n");
+		WebPortSelector.Connection c = connection();
+		assertThat(get(selector.ping(c, "/", 1000, 1000))).isEqualTo(200);
+		assertThat(get(selector.ping(c, "/", 1000, 1000))).isEqualTo(200);
+		assertThat(connections.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void timesOutIfServerDoesNotAnswer() throws Exception {
+		serve(null);
+		long start = System.currentTimeMillis();
+		try {
+			get(selector.ping(connection(), "/", 1000, 200));
+			fail("ping should time out");
+		} catch(ExecutionException ee) {
+			assertThat(ee.getCause()).isInstanceOf(SocketTimeoutException.class);
+		}
+		assertThat(System.currentTimeMillis() - start).isLessThan(3000);
+	}
+
+	@Test
+	public void failsIfPortIsClosed() throws Exception {
+		WebPortSelector.Connection c = connection();
+		serverSocket.close();
+		try {
+			get(selector.ping(c, "/", 1000, 1000));
+			fail("ping should fail");
+		} catch(ExecutionException ee) {
+			assertThat(ee.getCause()).isInstanceOf(IOException.class);
+		}
+	}
+
+	@Test
+	public void pollerIsUpOnceServerAnswers() throws Exception {
+		serve("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n");
+		String url = "http://localhost:" + serverSocket.getLocalPort() + "/index.html";
+		NioWebPortPoller poller = new NioWebPortPoller("test") {
+			@Override
+			protected String getURL(IServer server) {
+				return url;
+			}
+
+			@Override
+			protected WebPortSelector getSelector() {
+				return selector;
+			}
+		};
+		poller.beginPolling(null, SERVER_STATE.UP);
+		long end = System.currentTimeMillis() + 5000;
+		while( !poller.isComplete() && System.currentTimeMillis() < end ) {
+			Thread.sleep(20);
+		}
+		assertThat(poller.getState()).isEqualTo(SERVER_STATE.UP);
+		poller.cleanup();
+	}
+
+	@Test
+	public void failsPingsOnceDisposed() throws Exception {
+		selector.dispose();
+		assertThat(selector.isDisposed()).isTrue();
+		try {
+			get(selector.ping(connection(), "/", 1000, 1000));
+			fail("ping should fail");
+		} catch(ExecutionException ee) {
+			assertThat(ee.getCause()).isInstanceOf(IOException.class);
+		}
+	}
+
+	@Test
+	public void defaultIsReplacedOnceDisposed() {
+		WebPortSelector disposed = WebPortSelector.getDefault();
+		disposed.dispose();
+		WebPortSelector replacement = WebPortSelector.getDefault();
+		assertThat(replacement).isNotSameAs(disposed);
+		assertThat(replacement.isDisposed()).isFalse();
+	}
+
+	private WebPortSelector.Connection connection() {
+		return new WebPortSelector.Connection("localhost", serverSocket.getLocalPort());
+	}
+
+	private static Integer get(CompletableFuture<Integer> ping)
+			throws InterruptedException, ExecutionException, TimeoutException {
+		return ping.get(5, TimeUnit.SECONDS);
+	}
+
+	/*
+	 * Answers each request with the given response, or never if it is null
+	 */
+	private void serve(String response) {
+		Thread t = new Thread(() -> {
+			try {
+				while( true ) {
+					Socket socket = serverSocket.accept();
+					connections.incrementAndGet();
+					Thread handler = new Thread(() -> handle(socket, response));
+					handler.setDaemon(true);
+					handler.start();
+				}
+			} catch(IOException ioe) {
+				// server socket closed
+			}
+		});
+		t.setDaemon(true);
+		t.start();
+	}
+
+	private static void handle(Socket socket, String response) {
+		try (Socket s = socket) {
+			InputStream in = s.getInputStream();
+			OutputStream out = s.getOutputStream();
+			int matched = 0;
+			int b;
+			while( (b = in.read()) != -1 ) {
+				// requests end with an empty line
+				matched = (b == "\r\n\r\n".charAt(matched)) ? matched + 1 : (b == '\r' ? 1 : 0);
+				if( matched == 4 ) {
+					matched = 0;
+					if( response == null )
+						continue;
+					out.write(response.getBytes(StandardCharsets.US_ASCII));
+					out.flush();
+					if( response.contains("Connection: close"))
+						return;
+				}
+			}
+		} catch(IOException ioe) {
+			// client went away
+		}
+	}
+}
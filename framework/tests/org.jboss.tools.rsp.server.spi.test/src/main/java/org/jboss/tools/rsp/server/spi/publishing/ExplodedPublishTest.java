@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.spi.publishing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
+import org.jboss.tools.rsp.api.dao.DeployableReference;
+import org.jboss.tools.rsp.eclipse.core.runtime.CoreException;
+import org.jboss.tools.rsp.server.spi.model.IDataStoreModel;
+import org.jboss.tools.rsp.server.spi.model.IServerManagementModel;
+import org.jboss.tools.rsp.server.spi.servertype.IDeployableResourceDelta;
+import org.jboss.tools.rsp.server.spi.servertype.IServer;
+import org.jboss.tools.rsp.server.spi.servertype.IServerDelegate;
+import org.jboss.tools.rsp.server.spi.servertype.IServerPublishModel;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExplodedPublishTest {
+
+	private static final FileTime OLD = FileTime.fromMillis(1000000000000L);
+
+	private Path source;
+	private Path deployments;
+	private Path data;
+	private DeployableReference reference;
+	private IServerPublishModel publishModel;
+	private TestPublishController controller;
+
+	@Before
+	public void before() throws IOException {
+		this.source = Files.createTempDirectory(getClass().getSimpleName() + "_src").resolve("app.war");
+		this.deployments = Files.createTempDirectory(getClass().getSimpleName() + "_deployments");
+		this.data = Files.createTempDirectory(getClass().getSimpleName() + "_data");
+		Files.createDirectories(source.resolve("WEB-INF/classes"));
+		Files.write(source.resolve("index.html"), "index".getBytes());
+		Files.write(source.resolve("WEB-INF/classes/A.class"), "A".getBytes());
+		Files.write(source.resolve("WEB-INF/classes/B.class"), "B".getBytes());
+		this.reference = new DeployableReference("app", source.toString());
+
+		IDataStoreModel dataStore = mock(IDataStoreModel.class);
+		when(dataStore.getDataLocation()).thenReturn(data.toFile());
+		IServerManagementModel mgmt = mock(IServerManagementModel.class);
+		when(mgmt.getDataStoreModel()).thenReturn(dataStore);
+		IServer server = mock(IServer.class);
+		when(server.getId()).thenReturn("server1");
+		when(server.getName()).thenReturn("server1");
+		when(server.getServerManagementModel()).thenReturn(mgmt);
+		this.publishModel = mock(IServerPublishModel.class);
+		IServerDelegate delegate = mock(IServerDelegate.class);
+		when(delegate.getServerPublishModel()).thenReturn(publishModel);
+		this.controller = new TestPublishController(server, delegate);
+	}
+
+	@Test
+	public void testFullPublishSkipsIdenticalFiles() throws CoreException, IOException {
+		Path dest = deployments.resolve("app.war");
+		assertEquals(ServerManagementAPIConstants.PUBLISH_STATE_NONE, fullPublish());
+		assertEquals("A", read(dest.resolve("WEB-INF/classes/A.class")));
+		assertTrue(Files.exists(controller.getPublishManifestPath(reference)));
+		Files.setLastModifiedTime(dest.resolve("WEB-INF/classes/A.class"), OLD);
+		Files.setLastModifiedTime(dest.resolve("WEB-INF/classes/B.class"), OLD);
+		Files.write(dest.resolve("stale.txt"), "stale".getBytes());
+
+		// A build tool rewrites A with identical bytes and really changes B
+		touch(source.resolve("WEB-INF/classes/A.class"), "A");
+		touch(source.resolve("WEB-INF/classes/B.class"), "B2");
+		assertEquals(ServerManagementAPIConstants.PUBLISH_STATE_NONE, fullPublish());
+
+		assertEquals(OLD, Files.getLastModifiedTime(dest.resolve("WEB-INF/classes/A.class")));
+		assertEquals("B2", read(dest.resolve("WEB-INF/classes/B.class")));
+		assertFalse(Files.exists(dest.resolve("stale.txt")));
+	}
+
+	@Test
+	public void testFirstFullPublishKeepsMatchingOutput() throws CoreException, IOException {
+		Path dest = deployments.resolve("app.war");
+		Files.createDirectories(dest.resolve("WEB-INF/classes"));
+		Files.write(dest.resolve("WEB-INF/classes/A.class"), "A".getBytes());
+		Files.setLastModifiedTime(dest.resolve("WEB-INF/classes/A.class"), OLD);
+		Files.write(dest.resolve("WEB-INF/classes/B.class"), "X".getBytes());
+		Files.setLastModifiedTime(dest.resolve("WEB-INF/classes/B.class"), OLD);
+
+		assertEquals(ServerManagementAPIConstants.PUBLISH_STATE_NONE, fullPublish());
+		assertEquals(OLD, Files.getLastModifiedTime(dest.resolve("WEB-INF/classes/A.class")));
+		assertEquals("B", read(dest.resolve("WEB-INF/classes/B.class")));
+	}
+
+	@Test
+	public void testIncrementalPublishSkipsIdenticalFiles() throws CoreException, IOException {
+		Path dest = deployments.resolve("app.war");
+		fullPublish();
+		Files.setLastModifiedTime(dest.resolve("index.html"), OLD);
+		Files.setLastModifiedTime(dest.resolve("WEB-INF/classes/B.class"), OLD);
+
+		touch(source.resolve("index.html"), "index");
+		touch(source.resolve("WEB-INF/classes/B.class"), "B2");
+		Files.delete(source.resolve("WEB-INF/classes/A.class"));
+		Map<Path, Integer> changes = new HashMap<>();
+		changes.put(source.relativize(source.resolve("index.html")), IDeployableResourceDelta.MODIFIED);
+		changes.put(source.relativize(source.resolve("WEB-INF/classes/B.class")), IDeployableResourceDelta.MODIFIED);
+		changes.put(source.relativize(source.resolve("WEB-INF/classes/A.class")), IDeployableResourceDelta.DELETED);
+		when(publishModel.getDeployableResourceDelta(reference)).thenReturn(() -> changes);
+
+		assertEquals(ServerManagementAPIConstants.PUBLISH_STATE_NONE,
+				controller.publishModule(reference, ServerManagementAPIConstants.PUBLISH_INCREMENTAL,
+						ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL));
+		assertEquals(OLD, Files.getLastModifiedTime(dest.resolve("index.html")));
+		assertEquals("B2", read(dest.resolve("WEB-INF/classes/B.class")));
+		assertFalse(Files.exists(dest.resolve("WEB-INF/classes/A.class")));
+	}
+
+	@Test
+	public void testIncrementalPublishSyncsChangedSubtree() throws CoreException, IOException {
+		Path dest = deployments.resolve("app.war");
+		fullPublish();
+		Files.setLastModifiedTime(dest.resolve("index.html"), OLD);
+
+		touch(source.resolve("WEB-INF/classes/B.class"), "B2");
+		Files.delete(source.resolve("WEB-INF/classes/A.class"));
+		Files.write(source.resolve("WEB-INF/classes/C.class"), "C".getBytes());
+		touch(source.resolve("index.html"), "index2");
+		Map<Path, Integer> changes = new HashMap<>();
+		changes.put(source.relativize(source.resolve("WEB-INF")), IDeployableResourceDelta.SUBTREE_CHANGED);
+		when(publishModel.getDeployableResourceDelta(reference)).thenReturn(() -> changes);
+
+		assertEquals(ServerManagementAPIConstants.PUBLISH_STATE_NONE,
+				controller.publishModule(reference, ServerManagementAPIConstants.PUBLISH_INCREMENTAL,
+						ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL));
+		assertEquals("B2", read(dest.resolve("WEB-INF/classes/B.class")));
+		assertEquals("C", read(dest.resolve("WEB-INF/classes/C.class")));
+		assertFalse(Files.exists(dest.resolve("WEB-INF/classes/A.class")));
+		// Outside of the changed folder, nothing is touched
+		assertEquals("index", read(dest.resolve("index.html")));
+	}
+
+	@Test
+	public void testRemovingModuleDeletesManifest() throws CoreException {
+		fullPublish();
+		Path manifest = controller.getPublishManifestPath(reference);
+		assertTrue(Files.exists(manifest));
+		controller.publishModule(reference, ServerManagementAPIConstants.PUBLISH_FULL,
+				ServerManagementAPIConstants.PUBLISH_STATE_REMOVE);
+		assertFalse(Files.exists(manifest));
+		assertFalse(Files.exists(deployments.resolve("app.war")));
+	}
+
+	@Test
+	public void testFullPublishWithLinks() throws CoreException, IOException {
+		Map<String, Object> options = new HashMap<>();
+		options.put(ServerManagementAPIConstants.DEPLOYMENT_OPTION_LINK_FILES, "true");
+		reference.setOptions(options);
+		Path dest = deployments.resolve("app.war");
+		assertEquals(ServerManagementAPIConstants.PUBLISH_STATE_NONE, fullPublish());
+		assertTrue(Files.isSameFile(source.resolve("WEB-INF/classes/A.class"), 
+				dest.resolve("WEB-INF/classes/A.class")));
+
+		// Switching back to copies must not write through the links
+		options.put(ServerManagementAPIConstants.DEPLOYMENT_OPTION_LINK_FILES, "false");
+		assertEquals(ServerManagementAPIConstants.PUBLISH_STATE_NONE, 
+				controller.publishModule(reference, ServerManagementAPIConstants.PUBLISH_CLEAN,
+						ServerManagementAPIConstants.PUBLISH_STATE_FULL));
+		assertFalse(Files.isSameFile(source.resolve("WEB-INF/classes/A.class"), 
+				dest.resolve("WEB-INF/classes/A.class")));
+		assertEquals("A", read(source.resolve("WEB-INF/classes/A.class")));
+		assertEquals("A", read(dest.resolve("WEB-INF/classes/A.class")));
+	}
+
+	@Test
+	public void testLinkFallsBackToCopy() throws IOException {
+		ParallelFileCopier copier = new ParallelFileCopier(1);
+		copier.setLinkFiles(true);
+		Path missingParent = deployments.resolve("missing").resolve("index.html");
+		copier.copy(source.resolve("index.html"), missingParent, null, "index.html");
+		assertFalse(copier.isLinkFiles());
+		assertEquals(1, copier.finish().size());
+
+		copier = new ParallelFileCopier(1);
+		copier.setLinkFiles(true);
+		copier.copy(source.resolve("index.html"), deployments.resolve("index.html"), null, "index.html");
+		assertTrue(copier.finish().isEmpty());
+		assertTrue(copier.isLinkFiles());
+		assertEquals("index", read(deployments.resolve("index.html")));
+	}
+
+	@Test
+	public void testManifestRoundTrip() throws IOException {
+		Path file = data.resolve("test.manifest");
+		PublishManifest manifest = PublishManifest.load(file);
+		assertEquals(0, manifest.size());
+		Path src = source.resolve("index.html");
+		Path dest = deployments.resolve("index.html");
+		assertTrue(manifest.needsCopy("index.html", src, dest));
+		Files.copy(src, dest);
+		manifest.save();
+
+		PublishManifest loaded = PublishManifest.load(file);
+		assertTrue(loaded.contains("index.html"));
+		assertFalse(loaded.needsCopy("index.html", src, dest));
+	}
+
+	private int fullPublish() throws CoreException {
+		return controller.publishModule(reference, ServerManagementAPIConstants.PUBLISH_FULL,
+				ServerManagementAPIConstants.PUBLISH_STATE_FULL);
+	}
+
+	/*
+	 * Rewrite the file, making sure its timestamp changes
+	 */
+	private void touch(Path p, String content) throws IOException {
+		FileTime before = Files.getLastModifiedTime(p);
+		Files.write(p, content.getBytes());
+		Files.setLastModifiedTime(p, FileTime.fromMillis(before.toMillis() + 5000));
+	}
+
+	private String read(Path p) throws IOException {
+		return new String(Files.readAllBytes(p));
+	}
+
+	private class TestPublishController extends AbstractFilesystemPublishController {
+		public TestPublishController(IServer server, IServerDelegate delegate) {
+			super(server, delegate);
+		}
+
+		@Override
+		protected String[] getSupportedSuffixes() {
+			return null;
+		}
+
+		@Override
+		protected Path getDeploymentFolder() {
+			return deployments;
+		}
+
+		@Override
+		public Path getPublishManifestPath(DeployableReference reference) {
+			return super.getPublishManifestPath(reference);
+		}
+	}
+}
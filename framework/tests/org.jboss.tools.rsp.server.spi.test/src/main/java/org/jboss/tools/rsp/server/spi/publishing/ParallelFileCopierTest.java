@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.spi.publishing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelFileCopierTest {
+
+	private static final int FILE_COUNT = 500;
+
+	private Path src;
+	private Path dest;
+
+	@Before
+	public void before() throws IOException {
+		this.src = Files.createTempDirectory(getClass().getSimpleName() + "_src");
+		this.dest = Files.createTempDirectory(getClass().getSimpleName() + "_dest");
+	}
+
+	@Test
+	public void testCopiesAllFiles() throws IOException {
+		for( int i = 0; i < FILE_COUNT; i++ ) {
+			Files.write(src.resolve("file" + i), ("content" + i).getBytes());
+		}
+		ParallelFileCopier copier = new ParallelFileCopier(4);
+		for( int i = 0; i < FILE_COUNT; i++ ) {
+			copier.copy(src.resolve("file" + i), dest.resolve("file" + i), null, "file" + i);
+		}
+		assertTrue(copier.finish().isEmpty());
+		for( int i = 0; i < FILE_COUNT; i++ ) {
+			assertEquals("content" + i, new String(Files.readAllBytes(dest.resolve("file" + i))));
+		}
+	}
+
+	@Test
+	public void testLargeFileIsTransferred() throws IOException {
+		byte[] content = new byte[(int)ParallelFileCopier.TRANSFER_THRESHOLD * 3 + 17];
+		new Random(42).nextBytes(content);
+		Path large = Files.write(src.resolve("large.bin"), content);
+		Path target = Files.write(dest.resolve("large.bin"), new byte[content.length * 2]);
+		ParallelFileCopier.copyFile(large, target);
+		assertArrayEquals(content, Files.readAllBytes(target));
+	}
+
+	@Test
+	public void testErrorsAreReportedInSubmissionOrder() throws IOException {
+		ParallelFileCopier copier = new ParallelFileCopier(4);
+		for( int i = 0; i < FILE_COUNT; i++ ) {
+			if( i % 100 == 0 ) {
+				copier.addError("error" + i);
+			}
+			Path missing = src.resolve("missing" + i);
+			copier.copy(missing, dest.resolve("missing" + i), null, "missing" + i);
+		}
+		List<String> errors = copier.finish();
+		assertEquals(FILE_COUNT + FILE_COUNT / 100, errors.size());
+		int index = 0;
+		for( int i = 0; i < FILE_COUNT; i++ ) {
+			if( i % 100 == 0 ) {
+				assertEquals("error" + i, errors.get(index++));
+			}
+			assertTrue(errors.get(index++).contains("missing" + i + " "));
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.spi.publishing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ZipPackagerTest {
+
+	private static final int FILE_COUNT = 200;
+
+	private Path src;
+	private Path dest;
+	private Map<String, byte[]> expected;
+
+	@Before
+	public void before() throws IOException {
+		this.src = Files.createTempDirectory(getClass().getSimpleName() + "_src");
+		this.dest = Files.createTempDirectory(getClass().getSimpleName() + "_dest").resolve("app.war");
+		this.expected = new HashMap<>();
+		Random r = new Random(42);
+		for( int i = 0; i < FILE_COUNT; i++ ) {
+			StringBuilder sb = new StringBuilder();
+			for( int j = 0; j < i * 10; j++ ) {
+				sb.append("line ").append(j).append('\n');
+			}
+			write("WEB-INF/classes/pkg" + (i % 7) + "/File" + i + ".txt", sb.toString().getBytes());
+		}
+		byte[] random = new byte[100000];
+		r.nextBytes(random);
+		write("WEB-INF/lib/lib.jar", random);
+		write("empty.txt", new byte[0]);
+	}
+
+	@Test
+	public void testArchiveContents() throws IOException {
+		new ZipPackager(4).pack(src, dest, null);
+		assertArchive();
+		try (ZipFile zf = new ZipFile(dest.toFile())) {
+			assertEquals(ZipEntry.STORED, zf.getEntry("WEB-INF/lib/lib.jar").getMethod());
+			assertEquals(ZipEntry.DEFLATED, zf.getEntry("WEB-INF/classes/pkg1/File50.txt").getMethod());
+		}
+		assertEquals(1, Files.list(dest.getParent()).count());
+	}
+
+	@Test
+	public void testArchiveIsReadableAsStream() throws IOException {
+		new ZipPackager(3).pack(src, dest, null);
+		Map<String, byte[]> found = new HashMap<>();
+		try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(dest))) {
+			ZipEntry e;
+			while((e = zis.getNextEntry()) != null ) {
+				found.put(e.getName(), readAll(zis));
+			}
+		}
+		assertEquals(expected.size(), found.size());
+		for( String name : expected.keySet()) {
+			assertArrayEquals(name, expected.get(name), found.get(name));
+		}
+	}
+
+	@Test
+	public void testEntriesAreSorted() throws IOException {
+		new ZipPackager(4).pack(src, dest, null);
+		List<String> names = new ArrayList<>();
+		try (ZipFile zf = new ZipFile(dest.toFile())) {
+			Collections.list(zf.entries()).forEach(e -> names.add(e.getName()));
+		}
+		List<String> sorted = new ArrayList<>(names);
+		Collections.sort(sorted);
+		assertEquals(sorted, names);
+	}
+
+	@Test
+	public void testUnchangedEntriesAreReused() throws IOException {
+		new ZipPackager(4).pack(src, dest, null);
+		write("WEB-INF/classes/pkg1/File1.txt", "changed".getBytes());
+		write("added.txt", "added".getBytes());
+		Files.delete(src.resolve("empty.txt"));
+		expected.remove("empty.txt");
+		Set<String> changed = new HashSet<>(Arrays.asList("WEB-INF/classes/pkg1/File1.txt", "added.txt"));
+		new ZipPackager(4).pack(src, dest, name -> !changed.contains(name));
+		assertArchive();
+
+		// A file of the same size, claimed unchanged, comes from the previous archive
+		write("WEB-INF/classes/pkg1/File1.txt", "CHANGED".getBytes());
+		new ZipPackager(4).pack(src, dest, name -> true);
+		assertArrayEquals("changed".getBytes(), readEntry("WEB-INF/classes/pkg1/File1.txt"));
+	}
+
+	@Test
+	public void testFilesAboveInMemoryThresholdAreStreamed() throws IOException {
+		// above the 16M compressed in memory
+		int size = 17 * 1024 * 1024;
+		byte[] text = new byte[size];
+		for( int i = 0; i < size; i++ ) {
+			text[i] = (byte)('a' + (i % 23));
+		}
+		write("WEB-INF/lib/big.txt", text);
+		byte[] binary = new byte[size];
+		new Random(7).nextBytes(binary);
+		write("WEB-INF/lib/big.jar", binary);
+		new ZipPackager(4).pack(src, dest, null);
+		assertArchive();
+		try (ZipFile zf = new ZipFile(dest.toFile())) {
+			ZipEntry deflated = zf.getEntry("WEB-INF/lib/big.txt");
+			assertEquals(ZipEntry.DEFLATED, deflated.getMethod());
+			assertTrue(deflated.getCompressedSize() < size);
+			assertEquals(ZipEntry.STORED, zf.getEntry("WEB-INF/lib/big.jar").getMethod());
+		}
+		// and read back through the data descriptor
+		Map<String, byte[]> found = new HashMap<>();
+		try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(dest))) {
+			ZipEntry e;
+			while((e = zis.getNextEntry()) != null ) {
+				found.put(e.getName(), readAll(zis));
+			}
+		}
+		assertArrayEquals(text, found.get("WEB-INF/lib/big.txt"));
+		assertArrayEquals(binary, found.get("WEB-INF/lib/big.jar"));
+	}
+
+	@Test
+	public void testUnreadablePreviousArchiveIsReplaced() throws IOException {
+		Files.write(dest, "not an archive".getBytes());
+		new ZipPackager(2).pack(src, dest, name -> true);
+		assertArchive();
+	}
+
+	private void assertArchive() throws IOException {
+		try (ZipFile zf = new ZipFile(dest.toFile())) {
+			assertEquals(expected.size(), zf.size());
+			for( String name : expected.keySet()) {
+				ZipEntry e = zf.getEntry(name);
+				assertNotNull(name, e);
+				assertFalse(e.isDirectory());
+				try (InputStream is = zf.getInputStream(e)) {
+					assertArrayEquals(name, expected.get(name), readAll(is));
+				}
+			}
+		}
+	}
+
+	private byte[] readEntry(String name) throws IOException {
+		try (ZipFile zf = new ZipFile(dest.toFile());
+				InputStream is = zf.getInputStream(zf.getEntry(name))) {
+			return readAll(is);
+		}
+	}
+
+	private void write(String name, byte[] content) throws IOException {
+		Path p = src.resolve(name);
+		Files.createDirectories(p.getParent());
+		Files.write(p, content);
+		expected.put(name, content);
+	}
+
+	private static byte[] readAll(InputStream is) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		byte[] buf = new byte[8192];
+		int n;
+		while((n = is.read(buf)) != -1 ) {
+			bos.write(buf, 0, n);
+		}
+		return bos.toByteArray();
+	}
+}
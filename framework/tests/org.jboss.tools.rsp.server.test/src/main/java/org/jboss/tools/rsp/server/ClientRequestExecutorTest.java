@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ClientRequestExecutorTest {
+
+	private static final Object CLIENT_A = new Object();
+	private static final Object CLIENT_B = new Object();
+
+	private ClientRequestExecutor executor;
+
+	@After
+	public void after() {
+		if( executor != null ) {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void clientsTakeTurns() throws Exception {
+		executor = new ClientRequestExecutor("Test", 1);
+		List<String> ran = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(7);
+		executor.execute(CLIENT_A, () -> {
+			started.countDown();
+			await(release);
+			ran.add("a0");
+			done.countDown();
+		});
+		for( int i = 1; i <= 5; i++ ) {
+			String id = "a" + i;
+			executor.execute(CLIENT_A, () -> { ran.add(id); done.countDown(); });
+		}
+		executor.execute(CLIENT_B, () -> { ran.add("b"); done.countDown(); });
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		assertEquals(6, executor.getQueueDepth());
+		assertEquals(5, executor.getQueueDepth(CLIENT_A));
+		assertEquals(1, executor.getQueueDepth(CLIENT_B));
+		release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		// b does not wait for all the requests of a queued before it
+		assertEquals("b", ran.get(1));
+		assertEquals(0, executor.getQueueDepth());
+		assertTrue(executor.getMaxWaitTime() > 0);
+		assertTrue(executor.getAverageWaitTime() <= executor.getMaxWaitTime());
+	}
+
+	@Test
+	public void clientCannotTakeAllThreads() throws Exception {
+		executor = new ClientRequestExecutor("Test", 2);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch ranB = new CountDownLatch(1);
+		for( int i = 0; i < 3; i++ ) {
+			executor.execute(CLIENT_A, () -> await(release));
+		}
+		executor.execute(CLIENT_B, ranB::countDown);
+		try {
+			assertTrue(ranB.await(5, TimeUnit.SECONDS));
+			assertEquals(2, executor.getQueueDepth(CLIENT_A));
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void failingRequestDoesNotStopOthers() throws Exception {
+		executor = new ClientRequestExecutor("Test", 1);
+		CountDownLatch ran = new CountDownLatch(1);
+		executor.execute(null, () -> {
+			throw new IllegalStateException("Failing on purpose");
+		});
+		executor.execute(null, ran::countDown);
+		assertTrue(ran.await(5, TimeUnit.SECONDS));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	public void statisticsAreTakenOncePerInterval() throws Exception {
+		executor = new ClientRequestExecutor("Test", 2, 1000);
+		CountDownLatch done = new CountDownLatch(3);
+		for( int i = 0; i < 3; i++ ) {
+			executor.execute(CLIENT_A, done::countDown);
+		}
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		long later = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+		String statistics = executor.takeStatistics(later);
+		assertNotNull(statistics);
+		assertTrue(statistics, statistics.startsWith("Test: 3 requests run in the last "));
+		assertTrue(statistics, statistics.contains("0 requests queued"));
+		// the next interval just started
+		assertNull(executor.takeStatistics(later));
+	}
+
+	@Test
+	public void statisticsAreNeverTakenWithoutInterval() throws Exception {
+		executor = new ClientRequestExecutor("Test", 2);
+		assertNull(executor.takeStatistics(System.nanoTime() + TimeUnit.DAYS.toNanos(1)));
+	}
+}
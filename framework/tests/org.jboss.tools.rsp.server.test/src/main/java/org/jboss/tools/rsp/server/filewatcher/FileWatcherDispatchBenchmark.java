@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.filewatcher;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+
+import org.jboss.tools.rsp.server.spi.filewatcher.IFileWatcherEventListener;
+
+/**
+ * A micro benchmark measuring the cost of finding the listeners
+ * for a changed path while many registrations exist.
+ *
+ * It is not run as part of the test suite. Run it with
+ * {@code main}, optionally passing the number of registrations,
+ * the number of lookups and the depth of the changed paths.
+ * The registered paths do not exist on disk, so no watch keys
+ * are created and only the dispatch lookups are measured.
+ */
+public class FileWatcherDispatchBenchmark {
+
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int MEASURED_ROUNDS = 10;
+
+	public static void main(String[] args) {
+		int registrations = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+		int depth = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+
+		FileWatcherService service = new FileWatcherService();
+		service.start();
+		try {
+			run(service, registrations, lookups, depth);
+		} finally {
+			service.stop();
+		}
+	}
+
+	private static void run(FileWatcherService service, int registrations, int lookups, int depth) {
+		Path base = Paths.get(System.getProperty("java.io.tmpdir"),
+				FileWatcherDispatchBenchmark.class.getSimpleName() + "_" + System.nanoTime());
+		Path[] deployments = new Path[registrations];
+		for( int i = 0; i < registrations; i++ ) {
+			deployments[i] = base.resolve("server" + (i % 40)).resolve("deployment" + i);
+			IFileWatcherEventListener listener = (event) -> {};
+			service.addFileWatcherListener(deployments[i], listener, true);
+		}
+		Path[] changed = new Path[lookups];
+		for( int i = 0; i < lookups; i++ ) {
+			Path p = deployments[i % registrations];
+			for( int j = 0; j < depth; j++ ) {
+				p = p.resolve("d" + ((i + j) % 7));
+			}
+			changed[i] = p.resolve("File" + i + ".class");
+		}
+
+		for( int i = 0; i < WARMUP_ROUNDS; i++ ) {
+			dispatch(service, changed);
+		}
+		long total = 0;
+		long found = 0;
+		for( int i = 0; i < MEASURED_ROUNDS; i++ ) {
+			long start = System.nanoTime();
+			found += dispatch(service, changed);
+			total += System.nanoTime() - start;
+		}
+		double nsPerEvent = (double)total / ((long)MEASURED_ROUNDS * lookups);
+		System.out.println(String.format(
+				"registrations=%d lookups=%d depth=%d: %.1f ns/event (%d listeners found)",
+				registrations, lookups, depth, nsPerEvent, found));
+	}
+
+	private static long dispatch(FileWatcherService service, Path[] changed) {
+		long found = 0;
+		for( Path p : changed ) {
+			Set<IFileWatcherEventListener> exact = service.findListenersForExactPath(p, false);
+			Set<IFileWatcherEventListener> recursive = service.getRecursiveListenersForPathOrParent(p);
+			found += exact.size() + recursive.size();
+		}
+		return found;
+	}
+}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.filewatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.tools.rsp.server.spi.filewatcher.FileWatcherEvent;
+import org.jboss.tools.rsp.server.spi.filewatcher.IFileWatcherEventListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FilewatcherAsyncDispatchTest {
+
+	private static final int MAX_WAIT = 20000;
+	private static final int LISTENER_THREADS = 2;
+
+	private RescanningFileWatcherService service;
+
+	@Before
+	public void before() {
+		this.service = new RescanningFileWatcherService();
+		service.start();
+	}
+
+	@After
+	public void after() {
+		service.stop();
+	}
+
+	@Test
+	public void testBlockedListenerDoesNotBlockOthers() throws IOException, InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch blocked = new CountDownLatch(1);
+		IFileWatcherEventListener slow = (event) -> {
+			blocked.countDown();
+			try {
+				release.await(MAX_WAIT, TimeUnit.MILLISECONDS);
+			} catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+		};
+		List<FileWatcherEvent> received = Collections.synchronizedList(new ArrayList<>());
+		IFileWatcherEventListener fast = received::add;
+
+		Path root = Files.createTempDirectory(getClass().getName() + "_1");
+		service.addFileWatcherListener(root, slow, true);
+		service.addFileWatcherListener(root, fast, true);
+
+		Files.write(root.resolve("first.txt"), "test".getBytes());
+		assertTrue(blocked.await(MAX_WAIT, TimeUnit.MILLISECONDS));
+
+		// the slow listener is now blocked, the fast one must still get events
+		Path second = root.resolve("second.txt");
+		Files.write(second, "test".getBytes());
+		assertTrue(waitForPath(received, second));
+		release.countDown();
+
+		service.removeFileWatcherListener(root, slow);
+		service.removeFileWatcherListener(root, fast);
+	}
+
+	@Test
+	public void testListenerIsNeverCalledConcurrently() throws IOException, InterruptedException {
+		AtomicBoolean running = new AtomicBoolean(false);
+		AtomicBoolean overlapped = new AtomicBoolean(false);
+		AtomicInteger count = new AtomicInteger();
+		IFileWatcherEventListener listener = (event) -> {
+			if( !running.compareAndSet(false, true)) {
+				overlapped.set(true);
+			}
+			try {
+				Thread.sleep(5);
+			} catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+			count.incrementAndGet();
+			running.set(false);
+		};
+		Path root = Files.createTempDirectory(getClass().getName() + "_2");
+		service.addFileWatcherListener(root, listener, true);
+		for( int i = 0; i < 20; i++ ) {
+			Files.write(root.resolve("file" + i + ".txt"), "test".getBytes());
+		}
+		long start = System.currentTimeMillis();
+		while( count.get() < 20 && System.currentTimeMillis() - start < MAX_WAIT ) {
+			Thread.sleep(50);
+		}
+		assertTrue(count.get() >= 20);
+		assertFalse(overlapped.get());
+		service.removeFileWatcherListener(root, listener);
+	}
+
+	@Test
+	public void testRescanAfterOverflow() throws IOException, InterruptedException {
+		List<FileWatcherEvent> received = Collections.synchronizedList(new ArrayList<>());
+		IFileWatcherEventListener listener = received::add;
+		Path root = Files.createTempDirectory(getClass().getName() + "_3");
+		Path existing = root.resolve("existing.txt");
+		Files.write(existing, "test".getBytes());
+		service.addFileWatcherListener(root, listener, true);
+
+		// Pretend events were lost while a folder with contents appeared
+		Path nested = root.resolve("nested");
+		Path nestedFile = nested.resolve("inner.txt");
+		service.setIgnoreEvents(true);
+		Files.createDirectories(nested);
+		Files.write(nestedFile, "test".getBytes());
+		Thread.sleep(500);
+		received.clear();
+		service.setIgnoreEvents(false);
+		service.rescanAfterOverflow(root);
+
+		// Listeners are called on several threads, in no particular order
+		assertTrue(waitForEvent(received, existing, StandardWatchEventKinds.ENTRY_MODIFY));
+		assertTrue(waitForEvent(received, nested, StandardWatchEventKinds.ENTRY_CREATE));
+		assertTrue(waitForEvent(received, nestedFile, StandardWatchEventKinds.ENTRY_CREATE));
+		assertEquals(1, countEvents(received, nestedFile));
+		service.removeFileWatcherListener(root, listener);
+	}
+
+	private boolean waitForPath(List<FileWatcherEvent> events, Path p) throws InterruptedException {
+		long start = System.currentTimeMillis();
+		while( System.currentTimeMillis() - start < MAX_WAIT ) {
+			if( countEvents(events, p) > 0 )
+				return true;
+			Thread.sleep(50);
+		}
+		return false;
+	}
+
+	private boolean waitForEvent(List<FileWatcherEvent> events, Path p, WatchEvent.Kind<?> kind) throws InterruptedException {
+		long start = System.currentTimeMillis();
+		while( System.currentTimeMillis() - start < MAX_WAIT ) {
+			if( hasEvent(events, p, kind))
+				return true;
+			Thread.sleep(50);
+		}
+		return false;
+	}
+
+	private int countEvents(List<FileWatcherEvent> events, Path p) {
+		synchronized(events) {
+			return (int)events.stream().filter(e -> e.getPath().equals(p)).count();
+		}
+	}
+
+	private boolean hasEvent(List<FileWatcherEvent> events, Path p, WatchEvent.Kind<?> kind) {
+		synchronized(events) {
+			return events.stream().anyMatch(e -> e.getPath().equals(p) && e.getKind() == kind);
+		}
+	}
+
+	private static class RescanningFileWatcherService extends FileWatcherService {
+		private volatile boolean ignoreEvents = false;
+
+		public RescanningFileWatcherService() {
+			super(0, LISTENER_THREADS);
+		}
+
+		public void setIgnoreEvents(boolean ignore) {
+			this.ignoreEvents = ignore;
+		}
+
+		@Override
+		protected void handleSingleEvent(WatchKey key, WatchEvent<?> event) {
+			if( !ignoreEvents ) {
+				super.handleSingleEvent(key, event);
+			}
+		}
+
+		@Override
+		public void rescanAfterOverflow(Path folder) {
+			super.rescanAfterOverflow(folder);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.filewatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.tools.rsp.server.spi.filewatcher.FileWatcherEvent;
+import org.jboss.tools.rsp.server.spi.filewatcher.IFileWatcherEventListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FilewatcherBatchDeliveryTest {
+
+	private static final int QUIET_WINDOW = 300;
+	private static final int FILE_COUNT = 20;
+	private static final int MAX_WAIT = 20000;
+
+	private FileWatcherService service;
+
+	@Before
+	public void before() {
+		this.service = new FileWatcherService(QUIET_WINDOW);
+		service.start();
+	}
+
+	@After
+	public void after() {
+		service.stop();
+	}
+
+	@Test
+	public void testEventsAreCoalescedIntoBatches() throws IOException, InterruptedException {
+		BatchListener listener = new BatchListener();
+		Path root = Files.createTempDirectory(getClass().getName() + "_1");
+		service.addFileWatcherListener(root, listener, true);
+
+		List<Path> files = new ArrayList<>();
+		for( int i = 0; i < FILE_COUNT; i++ ) {
+			Path f = root.resolve("file" + i + ".txt");
+			Files.write(f, "test".getBytes());
+			Files.write(f, "test2".getBytes());
+			files.add(f);
+		}
+		waitForEvents(listener, files);
+
+		assertEquals(0, listener.getSingleEventCount());
+		assertTrue(listener.getBatchCount() < FILE_COUNT);
+		Map<Path, List<FileWatcherEvent>> byPath = listener.getEventsByPath();
+		for( Path f : files ) {
+			// creation and modification are coalesced into a single creation
+			assertEquals(1, byPath.get(f).size());
+			assertEquals(StandardWatchEventKinds.ENTRY_CREATE, byPath.get(f).get(0).getKind());
+		}
+		service.removeFileWatcherListener(root, listener);
+	}
+
+	@Test
+	public void testDefaultBatchCallbackDeliversSingleEvents() throws IOException, InterruptedException {
+		List<FileWatcherEvent> received = Collections.synchronizedList(new ArrayList<>());
+		IFileWatcherEventListener listener = received::add;
+		Path root = Files.createTempDirectory(getClass().getName() + "_2");
+		service.addFileWatcherListener(root, listener, true);
+
+		Path f = root.resolve("out.txt");
+		Files.write(f, "test".getBytes());
+		long start = System.currentTimeMillis();
+		while( !containsPath(received, f) && System.currentTimeMillis() - start < MAX_WAIT ) {
+			Thread.sleep(50);
+		}
+		assertTrue(containsPath(received, f));
+		service.removeFileWatcherListener(root, listener);
+	}
+
+	private boolean containsPath(List<FileWatcherEvent> events, Path p) {
+		synchronized(events) {
+			return events.stream().anyMatch(e -> e.getPath().equals(p));
+		}
+	}
+
+	private void waitForEvents(BatchListener listener, List<Path> files) throws InterruptedException {
+		long start = System.currentTimeMillis();
+		while( System.currentTimeMillis() - start < MAX_WAIT ) {
+			if( listener.getEventsByPath().keySet().containsAll(files))
+				break;
+			Thread.sleep(50);
+		}
+		// Give any trailing events a chance to arrive
+		Thread.sleep(QUIET_WINDOW * 2);
+	}
+
+	private static class BatchListener implements IFileWatcherEventListener {
+		private int singleEvents = 0;
+		private final List<List<FileWatcherEvent>> batches = new ArrayList<>();
+
+		@Override
+		public synchronized void fileChanged(FileWatcherEvent event) {
+			singleEvents++;
+		}
+
+		@Override
+		public synchronized void filesChanged(List<FileWatcherEvent> events) {
+			batches.add(events);
+		}
+
+		public synchronized int getSingleEventCount() {
+			return singleEvents;
+		}
+
+		public synchronized int getBatchCount() {
+			return batches.size();
+		}
+
+		public synchronized Map<Path, List<FileWatcherEvent>> getEventsByPath() {
+			Map<Path, List<FileWatcherEvent>> ret = new HashMap<>();
+			for( List<FileWatcherEvent> batch : batches ) {
+				for( FileWatcherEvent e : batch ) {
+					ret.computeIfAbsent(e.getPath(), k -> new ArrayList<>()).add(e);
+				}
+			}
+			return ret;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.filewatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.jboss.tools.rsp.server.filewatcher.FilewatcherModelTest.TestableFileWatcherService;
+import org.jboss.tools.rsp.server.spi.filewatcher.IFileWatcherEventListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FilewatcherSubscriptionFilterTest {
+
+	private static final int MAX_WAIT = 20000;
+
+	private TestableFileWatcherService service;
+	private Path root;
+
+	@Before
+	public void before() throws IOException {
+		this.service = new TestableFileWatcherService();
+		service.start();
+		this.root = Files.createTempDirectory(getClass().getName());
+		Files.createDirectories(root.resolve("target/classes/org/example"));
+		Files.createDirectories(root.resolve("target/other"));
+		Files.createDirectories(root.resolve(".git/objects/ab"));
+		Files.createDirectories(root.resolve("src/main/java"));
+	}
+
+	@After
+	public void after() {
+		service.stop();
+	}
+
+	@Test
+	public void testUnfilteredRecursiveSubscription() {
+		IFileWatcherEventListener listener = (event) -> {};
+		service.addFileWatcherListener(root, listener, true);
+		Map<?, ?> subs = service.getSubscriptions();
+		assertTrue(subs.containsKey(root.resolve("target/classes/org/example")));
+		assertTrue(subs.containsKey(root.resolve(".git/objects/ab")));
+		assertTrue(subs.containsKey(root.resolve("src/main/java")));
+		assertEquals(subs.size(), service.getWatchedFolderCount());
+
+		service.removeFileWatcherListener(root, listener);
+		assertFalse(service.getSubscriptions().containsKey(root.resolve("src/main/java")));
+	}
+
+	@Test
+	public void testIncludesAndExcludes() {
+		IFileWatcherEventListener listener = (event) -> {};
+		service.addFileWatcherListener(root, listener, true,
+				new String[] { "target/classes/**" }, new String[] { "**/.git/**" });
+		Map<?, ?> subs = service.getSubscriptions();
+		assertTrue(subs.containsKey(root));
+		assertTrue(subs.containsKey(root.resolve("target")));
+		assertTrue(subs.containsKey(root.resolve("target/classes")));
+		assertTrue(subs.containsKey(root.resolve("target/classes/org/example")));
+		assertFalse(subs.containsKey(root.resolve("target/other")));
+		assertFalse(subs.containsKey(root.resolve(".git")));
+		assertFalse(subs.containsKey(root.resolve(".git/objects")));
+		assertFalse(subs.containsKey(root.resolve("src")));
+		assertFalse(subs.containsKey(root.resolve("src/main/java")));
+
+		service.removeFileWatcherListener(root, listener);
+		assertFalse(service.getSubscriptions().containsKey(root.resolve("target/classes")));
+	}
+
+	@Test
+	public void testExcludesApplyToCreatedFolders() throws IOException, InterruptedException {
+		IFileWatcherEventListener listener = (event) -> {};
+		service.addFileWatcherListener(root, listener, true,
+				null, new String[] { "**/.git/**", "**/node_modules" });
+		assertTrue(service.getSubscriptions().containsKey(root.resolve("src/main/java")));
+		assertFalse(service.getSubscriptions().containsKey(root.resolve(".git")));
+
+		Path lib = Files.createDirectories(root.resolve("lib/nested"));
+		Files.createDirectories(root.resolve("node_modules/left-pad"));
+		Files.createDirectories(root.resolve("lib/node_modules/right-pad"));
+		assertTrue(waitForSubscription(lib));
+		Map<?, ?> subs = service.getSubscriptions();
+		assertFalse(subs.containsKey(root.resolve("node_modules")));
+		assertFalse(subs.containsKey(root.resolve("node_modules/left-pad")));
+		assertFalse(subs.containsKey(root.resolve("lib/node_modules")));
+		service.removeFileWatcherListener(root, listener);
+	}
+
+	private boolean waitForSubscription(Path p) throws InterruptedException {
+		long start = System.currentTimeMillis();
+		while( System.currentTimeMillis() - start < MAX_WAIT ) {
+			if( service.getSubscriptions().containsKey(p))
+				return true;
+			Thread.sleep(50);
+		}
+		return false;
+	}
+}
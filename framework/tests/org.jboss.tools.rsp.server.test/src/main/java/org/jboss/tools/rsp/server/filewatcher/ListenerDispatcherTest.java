@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.filewatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.tools.rsp.server.spi.filewatcher.FileWatcherEvent;
+import org.jboss.tools.rsp.server.spi.filewatcher.IFileWatcherEventListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ListenerDispatcherTest {
+
+	private static final int MAX_WAIT = 20000;
+
+	private ListenerDispatcher dispatcher;
+
+	@Before
+	public void before() {
+		this.dispatcher = new ListenerDispatcher(2, getClass().getSimpleName());
+	}
+
+	@After
+	public void after() {
+		dispatcher.shutdown();
+	}
+
+	@Test
+	public void testMergesEventsOfListenerFallingBehind() throws InterruptedException {
+		int count = ListenerDispatcher.MAX_QUEUED_PER_LISTENER + 100;
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		AtomicInteger calls = new AtomicInteger();
+		List<Path> received = Collections.synchronizedList(new ArrayList<>());
+		IFileWatcherEventListener listener = new IFileWatcherEventListener() {
+			@Override
+			public void fileChanged(FileWatcherEvent event) {
+				calls.incrementAndGet();
+				receive(event);
+			}
+
+			@Override
+			public void filesChanged(List<FileWatcherEvent> events) {
+				calls.incrementAndGet();
+				for( FileWatcherEvent e : events ) {
+					receive(e);
+				}
+			}
+
+			private void receive(FileWatcherEvent event) {
+				blocked.countDown();
+				try {
+					release.await(MAX_WAIT, TimeUnit.MILLISECONDS);
+				} catch(InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+				received.add(event.getPath());
+				if( received.size() == count ) {
+					done.countDown();
+				}
+			}
+		};
+
+		dispatcher.dispatch(listener, created(0));
+		assertTrue(blocked.await(MAX_WAIT, TimeUnit.MILLISECONDS));
+		// the listener is blocked, so every further event waits
+		for( int i = 1; i < count; i++ ) {
+			dispatcher.dispatch(listener, created(i));
+		}
+		release.countDown();
+
+		assertTrue(done.await(MAX_WAIT, TimeUnit.MILLISECONDS));
+		for( int i = 0; i < count; i++ ) {
+			assertEquals(path(i), received.get(i));
+		}
+		// the running call, the full queue and the call the rest was merged into
+		assertEquals(ListenerDispatcher.MAX_QUEUED_PER_LISTENER + 1, calls.get());
+	}
+
+	@Test
+	public void testMergedEventsAreCoalesced() throws InterruptedException {
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<FileWatcherEvent> received = Collections.synchronizedList(new ArrayList<>());
+		IFileWatcherEventListener listener = (event) -> {
+			blocked.countDown();
+			try {
+				release.await(MAX_WAIT, TimeUnit.MILLISECONDS);
+			} catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+			received.add(event);
+		};
+
+		dispatcher.dispatch(listener, created(0));
+		assertTrue(blocked.await(MAX_WAIT, TimeUnit.MILLISECONDS));
+		for( int i = 1; i <= ListenerDispatcher.MAX_QUEUED_PER_LISTENER; i++ ) {
+			dispatcher.dispatch(listener, created(i));
+		}
+		// the queue is full, these are merged and cancel out
+		Path temp = Paths.get("temp.txt");
+		dispatcher.dispatch(listener, new FileWatcherEvent(temp, StandardWatchEventKinds.ENTRY_CREATE));
+		dispatcher.dispatch(listener, new FileWatcherEvent(temp, StandardWatchEventKinds.ENTRY_DELETE));
+		Path last = path(ListenerDispatcher.MAX_QUEUED_PER_LISTENER + 1);
+		dispatcher.dispatch(listener, new FileWatcherEvent(last, StandardWatchEventKinds.ENTRY_CREATE));
+		release.countDown();
+
+		long end = System.currentTimeMillis() + MAX_WAIT;
+		while( !containsPath(received, last) && System.currentTimeMillis() < end ) {
+			Thread.sleep(10);
+		}
+		assertTrue(containsPath(received, last));
+		assertFalse(containsPath(received, temp));
+	}
+
+	@Test
+	public void testDispatchAfterShutdownIsDropped() {
+		dispatcher.shutdown();
+		// must not throw on the watcher thread
+		dispatcher.dispatch((event) -> {}, created(0));
+	}
+
+	private boolean containsPath(List<FileWatcherEvent> events, Path p) {
+		synchronized(events) {
+			return events.stream().anyMatch(e -> e.getPath().equals(p));
+		}
+	}
+
+	private static FileWatcherEvent created(int i) {
+		return new FileWatcherEvent(path(i), StandardWatchEventKinds.ENTRY_CREATE);
+	}
+
+	private static Path path(int i) {
+		return Paths.get("file" + i + ".txt");
+	}
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.tools.rsp.api.RSPClient;
+import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
+import org.jboss.tools.rsp.api.dao.EventSubscription;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventSubscriptionsTest {
+
+	private static final String STATE = ServerManagementAPIConstants.EVENT_SERVER_STATE_CHANGED;
+	private static final String OUTPUT = ServerManagementAPIConstants.EVENT_SERVER_PROCESS_OUTPUT_APPENDED;
+	private static final String JOB = ServerManagementAPIConstants.EVENT_JOB_ADDED;
+
+	private RSPClient a;
+	private RSPClient b;
+	private List<RSPClient> clients;
+	private EventSubscriptions subscriptions;
+
+	@Before
+	public void before() {
+		this.a = mock(RSPClient.class);
+		this.b = mock(RSPClient.class);
+		this.clients = Arrays.asList(a, b);
+		this.subscriptions = new EventSubscriptions();
+	}
+
+	@Test
+	public void clientsReceiveAllEventsUntilTheySubscribe() {
+		assertSame(clients, subscriptions.getSubscribers(clients, OUTPUT, "wf"));
+	}
+
+	@Test
+	public void clientOptsOutOfProcessOutput() {
+		subscriptions.subscribe(a, new EventSubscription(Arrays.asList(STATE, JOB), null));
+		assertEquals(Collections.singletonList(b), subscriptions.getSubscribers(clients, OUTPUT, "wf"));
+		assertEquals(clients, subscriptions.getSubscribers(clients, STATE, "wf"));
+		assertEquals(clients, subscriptions.getSubscribers(clients, JOB, null));
+	}
+
+	@Test
+	public void clientSubscribesToServers() {
+		subscriptions.subscribe(a, new EventSubscription(null, Arrays.asList("wf")));
+		assertEquals(clients, subscriptions.getSubscribers(clients, STATE, "wf"));
+		assertEquals(Collections.singletonList(b), subscriptions.getSubscribers(clients, STATE, "eap"));
+		// events not about a server are not filtered by server
+		assertEquals(clients, subscriptions.getSubscribers(clients, JOB, null));
+	}
+
+	@Test
+	public void subscriptionIsReplacedAndRemoved() {
+		subscriptions.subscribe(a, new EventSubscription(Collections.emptyList(), null));
+		assertEquals(Collections.singletonList(b), subscriptions.getSubscribers(clients, JOB, null));
+		subscriptions.subscribe(a, null);
+		assertEquals(clients, subscriptions.getSubscribers(clients, JOB, null));
+		subscriptions.subscribe(a, new EventSubscription(Collections.emptyList(), null));
+		subscriptions.remove(a);
+		assertEquals(clients, subscriptions.getSubscribers(clients, JOB, null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownEventTypeIsRejected() {
+		subscriptions.subscribe(a, new EventSubscription(Arrays.asList("serverExploded"), null));
+	}
+}
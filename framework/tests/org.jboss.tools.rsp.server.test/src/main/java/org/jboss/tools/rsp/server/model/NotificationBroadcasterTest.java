@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.json.StreamMessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.messages.NotificationMessage;
+import org.eclipse.lsp4j.jsonrpc.services.ServiceEndpoints;
+import org.jboss.tools.rsp.api.RSPClient;
+import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
+import org.jboss.tools.rsp.api.SocketLauncher;
+import org.jboss.tools.rsp.api.dao.ServerHandle;
+import org.jboss.tools.rsp.api.dao.ServerState;
+import org.jboss.tools.rsp.api.dao.ServerType;
+import org.junit.Test;
+
+public class NotificationBroadcasterTest {
+
+	private static final String STATE_CHANGED = ServerManagementAPIConstants.EVENT_SERVER_STATE_CHANGED;
+
+	@Test
+	public void serializesLikeTheLauncher() throws Exception {
+		ServerState state = createState();
+		NotificationMessage message = new NotificationMessage();
+		message.setJsonrpc("2.0");
+		message.setMethod("client/" + STATE_CHANGED);
+		message.setParams(state);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new StreamMessageConsumer(out, new MessageJsonHandler(
+				ServiceEndpoints.getSupportedMethods(RSPClient.class))).consume(message);
+
+		assertArrayEquals(out.toByteArray(), new NotificationBroadcaster().serialize(STATE_CHANGED, state));
+	}
+
+	@Test
+	public void serializesOnceForAllClients() throws Exception {
+		List<byte[]> written = new ArrayList<>();
+		SocketLauncher<RSPClient> a = mockLauncher(false, written);
+		SocketLauncher<RSPClient> b = mockLauncher(false, written);
+		SocketLauncher<RSPClient> traced = mockLauncher(true, written);
+		RSPClient unconnected = mock(RSPClient.class);
+		List<RSPClient> notified = new ArrayList<>();
+		ServerState state = createState();
+
+		new NotificationBroadcaster().broadcast(Arrays.asList(a, b, traced),
+				Arrays.asList(a.getRemoteProxy(), b.getRemoteProxy(), traced.getRemoteProxy(), unconnected),
+				STATE_CHANGED, state, (c, s) -> notified.add(c));
+
+		assertEquals(2, written.size());
+		assertSame(written.get(0), written.get(1));
+		assertEquals(Arrays.asList(traced.getRemoteProxy(), unconnected), notified);
+	}
+
+	@Test
+	public void notifiesOnlyTheGivenClients() throws Exception {
+		List<byte[]> written = new ArrayList<>();
+		SocketLauncher<RSPClient> a = mockLauncher(false, written);
+		new NotificationBroadcaster().broadcast(Arrays.asList(a), Collections.emptyList(),
+				STATE_CHANGED, createState(), (c, s) -> c.serverStateChanged(s));
+		assertEquals(0, written.size());
+		verify(a, never()).writeMessage(any(byte[].class));
+	}
+
+	@SuppressWarnings("unchecked")
+	private SocketLauncher<RSPClient> mockLauncher(boolean tracing, List<byte[]> written) throws Exception {
+		SocketLauncher<RSPClient> launcher = mock(SocketLauncher.class);
+		RSPClient client = mock(RSPClient.class);
+		when(launcher.getRemoteProxy()).thenReturn(client);
+		when(launcher.isTracing()).thenReturn(tracing);
+		doAnswer(invocation -> {
+			written.add((byte[]) invocation.getArguments()[0]);
+			return null;
+		}).when(launcher).writeMessage(any(byte[].class));
+		return launcher;
+	}
+
+	private ServerState createState() {
+		ServerHandle handle = new ServerHandle("wf", new ServerType("wildfly", "WildFly", "WildFly server"));
+		ServerState state = new ServerState();
+		state.setServer(handle);
+		state.setState(ServerManagementAPIConstants.STATE_STARTED);
+		state.setRunMode("run");
+		state.setDeployableStates(Collections.emptyList());
+		return state;
+	}
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.tools.rsp.api.RSPClient;
+import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
+import org.jboss.tools.rsp.api.dao.ServerHandle;
+import org.jboss.tools.rsp.api.dao.ServerProcessOutput;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProcessOutputOutboxTest {
+
+	private static final ServerHandle SERVER = new ServerHandle("wf", null);
+	private static final int OUT = ServerManagementAPIConstants.STREAM_TYPE_SYSOUT;
+	private static final int ERR = ServerManagementAPIConstants.STREAM_TYPE_SYSERR;
+
+	private RSPClient client;
+	private List<String> sent;
+	private CountDownLatch release;
+	private ProcessOutputOutbox outbox;
+
+	@Before
+	public void before() {
+		this.sent = Collections.synchronizedList(new ArrayList<>());
+		this.release = new CountDownLatch(0);
+		this.client = mock(RSPClient.class);
+		doAnswer(invocation -> {
+			release.await(5, TimeUnit.SECONDS);
+			ServerProcessOutput output = (ServerProcessOutput) invocation.getArguments()[0];
+			sent.add(output.getProcessId() + "/" + output.getStreamType() + ":" + output.getText());
+			return null;
+		}).when(client).serverProcessOutputAppended(any(ServerProcessOutput.class));
+	}
+
+	@After
+	public void after() {
+		if( outbox != null ) {
+			outbox.dispose();
+		}
+	}
+
+	@Test
+	public void coalescesOutputOfEachStream() throws Exception {
+		outbox = new ProcessOutputOutbox(client, 1000, 200);
+		outbox.append(SERVER, "p0", OUT, "Starting\n");
+		outbox.append(SERVER, "p0", ERR, "Warning\n");
+		outbox.append(SERVER, "p0", OUT, "Started\n");
+		waitForSent(2);
+		assertEquals("p0/" + OUT + ":Starting\nStarted\n", sent.get(0));
+		assertEquals("p0/" + ERR + ":Warning\n", sent.get(1));
+	}
+
+	@Test
+	public void dropsOldestOutputWhenClientFallsBehind() throws Exception {
+		this.release = new CountDownLatch(1);
+		outbox = new ProcessOutputOutbox(client, 10, 0);
+		outbox.append(SERVER, "p0", OUT, "first");
+		// the client is stuck receiving the first output
+		Thread.sleep(100);
+		for( int i = 0; i < 10; i++ ) {
+			outbox.append(SERVER, "p0", OUT, "line" + i + "\n");
+		}
+		release.countDown();
+		waitForSent(2);
+		assertEquals("p0/" + OUT + ":first", sent.get(0));
+		assertEquals("p0/" + OUT + ":[50 characters of output elided]\nne8\nline9\n", sent.get(1));
+		assertEquals(50, outbox.getElided());
+	}
+
+	@Test
+	public void dropsOutputInTheOrderItWasAppended() throws Exception {
+		this.release = new CountDownLatch(1);
+		outbox = new ProcessOutputOutbox(client, 8, 0);
+		outbox.append(SERVER, "p0", OUT, "first");
+		// the client is stuck receiving the first output
+		Thread.sleep(100);
+		outbox.append(SERVER, "p0", OUT, "aaaa");
+		outbox.append(SERVER, "p0", ERR, "bbbb");
+		outbox.append(SERVER, "p0", OUT, "cccc");
+		// the error stream now has the oldest output, although its stream was queued after
+		outbox.append(SERVER, "p0", ERR, "dddd");
+		release.countDown();
+		waitForSent(3);
+		assertEquals("p0/" + OUT + ":[4 characters of output elided]\ncccc", sent.get(1));
+		assertEquals("p0/" + ERR + ":[4 characters of output elided]\ndddd", sent.get(2));
+		assertEquals(8, outbox.getElided());
+	}
+
+	@Test
+	public void notifiesAfterOutputQueuedBefore() throws Exception {
+		outbox = new ProcessOutputOutbox(client, 1000, 50);
+		CountDownLatch terminated = new CountDownLatch(1);
+		outbox.append(SERVER, "p0", OUT, "Stopped\n");
+		outbox.afterOutput(() -> {
+			sent.add("terminated");
+			terminated.countDown();
+		});
+		assertTrue(terminated.await(5, TimeUnit.SECONDS));
+		assertEquals(2, sent.size());
+		assertEquals("terminated", sent.get(1));
+	}
+
+	@Test
+	public void sendsWhatIsQueuedOnceClosed() throws Exception {
+		this.release = new CountDownLatch(1);
+		outbox = new ProcessOutputOutbox(client, 1000, 0);
+		outbox.append(SERVER, "p0", OUT, "first");
+		// the client is stuck receiving the first output
+		Thread.sleep(100);
+		outbox.append(SERVER, "p0", OUT, "second");
+		outbox.afterOutput(() -> sent.add("terminated"));
+		outbox.close();
+		outbox.append(SERVER, "p0", OUT, "third");
+		release.countDown();
+		waitForSent(3);
+		assertEquals("p0/" + OUT + ":second", sent.get(1));
+		assertEquals("terminated", sent.get(2));
+		// notifications are still run
+		outbox.afterOutput(() -> sent.add("terminated again"));
+		waitForSent(4);
+		assertEquals("terminated again", sent.get(3));
+	}
+
+	private void waitForSent(int count) throws InterruptedException {
+		long end = System.currentTimeMillis() + 5000;
+		while( sent.size() < count && System.currentTimeMillis() < end ) {
+			Thread.sleep(10);
+		}
+		// nothing more comes
+		Thread.sleep(100);
+		assertEquals(count, sent.size());
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.model;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.tools.rsp.api.RSPClient;
+import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
+import org.jboss.tools.rsp.api.dao.EventSubscription;
+import org.jboss.tools.rsp.api.dao.ServerHandle;
+import org.jboss.tools.rsp.api.dao.ServerProcess;
+import org.jboss.tools.rsp.api.dao.ServerProcessOutput;
+import org.jboss.tools.rsp.server.ServerManagementServerImpl;
+import org.jboss.tools.rsp.server.spi.discovery.IDiscoveryPathModel;
+import org.jboss.tools.rsp.server.spi.jobs.IJobManager;
+import org.jboss.tools.rsp.server.spi.model.IServerManagementModel;
+import org.jboss.tools.rsp.server.spi.model.IServerModel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RemoteEventManagerTest {
+
+	private static final ServerHandle SERVER = new ServerHandle("wf", null);
+	private static final int OUT = ServerManagementAPIConstants.STREAM_TYPE_SYSOUT;
+
+	private RSPClient client;
+	private ServerManagementServerImpl serverImpl;
+	private RemoteEventManager manager;
+
+	@Before
+	public void before() {
+		this.client = mock(RSPClient.class);
+		this.serverImpl = mockServerImpl();
+		this.manager = new RemoteEventManager(serverImpl);
+	}
+
+	@After
+	public void after() {
+		manager.clientRemoved(client);
+	}
+
+	@Test
+	public void sendsOutputToConnectedClient() {
+		when(serverImpl.getClients()).thenReturn(clients(client));
+		manager.serverProcessOutputAppended(SERVER, "p0", OUT, "Started\n");
+		verify(client, timeout(5000)).serverProcessOutputAppended(any(ServerProcessOutput.class));
+	}
+
+	@Test
+	public void dropsOutputOfClientRemovedMeanwhile() throws Exception {
+		// the client was removed once the subscribers were looked up
+		when(serverImpl.getClients()).thenReturn(clients(client)).thenReturn(clients());
+		manager.clientRemoved(client);
+		manager.serverProcessOutputAppended(SERVER, "p0", OUT, "Started\n");
+		when(serverImpl.getClients()).thenReturn(clients(client)).thenReturn(clients());
+		manager.serverProcessTerminated(SERVER, "p0");
+		Thread.sleep(500);
+		verify(client, never()).serverProcessOutputAppended(any(ServerProcessOutput.class));
+		verify(client, never()).serverProcessTerminated(any(ServerProcess.class));
+	}
+
+	@Test
+	public void notifiesTerminationQueuedBeforeOptingOutOfOutput() {
+		when(serverImpl.getClients()).thenReturn(clients(client));
+		manager.serverProcessOutputAppended(SERVER, "p0", OUT, "Stopped\n");
+		manager.serverProcessTerminated(SERVER, "p0");
+		manager.subscribe(client, new EventSubscription(
+				Arrays.asList(ServerManagementAPIConstants.EVENT_SERVER_PROCESS_TERMINATED), null));
+		verify(client, timeout(5000)).serverProcessTerminated(any(ServerProcess.class));
+	}
+
+	private static List<RSPClient> clients(RSPClient... clients) {
+		List<RSPClient> ret = new ArrayList<>();
+		Collections.addAll(ret, clients);
+		return ret;
+	}
+
+	private static ServerManagementServerImpl mockServerImpl() {
+		ServerManagementServerImpl impl = mock(ServerManagementServerImpl.class);
+		IServerManagementModel model = mock(IServerManagementModel.class);
+		when(impl.getModel()).thenReturn(model);
+		when(impl.getClients()).thenReturn(clients());
+		when(model.getServerModel()).thenReturn(mock(IServerModel.class));
+		when(model.getDiscoveryPathModel()).thenReturn(mock(IDiscoveryPathModel.class));
+		when(model.getJobManager()).thenReturn(mock(IJobManager.class));
+		return impl;
+	}
+}
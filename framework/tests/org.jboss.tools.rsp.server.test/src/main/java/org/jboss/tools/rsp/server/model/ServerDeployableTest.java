@@ -24,8 +24,12 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
@@ -40,6 +44,7 @@ import org.jboss.tools.rsp.eclipse.core.runtime.IStatus;
 import org.jboss.tools.rsp.eclipse.core.runtime.Status;
 import org.jboss.tools.rsp.launching.memento.IMemento;
 import org.jboss.tools.rsp.launching.memento.JSONMemento;
+import org.jboss.tools.rsp.server.RSPFlags;
 import org.jboss.tools.rsp.server.spi.model.IServerManagementModel;
 import org.jboss.tools.rsp.server.spi.servertype.IServer;
 import org.jboss.tools.rsp.server.spi.servertype.IServerDelegate;
@@ -316,6 +321,106 @@ public class ServerDeployableTest {
 		assertFalse(TestServerUtils.isOk(deployableStates[0]));
 	}
 
+	@Test
+	public void testPublishesDeployablesConcurrently() throws CoreException {
+		CountDownLatch allStarted = new CountDownLatch(3);
+		AtomicInteger numOfPublished = new AtomicInteger();
+		List<Integer> publishedAtFinish = new ArrayList<>();
+		ServerModel sm = TestServerUtils.createServerModel(
+				SERVER_FILENAME, serversDir,
+				TestServerUtils.getServerWithoutDeployablesString(SERVER_ID, SERVER_TYPE),
+				(IServer server) -> new TestServerDelegate(server) {
+
+					@Override
+					protected int getPublishThreadCount() {
+						return 3;
+					}
+
+					@Override
+					protected void publishDeployable(DeployableReference reference, int publishType,
+							int deployablemodulePublishType) throws CoreException {
+						// Only returns if all 3 deployables are being published at once
+						allStarted.countDown();
+						try {
+							if( !allStarted.await(10, TimeUnit.SECONDS))
+								throw new CoreException(Status.CANCEL_STATUS);
+						} catch(InterruptedException ie) {
+							throw new CoreException(Status.CANCEL_STATUS);
+						}
+						numOfPublished.incrementAndGet();
+						if( reference.getLabel().equals("gargamel")) {
+							throw new CoreException(Status.CANCEL_STATUS);
+						}
+					}
+
+					@Override
+					protected void publishFinish(int publishType) throws CoreException {
+						publishedAtFinish.add(numOfPublished.get());
+					}
+
+					@Override
+					protected void fireStateChanged(ServerState state) {
+						// Do nothing
+					}
+				},
+				SERVER_TYPE);
+		sm.addDeployable(server, deployable);
+		sm.addDeployable(server, new DeployableReference("gargamel", "/in/the/woods"));
+		sm.addDeployable(server, new DeployableReference("azrael", "/in/the/mousehole"));
+
+		IServer server = sm.getServer(SERVER_ID);
+		IStatus published = sm.publish(server, ServerManagementAPIConstants.PUBLISH_FULL);
+
+		assertEquals(3, numOfPublished.get());
+		// publishFinish only runs once every deployable is done
+		assertEquals(1, publishedAtFinish.size());
+		assertEquals(3, publishedAtFinish.get(0).intValue());
+		assertFalse(TestServerUtils.isOk(published));
+		assertEquals(1, published.getChildren().length);
+	}
+
+	@Test
+	public void testConcurrentPublishesShareThreads() throws CoreException {
+		Set<String> threads = Collections.synchronizedSet(new HashSet<>());
+		ServerModel sm = TestServerUtils.createServerModel(
+				SERVER_FILENAME, serversDir,
+				TestServerUtils.getServerWithoutDeployablesString(SERVER_ID, SERVER_TYPE),
+				(IServer server) -> new TestServerDelegate(server) {
+
+					@Override
+					protected int getPublishThreadCount() {
+						return 3;
+					}
+
+					@Override
+					protected void publishDeployable(DeployableReference reference, int publishType,
+							int deployablemodulePublishType) throws CoreException {
+						threads.add(Thread.currentThread().getName());
+					}
+
+					@Override
+					protected void fireStateChanged(ServerState state) {
+						// Do nothing
+					}
+				},
+				SERVER_TYPE);
+		sm.addDeployable(server, deployable);
+		sm.addDeployable(server, new DeployableReference("gargamel", "/in/the/woods"));
+		sm.addDeployable(server, new DeployableReference("azrael", "/in/the/mousehole"));
+
+		IServer server = sm.getServer(SERVER_ID);
+		String caller = Thread.currentThread().getName();
+		for( int i = 0; i < 10; i++ ) {
+			assertTrue(TestServerUtils.isOk(sm.publish(server, ServerManagementAPIConstants.PUBLISH_FULL)));
+		}
+		threads.remove(caller);
+		// no pool is created per publish, the threads of the shared one are reused
+		assertTrue(threads.size() <= RSPFlags.getPublishThreads());
+		for( String name : threads ) {
+			assertTrue(name, name.startsWith("RSP Publish "));
+		}
+	}
+
 	@Test
 	public void testGetDeployableState() {
 		sm.addDeployable(server, deployable);
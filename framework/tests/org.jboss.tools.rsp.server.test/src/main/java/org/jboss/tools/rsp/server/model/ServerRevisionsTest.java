@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.tools.rsp.api.RSPClient;
+import org.jboss.tools.rsp.api.dao.ServerHandle;
+import org.jboss.tools.rsp.api.dao.ServerState;
+import org.jboss.tools.rsp.api.dao.ServerStateRevisions;
+import org.jboss.tools.rsp.api.dao.ServerStatesDelta;
+import org.jboss.tools.rsp.server.ServerManagementServerImpl;
+import org.jboss.tools.rsp.server.spi.discovery.IDiscoveryPathModel;
+import org.jboss.tools.rsp.server.spi.jobs.IJobManager;
+import org.jboss.tools.rsp.server.spi.model.IServerManagementModel;
+import org.jboss.tools.rsp.server.spi.model.IServerModel;
+import org.jboss.tools.rsp.server.spi.servertype.IServer;
+import org.jboss.tools.rsp.server.spi.servertype.IServerDelegate;
+import org.junit.Test;
+
+public class ServerRevisionsTest {
+
+	@Test
+	public void revisionsIncreaseAcrossServers() {
+		ServerRevisions revisions = new ServerRevisions("run", 100);
+		assertEquals(101, revisions.changed("wf"));
+		assertEquals(102, revisions.changed("eap"));
+		assertEquals(101, revisions.getRevision("wf"));
+		assertEquals(103, revisions.changed("wf"));
+		// unknown servers get a revision when first asked
+		assertEquals(104, revisions.getRevision("tomcat"));
+	}
+
+	@Test
+	public void eachRunHasItsOwnEpoch() {
+		assertNotEquals(new ServerRevisions().getEpoch(), new ServerRevisions().getEpoch());
+	}
+
+	@Test
+	public void changedSinceKnownRevisions() {
+		ServerRevisions revisions = new ServerRevisions("run", 0);
+		revisions.changed("wf");
+		revisions.changed("eap");
+		Map<String, Long> known = new HashMap<>();
+		known.put("wf", 1L);
+		known.put("eap", 2L);
+		assertEquals(Collections.emptyList(), revisions.getChanged(Arrays.asList("wf", "eap"), "run", known));
+		revisions.changed("wf");
+		assertEquals(Arrays.asList("wf"), revisions.getChanged(Arrays.asList("wf", "eap"), "run", known));
+		assertEquals(Arrays.asList("wf", "eap"), revisions.getChanged(Arrays.asList("wf", "eap"), "run", null));
+	}
+
+	@Test
+	public void revisionsOfAnotherEpochAreUnknown() {
+		// the previous run saw more changes than this one
+		ServerRevisions revisions = new ServerRevisions("restarted", 0);
+		revisions.changed("wf");
+		revisions.changed("eap");
+		Map<String, Long> known = new HashMap<>();
+		known.put("wf", 1000L);
+		known.put("eap", 1000L);
+		assertEquals(Arrays.asList("wf", "eap"), revisions.getChanged(Arrays.asList("wf", "eap"), "run", known));
+		assertEquals(Arrays.asList("wf", "eap"), revisions.getChanged(Arrays.asList("wf", "eap"), null, known));
+	}
+
+	@Test
+	public void reconnectingClientReceivesOnlyChanges() {
+		Map<String, IServer> servers = new HashMap<>();
+		servers.put("wf", mockServer("wf"));
+		servers.put("eap", mockServer("eap"));
+		RemoteEventManager manager = new RemoteEventManager(mockServerImpl(servers));
+		RSPClient client = mock(RSPClient.class);
+
+		ServerStatesDelta all = manager.resyncServerStates(client, null);
+		assertEquals(2, all.getChanged().size());
+		Map<String, Long> known = new HashMap<>();
+		String epoch = null;
+		for( ServerState s : all.getChanged()) {
+			known.put(s.getServer().getId(), s.getRevision());
+			epoch = s.getEpoch();
+		}
+		known.put("tomcat", 1L);
+
+		manager.serverStateChanged(servers.get("eap").getDelegate().getServerState().getServer(), 
+				servers.get("eap").getDelegate().getServerState());
+		ServerStatesDelta delta = manager.resyncServerStates(client, new ServerStateRevisions(known, epoch));
+
+		assertEquals(1, delta.getChanged().size());
+		assertEquals("eap", delta.getChanged().get(0).getServer().getId());
+		assertTrue(delta.getChanged().get(0).getRevision() > known.get("eap"));
+		assertEquals(Arrays.asList("tomcat"), delta.getRemoved());
+		// the resync replaced sending all states
+		manager.clientRegistered(client);
+		verify(client, never()).serverStateChanged(any(ServerState.class));
+	}
+
+	@Test
+	public void clientReconnectingAfterRestartReceivesAllStates() {
+		Map<String, IServer> servers = new HashMap<>();
+		servers.put("wf", mockServer("wf"));
+		servers.put("eap", mockServer("eap"));
+		RSPClient client = mock(RSPClient.class);
+		ServerStatesDelta before = new RemoteEventManager(mockServerImpl(servers)).resyncServerStates(client, null);
+		Map<String, Long> known = new HashMap<>();
+		for( ServerState s : before.getChanged()) {
+			// revisions of the previous run may be above those of the new one
+			known.put(s.getServer().getId(), s.getRevision() + 1000);
+		}
+		String epoch = before.getChanged().get(0).getEpoch();
+
+		RemoteEventManager restarted = new RemoteEventManager(mockServerImpl(servers));
+		ServerStatesDelta delta = restarted.resyncServerStates(client, new ServerStateRevisions(known, epoch));
+
+		assertEquals(2, delta.getChanged().size());
+		assertNotEquals(epoch, delta.getChanged().get(0).getEpoch());
+		assertEquals(Collections.emptyList(), delta.getRemoved());
+	}
+
+	private IServer mockServer(String id) {
+		IServer server = mock(IServer.class);
+		IServerDelegate delegate = mock(IServerDelegate.class);
+		when(server.getId()).thenReturn(id);
+		when(server.getDelegate()).thenReturn(delegate);
+		when(delegate.getServerState()).thenAnswer(invocation -> {
+			ServerState state = new ServerState();
+			state.setServer(new ServerHandle(id, null));
+			return state;
+		});
+		return server;
+	}
+
+	private ServerManagementServerImpl mockServerImpl(Map<String, IServer> servers) {
+		ServerManagementServerImpl impl = mock(ServerManagementServerImpl.class);
+		IServerManagementModel model = mock(IServerManagementModel.class);
+		IServerModel serverModel = mock(IServerModel.class);
+		when(impl.getModel()).thenReturn(model);
+		when(impl.getClients()).thenReturn(Collections.<RSPClient>emptyList());
+		when(model.getServerModel()).thenReturn(serverModel);
+		when(model.getDiscoveryPathModel()).thenReturn(mock(IDiscoveryPathModel.class));
+		when(model.getJobManager()).thenReturn(mock(IJobManager.class));
+		when(serverModel.getServers()).thenReturn(servers);
+		when(serverModel.getServer(any(String.class))).thenAnswer(
+				invocation -> servers.get(invocation.getArguments()[0]));
+		return impl;
+	}
+}
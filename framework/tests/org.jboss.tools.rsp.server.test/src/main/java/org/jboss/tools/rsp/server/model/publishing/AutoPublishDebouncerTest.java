@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.model.publishing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.tools.rsp.server.model.internal.publishing.AutoPublishDebouncer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AutoPublishDebouncerTest {
+
+	private ScheduledExecutorService timer;
+	private ExecutorService pool;
+	private AutoPublishDebouncer debouncer;
+
+	@Before
+	public void before() {
+		this.timer = Executors.newSingleThreadScheduledExecutor();
+		this.pool = Executors.newCachedThreadPool();
+		this.debouncer = new AutoPublishDebouncer(timer, pool);
+	}
+
+	@After
+	public void after() {
+		timer.shutdownNow();
+		pool.shutdownNow();
+	}
+
+	@Test
+	public void testPublishAfterNoActivity() {
+		AtomicInteger published = new AtomicInteger();
+		debouncer.schedule("s1", 300, published::incrementAndGet);
+		assertTrue(debouncer.isPending("s1"));
+		wait(100);
+		assertEquals(0, published.get());
+		wait(400);
+		assertEquals(1, published.get());
+		assertFalse(debouncer.isPending("s1"));
+	}
+
+	@Test
+	public void testContinuousActivityPostponesPublish() {
+		AtomicInteger published = new AtomicInteger();
+		// A change every 100 ms for a second never lets 300 ms of quiet pass
+		for( int i = 0; i < 10; i++ ) {
+			debouncer.schedule("s1", 300, published::incrementAndGet);
+			wait(100);
+			assertEquals(0, published.get());
+		}
+		wait(500);
+		assertEquals(1, published.get());
+	}
+
+	@Test
+	public void testServersAreIndependent() {
+		AtomicInteger published1 = new AtomicInteger();
+		AtomicInteger published2 = new AtomicInteger();
+		debouncer.schedule("s1", 100, published1::incrementAndGet);
+		for( int i = 0; i < 5; i++ ) {
+			debouncer.schedule("s2", 300, published2::incrementAndGet);
+			wait(100);
+		}
+		assertEquals(1, published1.get());
+		assertEquals(0, published2.get());
+		wait(500);
+		assertEquals(1, published2.get());
+	}
+
+	@Test
+	public void testChangesDuringPublishAreCoalesced() throws InterruptedException {
+		CountDownLatch publishing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger published = new AtomicInteger();
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		Runnable publish = () -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			publishing.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+			published.incrementAndGet();
+			running.decrementAndGet();
+		};
+		debouncer.schedule("s1", 50, publish);
+		assertTrue(publishing.await(5, TimeUnit.SECONDS));
+
+		// Changes while publishing result in a single follow-up publish
+		for( int i = 0; i < 5; i++ ) {
+			debouncer.schedule("s1", 50, publish);
+		}
+		wait(200);
+		assertEquals(0, published.get());
+		release.countDown();
+		wait(400);
+		assertEquals(2, published.get());
+		assertEquals(1, maxRunning.get());
+		assertFalse(debouncer.isPending("s1"));
+	}
+
+	@Test
+	public void testCancel() {
+		AtomicInteger published = new AtomicInteger();
+		debouncer.schedule("s1", 200, published::incrementAndGet);
+		debouncer.cancel("s1");
+		assertFalse(debouncer.isPending("s1"));
+		wait(400);
+		assertEquals(0, published.get());
+	}
+
+	@Test
+	public void testFailedPublishDoesNotBlockLaterOnes() {
+		AtomicInteger published = new AtomicInteger();
+		debouncer.schedule("s1", 50, () -> {
+			throw new IllegalStateException("Expected by test");
+		});
+		wait(300);
+		assertFalse(debouncer.isPending("s1"));
+		debouncer.schedule("s1", 50, published::incrementAndGet);
+		wait(300);
+		assertEquals(1, published.get());
+	}
+
+	private void wait(int duration) {
+		try {
+			Thread.sleep(duration);
+		} catch(InterruptedException ie) {
+			Thread.interrupted();
+		}
+	}
+}
@@ -14,6 +14,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
+import java.util.Map;
 
 import org.assertj.core.data.MapEntry;
 import org.jboss.tools.rsp.api.dao.DeployableReference;
@@ -237,4 +238,72 @@ public class DeployableDeltaTest {
 		assertThat(delta.getResourceDeltaMap())
 			.containsExactly(MapEntry.entry(BATMAN, IDeployableResourceDelta.CREATED));
 	}
+
+	@Test
+	public void shouldReturnViewUnaffectedByLaterChanges() {
+		// given
+		delta.registerChange(
+				new FileWatcherEvent(DEPLOYABLE_PATH.resolve(BATMAN), StandardWatchEventKinds.ENTRY_CREATE));
+		Map<Path, Integer> view = delta.getResourceDeltaMap();
+		// when
+		delta.registerChange(
+				new FileWatcherEvent(DEPLOYABLE_PATH.resolve(BATMANS_CAPE), StandardWatchEventKinds.ENTRY_CREATE));
+		delta.clear();
+		// then
+		assertThat(view)
+			.containsExactly(MapEntry.entry(BATMAN, IDeployableResourceDelta.CREATED));
+		assertThat(delta.getResourceDeltaMap()).isEmpty();
+	}
+
+	@Test
+	public void shouldCollapseFolderWithManyChanges() {
+		// given
+		DeployableDelta collapsing = new DeployableDelta(deployable, 3);
+		// when
+		for( int i = 0; i < 4; i++ ) {
+			collapsing.registerChange(new FileWatcherEvent(
+					DEPLOYABLE_PATH.resolve(BATMANS_CAPE).resolve("thread" + i), StandardWatchEventKinds.ENTRY_MODIFY));
+		}
+		collapsing.registerChange(new FileWatcherEvent(
+				DEPLOYABLE_PATH.resolve(BATMANS_CAPE).resolve("thread9"), StandardWatchEventKinds.ENTRY_CREATE));
+		collapsing.registerChange(new FileWatcherEvent(
+				DEPLOYABLE_PATH.resolve(BATMAN).resolve("mask"), StandardWatchEventKinds.ENTRY_DELETE));
+		// then
+		assertThat(collapsing.getResourceDeltaMap())
+			.containsOnly(
+					MapEntry.entry(BATMANS_CAPE, IDeployableResourceDelta.SUBTREE_CHANGED),
+					MapEntry.entry(BATMAN.resolve("mask"), IDeployableResourceDelta.DELETED));
+	}
+
+	@Test
+	public void shouldCollapseParentFolderOfCollapsedFolders() {
+		// given
+		DeployableDelta collapsing = new DeployableDelta(deployable, 2);
+		// when
+		for( int i = 0; i < 3; i++ ) {
+			for( int j = 0; j < 3; j++ ) {
+				collapsing.registerChange(new FileWatcherEvent(
+						DEPLOYABLE_PATH.resolve(BATMAN).resolve("gadget" + i).resolve("part" + j), 
+						StandardWatchEventKinds.ENTRY_MODIFY));
+			}
+		}
+		// then
+		assertThat(collapsing.getResourceDeltaMap())
+			.containsExactly(MapEntry.entry(BATMAN, IDeployableResourceDelta.SUBTREE_CHANGED));
+	}
+
+	@Test
+	public void shouldNotCollapseAfterEntriesCancelOut() {
+		// given
+		DeployableDelta collapsing = new DeployableDelta(deployable, 2);
+		Path robin = BATMAN.resolve("robin");
+		collapsing.registerChange(new FileWatcherEvent(DEPLOYABLE_PATH.resolve(robin), StandardWatchEventKinds.ENTRY_CREATE));
+		collapsing.registerChange(new FileWatcherEvent(DEPLOYABLE_PATH.resolve(robin), StandardWatchEventKinds.ENTRY_DELETE));
+		// when
+		collapsing.registerChange(new FileWatcherEvent(DEPLOYABLE_PATH.resolve(BATMANS_CAPE), StandardWatchEventKinds.ENTRY_MODIFY));
+		collapsing.registerChange(new FileWatcherEvent(DEPLOYABLE_PATH.resolve(BATMAN.resolve("belt")), StandardWatchEventKinds.ENTRY_MODIFY));
+		// then
+		assertThat(collapsing.getResourceDeltaMap()).hasSize(2);
+		assertThat(collapsing.getResourceDeltaMap().get(BATMANS_CAPE)).isEqualTo(IDeployableResourceDelta.MODIFIED);
+	}
 }
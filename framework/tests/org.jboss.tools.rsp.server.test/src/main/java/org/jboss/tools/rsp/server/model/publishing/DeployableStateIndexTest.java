@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.model.publishing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
+import org.jboss.tools.rsp.api.dao.DeployableReference;
+import org.jboss.tools.rsp.api.dao.DeployableState;
+import org.jboss.tools.rsp.server.model.internal.publishing.DeployableStateIndex;
+import org.junit.Test;
+
+public class DeployableStateIndexTest {
+
+	private static final String ROOT = new File("/tmp/deployments").getAbsolutePath();
+
+	@Test
+	public void testFindsRootsByPath() {
+		DeployableStateIndex index = new DeployableStateIndex(states(
+				state("a", ServerManagementAPIConstants.PUBLISH_STATE_NONE),
+				state("a/nested", ServerManagementAPIConstants.PUBLISH_STATE_NONE),
+				state("b", ServerManagementAPIConstants.PUBLISH_STATE_NONE)));
+		assertEquals(path("a"), index.getKey(new File(path("a")).toPath()));
+		assertEquals(path("a/nested"), index.getKey(new File(path("a/nested")).toPath()));
+		assertNull(index.getKey(new File(path("a/nested/file.txt")).toPath()));
+		assertNull(index.getKey(new File(ROOT).toPath()));
+
+		int found = 0;
+		for( Path p = new File(path("a/nested/WEB-INF/web.xml")).toPath(); p != null; p = p.getParent()) {
+			if( index.getKey(p) != null )
+				found++;
+		}
+		assertEquals(2, found);
+	}
+
+	@Test
+	public void testCountsFollowChanges() {
+		DeployableStateIndex index = new DeployableStateIndex(states(
+				state("a", ServerManagementAPIConstants.PUBLISH_STATE_NONE),
+				state("b", ServerManagementAPIConstants.PUBLISH_STATE_NONE),
+				state("c", ServerManagementAPIConstants.PUBLISH_STATE_ADD)));
+		assertEquals(2, index.getCount(ServerManagementAPIConstants.PUBLISH_STATE_NONE));
+		assertEquals(1, index.getCount(ServerManagementAPIConstants.PUBLISH_STATE_ADD));
+
+		index.setPublishState(path("a"), ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL);
+		assertEquals(1, index.getCount(ServerManagementAPIConstants.PUBLISH_STATE_NONE));
+		assertEquals(1, index.getCount(ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL));
+
+		// replacing a state moves it between counts
+		index.put(path("c"), state("c", ServerManagementAPIConstants.PUBLISH_STATE_NONE));
+		assertEquals(0, index.getCount(ServerManagementAPIConstants.PUBLISH_STATE_ADD));
+		assertEquals(2, index.getCount(ServerManagementAPIConstants.PUBLISH_STATE_NONE));
+
+		index.remove(path("b"));
+		index.remove(path("b"));
+		index.setPublishState(path("b"), ServerManagementAPIConstants.PUBLISH_STATE_FULL);
+		assertEquals(1, index.getCount(ServerManagementAPIConstants.PUBLISH_STATE_NONE));
+		assertEquals(0, index.getCount(ServerManagementAPIConstants.PUBLISH_STATE_FULL));
+		assertNull(index.getKey(new File(path("b")).toPath()));
+		assertEquals(0, index.getCount(-1));
+	}
+
+	private static Map<String, DeployableState> states(DeployableState... states) {
+		Map<String, DeployableState> map = new LinkedHashMap<>();
+		for( DeployableState ds : states ) {
+			map.put(ds.getReference().getPath(), ds);
+		}
+		return map;
+	}
+
+	private static DeployableState state(String name, int publishState) {
+		DeployableState ds = new DeployableState();
+		ds.setReference(new DeployableReference(name, path(name)));
+		ds.setPublishState(publishState);
+		return ds;
+	}
+
+	private static String path(String name) {
+		return new File(ROOT, name).getPath();
+	}
+}
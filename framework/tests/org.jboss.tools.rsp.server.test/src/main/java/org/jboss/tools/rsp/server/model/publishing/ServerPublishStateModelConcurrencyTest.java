@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Red Hat, Inc. Distributed under license by Red Hat, Inc.
+ * All rights reserved. This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors: Red Hat, Inc.
+ ******************************************************************************/
+package org.jboss.tools.rsp.server.model.publishing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
+import org.jboss.tools.rsp.api.dao.DeployableReference;
+import org.jboss.tools.rsp.api.dao.DeployableState;
+import org.jboss.tools.rsp.server.model.AbstractServerDelegate;
+import org.jboss.tools.rsp.server.model.publishing.ServerPublishStateModelTest.TestableServerPublishStateModel;
+import org.jboss.tools.rsp.server.spi.filewatcher.FileWatcherEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ServerPublishStateModelConcurrencyTest {
+
+	private static final int DEPLOYABLES = 20;
+	private static final int READERS = 4;
+	private static final int WRITERS = 2;
+	private static final long DURATION = 1000;
+
+	private TestableServerPublishStateModel model;
+	private List<DeployableReference> references;
+
+	@Before
+	public void before() throws IOException {
+		this.model = new TestableServerPublishStateModel(mock(AbstractServerDelegate.class), null);
+		this.references = new ArrayList<>();
+		for( int i = 0; i < DEPLOYABLES; i++ ) {
+			Path dir = Files.createTempDirectory(getClass().getSimpleName() + i);
+			references.add(new DeployableReference("d" + i, dir.toString()));
+		}
+		model.initialize(references);
+	}
+
+	@Test
+	public void testReadsDuringFileChangeBursts() throws InterruptedException {
+		AtomicBoolean done = new AtomicBoolean(false);
+		ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+		AtomicLong reads = new AtomicLong();
+		List<Thread> threads = new ArrayList<>();
+		for( int i = 0; i < READERS; i++ ) {
+			threads.add(new Thread(() -> {
+				try {
+					while( !done.get()) {
+						List<DeployableState> states = model.getDeployableStates();
+						assertEquals(DEPLOYABLES, states.size());
+						for( DeployableState ds : states ) {
+							assertNotNull(ds.getReference());
+							assertTrue(isValidPublishState(ds.getPublishState()));
+						}
+						for( DeployableReference ref : references ) {
+							assertNotNull(model.getDeployableState(ref));
+							assertTrue(model.contains(ref));
+						}
+						assertTrue(isValidPublishState(model.getServerPublishState()));
+						reads.incrementAndGet();
+					}
+				} catch(Throwable t) {
+					failures.add(t);
+				}
+			}, "Reader " + i));
+		}
+		for( int i = 0; i < WRITERS; i++ ) {
+			int writer = i;
+			threads.add(new Thread(() -> {
+				try {
+					int n = 0;
+					while( !done.get()) {
+						DeployableReference ref = references.get((n + writer) % DEPLOYABLES);
+						List<FileWatcherEvent> burst = new ArrayList<>();
+						for( int j = 0; j < 50; j++ ) {
+							burst.add(new FileWatcherEvent(
+									Paths.get(ref.getPath(), "file" + j),
+									StandardWatchEventKinds.ENTRY_MODIFY));
+						}
+						model.filesChanged(burst);
+						model.setDeployablePublishState(ref, ServerManagementAPIConstants.PUBLISH_STATE_NONE);
+						model.setDeployableState(ref, ServerManagementAPIConstants.STATE_STARTED);
+						n++;
+					}
+				} catch(Throwable t) {
+					failures.add(t);
+				}
+			}, "Writer " + i));
+		}
+		threads.forEach(Thread::start);
+		Thread.sleep(DURATION);
+		done.set(true);
+		for( Thread t : threads ) {
+			t.join(5000);
+		}
+		if( !failures.isEmpty()) {
+			throw new AssertionError(failures.peek());
+		}
+		assertTrue(reads.get() > 0);
+	}
+
+	@Test
+	public void testReadsDoNotWaitForWriters() throws InterruptedException {
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread holder = new Thread(() -> {
+			synchronized(model) {
+				locked.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch(InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		holder.start();
+		assertTrue(locked.await(5, TimeUnit.SECONDS));
+		try {
+			CountDownLatch read = new CountDownLatch(1);
+			Thread reader = new Thread(() -> {
+				model.getDeployableStates();
+				model.getDeployableState(references.get(0));
+				model.getServerPublishState();
+				read.countDown();
+			});
+			reader.start();
+			// The model's lock is held, yet the reads complete
+			assertTrue(read.await(5, TimeUnit.SECONDS));
+		} finally {
+			release.countDown();
+			holder.join();
+		}
+	}
+
+	private static boolean isValidPublishState(int state) {
+		return state >= ServerManagementAPIConstants.PUBLISH_STATE_NONE
+				&& state <= ServerManagementAPIConstants.PUBLISH_STATE_UNKNOWN;
+	}
+}
@@ -33,6 +33,7 @@ import java.nio.file.Paths;
 import java.nio.file.StandardWatchEventKinds;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -47,7 +48,6 @@ import org.jboss.tools.rsp.eclipse.core.runtime.CoreException;
 import org.jboss.tools.rsp.eclipse.core.runtime.IStatus;
 import org.jboss.tools.rsp.server.model.AbstractServerDelegate;
 import org.jboss.tools.rsp.server.model.ServerModel;
-import org.jboss.tools.rsp.server.model.internal.publishing.AutoPublishThread;
 import org.jboss.tools.rsp.server.model.internal.publishing.DeployableDelta;
 import org.jboss.tools.rsp.server.model.internal.publishing.ServerPublishStateModel;
 import org.jboss.tools.rsp.server.spi.filewatcher.FileWatcherEvent;
@@ -178,6 +178,22 @@ public class ServerPublishStateModelTest {
 		assertThat(model.contains(danglingDeployable)).isTrue();
 	}
 
+	@Test
+	public void shouldFillOptionsOnACopyOfTheReference() {
+		// given
+		DeployableReference withOptions = createDeployableReference(danglingDeployable.getPath());
+		withOptions.setOptions(Collections.singletonMap("key", "value"));
+		model.addDeployable(withOptions);
+		DeployableReference shared = model.getDeployableState(danglingDeployable).getReference();
+		// when
+		DeployableReference filled = model.fillOptionsFromCache(shared);
+		// then
+		assertThat(filled).isNotSameAs(shared);
+		assertThat(filled.getOptions()).containsEntry("key", "value");
+		assertThat(shared.getOptions()).isNull();
+		assertThat(model.getDeployableState(danglingDeployable).getReference().getOptions()).isNull();
+	}
+
 	@Test
 	public void shouldNotAddDeployableIfItAlreadyExists() {
 		// given
@@ -640,6 +656,41 @@ public class ServerPublishStateModelTest {
 		assertEquals(ds1.getPublishState(), ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL);
 	}
 
+	@Test
+	public void shouldRegisterAllDeltasFromBatchedChanges() throws IOException, CoreException {
+		// given
+		ServerHandle sh = new ServerHandle("server.one", new ServerType("servertype.id", "servertype.name", "servertype.desc"));
+		DeployableState deployableDirectoryState = 
+				new DeployableState(sh, deployableDirectory, -1,
+						ServerManagementAPIConstants.PUBLISH_STATE_NONE);
+		DeployableState deployableFileState = 
+				new DeployableState(sh, deployableFile,  -1,
+						ServerManagementAPIConstants.PUBLISH_STATE_NONE);
+
+		TestableServerPublishStateModel modelSpy = fakeDeployableStates(
+				deployableFileState,
+				deployableDirectoryState);
+		assertThat(modelSpy.getDeltas()).isEmpty();
+
+		// when
+		modelSpy.filesChanged(Arrays.asList(
+				new FileWatcherEvent(Paths.get(deployableDirectory.getPath(), "batman"), 
+						StandardWatchEventKinds.ENTRY_CREATE),
+				new FileWatcherEvent(Paths.get(deployableDirectory.getPath(), "robin"), 
+						StandardWatchEventKinds.ENTRY_MODIFY)));
+
+		// then
+		assertThat(modelSpy.getDeltas()).hasSize(1);
+		DeployableDelta delta = modelSpy.getDeltas().get(modelSpy.getKey(deployableDirectory));
+		assertThat(delta.getResourceDeltaMap()).hasSize(2);
+		Map<String, DeployableState> states2 = modelSpy.getStates();
+		assertEquals(ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL, 
+				states2.get(deployableDirectory.getPath()).getPublishState());
+		assertEquals(ServerManagementAPIConstants.PUBLISH_STATE_NONE, 
+				states2.get(deployableFile.getPath()).getPublishState());
+		assertEquals(ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL, modelSpy.getServerPublishState());
+	}
+
 	@Test
 	public void shouldMarkModuleRequiresFullPublishFromCallback() throws IOException, CoreException {
 		AbstractServerDelegate delegate = mock(AbstractServerDelegate.class);
@@ -950,6 +1001,46 @@ public class ServerPublishStateModelTest {
 	}
 	
 	
+	@Test
+	public void testAutoPublishOnlyStartedServersWithChanges() {
+		AbstractServerDelegate delegate = mock(AbstractServerDelegate.class);
+		StateTestServerPublishStateModel model2 = new StateTestServerPublishStateModel(delegate);
+		assertTrue(model2.autoPublishWith(ServerManagementAPIConstants.STATE_STARTED, 
+				ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL));
+		assertTrue(model2.autoPublishWith(ServerManagementAPIConstants.STATE_STARTED, 
+				ServerManagementAPIConstants.PUBLISH_STATE_FULL));
+		assertFalse(model2.autoPublishWith(ServerManagementAPIConstants.STATE_STARTED, 
+				ServerManagementAPIConstants.PUBLISH_STATE_NONE));
+		assertFalse(model2.autoPublishWith(ServerManagementAPIConstants.STATE_STOPPED, 
+				ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL));
+		assertFalse(model2.autoPublishWith(ServerManagementAPIConstants.STATE_STOPPED, 
+				ServerManagementAPIConstants.PUBLISH_STATE_NONE));
+	}
+
+	private static class StateTestServerPublishStateModel extends TestableServerPublishStateModel {
+		private ServerState state;
+		private boolean published;
+		public StateTestServerPublishStateModel(AbstractServerDelegate delegate) {
+			super(delegate, null);
+		}
+		public boolean autoPublishWith(int runState, int publishState) {
+			this.state = new ServerState();
+			state.setState(runState);
+			state.setPublishState(publishState);
+			this.published = false;
+			autoPublish();
+			return published;
+		}
+		@Override
+		protected ServerState getServerState() {
+			return state;
+		}
+		@Override
+		protected void autoPublishImpl() {
+			published = true;
+		}
+	}
+
 	public class TestableServerPublishStateModelWithAutoPublisher2 extends TestableServerPublishStateModel {
 		private int publishCalled = 0;
 		private int createNewAutoPublishThreadCalled = 0;
@@ -963,32 +1054,34 @@ public class ServerPublishStateModelTest {
 		protected int getInactivityTimeout() {
 			return 300;
 		}
-		protected AutoPublishThread createNewAutoPublishThread(int timeout) {
-			incrementCreateCalled();
-			return new AutoPublishThread(null, timeout) {
-				@Override
-				protected void publishImpl() {
-					incrementPublishCalled();
-				}
-				@Override
-				protected ServerState getServerState() {
-					ServerState ss = new ServerState();
-					ss.setPublishState(ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL);
-					ss.setState(ServerManagementAPIConstants.STATE_STARTED);
-					return ss;
-				}
-
-			};
+		@Override
+		protected void launchOrUpdateAutopublishThreadImpl() {
+			if( !getAutoPublishDebouncer().isPending(this)) {
+				// A new publish cycle begins
+				incrementCreateCalled();
+			}
+			super.launchOrUpdateAutopublishThreadImpl();
+		}
+		@Override
+		protected void autoPublishImpl() {
+			incrementPublishCalled();
+		}
+		@Override
+		protected ServerState getServerState() {
+			ServerState ss = new ServerState();
+			ss.setPublishState(ServerManagementAPIConstants.PUBLISH_STATE_INCREMENTAL);
+			ss.setState(ServerManagementAPIConstants.STATE_STARTED);
+			return ss;
 		}
 
-		private void incrementPublishCalled() {
+		private synchronized void incrementPublishCalled() {
 			publishCalled = publishCalled+1;
 		}
 		
 		public synchronized int getPublishCalled() {
 			return publishCalled;
 		}
-		private void incrementCreateCalled() {
+		private synchronized void incrementCreateCalled() {
 			createNewAutoPublishThreadCalled = createNewAutoPublishThreadCalled+1;
 		}
 		
@@ -20,6 +20,7 @@ import org.jboss.tools.rsp.server.minishift.impl.Activator;
 import org.jboss.tools.rsp.server.minishift.servertype.IMinishiftServerAttributes;
 import org.jboss.tools.rsp.server.spi.model.polling.AbstractPoller;
 import org.jboss.tools.rsp.server.spi.model.polling.IServerStatePoller;
+import org.jboss.tools.rsp.server.spi.model.polling.PollingPolicy;
 import org.jboss.tools.rsp.server.spi.servertype.IServer;
 
 public class CRCStatusPoller extends AbstractPoller implements IServerStatePoller{
@@ -79,4 +80,9 @@ public class CRCStatusPoller extends AbstractPoller implements IServerStatePolle
 		return "CRC Poller: " + getServer().getName();
 	}
 
+	@Override
+	protected PollingPolicy getPollingPolicy() {
+		return MinishiftStatusPoller.STATUS_POLICY;
+	}
+
 }
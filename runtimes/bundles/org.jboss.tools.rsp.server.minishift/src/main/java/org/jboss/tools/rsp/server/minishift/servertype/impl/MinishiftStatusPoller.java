@@ -23,14 +23,25 @@ import org.jboss.tools.rsp.server.minishift.servertype.IMinishiftServerAttribute
 import org.jboss.tools.rsp.server.minishift.servertype.MinishiftPropertyUtility;
 import org.jboss.tools.rsp.server.spi.model.polling.AbstractPoller;
 import org.jboss.tools.rsp.server.spi.model.polling.IServerStatePoller;
+import org.jboss.tools.rsp.server.spi.model.polling.PollingPolicy;
 import org.jboss.tools.rsp.server.spi.servertype.IServer;
 
 public class MinishiftStatusPoller extends AbstractPoller implements IServerStatePoller {
-	
+
+	/*
+	 * Each ping spawns a status process, and the VM takes minutes to start
+	 */
+	static final PollingPolicy STATUS_POLICY = new PollingPolicy(1000, 10000, 1.5, 0.2);
+
 	@Override
 	protected String getThreadName() {
 		return "Minishift Poller: " + getServer().getName();
 	}
+
+	@Override
+	protected PollingPolicy getPollingPolicy() {
+		return STATUS_POLICY;
+	}
 	public String getMinishiftCommand(IServer server) {
 		return server.getAttribute(IMinishiftServerAttributes.MINISHIFT_BINARY, (String) null);
 	}
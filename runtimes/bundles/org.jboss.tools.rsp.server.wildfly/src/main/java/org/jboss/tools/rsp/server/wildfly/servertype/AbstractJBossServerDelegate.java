@@ -42,7 +42,7 @@ import org.jboss.tools.rsp.server.spi.model.polling.IPollResultListener;
 import org.jboss.tools.rsp.server.spi.model.polling.IServerStatePoller;
 import org.jboss.tools.rsp.server.spi.model.polling.IServerStatePoller.SERVER_STATE;
 import org.jboss.tools.rsp.server.spi.model.polling.PollThreadUtils;
-import org.jboss.tools.rsp.server.spi.model.polling.WebPortPoller;
+import org.jboss.tools.rsp.server.spi.model.polling.NioWebPortPoller;
 import org.jboss.tools.rsp.server.spi.publishing.IPublishController;
 import org.jboss.tools.rsp.server.spi.servertype.CreateServerValidation;
 import org.jboss.tools.rsp.server.spi.servertype.IServer;
@@ -246,7 +246,7 @@ public abstract class AbstractJBossServerDelegate extends AbstractServerDelegate
 	}
 	
 	private IServerStatePoller getDefaultWebPortPoller() {
-		return new WebPortPoller("Web Poller: " + this.getServer().getName()) {
+		return new NioWebPortPoller("Web Poller: " + this.getServer().getName()) {
 			@Override
 			protected String getURL(IServer server) {
 				return getPollURL(server);
@@ -376,6 +376,15 @@ public abstract class AbstractJBossServerDelegate extends AbstractServerDelegate
 		util.addAttribute(ServerManagementAPIConstants.DEPLOYMENT_OPTION_OUTPUT_NAME, 
 				ServerManagementAPIConstants.ATTR_TYPE_STRING,
 				"Customize the output name including extension for this deployment. Example: sample.war (Leave blank for default)", null);
+		util.addAttribute(ServerManagementAPIConstants.DEPLOYMENT_OPTION_WATCH_INCLUDES, 
+				ServerManagementAPIConstants.ATTR_TYPE_STRING,
+				"Comma-separated globs of the folders to watch in an exploded deployment. Example: WEB-INF/classes/** (Leave blank to watch all folders)", null);
+		util.addAttribute(ServerManagementAPIConstants.DEPLOYMENT_OPTION_WATCH_EXCLUDES, 
+				ServerManagementAPIConstants.ATTR_TYPE_STRING,
+				"Comma-separated globs of the folders never to watch in an exploded deployment. Example: **/.git/**,**/node_modules/**", null);
+		util.addAttribute(ServerManagementAPIConstants.DEPLOYMENT_OPTION_LINK_FILES, 
+				ServerManagementAPIConstants.ATTR_TYPE_BOOL,
+				"Publish an exploded deployment as hard links to its files instead of copies. Files are copied if the deployment folder is on another filesystem.", false);
 		return util.toPojo();
 	}
 
@@ -422,16 +431,11 @@ public abstract class AbstractJBossServerDelegate extends AbstractServerDelegate
 		List<DeployableState> existing = getServerPublishModel().getDeployableStates();
 		List<DeployableState> updated = dummyServer.getDelegate().getServerPublishModel().getDeployableStates();
 		
-		List<DeployableReference> existingRefs = existing.stream().map(s -> s.getReference()).collect(Collectors.toList());
-		List<DeployableReference> updatedRefs = updated.stream().map(s -> s.getReference()).collect(Collectors.toList());
-		
-		for( DeployableReference ds : existingRefs ) {
-			getServerPublishModel().fillOptionsFromCache(ds);
-		}
-
-		for( DeployableReference ds : updatedRefs ) {
-			dummyServer.getDelegate().getServerPublishModel().fillOptionsFromCache(ds);
-		}
+		// Copies of the references, which are shared with other readers of the models
+		List<DeployableReference> existingRefs = existing.stream().map(
+				s -> getServerPublishModel().fillOptionsFromCache(s.getReference())).collect(Collectors.toList());
+		List<DeployableReference> updatedRefs = updated.stream().map(
+				s -> dummyServer.getDelegate().getServerPublishModel().fillOptionsFromCache(s.getReference())).collect(Collectors.toList());
 
 		// Calculate the delta on modules?
 		List<DeployableReference> unchanged = new ArrayList<>();
@@ -88,6 +88,16 @@ public abstract class BaseJBossServerType implements IServerType{
 				"Set the inactivity limit before the autopublisher runs.", 
 				IJBossServerAttributes.AUTOPUBLISH_INACTIVITY_LIMIT_DEFAULT);
 
+		attrs.addAttribute(IJBossServerAttributes.PUBLISH_COPY_THREADS, 
+				ServerManagementAPIConstants.ATTR_TYPE_INT, 
+				"Set the number of threads copying files while publishing. 0 uses one thread per processor, up to 8.", 
+				IJBossServerAttributes.PUBLISH_COPY_THREADS_DEFAULT);
+
+		attrs.addAttribute(IJBossServerAttributes.PUBLISH_DEPLOYABLE_THREADS, 
+				ServerManagementAPIConstants.ATTR_TYPE_INT, 
+				"Set the number of deployables published at the same time. 1 publishes them one after another.", 
+				IJBossServerAttributes.PUBLISH_DEPLOYABLE_THREADS_DEFAULT);
+
 		attrs.addAttribute(IJBossServerAttributes.JBOSS_SERVER_HOST, 
 				ServerManagementAPIConstants.ATTR_TYPE_STRING, 
 				"Set the host you want your JBoss / WildFly instance to bind to. Use 0.0.0.0 for all.", 
@@ -10,18 +10,24 @@ package org.jboss.tools.rsp.server.wildfly.servertype.impl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import org.jboss.tools.rsp.api.ServerManagementAPIConstants;
 import org.jboss.tools.rsp.api.dao.ListServerActionResponse;
 import org.jboss.tools.rsp.api.dao.ServerActionRequest;
 import org.jboss.tools.rsp.api.dao.ServerActionWorkflow;
+import org.jboss.tools.rsp.api.dao.ServerStartingAttributes;
+import org.jboss.tools.rsp.api.dao.StartServerResponse;
 import org.jboss.tools.rsp.api.dao.UpdateServerResponse;
 import org.jboss.tools.rsp.api.dao.WorkflowResponse;
 import org.jboss.tools.rsp.eclipse.core.runtime.IPath;
+import org.jboss.tools.rsp.eclipse.core.runtime.IStatus;
 import org.jboss.tools.rsp.eclipse.core.runtime.Path;
 import org.jboss.tools.rsp.eclipse.core.runtime.Status;
 import org.jboss.tools.rsp.server.spi.launchers.IServerShutdownLauncher;
 import org.jboss.tools.rsp.server.spi.launchers.IServerStartLauncher;
+import org.jboss.tools.rsp.server.spi.model.polling.IServerStatePoller;
+import org.jboss.tools.rsp.server.spi.model.polling.LogPatternPoller;
 import org.jboss.tools.rsp.server.spi.publishing.IFullPublishRequiredCallback;
 import org.jboss.tools.rsp.server.spi.publishing.IPublishController;
 import org.jboss.tools.rsp.server.spi.servertype.CreateServerValidation;
@@ -35,7 +41,20 @@ import org.jboss.tools.rsp.server.wildfly.servertype.actions.ShowInBrowserAction
 import org.jboss.tools.rsp.server.wildfly.servertype.publishing.WildFlyPublishController;
 
 public class WildFlyServerDelegate extends AbstractJBossServerDelegate {
+	/*
+	 * "WFLYSRV0025: WildFly ... started in", or "started (with errors)",
+	 * and the JBAS codes of AS 7 and EAP 6
+	 */
+	private static final Pattern STARTED = Pattern.compile("(WFLYSRV002[56]|JBAS01587[45]):");
+	private static final Pattern STOPPED = Pattern.compile("(WFLYSRV0050|JBAS015950):");
+	/*
+	 * The web port is pinged if the console does not show the server started by then
+	 */
+	private static final long LOG_POLLER_FALLBACK_DELAY = 30000;
+
 	private IFullPublishRequiredCallback fullPublishCallback;
+	private volatile boolean launchedByClient;
+
 	public WildFlyServerDelegate(IServer server) {
 		super(server);
 		setServerState(ServerManagementAPIConstants.STATE_STOPPED);
@@ -59,6 +78,28 @@ public class WildFlyServerDelegate extends AbstractJBossServerDelegate {
 	protected IServerShutdownLauncher getStopLauncher() {
 		return new WildFlyStopLauncher(this);
 	}
+	@Override
+	public StartServerResponse start(String mode) {
+		launchedByClient = false;
+		return super.start(mode);
+	}
+
+	@Override
+	public IStatus clientSetServerStarting(ServerStartingAttributes attr) {
+		launchedByClient = true;
+		return super.clientSetServerStarting(attr);
+	}
+
+	@Override
+	protected IServerStatePoller getPoller(IServerStatePoller.SERVER_STATE expectedState) {
+		if( launchedByClient ) {
+			// The output of a server launched by the client is not read
+			return super.getPoller(expectedState);
+		}
+		return new LogPatternPoller(getServer().getName(), STARTED, null, STOPPED, 
+				super.getPoller(expectedState), LOG_POLLER_FALLBACK_DELAY);
+	}
+
 	@Override
 	protected IPublishController createPublishController() {
 		return new WildFlyPublishController(getServer(), this);